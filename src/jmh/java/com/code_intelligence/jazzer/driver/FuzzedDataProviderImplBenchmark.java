@@ -0,0 +1,148 @@
+/*
+ * Copyright 2024 Code Intelligence GmbH
+ *
+ * By downloading, you agree to the Code Intelligence Jazzer Terms and Conditions.
+ *
+ * The Code Intelligence Jazzer Terms and Conditions are provided in LICENSE-JAZZER.txt
+ * located in the root directory of the project.
+ */
+
+package com.code_intelligence.jazzer.driver;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * This benchmark compares the native {@link FuzzedDataProviderImpl} with the pure Java {@link
+ * JavaFuzzedDataProviderImpl}. Every invocation resets the provider to the start of a fixed random
+ * input and then performs {@link #CALLS_PER_INPUT} calls of the same consume method, which is about
+ * as many as a typical fuzz target makes per execution.
+ */
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Benchmark)
+public class FuzzedDataProviderImplBenchmark {
+  private static final int CALLS_PER_INPUT = 64;
+  private static final int INPUT_SIZE = 4096;
+
+  @Param({"native", "java"})
+  String implementation;
+
+  private FuzzedDataProviderImpl data;
+
+  @Setup
+  public void createFuzzedDataProvider() {
+    byte[] input = new byte[INPUT_SIZE];
+    new Random(0).nextBytes(input);
+    data = FuzzedDataProviderImpl.withJavaData(input, implementation.equals("java"));
+  }
+
+  @TearDown
+  public void closeFuzzedDataProvider() {
+    data.close();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(CALLS_PER_INPUT)
+  public void consumeBoolean(Blackhole blackhole) {
+    data.reset();
+    for (int i = 0; i < CALLS_PER_INPUT; i++) {
+      blackhole.consume(data.consumeBoolean());
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(CALLS_PER_INPUT)
+  public void consumeInt(Blackhole blackhole) {
+    data.reset();
+    for (int i = 0; i < CALLS_PER_INPUT; i++) {
+      blackhole.consume(data.consumeInt());
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(CALLS_PER_INPUT)
+  public void consumeIntInRange(Blackhole blackhole) {
+    data.reset();
+    for (int i = 0; i < CALLS_PER_INPUT; i++) {
+      blackhole.consume(data.consumeInt(-1000, 1000));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(CALLS_PER_INPUT)
+  public void consumeLong(Blackhole blackhole) {
+    data.reset();
+    for (int i = 0; i < CALLS_PER_INPUT; i++) {
+      blackhole.consume(data.consumeLong());
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(CALLS_PER_INPUT)
+  public void consumeDouble(Blackhole blackhole) {
+    data.reset();
+    for (int i = 0; i < CALLS_PER_INPUT; i++) {
+      blackhole.consume(data.consumeDouble());
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(CALLS_PER_INPUT)
+  public void consumeBytes(Blackhole blackhole) {
+    data.reset();
+    for (int i = 0; i < CALLS_PER_INPUT; i++) {
+      blackhole.consume(data.consumeBytes(16));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(CALLS_PER_INPUT)
+  public void consumeInts(Blackhole blackhole) {
+    data.reset();
+    for (int i = 0; i < CALLS_PER_INPUT; i++) {
+      blackhole.consume(data.consumeInts(4));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(CALLS_PER_INPUT)
+  public void consumeString(Blackhole blackhole) {
+    data.reset();
+    for (int i = 0; i < CALLS_PER_INPUT; i++) {
+      blackhole.consume(data.consumeString(16));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(CALLS_PER_INPUT)
+  public void consumeAsciiString(Blackhole blackhole) {
+    data.reset();
+    for (int i = 0; i < CALLS_PER_INPUT; i++) {
+      blackhole.consume(data.consumeAsciiString(16));
+    }
+  }
+
+  @Benchmark
+  public byte[] consumeRemainingAsBytes() {
+    data.reset();
+    return data.consumeRemainingAsBytes();
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2024 Code Intelligence GmbH
+ *
+ * By downloading, you agree to the Code Intelligence Jazzer Terms and Conditions.
+ *
+ * The Code Intelligence Jazzer Terms and Conditions are provided in LICENSE-JAZZER.txt
+ * located in the root directory of the project.
+ */
+
+package com.code_intelligence.jazzer.instrumentor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * This benchmark measures the number of classes per second that receive full instrumentation
+ * (coverage, data flow tracing and hooks), comparing one parse and serialization per
+ * instrumentation with the single visitor pipeline used by {@link
+ * ClassInstrumentor#fullInstrumentation}.
+ *
+ * <p>The classes are a mix of the OWASP json-sanitizer and large, branch-heavy classes of the JDK.
+ * No hooks are applied, so the hook instrumentation only contributes its traversal of the code.
+ */
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 3)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@State(Scope.Benchmark)
+public class InstrumentationThroughputBenchmark {
+  private static final String[] CLASSES = {
+    "com/google/json/JsonSanitizer",
+    "java/lang/String",
+    "java/math/BigInteger",
+    "java/util/HashMap",
+    "java/util/concurrent/ConcurrentHashMap",
+    "java/util/regex/Pattern",
+  };
+
+  private static final Set<InstrumentationType> INSTRUMENTATIONS =
+      EnumSet.of(
+          InstrumentationType.CMP,
+          InstrumentationType.DIV,
+          InstrumentationType.GEP,
+          InstrumentationType.INDIR);
+
+  private byte[][] bytecodes;
+
+  @Setup
+  public void loadClasses() throws IOException {
+    bytecodes = new byte[CLASSES.length][];
+    for (int i = 0; i < CLASSES.length; i++) {
+      try (InputStream stream =
+          InstrumentationThroughputBenchmark.class
+              .getClassLoader()
+              .getResourceAsStream(CLASSES[i] + ".class")) {
+        if (stream == null) {
+          throw new IOException(String.format("Failed to find class file for %s", CLASSES[i]));
+        }
+        bytecodes[i] = readAllBytes(stream);
+      }
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(6)
+  public void multiPass(Blackhole blackhole) {
+    for (int i = 0; i < CLASSES.length; i++) {
+      ClassInstrumentor instrumentor = new ClassInstrumentor(CLASSES[i], bytecodes[i]);
+      blackhole.consume(instrumentor.coverage(0));
+      instrumentor.traceDataFlow(INSTRUMENTATIONS);
+      instrumentor.hooks(Collections.emptyList(), null);
+      blackhole.consume(instrumentor.getInstrumentedBytecode());
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(6)
+  public void singlePass(Blackhole blackhole) {
+    for (int i = 0; i < CLASSES.length; i++) {
+      ClassInstrumentor instrumentor = new ClassInstrumentor(CLASSES[i], bytecodes[i]);
+      blackhole.consume(
+          instrumentor.fullInstrumentation(0, INSTRUMENTATIONS, Collections.emptyList(), null));
+      blackhole.consume(instrumentor.getInstrumentedBytecode());
+    }
+  }
+
+  private static byte[] readAllBytes(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[64 * 1024];
+    int read;
+    while ((read = in.read(buffer)) != -1) {
+      out.write(buffer, 0, read);
+    }
+    return out.toByteArray();
+  }
+}
@@ -9,11 +9,15 @@
 
 package com.code_intelligence.jazzer.mutation;
 
+import static java.util.Arrays.stream;
+
 import com.code_intelligence.jazzer.mutation.annotation.NotNull;
+import com.code_intelligence.jazzer.mutation.annotation.WithSize;
 import com.code_intelligence.jazzer.mutation.api.PseudoRandom;
 import com.code_intelligence.jazzer.mutation.engine.SeededPseudoRandom;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Method;
 import java.util.List;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
@@ -28,7 +32,12 @@ import org.openjdk.jmh.annotations.State;
  * This benchmark measures the overhead of the structured mutator on a very fast fuzz test. The two
  * benchmarked variants differ in whether they "detach" the mutated value in every iteration or
  * whether they serialize and then deserialize it instead. The latter is what we do currently, the
- * former is what we want to do in the future but requires patching libFuzzer.
+ * former is what we want to do in the future but requires patching libFuzzer. The fuzz tests
+ * differ in the element type and size of the mutated list.
+ *
+ * <p>The {@code invoke*} benchmarks isolate the cost of passing the arguments to fuzz tests with
+ * different numbers of parameters, comparing {@link ArgumentsMutator#invoke(Object, boolean)} with
+ * plain reflection.
  */
 @BenchmarkMode(Mode.Throughput)
 public class MutatorBenchmark {
@@ -41,21 +50,77 @@ public class MutatorBenchmark {
     blackhole += bytes.stream().mapToInt(i -> i).sum();
   }
 
+  public static void fuzzLargeIntegers(
+      @NotNull @WithSize(min = 1000, max = 10000) List<@NotNull Integer> integers) {
+    blackhole += integers.stream().mapToInt(i -> i).sum();
+  }
+
+  public static void fuzzStrings(@NotNull List<@NotNull String> strings) {
+    blackhole += strings.stream().mapToInt(String::length).sum();
+  }
+
+  public static void fuzz1(int a) {
+    blackhole += a;
+  }
+
+  public static void fuzz3(int a, long b, boolean c) {
+    blackhole += a + (int) b + (c ? 1 : 0);
+  }
+
+  public static void fuzz8(
+      int a, long b, boolean c, byte d, short e, char f, @NotNull Integer g, @NotNull Long h) {
+    blackhole += a + (int) b + (c ? 1 : 0) + d + e + f + g + (int) (long) h;
+  }
+
   @State(Scope.Benchmark)
   public static class BenchmarkState {
     @Param({"10", "100", "1000"})
     public int mutations;
 
+    @Param({"fuzzMinimal", "fuzzLargeIntegers", "fuzzStrings"})
+    public String fuzzTest;
+
     public ArgumentsMutator mutator;
 
     @Setup(Level.Iteration)
     public void setUp() throws NoSuchMethodException {
       mutator =
-          ArgumentsMutator.forMethodOrThrow(
-              MutatorBenchmark.class.getMethod("fuzzMinimal", List.class));
+          ArgumentsMutator.forMethodOrThrow(MutatorBenchmark.class.getMethod(fuzzTest, List.class));
     }
   }
 
+  @State(Scope.Benchmark)
+  public static class InvokeState {
+    @Param({"1", "3", "8"})
+    public int parameters;
+
+    public Method method;
+    public ArgumentsMutator mutator;
+    public Object[] arguments;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+      method =
+          stream(MutatorBenchmark.class.getMethods())
+              .filter(m -> m.getName().equals("fuzz" + parameters))
+              .findFirst()
+              .get();
+      mutator = ArgumentsMutator.forMethodOrThrow(method);
+      mutator.init(new SeededPseudoRandom(12345678));
+      arguments = mutator.getArguments();
+    }
+  }
+
+  @Benchmark
+  public void invokeArgumentsMutator(InvokeState state) throws Throwable {
+    state.mutator.invoke(null, false);
+  }
+
+  @Benchmark
+  public void invokeReflection(InvokeState state) throws Throwable {
+    state.method.invoke(null, state.arguments);
+  }
+
   @Benchmark
   public void mutateDetachInvoke(BenchmarkState state) throws Throwable {
     ArgumentsMutator mutator = state.mutator;
@@ -64,6 +129,7 @@ public class MutatorBenchmark {
     for (int i = 0; i < state.mutations; i++) {
       mutator.mutate(prng);
       mutator.invoke(null, true);
+      mutator.finishFuzzingIteration();
     }
   }
 
@@ -82,6 +148,7 @@ public class MutatorBenchmark {
       mutator.write(out);
       buffer = out.toByteArray();
       mutator.invoke(null, false);
+      mutator.finishFuzzingIteration();
     }
   }
 }
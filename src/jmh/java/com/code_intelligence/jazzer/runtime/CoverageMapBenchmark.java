@@ -0,0 +1,109 @@
+/*
+ * Copyright 2024 Code Intelligence GmbH
+ *
+ * By downloading, you agree to the Code Intelligence Jazzer Terms and Conditions.
+ *
+ * The Code Intelligence Jazzer Terms and Conditions are provided in LICENSE-JAZZER.txt
+ * located in the root directory of the project.
+ */
+
+package com.code_intelligence.jazzer.runtime;
+
+import com.code_intelligence.jazzer.utils.UnsafeProvider;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sun.misc.Unsafe;
+
+/**
+ * This benchmark measures how the number of coverage counters registered with libFuzzer affects the
+ * number of executions per second of a fuzz target that covers a fixed number of edges.
+ *
+ * <p>After every execution, libFuzzer collects the features of all registered counters and clears
+ * them. {@link #execution()} models this by recording the coverage of a trivial fuzz target and
+ * then scanning all registered counters eight at a time and clearing them, as libFuzzer does.
+ * {@link #getCoveredIds()} measures the scan Jazzer performs itself.
+ *
+ * <p>Since every fork registers its counters with the same {@link CoverageMap}, which can't
+ * unregister them, each combination of parameters has to run in a fresh fork.
+ */
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@State(Scope.Benchmark)
+public class CoverageMapBenchmark {
+  private static final Unsafe UNSAFE = UnsafeProvider.getUnsafe();
+  private static final int COVERED_EDGES_PER_EXECUTION = 64;
+
+  @Param({"512", "4096", "32768", "262144"})
+  int numRegisteredCounters;
+
+  /**
+   * The distance between the first IDs of consecutive registered modules in units of modules. A
+   * value larger than 1 models the sparse ID usage of a reserved coverage ID layout, where
+   * unregistered modules lie between the registered ones.
+   */
+  @Param({"1", "4"})
+  int moduleStride;
+
+  private long[] moduleAddresses;
+  private int[] coveredIds;
+
+  @Setup
+  public void registerCounters() {
+    int numModules = numRegisteredCounters / CoverageMap.COUNTERS_PER_MODULE;
+    moduleAddresses = new long[numModules];
+    for (int module = 0; module < numModules; module++) {
+      int firstId = module * moduleStride * CoverageMap.COUNTERS_PER_MODULE;
+      CoverageMap.enlargeIfNeeded(firstId);
+      moduleAddresses[module] = CoverageMap.countersAddress + firstId;
+    }
+    coveredIds = new int[COVERED_EDGES_PER_EXECUTION];
+    for (int i = 0; i < COVERED_EDGES_PER_EXECUTION; i++) {
+      int module = (int) ((long) i * numModules / COVERED_EDGES_PER_EXECUTION);
+      coveredIds[i] =
+          module * moduleStride * CoverageMap.COUNTERS_PER_MODULE
+              + (8 * i) % CoverageMap.COUNTERS_PER_MODULE;
+    }
+  }
+
+  @Benchmark
+  public int execution() {
+    runFuzzTarget();
+    int numFeatures = 0;
+    for (long moduleAddress : moduleAddresses) {
+      for (long address = moduleAddress;
+          address < moduleAddress + CoverageMap.COUNTERS_PER_MODULE;
+          address += 8) {
+        if (UNSAFE.getLong(address) != 0) {
+          numFeatures++;
+        }
+      }
+      UNSAFE.setMemory(moduleAddress, CoverageMap.COUNTERS_PER_MODULE, (byte) 0);
+    }
+    return numFeatures;
+  }
+
+  @Benchmark
+  public int getCoveredIds() {
+    runFuzzTarget();
+    return CoverageMap.getCoveredIds().cardinality();
+  }
+
+  private void runFuzzTarget() {
+    for (int id : coveredIds) {
+      CoverageMap.recordCoverage(id);
+    }
+  }
+}
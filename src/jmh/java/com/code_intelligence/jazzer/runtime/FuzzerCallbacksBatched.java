@@ -0,0 +1,63 @@
+/*
+ * Copyright 2024 Code Intelligence GmbH
+ *
+ * By downloading, you agree to the Code Intelligence Jazzer Terms and Conditions.
+ *
+ * The Code Intelligence Jazzer Terms and Conditions are provided in LICENSE-JAZZER.txt
+ * located in the root directory of the project.
+ */
+
+package com.code_intelligence.jazzer.runtime;
+
+import com.code_intelligence.jazzer.utils.UnsafeProvider;
+import com.github.fmeum.rules_jni.RulesJni;
+import sun.misc.Unsafe;
+
+/**
+ * Implementation of the libFuzzer callbacks that appends compares to an off-heap buffer and
+ * reports them with a single JNI call once the buffer is full, mirroring
+ * TraceDataFlowBatchedCallbacks.
+ */
+public final class FuzzerCallbacksBatched {
+  static {
+    RulesJni.loadLibrary("fuzzer_callbacks", FuzzerCallbacksBatched.class);
+  }
+
+  private static final Unsafe UNSAFE = UnsafeProvider.getUnsafe();
+  private static final int RECORD_SIZE = 24;
+  private static final int CAPACITY = 4096;
+  private static final int CMP4 = 0;
+  private static final long BUFFER = UNSAFE.allocateMemory((long) RECORD_SIZE * CAPACITY);
+
+  private static Thread bufferingThread;
+  private static int size;
+
+  static void bufferEventsOfCurrentThread() {
+    flush();
+    bufferingThread = Thread.currentThread();
+  }
+
+  static void flush() {
+    if (size != 0) {
+      traceBatch(BUFFER, size);
+      size = 0;
+    }
+  }
+
+  static void traceCmpInt(int arg1, int arg2, int pc) {
+    if (Thread.currentThread() == bufferingThread) {
+      long record = BUFFER + (long) size * RECORD_SIZE;
+      UNSAFE.putInt(record, CMP4);
+      UNSAFE.putInt(record + 4, pc);
+      UNSAFE.putLong(record + 8, arg1);
+      UNSAFE.putLong(record + 16, arg2);
+      if (++size == CAPACITY) {
+        flush();
+      }
+    } else {
+      FuzzerCallbacksWithPc.traceCmpInt(arg1, arg2, pc);
+    }
+  }
+
+  private static native void traceBatch(long address, int count);
+}
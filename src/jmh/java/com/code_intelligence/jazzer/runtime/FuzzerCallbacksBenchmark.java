@@ -55,6 +55,21 @@ public class FuzzerCallbacksBenchmark {
     FuzzerCallbacksOptimizedCritical.traceCmpInt(state.arg1, state.arg2, state.pc);
   }
 
+  @State(Scope.Thread)
+  public static class BatchedState {
+    @Setup
+    public void setup() {
+      FuzzerCallbacksBatched.bufferEventsOfCurrentThread();
+    }
+  }
+
+  // Buffers compares and reports them to libFuzzer with one JNI call per 4096 compares, which
+  // amortizes the transition cost over all compares of a typical fuzz target execution.
+  @Benchmark
+  public void traceCmpIntBatched(TraceCmpIntState state, BatchedState batchedState) {
+    FuzzerCallbacksBatched.traceCmpInt(state.arg1, state.arg2, state.pc);
+  }
+
   // Uncomment to benchmark Project Panama-backed implementation (requires JDK 16+).
   //  @Benchmark
   //  @Fork(jvmArgsAppend = {"--enable-native-access=ALL-UNNAMED", "--add-modules",
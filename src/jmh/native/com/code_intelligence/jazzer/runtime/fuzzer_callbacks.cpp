@@ -12,6 +12,7 @@
 #include <cstdint>
 
 #include "com_code_intelligence_jazzer_runtime_FuzzerCallbacks.h"
+#include "com_code_intelligence_jazzer_runtime_FuzzerCallbacksBatched.h"
 #include "com_code_intelligence_jazzer_runtime_FuzzerCallbacksOptimizedCritical.h"
 #include "com_code_intelligence_jazzer_runtime_FuzzerCallbacksOptimizedNonCritical.h"
 #include "com_code_intelligence_jazzer_runtime_FuzzerCallbacksWithPc.h"
@@ -51,6 +52,24 @@ void Java_com_code_1intelligence_jazzer_runtime_FuzzerCallbacksWithPc_traceCmpIn
   __sanitizer_cov_trace_cmp4_with_pc(idToPc(id), value1, value2);
 }
 
+struct TraceEvent {
+  jint kind;
+  jint id;
+  jlong arg1;
+  jlong arg2;
+};
+
+void Java_com_code_1intelligence_jazzer_runtime_FuzzerCallbacksBatched_traceBatch(
+    JNIEnv *env, jclass cls, jlong address, jint count) {
+  const auto *events = reinterpret_cast<const TraceEvent *>(address);
+  for (jint i = 0; i < count; ++i) {
+    // The benchmark only records 4-byte compares.
+    __sanitizer_cov_trace_cmp4_with_pc(idToPc(events[i].id),
+                                       static_cast<uint32_t>(events[i].arg1),
+                                       static_cast<uint32_t>(events[i].arg2));
+  }
+}
+
 void Java_com_code_1intelligence_jazzer_runtime_FuzzerCallbacksOptimizedCritical_traceCmpInt(
     JNIEnv *env, jclass cls, jint value1, jint value2, jint id) {
   __sanitizer_cov_trace_cmp4(value1, value2);
@@ -13,19 +13,29 @@
 
 package com.code_intelligence.jazzer.agent
 
+import com.code_intelligence.jazzer.Constants.JAZZER_VERSION
 import com.code_intelligence.jazzer.driver.Opt
 import com.code_intelligence.jazzer.instrumentor.CoverageRecorder
 import com.code_intelligence.jazzer.instrumentor.Hooks
 import com.code_intelligence.jazzer.instrumentor.InstrumentationType
+import com.code_intelligence.jazzer.runtime.ForeignFunctions
 import com.code_intelligence.jazzer.sanitizers.Constants
 import com.code_intelligence.jazzer.utils.ClassNameGlobber
 import com.code_intelligence.jazzer.utils.Log
 import com.code_intelligence.jazzer.utils.ManifestUtils
 import java.lang.instrument.Instrumentation
+import java.nio.file.Files
 import java.nio.file.Paths
 import kotlin.io.path.exists
 import kotlin.io.path.isDirectory
 
+/**
+ * The coverage ID strategy used with --instrument_only, which reserves the IDs of all classes in a jar before they are
+ * instrumented concurrently.
+ */
+@JvmField
+val offlineCoverageIdStrategy = ReservedCoverageIdStrategy()
+
 fun install(instrumentation: Instrumentation) {
     installInternal(instrumentation)
 }
@@ -40,11 +50,22 @@ fun installInternal(
     customHookIncludes: List<String> = Opt.customHookIncludes.get(),
     customHookExcludes: List<String> = Opt.customHookExcludes.get(),
     conditionalHooks: Boolean = Opt.conditionalHooks.get(),
+    batchTrace: Boolean = Opt.batchTrace.get(),
+    foreignFunctionCallbacks: Boolean = Opt.foreignFunctionCallbacks.get(),
+    indyHooks: Boolean = Opt.indyHooks.get(),
+    pruneCoverageProbes: Boolean = Opt.pruneCoverageProbes.get(),
     trace: List<String> = Opt.trace.get(),
     idSyncFile: String = Opt.idSyncFile.get(),
+    coverageIdLayout: String = Opt.coverageIdLayout.get(),
+    hookTargetsFile: String = Opt.hookTargetsFile.get(),
     dumpClassesDir: String = Opt.dumpClassesDir.get(),
+    instrumentationCacheDir: String = Opt.instrumentationCacheDir.get(),
     additionalClassesExcludes: List<String> = Opt.additionalClassesExcludes.get(),
 ) {
+    // Has to happen before instrumented code can load the callbacks.
+    if (foreignFunctionCallbacks) {
+        ForeignFunctions.enable()
+    }
     val allCustomHookNames = (Constants.SANITIZER_HOOK_NAMES + userHookNames).toSet()
     check(allCustomHookNames.isNotEmpty()) { "No hooks registered; expected at least the built-in hooks" }
     val customHookNames = allCustomHookNames - disabledHookNames.toSet()
@@ -102,10 +123,27 @@ fun installInternal(
                 else -> null
             }
         }
-    val coverageIdSynchronizer = if (idSyncFilePath != null) {
-        FileSyncCoverageIdStrategy(idSyncFilePath)
-    } else {
-        MemSyncCoverageIdStrategy()
+    val coverageIdLayoutPath = coverageIdLayout.takeUnless { it.isEmpty() }?.let { Paths.get(it) }
+    val coverageIdSynchronizer = when {
+        // The layout is written by the OfflineInstrumentor after all jars have been instrumented.
+        instrumentOnly.isNotEmpty() -> offlineCoverageIdStrategy
+        coverageIdLayoutPath != null -> {
+            val layout = if (coverageIdLayoutPath.exists()) {
+                Log.info("Using coverage ID layout from ${coverageIdLayoutPath.toAbsolutePath()}")
+                CoverageIdLayout.read(coverageIdLayoutPath)
+            } else {
+                CoverageIdLayout.scanClasspath(classNameGlobber).also {
+                    it.write(coverageIdLayoutPath)
+                    Log.info("Wrote coverage ID layout to ${coverageIdLayoutPath.toAbsolutePath()}")
+                }
+            }
+            // Classes missing from the layout or changed since it was computed receive IDs after the layout, which
+            // have to be synchronized with other processes just like without a layout.
+            val unreservedIdStrategy = idSyncFilePath?.let { MappedFileCoverageIdStrategy(it, layout.endId) }
+            ReservedCoverageIdStrategy(unreservedIdStrategy).apply { reserve(layout) }
+        }
+        idSyncFilePath != null -> MappedFileCoverageIdStrategy(idSyncFilePath)
+        else -> MemSyncCoverageIdStrategy()
     }
 
     // If we don't append the JARs containing the custom hooks to the bootstrap class loader,
@@ -114,7 +152,31 @@ fun installInternal(
     // not be considered when resolving references to hook methods, leading to NoClassDefFoundError
     // being thrown.
     Hooks.appendHooksToBootstrapClassLoaderSearch(instrumentation, customHookNames.toSet())
-    val (includedHooks, customHooks) = Hooks.loadHooks(additionalClassesExcludes, includedHookNames.toSet(), customHookNames.toSet())
+    val (includedHooks, customHooks) = Hooks.loadHooks(
+        additionalClassesExcludes,
+        includedHookNames.toSet(),
+        customHookNames.toSet(),
+        hookTargetsFile = hookTargetsFile.takeUnless { it.isEmpty() }?.let { Paths.get(it) },
+    )
+
+    val instrumentationCache = instrumentationCacheDir.takeUnless { it.isEmpty() }?.let {
+        val path = Files.createDirectories(Paths.get(it).toAbsolutePath())
+        Log.info("Caching instrumented classes in $path")
+        // Everything apart from the original bytecode and the first coverage ID that affects the result of
+        // instrumentation has to be part of the settings to prevent stale cache entries from being used.
+        val settings = listOf(
+            JAZZER_VERSION,
+            instrumentationTypes.sorted(),
+            conditionalHooks,
+            batchTrace,
+            indyHooks,
+            pruneCoverageProbes,
+        ) +
+            (includedHooks.hooks + customHooks.hooks).map {
+                "$it ${it.targetMethodDescriptor} ${it.hookMethodDescriptor}"
+            }
+        InstrumentationCache(path, settings.joinToString("\n"))
+    }
 
     val runtimeInstrumentor = RuntimeInstrumentor(
         instrumentation,
@@ -125,9 +187,13 @@ fun installInternal(
         includedHooks.hooks,
         customHooks.hooks,
         conditionalHooks,
+        batchTrace,
+        indyHooks,
+        pruneCoverageProbes,
         customHooks.additionalHookClassNameGlobber,
         coverageIdSynchronizer,
         dumpClassesDirPath,
+        instrumentationCache,
     )
 
     // These classes are e.g. dependencies of the RuntimeInstrumentor or hooks and thus were loaded
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2024 Code Intelligence GmbH
+ *
+ * By downloading, you agree to the Code Intelligence Jazzer Terms and Conditions.
+ *
+ * The Code Intelligence Jazzer Terms and Conditions are provided in LICENSE-JAZZER.txt
+ * located in the root directory of the project.
+ */
+
+package com.code_intelligence.jazzer.agent
+
+import com.code_intelligence.jazzer.instrumentor.EdgeCoverageInstrumentor
+import com.code_intelligence.jazzer.utils.ClassNameGlobber
+import com.code_intelligence.jazzer.utils.Log
+import io.github.classgraph.ClassGraph
+import java.io.IOException
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardCopyOption
+
+/**
+ * An assignment of coverage IDs to classes that is computed ahead of time rather than in the order in which classes are
+ * loaded. Processes that use the same layout assign the same IDs to all classes in it without any synchronization.
+ *
+ * A layout is stored as lines of the form `<internal class name>:<first ID>:<num IDs>`.
+ */
+class CoverageIdLayout(val entries: List<Entry>) {
+
+    class Entry(val internalClassName: String, val firstId: Int, val numIds: Int)
+
+    /**
+     * The first ID after all IDs assigned by this layout.
+     */
+    val endId: Int
+        get() = entries.maxOfOrNull { it.firstId + it.numIds } ?: 0
+
+    /**
+     * Writes the layout to [path] atomically, so that concurrent readers never observe a partially written layout.
+     */
+    @Throws(IOException::class)
+    fun write(path: Path) {
+        val tempFile = Files.createTempFile(path.toAbsolutePath().parent, path.fileName.toString(), ".tmp")
+        try {
+            Files.write(tempFile, entries.map { "${it.internalClassName}:${it.firstId}:${it.numIds}" })
+            Files.move(tempFile, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING)
+        } finally {
+            Files.deleteIfExists(tempFile)
+        }
+    }
+
+    companion object {
+        @JvmStatic
+        fun read(path: Path): CoverageIdLayout = CoverageIdLayout(
+            Files.readAllLines(path)
+                .filterNot { it.isBlank() }
+                .map { line ->
+                    val parts = line.split(':')
+                    check(parts.size == 3) {
+                        "Expected coverage ID layout line to be of the form '<class name>:<first ID>:<num IDs>', got '$line'"
+                    }
+                    val entry = Entry(parts[0], parts[1].toInt(), parts[2].toInt())
+                    check(entry.firstId >= 0 && entry.numIds >= 0) { "Negative ID in line: $line" }
+                    entry
+                },
+        )
+
+        /**
+         * Computes the layout of all classes on the class path that are included by [classNameGlobber] by assigning
+         * consecutive IDs to them in the order of their names. Only the first of multiple classes with the same name
+         * is considered, just like the class loader would.
+         */
+        @JvmStatic
+        fun scanClasspath(classNameGlobber: ClassNameGlobber): CoverageIdLayout {
+            val (classNames, numIds) = ClassGraph().scan().use { scanResult ->
+                val resources = scanResult.getResourcesWithExtension("class")
+                    .filterNot { it.path.startsWith("META-INF/") || it.path.endsWith("-info.class") }
+                    .distinctBy { it.path }
+                    .filter { classNameGlobber.includes(it.path.removeSuffix(".class")) }
+                    .sortedBy { it.path }
+                val numIds = resources.parallelStream()
+                    .mapToInt { resource ->
+                        try {
+                            EdgeCoverageInstrumentor.countEdges(resource.load())
+                        } catch (e: Exception) {
+                            // Classes that can't be analyzed receive IDs after the layout if they are instrumented.
+                            -1
+                        }
+                    }
+                    .toArray()
+                Pair(resources.map { it.path.removeSuffix(".class") }, numIds)
+            }
+            var nextId = 0
+            val entries = classNames.indices.filter { numIds[it] >= 0 }.map { i ->
+                Entry(classNames[i], nextId, numIds[i]).also { nextId += numIds[i] }
+            }
+            Log.info("Computed coverage ID layout of ${entries.size} classes with $nextId IDs")
+            return CoverageIdLayout(entries)
+        }
+    }
+}
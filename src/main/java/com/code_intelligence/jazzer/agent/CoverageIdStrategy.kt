@@ -9,13 +9,15 @@
 
 package com.code_intelligence.jazzer.agent
 
-import com.code_intelligence.jazzer.utils.Log
-import java.nio.ByteBuffer
+import com.code_intelligence.jazzer.third_party.org.jacoco.core.internal.data.CRC64
+import com.code_intelligence.jazzer.utils.UnsafeProvider
+import java.nio.Buffer
+import java.nio.MappedByteBuffer
 import java.nio.channels.FileChannel
-import java.nio.channels.FileLock
 import java.nio.file.Path
 import java.nio.file.StandardOpenOption
-import java.util.UUID
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
 
 /**
  * Indicates a fatal failure to generate synchronized coverage IDs.
@@ -38,6 +40,21 @@ interface CoverageIdStrategy {
      */
     @Throws(CoverageIdException::class)
     fun withIdForClass(className: String, block: (Int) -> Int)
+
+    /**
+     * Whether the number of IDs used by a class has to be known before it is instrumented, in which case callers have
+     * to use the overload of [withIdForClass] that takes an [idCount].
+     */
+    val needsIdCount: Boolean
+        get() = false
+
+    /**
+     * Variant of [withIdForClass] for callers that know the number of IDs [idCount] used by [className] before
+     * instrumenting it, which allows strategies to assign IDs without holding a lock while [block] executes. [block]
+     * still has to return the number of additionally used IDs.
+     */
+    @Throws(CoverageIdException::class)
+    fun withIdForClass(className: String, idCount: Int, block: (Int) -> Int) = withIdForClass(className, block)
 }
 
 /**
@@ -59,160 +76,235 @@ class MemSyncCoverageIdStrategy : CoverageIdStrategy {
 }
 
 /**
- * A strategy for coverage ID generation that synchronizes the IDs assigned to a class with other processes via the
- * specified [idSyncFile].
- * This class takes care of synchronizing the access to the file between multiple processes as long as the general
- * contract of [CoverageIdStrategy] is followed.
+ * A strategy for coverage ID generation that hands out ID ranges reserved ahead of instrumentation via [reserve], e.g.
+ * from a [CoverageIdLayout].
+ *
+ * Classes with a reservation are instrumented without holding a lock, so they can be instrumented concurrently and
+ * still receive the same IDs regardless of the order in which they are loaded. Classes without a reservation or with a
+ * different number of edges than reserved, e.g. because they changed since the reservation was made, are assigned IDs
+ * by [unreservedIdStrategy] if set, which has to hand out IDs after all reserved ranges, e.g. a
+ * [MappedFileCoverageIdStrategy] that shares them with other processes. Otherwise, they are assigned IDs after all
+ * ranges reserved so far, just like with [MemSyncCoverageIdStrategy], which only prevents races within one VM instance.
  */
-class FileSyncCoverageIdStrategy(private val idSyncFile: Path) : CoverageIdStrategy {
-    private val uuid: UUID = UUID.randomUUID()
-    private var idFileLock: FileLock? = null
+class ReservedCoverageIdStrategy(private val unreservedIdStrategy: CoverageIdStrategy? = null) : CoverageIdStrategy {
+    private val reservedIds = ConcurrentHashMap<String, CoverageIdLayout.Entry>()
+    private var nextEdgeId = 0
 
-    private var cachedFirstId: Int? = null
-    private var cachedClassName: String? = null
-    private var cachedIdCount: Int? = null
+    /**
+     * Reserves [numIds] consecutive coverage IDs after all IDs assigned so far for the class named [className].
+     * Replaces any previous reservation for [className].
+     */
+    @Synchronized
+    fun reserve(className: String, numIds: Int) {
+        reservedIds[className] = CoverageIdLayout.Entry(className, nextEdgeId, numIds)
+        nextEdgeId += numIds
+    }
 
     /**
-     * This method is synchronized to prevent concurrent access to the internal file lock which would result in
-     * [java.nio.channels.OverlappingFileLockException]. Furthermore, every coverage ID obtained by [obtainFirstId]
-     * is always committed back again to the sync file by [commitIdCount].
+     * Reserves the IDs of all classes in [layout].
      */
     @Synchronized
-    override fun withIdForClass(className: String, block: (Int) -> Int) {
-        var actualNumEdgeIds = 0
-        try {
-            val firstId = obtainFirstId(className)
-            actualNumEdgeIds = block(firstId)
-        } finally {
-            commitIdCount(actualNumEdgeIds)
+    fun reserve(layout: CoverageIdLayout) {
+        for (entry in layout.entries) {
+            reservedIds[entry.internalClassName] = entry
+            nextEdgeId = maxOf(nextEdgeId, entry.firstId + entry.numIds)
         }
     }
 
     /**
-     * Obtains a coverage ID for [className] such that all cooperating agent processes will obtain the same ID.
-     * There are two cases to consider:
-     * - This agent process is the first to encounter [className], i.e., it does not find a record for that class in
-     *   [idSyncFile]. In this case, a lock on the file is held until the class has been instrumented and a record with
-     *   the required number of coverage IDs has been added.
-     * - Another agent process has already encountered [className], i.e., there is a record that class in [idSyncFile].
-     *   In this case, the lock on the file is returned immediately and the extracted first coverage ID is returned to
-     *   the caller. The caller is still expected to call [commitIdCount] so that desynchronization can be detected.
+     * Returns the current reservations ordered by their first ID and, for classes without IDs, their name.
      */
-    private fun obtainFirstId(className: String): Int {
-        try {
-            check(idFileLock == null) { "Already holding a lock on the ID file" }
-            val localIdFile = FileChannel.open(
-                idSyncFile,
-                StandardOpenOption.WRITE,
-                StandardOpenOption.READ,
+    fun layout() = CoverageIdLayout(reservedIds.values.sortedWith(compareBy({ it.firstId }, { it.internalClassName })))
+
+    override val needsIdCount: Boolean
+        get() = true
+
+    override fun withIdForClass(className: String, block: (Int) -> Int) {
+        val reservation = reservedIds[className] ?: return withUnreservedIdForClass(className, null, block)
+        val idCount = block(reservation.firstId)
+        if (idCount != reservation.numIds) {
+            throw CoverageIdException(
+                IllegalStateException("$className has $idCount edges, but ${reservation.numIds} edges reserved"),
             )
-            // Wait until we have obtained the lock on the sync file. We hold the lock from this point until we have
-            // finished reading and writing (if necessary) to the file.
-            val localIdFileLock = localIdFile.lock()
-            check(localIdFileLock.isValid && !localIdFileLock.isShared)
-            // Parse the sync file, which consists of lines of the form
-            // <class name>:<first ID>:<num IDs>
-            val idInfo = localIdFileLock.channel().readFully()
-                .lineSequence()
-                .filterNot { it.isBlank() }
-                .map { line ->
-                    val parts = line.split(':')
-                    check(parts.size == 4) {
-                        "Expected ID file line to be of the form  '<class name>:<first ID>:<num IDs>:<uuid>', got '$line'"
-                    }
-                    val lineClassName = parts[0]
-                    val lineFirstId = parts[1].toInt()
-                    check(lineFirstId >= 0) { "Negative first ID in line: $line" }
-                    val lineIdCount = parts[2].toInt()
-                    check(lineIdCount >= 0) { "Negative ID count in line: $line" }
-                    Triple(lineClassName, lineFirstId, lineIdCount)
-                }.toList()
-            cachedClassName = className
-            val idInfoForClass = idInfo.filter { it.first == className }
-            return when (idInfoForClass.size) {
-                0 -> {
-                    // We are the first to encounter this class and thus need to hold the lock until the class has been
-                    // instrumented and we know the required number of coverage IDs.
-                    idFileLock = localIdFileLock
-                    // Compute the next free ID as the maximum over the sums of first ID and ID count, starting at 0 if
-                    // this is the first ID to be assigned. In fact, since this is the only way new lines are added to
-                    // the file, the maximum is always attained by the last line.
-                    val nextFreeId = idInfo.asSequence().map { it.second + it.third }.lastOrNull() ?: 0
-                    cachedFirstId = nextFreeId
-                    nextFreeId
-                }
-                1 -> {
-                    // This class has already been instrumented elsewhere, so we just return the first ID and ID count
-                    // reported from there and release the lock right away. The caller is still expected to call
-                    // commitIdCount.
-                    localIdFile.close()
-                    cachedIdCount = idInfoForClass.single().third
-                    idInfoForClass.single().second
-                }
-                else -> {
-                    localIdFile.close()
-                    Log.println(idInfo.joinToString("\n") { "${it.first}:${it.second}:${it.third}" })
-                    throw IllegalStateException("Multiple entries for $className in ID file")
-                }
+        }
+    }
+
+    override fun withIdForClass(className: String, idCount: Int, block: (Int) -> Int) {
+        val reservation = reservedIds[className]?.takeIf { it.numIds == idCount }
+            ?: return withUnreservedIdForClass(className, idCount, block)
+        val actualIdCount = block(reservation.firstId)
+        if (actualIdCount != idCount) {
+            throw CoverageIdException(
+                IllegalStateException("$className has $actualIdCount edges, but $idCount edges reserved"),
+            )
+        }
+    }
+
+    private fun withUnreservedIdForClass(className: String, idCount: Int?, block: (Int) -> Int) {
+        when {
+            unreservedIdStrategy == null -> synchronized(this) { nextEdgeId += block(nextEdgeId) }
+            idCount == null -> unreservedIdStrategy.withIdForClass(className, block)
+            else -> unreservedIdStrategy.withIdForClass(className, idCount, block)
+        }
+    }
+}
+
+/**
+ * A strategy for coverage ID generation that shares the IDs assigned to a class with other processes via the
+ * memory-mapped [idSyncFile].
+ *
+ * The file consists of a header with the next free ID followed by an open-addressing hash table that maps two
+ * independent 64-bit hashes of a class name to the first ID and the number of IDs of that class. The second hash is
+ * only compared after the IDs have been published, so that classes whose first hashes collide receive distinct IDs.
+ * Table slots are claimed and IDs are allocated with atomic operations on the mapped memory, so processes never wait
+ * for each other while instrumenting distinct classes. A process that encounters a class claimed by another process
+ * only waits until the IDs of the class have been published, which happens before the class is instrumented, but at
+ * most for [publishTimeoutNanos] in case the other process died in between.
+ *
+ * [block] runs without holding a lock, so classes can be instrumented concurrently within a process as well: the IDs
+ * passed to it never overlap with those of other classes and the coverage map registers their counters in a
+ * thread-safe way.
+ *
+ * IDs are handed out starting at [minId], which all processes sharing [idSyncFile] have to agree on. The IDs stored in
+ * the file are relative to it.
+ */
+class MappedFileCoverageIdStrategy @JvmOverloads constructor(
+    private val idSyncFile: Path,
+    private val minId: Int = 0,
+    private val numSlots: Int = DEFAULT_NUM_SLOTS,
+    private val publishTimeoutNanos: Long = DEFAULT_PUBLISH_TIMEOUT_NANOS,
+) : CoverageIdStrategy {
+    // Keeps the file mapped for as long as this strategy is in use.
+    private val buffer: MappedByteBuffer
+    private val baseAddress: Long
+
+    init {
+        require(numSlots > 0 && numSlots and (numSlots - 1) == 0) { "numSlots must be a power of two" }
+        try {
+            buffer = FileChannel.open(idSyncFile, StandardOpenOption.READ, StandardOpenOption.WRITE).use {
+                // Mapping a region beyond the end of the file extends it. All processes map the same size, so the
+                // file is never truncated while in use.
+                it.map(FileChannel.MapMode.READ_WRITE, 0, TABLE_OFFSET + numSlots * SLOT_SIZE)
+            }
+            baseAddress = UNSAFE.getLong(buffer, BUFFER_ADDRESS_OFFSET)
+            // The first process to map the (initially empty) file marks it as a coverage ID file with its table size.
+            UNSAFE.compareAndSwapLong(null, baseAddress + NUM_SLOTS_OFFSET, 0L, numSlots.toLong())
+            UNSAFE.compareAndSwapLong(null, baseAddress + MAGIC_OFFSET, 0L, MAGIC)
+            check(UNSAFE.getLongVolatile(null, baseAddress + MAGIC_OFFSET) == MAGIC) {
+                "$idSyncFile is not a coverage ID file"
+            }
+            check(UNSAFE.getLongVolatile(null, baseAddress + NUM_SLOTS_OFFSET) == numSlots.toLong()) {
+                "$idSyncFile has a different number of slots than $numSlots"
             }
         } catch (e: Exception) {
             throw CoverageIdException(e)
         }
     }
 
+    override val needsIdCount: Boolean
+        get() = true
+
+    override fun withIdForClass(className: String, block: (Int) -> Int) {
+        throw CoverageIdException(IllegalStateException("The number of IDs used by $className has to be known"))
+    }
+
+    override fun withIdForClass(className: String, idCount: Int, block: (Int) -> Int) {
+        val (firstId, reservedIdCount) = try {
+            obtainIds(className, idCount)
+        } catch (e: Exception) {
+            throw CoverageIdException(e)
+        }
+        val actualIdCount = block(minId + firstId)
+        if (actualIdCount != reservedIdCount) {
+            throw CoverageIdException(
+                IllegalStateException("$className has $actualIdCount edges, but $reservedIdCount edges reserved in ID file"),
+            )
+        }
+    }
+
     /**
-     * Records the number of coverage IDs used to instrument the class specified in a previous call to [obtainFirstId].
-     * If instrumenting the class should fail, this function must still be called. In this case, [idCount] is set to 0.
+     * Returns the first ID and the number of IDs of [className], either as published by another process or by
+     * allocating [idCount] new IDs if this process is the first to encounter [className].
      */
-    private fun commitIdCount(idCount: Int) {
-        val localIdFileLock = idFileLock
-        try {
-            check(cachedClassName != null)
-            if (localIdFileLock == null) {
-                // We released the lock already in obtainFirstId since the class had already been instrumented
-                // elsewhere. As we know the expected number of IDs for the current class in this case, check for
-                // deviations.
-                check(cachedIdCount != null)
-                check(idCount == cachedIdCount) {
-                    "$cachedClassName has $idCount edges, but $cachedIdCount edges reserved in ID file"
+    private fun obtainIds(className: String, idCount: Int): Pair<Int, Int> {
+        val hash = hash(className)
+        val secondHash = secondHash(className)
+        var slot = hash.toInt() and (numSlots - 1)
+        repeat(numSlots) {
+            val slotAddress = baseAddress + TABLE_OFFSET + slot.toLong() * SLOT_SIZE
+            if (UNSAFE.getLongVolatile(null, slotAddress) == 0L &&
+                UNSAFE.compareAndSwapLong(null, slotAddress, 0L, hash)
+            ) {
+                // We are the first to encounter this class and allocate the IDs for it. The ID count is stored with
+                // an offset of 1 so that 0 indicates that the IDs have not been published yet. Publishing it with a
+                // volatile write makes the second hash and the first ID visible to other processes.
+                val firstId = UNSAFE.getAndAddInt(null, baseAddress + NEXT_ID_OFFSET, idCount)
+                check(firstId >= 0 && minId + firstId + idCount >= 0) { "Coverage IDs exhausted" }
+                UNSAFE.putLong(null, slotAddress + SECOND_HASH_OFFSET, secondHash)
+                UNSAFE.putInt(null, slotAddress + FIRST_ID_OFFSET, firstId)
+                UNSAFE.putIntVolatile(null, slotAddress + ID_COUNT_OFFSET, idCount + 1)
+                return Pair(firstId, idCount)
+            }
+            if (UNSAFE.getLongVolatile(null, slotAddress) == hash) {
+                val ids = awaitPublishedIds(className, slotAddress)
+                // A different class whose first hash collides with that of this class claimed the slot.
+                if (UNSAFE.getLong(null, slotAddress + SECOND_HASH_OFFSET) == secondHash) {
+                    return ids
                 }
-            } else {
-                // We are the first to instrument this class and should record the number of IDs in the sync file.
-                check(cachedFirstId != null)
-                localIdFileLock.channel().append("$cachedClassName:$cachedFirstId:$idCount:$uuid\n")
-                localIdFileLock.channel().force(true)
             }
-            idFileLock = null
-            cachedFirstId = null
-            cachedIdCount = null
-            cachedClassName = null
-        } catch (e: Exception) {
-            throw CoverageIdException(e)
-        } finally {
-            localIdFileLock?.channel()?.close()
+            slot = (slot + 1) and (numSlots - 1)
         }
+        throw IllegalStateException("No free slot for $className in ID file")
     }
-}
 
-/**
- * Reads the [FileChannel] to the end as a UTF-8 string.
- */
-fun FileChannel.readFully(): String {
-    check(size() <= Int.MAX_VALUE)
-    val buffer = ByteBuffer.allocate(size().toInt())
-    while (buffer.hasRemaining()) {
-        when (read(buffer)) {
-            0 -> throw IllegalStateException("No bytes read")
-            -1 -> break
+    private fun awaitPublishedIds(className: String, slotAddress: Long): Pair<Int, Int> {
+        // The slot was claimed by another process or thread, which publishes the IDs right after claiming it.
+        val deadline = System.nanoTime() + publishTimeoutNanos
+        while (true) {
+            val storedIdCount = UNSAFE.getIntVolatile(null, slotAddress + ID_COUNT_OFFSET)
+            if (storedIdCount != 0) {
+                return Pair(UNSAFE.getInt(null, slotAddress + FIRST_ID_OFFSET), storedIdCount - 1)
+            }
+            check(System.nanoTime() - deadline < 0) {
+                "Timed out waiting for the IDs of $className to be published, did another fuzzing process crash?"
+            }
+            Thread.yield()
         }
     }
-    return String(buffer.array())
-}
 
-/**
- * Appends [string] to the end of the [FileChannel].
- */
-fun FileChannel.append(string: String) {
-    position(size())
-    write(ByteBuffer.wrap(string.toByteArray()))
+    companion object {
+        private val UNSAFE = UnsafeProvider.getUnsafe()
+        private val BUFFER_ADDRESS_OFFSET = UNSAFE.objectFieldOffset(Buffer::class.java.getDeclaredField("address"))
+
+        private const val MAGIC = 0x4a415a5a45524944L // "JAZZERID"
+        private const val MAGIC_OFFSET = 0L
+        private const val NEXT_ID_OFFSET = 8L
+        private const val NUM_SLOTS_OFFSET = 16L
+
+        // Slots are laid out as <class name hash (8 bytes)> <second class name hash (8 bytes)> <first ID (4 bytes)>
+        // <ID count + 1 (4 bytes)>.
+        internal const val TABLE_OFFSET = 64L
+        internal const val SLOT_SIZE = 24L
+        internal const val SECOND_HASH_OFFSET = 8L
+        internal const val FIRST_ID_OFFSET = 16L
+        internal const val ID_COUNT_OFFSET = 20L
+
+        // Large enough for any realistic number of instrumented classes. Untouched pages of the file are never
+        // written and thus don't take up space on most file systems.
+        private const val DEFAULT_NUM_SLOTS = 1 shl 20
+
+        private val DEFAULT_PUBLISH_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(60)
+
+        // 0 marks an empty slot.
+        internal fun hash(className: String) = CRC64.classId(className.toByteArray()).takeUnless { it == 0L } ?: 1L
+
+        // FNV-1a, which is independent of the CRC64 used for the first hash.
+        internal fun secondHash(className: String): Long {
+            var hash = -0x340d631b7bdddcdbL
+            for (b in className.toByteArray()) {
+                hash = (hash xor (b.toLong() and 0xff)) * 0x100000001b3L
+            }
+            return hash
+        }
+    }
 }
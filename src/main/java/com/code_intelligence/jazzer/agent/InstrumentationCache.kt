@@ -0,0 +1,97 @@
+/*
+ * Copyright 2024 Code Intelligence GmbH
+ *
+ * By downloading, you agree to the Code Intelligence Jazzer Terms and Conditions.
+ *
+ * The Code Intelligence Jazzer Terms and Conditions are provided in LICENSE-JAZZER.txt
+ * located in the root directory of the project.
+ */
+
+package com.code_intelligence.jazzer.agent
+
+import com.code_intelligence.jazzer.third_party.org.jacoco.core.internal.data.CRC64
+import com.code_intelligence.jazzer.utils.Log
+import java.io.ByteArrayOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.IOException
+import java.nio.file.Files
+import java.nio.file.NoSuchFileException
+import java.nio.file.Path
+import java.nio.file.StandardCopyOption
+
+/**
+ * A persistent cache of instrumented bytecode shared between fuzzer runs and the processes spawned by libFuzzer's
+ * -fork, -jobs and -merge modes.
+ *
+ * An entry is keyed by the CRC64 of the original bytecode, a fingerprint of the instrumentation
+ * [settings] (which must cover everything other than the original bytecode that influences instrumentation, e.g. the
+ * instrumentation types and hooks) and the first coverage ID assigned to the class. An entry is thus only reused if
+ * instrumenting the class again would produce the same bytecode.
+ *
+ * An entry consists of the number of edges, the length of the instrumented bytecode, the bytecode itself and its
+ * CRC64, which allows to detect entries that have been truncated or corrupted on disk.
+ */
+class InstrumentationCache(private val cacheDir: Path, settings: String) {
+    private val settingsId = CRC64.classId(settings.toByteArray())
+
+    class Entry(val bytecode: ByteArray, val numEdges: Int)
+
+    /**
+     * Returns the cached instrumentation of [originalBytecode] or null if there is none. [firstId] has to be -1 if the
+     * class doesn't receive coverage instrumentation.
+     */
+    fun get(internalClassName: String, originalBytecode: ByteArray, firstId: Int): Entry? {
+        return try {
+            DataInputStream(Files.newInputStream(entryPath(originalBytecode, firstId))).use {
+                val numEdges = it.readInt()
+                val bytecodeSize = it.readInt()
+                if (numEdges < 0 || bytecodeSize < 0) {
+                    throw IOException("Invalid cache entry header")
+                }
+                val bytecode = ByteArray(bytecodeSize).also { bytecode -> it.readFully(bytecode) }
+                if (it.readLong() != CRC64.classId(bytecode) || it.read() != -1) {
+                    throw IOException("Corrupted cache entry")
+                }
+                Entry(bytecode, numEdges)
+            }
+        } catch (_: NoSuchFileException) {
+            null
+        } catch (e: IOException) {
+            Log.warn("Failed to read cached instrumentation of $internalClassName", e)
+            null
+        }
+    }
+
+    fun put(internalClassName: String, originalBytecode: ByteArray, firstId: Int, entry: Entry) {
+        val path = entryPath(originalBytecode, firstId)
+        var tempFile: Path? = null
+        try {
+            val content = ByteArrayOutputStream(2 * Int.SIZE_BYTES + entry.bytecode.size + Long.SIZE_BYTES).also {
+                DataOutputStream(it).run {
+                    writeInt(entry.numEdges)
+                    writeInt(entry.bytecode.size)
+                    write(entry.bytecode)
+                    writeLong(CRC64.classId(entry.bytecode))
+                }
+            }.toByteArray()
+            // Write to a temporary file first and move it into place atomically so that concurrently running fuzzers
+            // never observe a partially written entry.
+            tempFile = Files.createTempFile(cacheDir, "jazzer-", ".tmp")
+            Files.write(tempFile, content)
+            Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE)
+        } catch (e: IOException) {
+            Log.warn("Failed to cache instrumentation of $internalClassName", e)
+            try {
+                tempFile?.let { Files.deleteIfExists(it) }
+            } catch (_: IOException) {
+            }
+        }
+    }
+
+    private fun entryPath(originalBytecode: ByteArray, firstId: Int): Path {
+        // The original bytecode contains the class name, so it doesn't have to be part of the key.
+        val classId = CRC64.classId(originalBytecode)
+        return cacheDir.resolve("%016x-%016x-%d.class".format(classId, settingsId, firstId))
+    }
+}
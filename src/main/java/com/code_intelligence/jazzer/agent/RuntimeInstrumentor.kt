@@ -13,6 +13,7 @@ package com.code_intelligence.jazzer.agent
 
 import com.code_intelligence.jazzer.instrumentor.ClassInstrumentor
 import com.code_intelligence.jazzer.instrumentor.CoverageRecorder
+import com.code_intelligence.jazzer.instrumentor.EdgeCoverageInstrumentor
 import com.code_intelligence.jazzer.instrumentor.Hook
 import com.code_intelligence.jazzer.instrumentor.InstrumentationType
 import com.code_intelligence.jazzer.utils.ClassNameGlobber
@@ -36,6 +37,9 @@ class RuntimeInstrumentor(
     private val includedHooks: List<Hook>,
     private val customHooks: List<Hook>,
     private var conditionalHooks: Boolean,
+    private val batchTraceDataFlow: Boolean,
+    private val indyHooks: Boolean,
+    private val pruneCoverageProbes: Boolean,
     // Dedicated name globber for additional classes to hook stated in hook annotations is needed due to
     // existing include and exclude pattern of classesToHookInstrument. All classes are included in hook
     // instrumentation except the ones from default excludes, like JDK and Kotlin classes. But additional
@@ -46,6 +50,7 @@ class RuntimeInstrumentor(
     private val additionalClassesToHookInstrument: ClassNameGlobber,
     private val coverageIdSynchronizer: CoverageIdStrategy,
     private val dumpClassesDir: Path?,
+    private val instrumentationCache: InstrumentationCache? = null,
 ) : ClassFileTransformer {
 
     @kotlin.time.ExperimentalTime
@@ -95,7 +100,11 @@ class RuntimeInstrumentor(
             // Using ClassWriter.COMPUTE_FRAMES as an escape hatch isn't possible in the context of an agent as the
             // computation may itself need to load classes, which leads to circular loads and incompatible class
             // redefinitions.
-            transformInternal(internalClassName, classfileBuffer.takeUnless { loader == null && classBeingRedefined != null })
+            transformInternal(
+                internalClassName,
+                classfileBuffer.takeUnless { loader == null && classBeingRedefined != null },
+                isRetransformation = classBeingRedefined != null,
+            )
         } catch (t: Throwable) {
             if (dumpClassesDir != null) {
                 dumpToClassFile(internalClassName, classfileBuffer, basenameSuffix = ".failed", pathPrefix = pathPrefix)
@@ -162,7 +171,11 @@ class RuntimeInstrumentor(
     }
 
     @kotlin.time.ExperimentalTime
-    fun transformInternal(internalClassName: String, maybeClassfileBuffer: ByteArray?): ByteArray? {
+    fun transformInternal(
+        internalClassName: String,
+        maybeClassfileBuffer: ByteArray?,
+        isRetransformation: Boolean = false,
+    ): ByteArray? {
         val (fullInstrumentation, printInfo) = when {
             classesToFullyInstrument.includes(internalClassName) -> Pair(true, true)
             classesToHookInstrument.includes(internalClassName) -> Pair(false, true)
@@ -187,7 +200,7 @@ class RuntimeInstrumentor(
             }
         val (instrumentedBytecode, duration) = measureTimedValue {
             try {
-                instrument(internalClassName, classfileBuffer, fullInstrumentation)
+                instrument(internalClassName, classfileBuffer, fullInstrumentation, isRetransformation)
             } catch (e: CoverageIdException) {
                 Log.error("Coverage IDs are out of sync")
                 e.printStackTrace()
@@ -206,35 +219,70 @@ class RuntimeInstrumentor(
         return instrumentedBytecode
     }
 
-    private fun instrument(internalClassName: String, bytecode: ByteArray, fullInstrumentation: Boolean): ByteArray {
-        val classWithHooksEnabledField = if (conditionalHooks) {
+    private fun instrument(
+        internalClassName: String,
+        bytecode: ByteArray,
+        fullInstrumentation: Boolean,
+        isRetransformation: Boolean,
+    ): ByteArray {
+        // Hooked call sites dispatched via invokedynamic need a synthetic method per call site, but retransformation
+        // can't add methods. Classes loaded before the agent thus fall back to conditional hooks, which also only run
+        // while hooks are enabled.
+        val indyHooksFallback = indyHooks && isRetransformation
+        val indyHooks = indyHooks && !isRetransformation
+        val classWithHooksEnabledField = if (conditionalHooks || indyHooksFallback) {
             // Let the hook instrumentation emit additional logic that checks the value of the
             // hooksEnabled field on this class and skips the hook if it is false.
             "com/code_intelligence/jazzer/runtime/JazzerInternal"
         } else {
             null
         }
+        // Cache entries are only valid for the instrumentation implied by the settings, which the fallback deviates from.
+        val instrumentationCache = instrumentationCache.takeUnless { indyHooksFallback }
+        if (!fullInstrumentation) {
+            // Classes that only receive hook instrumentation don't use coverage IDs.
+            instrumentationCache?.get(internalClassName, bytecode, -1)?.let { return it.bytecode }
+        }
         return ClassInstrumentor(internalClassName, bytecode).run {
             if (fullInstrumentation) {
-                // Coverage instrumentation must be performed before any other code updates
-                // or there will be additional coverage points injected if any calls are inserted
-                // and JaCoCo will produce a broken coverage report.
-                coverageIdSynchronizer.withIdForClass(internalClassName) { firstId ->
-                    coverage(firstId).also { actualNumEdgeIds ->
-                        CoverageRecorder.recordInstrumentedClass(
-                            internalClassName,
-                            bytecode,
-                            firstId,
-                            actualNumEdgeIds,
-                        )
-                    }
+                var firstId = 0
+                var numEdges = 0
+                var cachedEntry: InstrumentationCache.Entry? = null
+                val instrumentWithIds = { assignedFirstId: Int ->
+                    firstId = assignedFirstId
+                    // The instrumented bytecode depends on the first coverage ID, so the cache can only be consulted
+                    // once it is known.
+                    cachedEntry = instrumentationCache?.get(internalClassName, bytecode, firstId)
+                    cachedEntry?.let { ClassInstrumentor.registerEdgeIds(firstId, it.numEdges) }
+                    numEdges = cachedEntry?.numEdges ?: fullInstrumentation(
+                        firstId,
+                        instrumentationTypes,
+                        includedHooks + customHooks,
+                        classWithHooksEnabledField,
+                        batchTraceDataFlow,
+                        indyHooks,
+                        pruneCoverageProbes,
+                    )
+                    CoverageRecorder.recordInstrumentedClass(
+                        internalClassName,
+                        bytecode,
+                        firstId,
+                        numEdges,
+                        pruneCoverageProbes,
+                    )
+                    numEdges
+                }
+                if (coverageIdSynchronizer.needsIdCount) {
+                    val idCount = EdgeCoverageInstrumentor.countEdges(bytecode)
+                    coverageIdSynchronizer.withIdForClass(internalClassName, idCount, instrumentWithIds)
+                } else {
+                    coverageIdSynchronizer.withIdForClass(internalClassName, instrumentWithIds)
                 }
-                // Hook instrumentation must be performed after data flow tracing as the injected
-                // bytecode would trigger the GEP callbacks for byte[].
-                traceDataFlow(instrumentationTypes)
-                hooks(includedHooks + customHooks, classWithHooksEnabledField)
+                cachedEntry?.let { return it.bytecode }
+                instrumentationCache?.put(internalClassName, bytecode, firstId, InstrumentationCache.Entry(instrumentedBytecode, numEdges))
             } else {
-                hooks(customHooks, classWithHooksEnabledField)
+                hooks(customHooks, classWithHooksEnabledField, indyHooks)
+                instrumentationCache?.put(internalClassName, bytecode, -1, InstrumentationCache.Entry(instrumentedBytecode, 0))
             }
             instrumentedBytecode
         }
@@ -112,6 +112,23 @@ import java.lang.invoke.MethodType;
  *             reference a target method, no other types allowed. Attention must be paid to not
  *             guide the Fuzzer in different directions via {@link Jazzer}'s {@code guideTowardsXY}
  *             methods in the different hooks.
+ * </dl>
+ *
+ * <p>Alternatively, {@link HookType#BEFORE} and {@link HookType#AFTER} hooks that specify a {@link
+ * #targetMethodDescriptor()} can declare the exact parameter types of the target method, which
+ * avoids allocating the arguments array and boxing primitive values on every call:
+ *
+ * <pre>{@code
+ * public static void hook(Owner thisObject, P1 arg1, ..., Pn argN, int hookId)
+ * public static void hook(Owner thisObject, P1 arg1, ..., Pn argN, int hookId, R returnValue)
+ * }</pre>
+ *
+ * The first form is used for {@link HookType#BEFORE} and the second for {@link HookType#AFTER}
+ * hooks. {@code thisObject} is omitted for static target methods and {@code returnValue} for
+ * target methods with return type {@code void}. Each parameter must have the exact type of the
+ * value it receives, {@link Object} if that is a reference type or {@code int} if it is a {@code
+ * byte}, {@code char} or {@code short}. Such hooks can't modify the arguments of the target method
+ * and can't be used for constructors or with {@link HookType#REPLACE}.
  */
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.METHOD)
@@ -9,7 +9,6 @@
 
 package com.code_intelligence.jazzer.autofuzz;
 
-import io.github.classgraph.ClassInfo;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Executable;
 import java.lang.reflect.Method;
@@ -107,7 +106,7 @@ class AccessibleObjectLookup {
     return clazz.getPackage().equals(referenceClass.getPackage());
   }
 
-  boolean isAccessible(ClassInfo clazz, int modifiers) {
+  boolean isAccessible(String className, String packageName, int modifiers) {
     if (Modifier.isPublic(modifiers)) {
       return true;
     }
@@ -115,26 +114,26 @@ class AccessibleObjectLookup {
       return false;
     }
     if (Modifier.isPrivate(modifiers)) {
-      return clazz.getName().equals(referenceClass.getName());
+      return className.equals(referenceClass.getName());
     }
     if (Modifier.isProtected(modifiers)) {
-      return isAssignableFrom(clazz, referenceClass);
+      return isAssignableFrom(className, referenceClass);
     }
     // No visibility modifiers implies default visibility, which means visible in the same package.
-    return clazz.getPackageName().equals(referenceClass.getPackage().getName());
+    return packageName.equals(referenceClass.getPackage().getName());
   }
 
-  boolean isAssignableFrom(ClassInfo clazz, Class<?> potentialSubclass) {
-    if (potentialSubclass.getName().equals(clazz.getName())) {
+  boolean isAssignableFrom(String className, Class<?> potentialSubclass) {
+    if (potentialSubclass.getName().equals(className)) {
       return true;
     }
     if (potentialSubclass.equals(Object.class)) {
-      return clazz.getName().equals(Object.class.getName());
+      return className.equals(Object.class.getName());
     }
     if (potentialSubclass.getSuperclass() == null) {
       return false;
     }
-    return isAssignableFrom(clazz, potentialSubclass.getSuperclass());
+    return isAssignableFrom(className, potentialSubclass.getSuperclass());
   }
 
   private boolean isAccessible(Executable executable) {
@@ -0,0 +1,395 @@
+/*
+ * Copyright 2024 Code Intelligence GmbH
+ *
+ * By downloading, you agree to the Code Intelligence Jazzer Terms and Conditions.
+ *
+ * The Code Intelligence Jazzer Terms and Conditions are provided in LICENSE-JAZZER.txt
+ * located in the root directory of the project.
+ */
+
+package com.code_intelligence.jazzer.autofuzz;
+
+import com.code_intelligence.jazzer.utils.Log;
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ClassInfo;
+import io.github.classgraph.ScanResult;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+/**
+ * Maps the name of every class and interface on the classpath to the non-abstract classes that
+ * extend or implement it, in the order in which ClassGraph would return them.
+ *
+ * <p>Building the index requires a full ClassGraph scan of the classpath, which can take tens of
+ * seconds for large applications. The index is thus written to a file in the temporary directory
+ * whose name is derived from the classpath (see {@link #hashClasspath(List, boolean)}) and is
+ * memory-mapped by all later fuzzer runs and the processes spawned by libFuzzer's -fork, -jobs and
+ * -merge modes.
+ *
+ * <p>The file has the following layout, with all integers in big-endian byte order:
+ *
+ * <pre>
+ * header:     magic, version, numClasses, numSupertypes
+ * classes:    numClasses times (nameOffset, nameLength, modifiers), sorted by name
+ * supertypes: numSupertypes times (classIndex, firstSubtype, numSubtypes), sorted by name
+ * subtypes:   class indices referenced by the supertypes
+ * names:      UTF-8 encoded class names
+ * </pre>
+ */
+final class ClasspathIndex {
+  private static final int MAGIC = 0x4a5a4349;
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 4 * Integer.BYTES;
+  private static final int CLASS_ENTRY_SIZE = 3 * Integer.BYTES;
+  private static final int SUPERTYPE_ENTRY_SIZE = 3 * Integer.BYTES;
+
+  /** A non-abstract class on the classpath that can be loaded by name. */
+  static final class IndexedClass {
+    final String name;
+    final int modifiers;
+
+    IndexedClass(String name, int modifiers) {
+      this.name = name;
+      this.modifiers = modifiers;
+    }
+
+    String getPackageName() {
+      int lastDot = name.lastIndexOf('.');
+      return lastDot == -1 ? "" : name.substring(0, lastDot);
+    }
+  }
+
+  private final ByteBuffer buffer;
+  private final int numClasses;
+  private final int numSupertypes;
+  private final int supertypesOffset;
+  private final int subtypesOffset;
+  private final int namesOffset;
+
+  private ClasspathIndex(ByteBuffer buffer) throws IOException {
+    this.buffer = buffer;
+    if (buffer.capacity() < HEADER_SIZE
+        || buffer.getInt(0) != MAGIC
+        || buffer.getInt(Integer.BYTES) != VERSION) {
+      throw new IOException("not a classpath index of version " + VERSION);
+    }
+    numClasses = buffer.getInt(2 * Integer.BYTES);
+    numSupertypes = buffer.getInt(3 * Integer.BYTES);
+    supertypesOffset = HEADER_SIZE + numClasses * CLASS_ENTRY_SIZE;
+    subtypesOffset = supertypesOffset + numSupertypes * SUPERTYPE_ENTRY_SIZE;
+    int numSubtypes = 0;
+    if (numSupertypes > 0) {
+      int lastSupertype = supertypesOffset + (numSupertypes - 1) * SUPERTYPE_ENTRY_SIZE;
+      numSubtypes =
+          buffer.getInt(lastSupertype + Integer.BYTES)
+              + buffer.getInt(lastSupertype + 2 * Integer.BYTES);
+    }
+    namesOffset = subtypesOffset + numSubtypes * Integer.BYTES;
+    if (numClasses < 0 || numSupertypes < 0 || namesOffset > buffer.capacity()) {
+      throw new IOException("truncated classpath index");
+    }
+  }
+
+  /**
+   * Returns the index for the current classpath, reading it from disk if a previous run has already
+   * created it.
+   *
+   * @param includeJazzerClasses whether Jazzer's own classes should be part of the index, which is
+   *     only the case in tests
+   */
+  static ClasspathIndex load(boolean includeJazzerClasses) {
+    ClassGraph classGraph = newClassGraph(includeJazzerClasses);
+    Path path;
+    try {
+      path =
+          Paths.get(
+              System.getProperty("java.io.tmpdir"),
+              String.format(
+                  "jazzer-autofuzz-%s.idx",
+                  hashClasspath(classGraph.getClasspathFiles(), includeJazzerClasses)));
+    } catch (IOException e) {
+      Log.warn("Failed to hash the classpath, Autofuzz will scan it in every run", e);
+      return scan(classGraph);
+    }
+    try {
+      return read(path);
+    } catch (NoSuchFileException e) {
+      // The first run on this classpath, fall through to create the index.
+    } catch (IOException e) {
+      Log.warn("Failed to read the Autofuzz classpath index " + path, e);
+    }
+    ClasspathIndex index = scan(classGraph);
+    try {
+      index.write(path);
+    } catch (IOException e) {
+      Log.warn("Failed to write the Autofuzz classpath index " + path, e);
+    }
+    return index;
+  }
+
+  /**
+   * Returns the index for the current classpath without consulting or updating the file on disk.
+   */
+  static ClasspathIndex rescan(boolean includeJazzerClasses) {
+    return scan(newClassGraph(includeJazzerClasses));
+  }
+
+  static ClasspathIndex read(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      // The mapping remains valid after the channel has been closed.
+      return new ClasspathIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  void write(Path path) throws IOException {
+    // Write to a temporary file first and move it into place atomically so that concurrently
+    // running fuzzers never observe a partially written index.
+    Path tempFile = Files.createTempFile(path.toAbsolutePath().getParent(), "jazzer-", ".tmp");
+    try {
+      ByteBuffer content = buffer.duplicate();
+      content.clear();
+      try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+        while (content.hasRemaining()) {
+          channel.write(content);
+        }
+      }
+      Files.move(
+          tempFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tempFile);
+    }
+  }
+
+  /**
+   * Returns the non-abstract classes that extend or implement {@code typeName} (directly or
+   * indirectly), sorted by name.
+   */
+  List<IndexedClass> getImplementingClasses(String typeName) {
+    byte[] typeNameBytes = typeName.getBytes(StandardCharsets.UTF_8);
+    int low = 0;
+    int high = numSupertypes - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int supertype = supertypesOffset + mid * SUPERTYPE_ENTRY_SIZE;
+      int cmp = compareName(buffer.getInt(supertype), typeNameBytes);
+      if (cmp < 0) {
+        low = mid + 1;
+      } else if (cmp > 0) {
+        high = mid - 1;
+      } else {
+        int firstSubtype = buffer.getInt(supertype + Integer.BYTES);
+        int numSubtypes = buffer.getInt(supertype + 2 * Integer.BYTES);
+        List<IndexedClass> subtypes = new ArrayList<>(numSubtypes);
+        for (int i = 0; i < numSubtypes; i++) {
+          int classIndex = buffer.getInt(subtypesOffset + (firstSubtype + i) * Integer.BYTES);
+          subtypes.add(
+              new IndexedClass(
+                  getName(classIndex),
+                  buffer.getInt(HEADER_SIZE + classIndex * CLASS_ENTRY_SIZE + 2 * Integer.BYTES)));
+        }
+        return subtypes;
+      }
+    }
+    return Collections.emptyList();
+  }
+
+  private String getName(int classIndex) {
+    int entry = HEADER_SIZE + classIndex * CLASS_ENTRY_SIZE;
+    byte[] name = new byte[buffer.getInt(entry + Integer.BYTES)];
+    ByteBuffer slice = buffer.duplicate();
+    slice.position(namesOffset + buffer.getInt(entry));
+    slice.get(name);
+    return new String(name, StandardCharsets.UTF_8);
+  }
+
+  private int compareName(int classIndex, byte[] other) {
+    int entry = HEADER_SIZE + classIndex * CLASS_ENTRY_SIZE;
+    int offset = namesOffset + buffer.getInt(entry);
+    int length = buffer.getInt(entry + Integer.BYTES);
+    for (int i = 0; i < Math.min(length, other.length); i++) {
+      int cmp = Byte.toUnsignedInt(buffer.get(offset + i)) - Byte.toUnsignedInt(other[i]);
+      if (cmp != 0) {
+        return cmp;
+      }
+    }
+    return length - other.length;
+  }
+
+  private static ClassGraph newClassGraph(boolean includeJazzerClasses) {
+    ClassGraph classGraph =
+        new ClassGraph()
+            .enableClassInfo()
+            .ignoreClassVisibility()
+            .ignoreMethodVisibility()
+            .enableInterClassDependencies()
+            .rejectPackages("jaz");
+    if (!includeJazzerClasses) {
+      classGraph.rejectPackages("com.code_intelligence.jazzer");
+    }
+    return classGraph;
+  }
+
+  private static ClasspathIndex scan(ClassGraph classGraph) {
+    // Maps supertype names to the names of their subtypes, which are sorted by name just like the
+    // result of a ClassGraph query.
+    Map<String, TreeSet<String>> subtypes = new HashMap<>();
+    Map<String, Integer> modifiers = new HashMap<>();
+    try (ScanResult result = classGraph.scan()) {
+      for (ClassInfo info : result.getAllStandardClasses()) {
+        if (Modifier.isAbstract(info.getModifiers())) {
+          continue;
+        }
+        modifiers.put(info.getName(), info.getModifiers());
+        Stream.concat(info.getSuperclasses().stream(), info.getInterfaces().stream())
+            .forEach(
+                supertype ->
+                    subtypes
+                        .computeIfAbsent(supertype.getName(), unused -> new TreeSet<>())
+                        .add(info.getName()));
+      }
+    }
+    return create(subtypes, modifiers);
+  }
+
+  static ClasspathIndex create(
+      Map<String, ? extends Collection<String>> subtypes, Map<String, Integer> modifiers) {
+    // Sorting by the UTF-8 encoding of the names rather than by the names themselves allows
+    // getImplementingClasses to binary search the encoded names. Both orders agree unless the names
+    // contain supplementary characters.
+    TreeSet<String> names = new TreeSet<>(ClasspathIndex::compareUtf8);
+    names.addAll(subtypes.keySet());
+    subtypes.values().forEach(names::addAll);
+    Map<String, Integer> classIndices = new HashMap<>();
+    List<byte[]> encodedNames = new ArrayList<>(names.size());
+    int namesSize = 0;
+    for (String name : names) {
+      classIndices.put(name, classIndices.size());
+      byte[] encodedName = name.getBytes(StandardCharsets.UTF_8);
+      encodedNames.add(encodedName);
+      namesSize += encodedName.length;
+    }
+    int numSubtypes = subtypes.values().stream().mapToInt(Collection::size).sum();
+
+    ByteBuffer buffer =
+        ByteBuffer.allocate(
+            HEADER_SIZE
+                + names.size() * CLASS_ENTRY_SIZE
+                + subtypes.size() * SUPERTYPE_ENTRY_SIZE
+                + numSubtypes * Integer.BYTES
+                + namesSize);
+    buffer.putInt(MAGIC).putInt(VERSION).putInt(names.size()).putInt(subtypes.size());
+    int nameOffset = 0;
+    int classIndex = 0;
+    for (String name : names) {
+      int nameLength = encodedNames.get(classIndex++).length;
+      buffer.putInt(nameOffset).putInt(nameLength).putInt(modifiers.getOrDefault(name, 0));
+      nameOffset += nameLength;
+    }
+    int firstSubtype = 0;
+    for (String supertype : names) {
+      Collection<String> classes = subtypes.get(supertype);
+      if (classes == null) {
+        continue;
+      }
+      buffer.putInt(classIndices.get(supertype)).putInt(firstSubtype).putInt(classes.size());
+      firstSubtype += classes.size();
+    }
+    for (String supertype : names) {
+      Collection<String> classes = subtypes.get(supertype);
+      if (classes != null) {
+        classes.forEach(name -> buffer.putInt(classIndices.get(name)));
+      }
+    }
+    encodedNames.forEach(buffer::put);
+    buffer.flip();
+    try {
+      return new ClasspathIndex(buffer);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static int compareUtf8(String left, String right) {
+    byte[] leftBytes = left.getBytes(StandardCharsets.UTF_8);
+    byte[] rightBytes = right.getBytes(StandardCharsets.UTF_8);
+    for (int i = 0; i < Math.min(leftBytes.length, rightBytes.length); i++) {
+      int cmp = Byte.toUnsignedInt(leftBytes[i]) - Byte.toUnsignedInt(rightBytes[i]);
+      if (cmp != 0) {
+        return cmp;
+      }
+    }
+    return leftBytes.length - rightBytes.length;
+  }
+
+  /**
+   * Returns a hash of the given classpath entries that changes whenever a class is added to,
+   * removed from or modified in one of them, as reflected by the size and modification time of the
+   * jar or class file.
+   */
+  static String hashClasspath(List<File> classpath, boolean includeJazzerClasses)
+      throws IOException {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+    StringBuilder fingerprint = new StringBuilder();
+    fingerprint.append(VERSION).append('\n').append(includeJazzerClasses).append('\n');
+    for (File entry : classpath) {
+      Path root = entry.toPath().toAbsolutePath();
+      if (Files.isDirectory(root)) {
+        fingerprint.append(root).append('\n');
+        try (Stream<Path> files = Files.walk(root)) {
+          files
+              .filter(Files::isRegularFile)
+              .sorted()
+              .forEach(file -> appendFileFingerprint(fingerprint, file));
+        } catch (UncheckedIOException e) {
+          throw e.getCause();
+        }
+      } else {
+        appendFileFingerprint(fingerprint, root);
+      }
+    }
+    byte[] hash = digest.digest(fingerprint.toString().getBytes(StandardCharsets.UTF_8));
+    StringBuilder hex = new StringBuilder();
+    // 128 bits are more than enough to avoid collisions between classpaths.
+    for (int i = 0; i < 16; i++) {
+      hex.append(String.format("%02x", hash[i]));
+    }
+    return hex.toString();
+  }
+
+  private static void appendFileFingerprint(StringBuilder fingerprint, Path file) {
+    File asFile = file.toFile();
+    fingerprint
+        .append(file)
+        .append(' ')
+        .append(asFile.length())
+        .append(' ')
+        .append(asFile.lastModified())
+        .append('\n');
+  }
+}
@@ -26,11 +26,11 @@ import com.code_intelligence.jazzer.api.Function5;
 import com.code_intelligence.jazzer.api.FuzzedDataProvider;
 import com.code_intelligence.jazzer.runtime.HardToCatchError;
 import com.code_intelligence.jazzer.utils.Utils;
-import io.github.classgraph.ClassGraph;
-import io.github.classgraph.ClassInfoList;
-import io.github.classgraph.ScanResult;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Array;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Executable;
@@ -43,10 +43,13 @@ import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
 import java.lang.reflect.WildcardType;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import net.jodah.typetools.TypeResolver;
@@ -57,6 +60,9 @@ public class Meta {
 
   private static final Meta PUBLIC_LOOKUP_INSTANCE = new Meta(null);
   private static final boolean IS_TEST = isTest();
+  // Lazily loaded as Autofuzz may only have to construct concrete classes.
+  private static ClasspathIndex classpathIndex;
+  private static boolean rescanRequested = false;
   private static final WeakHashMap<Class<?>, List<Class<?>>> implementingClassesCache =
       new WeakHashMap<>();
   private static final WeakHashMap<Class<?>, List<Class<?>>> nestedBuilderClassesCache =
@@ -66,7 +72,14 @@ public class Meta {
   private static final WeakHashMap<Class<?>, List<Method>> cascadingBuilderMethodsCache =
       new WeakHashMap<>();
 
+  private static final MethodType INVOKER_TYPE =
+      MethodType.methodType(Object.class, Object.class, Object[].class);
+
   private final AccessibleObjectLookup lookup;
+  // Plans depend on which classes and members are accessible via lookup and are thus cached per
+  // instance.
+  private final Map<Type, ConstructionPlan> constructionPlans = new ConcurrentHashMap<>();
+  private final Map<Executable, ExecutablePlan> executablePlans = new ConcurrentHashMap<>();
 
   public Meta(Class<?> referenceClass) {
     lookup = new AccessibleObjectLookup(referenceClass);
@@ -169,6 +182,13 @@ public class Meta {
   }
 
   static void rescanClasspath() {
+    synchronized (Meta.class) {
+      // The application under test may have created classes since the index was built, which
+      // wouldn't be reflected in the classpath hash, so scan again rather than reading the index
+      // from disk.
+      classpathIndex = null;
+      rescanRequested = true;
+    }
     implementingClassesCache.clear();
   }
 
@@ -283,46 +303,16 @@ public class Meta {
 
   Object autofuzz(
       FuzzedDataProvider data, Method method, Object thisObject, AutofuzzCodegenVisitor visitor) {
-    if (visitor != null) {
-      visitor.pushGroup(String.format("%s(", method.getName()), ", ", ")");
-    }
-    Object[] arguments = consumeArguments(data, method, visitor);
-    if (visitor != null) {
-      visitor.popGroup();
-    }
-    try {
-      return method.invoke(thisObject, arguments);
-    } catch (IllegalAccessException | IllegalArgumentException | NullPointerException e) {
-      // We should ensure that the arguments fed into the method are always valid.
-      throw new AutofuzzError(getDebugSummary(method, thisObject, arguments), e);
-    } catch (InvocationTargetException e) {
-      if (e.getCause() instanceof HardToCatchError) {
-        throw new AutofuzzInvocationException();
-      }
-      throw new AutofuzzInvocationException(e.getCause());
-    }
+    return getExecutablePlan(method).invoke(data, thisObject, visitor);
   }
 
   Object autofuzzForConsume(
-      FuzzedDataProvider data, Constructor<?> constructor, AutofuzzCodegenVisitor visitor) {
+      FuzzedDataProvider data,
+      ExecutablePlan executable,
+      Object thisObject,
+      AutofuzzCodegenVisitor visitor) {
     try {
-      return autofuzz(data, constructor, visitor);
-    } catch (AutofuzzConstructionException e) {
-      // Do not nest AutofuzzConstructionExceptions.
-      throw e;
-    } catch (AutofuzzInvocationException e) {
-      // If an invocation fails during consume and thus while trying to construct a valid object,
-      // the exception should not be reported as a finding, so we rewrap it.
-      throw new AutofuzzConstructionException(e.getCause());
-    } catch (Throwable t) {
-      throw new AutofuzzConstructionException(t);
-    }
-  }
-
-  Object autofuzzForConsume(
-      FuzzedDataProvider data, Method method, Object thisObject, AutofuzzCodegenVisitor visitor) {
-    try {
-      return autofuzz(data, method, thisObject, visitor);
+      return executable.invoke(data, thisObject, visitor);
     } catch (AutofuzzConstructionException e) {
       // Do not nest AutofuzzConstructionExceptions.
       throw e;
@@ -339,29 +329,10 @@ public class Meta {
     return autofuzz(data, constructor, null);
   }
 
+  @SuppressWarnings("unchecked")
   <R> R autofuzz(
       FuzzedDataProvider data, Constructor<R> constructor, AutofuzzCodegenVisitor visitor) {
-    if (visitor != null) {
-      // getCanonicalName is correct also for nested classes.
-      visitor.pushGroup(
-          String.format("new %s(", constructor.getDeclaringClass().getCanonicalName()), ", ", ")");
-    }
-    Object[] arguments = consumeArguments(data, constructor, visitor);
-    if (visitor != null) {
-      visitor.popGroup();
-    }
-    try {
-      return constructor.newInstance(arguments);
-    } catch (InstantiationException | IllegalAccessException | IllegalArgumentException e) {
-      // This should never be reached as the logic in consume should prevent us from e.g. calling
-      // constructors of abstract classes or private constructors.
-      throw new AutofuzzError(getDebugSummary(constructor, null, arguments), e);
-    } catch (InvocationTargetException e) {
-      if (e.getCause() instanceof HardToCatchError) {
-        throw new AutofuzzInvocationException();
-      }
-      throw new AutofuzzInvocationException(e.getCause());
-    }
+    return (R) getExecutablePlan(constructor).invoke(data, null, visitor);
   }
 
   // Invariant: The Java source code representation of the returned object visited by visitor must
@@ -374,358 +345,453 @@ public class Meta {
   // IllegalAccessError. Since this case should be rare and there is no good alternative to
   // disambiguate overloads, we omit the cast in this case.
   Object consume(FuzzedDataProvider data, Type genericType, AutofuzzCodegenVisitor visitor) {
+    return getConstructionPlan(genericType).consume(data, visitor);
+  }
+
+  /**
+   * Consumes an instance of a fixed type from the fuzzer input.
+   *
+   * <p>A plan is compiled once per type by {@link #compileConstructionPlan(Type)}, which performs
+   * all reflective lookups, and then executed for every input. Executing a plan consumes exactly
+   * the same bytes as the reflective lookups it replaces would have.
+   */
+  @FunctionalInterface
+  private interface ConstructionPlan {
+    Object consume(FuzzedDataProvider data, AutofuzzCodegenVisitor visitor);
+  }
+
+  private ConstructionPlan getConstructionPlan(Type genericType) {
+    ConstructionPlan plan = constructionPlans.get(genericType);
+    if (plan == null) {
+      plan = compileConstructionPlan(genericType);
+      ConstructionPlan existingPlan = constructionPlans.putIfAbsent(genericType, plan);
+      if (existingPlan != null) {
+        plan = existingPlan;
+      }
+    }
+    return plan;
+  }
+
+  // Plans for the constituents of a type are obtained lazily as types may be recursive.
+  private ConstructionPlan lazyConstructionPlan(Type genericType) {
+    return lazily(() -> getConstructionPlan(genericType));
+  }
+
+  private static ConstructionPlan lazily(Supplier<ConstructionPlan> compiler) {
+    return new ConstructionPlan() {
+      private ConstructionPlan plan;
+
+      @Override
+      public Object consume(FuzzedDataProvider data, AutofuzzCodegenVisitor visitor) {
+        if (plan == null) {
+          plan = compiler.get();
+        }
+        return plan.consume(data, visitor);
+      }
+    };
+  }
+
+  private ConstructionPlan compileConstructionPlan(Type genericType) {
     Class<?> type = getRawType(genericType);
     if (type == byte.class || type == Byte.class) {
-      byte result = data.consumeByte();
-      if (visitor != null) {
-        visitor.pushElement(String.format("(byte) %s", result));
-      }
-      return result;
+      return (data, visitor) -> {
+        byte result = data.consumeByte();
+        if (visitor != null) {
+          visitor.pushElement(String.format("(byte) %s", result));
+        }
+        return result;
+      };
     } else if (type == short.class || type == Short.class) {
-      short result = data.consumeShort();
-      if (visitor != null) {
-        visitor.pushElement(String.format("(short) %s", result));
-      }
-      return result;
+      return (data, visitor) -> {
+        short result = data.consumeShort();
+        if (visitor != null) {
+          visitor.pushElement(String.format("(short) %s", result));
+        }
+        return result;
+      };
     } else if (type == int.class || type == Integer.class) {
-      int result = data.consumeInt();
-      if (visitor != null) {
-        visitor.pushElement(Integer.toString(result));
-      }
-      return result;
+      return (data, visitor) -> {
+        int result = data.consumeInt();
+        if (visitor != null) {
+          visitor.pushElement(Integer.toString(result));
+        }
+        return result;
+      };
     } else if (type == long.class || type == Long.class) {
-      long result = data.consumeLong();
-      if (visitor != null) {
-        visitor.pushElement(String.format("%sL", result));
-      }
-      return result;
+      return (data, visitor) -> {
+        long result = data.consumeLong();
+        if (visitor != null) {
+          visitor.pushElement(String.format("%sL", result));
+        }
+        return result;
+      };
     } else if (type == float.class || type == Float.class) {
-      float result = data.consumeFloat();
-      if (visitor != null) {
-        visitor.pushElement(String.format("%sF", result));
-      }
-      return result;
+      return (data, visitor) -> {
+        float result = data.consumeFloat();
+        if (visitor != null) {
+          visitor.pushElement(String.format("%sF", result));
+        }
+        return result;
+      };
     } else if (type == double.class || type == Double.class) {
-      double result = data.consumeDouble();
-      if (visitor != null) {
-        visitor.pushElement(Double.toString(result));
-      }
-      return result;
+      return (data, visitor) -> {
+        double result = data.consumeDouble();
+        if (visitor != null) {
+          visitor.pushElement(Double.toString(result));
+        }
+        return result;
+      };
     } else if (type == boolean.class || type == Boolean.class) {
-      boolean result = data.consumeBoolean();
-      if (visitor != null) {
-        visitor.pushElement(Boolean.toString(result));
-      }
-      return result;
+      return (data, visitor) -> {
+        boolean result = data.consumeBoolean();
+        if (visitor != null) {
+          visitor.pushElement(Boolean.toString(result));
+        }
+        return result;
+      };
     } else if (type == char.class || type == Character.class) {
-      char result = data.consumeChar();
-      if (visitor != null) {
-        visitor.addCharLiteral(result);
-      }
-      return result;
+      return (data, visitor) -> {
+        char result = data.consumeChar();
+        if (visitor != null) {
+          visitor.addCharLiteral(result);
+        }
+        return result;
+      };
+    }
+    // The reflective lookups performed to compile the plan for the non-null case may fail, e.g.
+    // with a NoClassDefFoundError. Defer them until an instance is actually needed so that such
+    // failures surface at the same point as before and aren't cached.
+    ConstructionPlan nonNullPlan = lazily(() -> compileNonNullConstructionPlan(genericType, type));
+    if (type.isPrimitive()) {
+      return nonNullPlan;
     }
     // Sometimes, but rarely return null for non-primitive and non-boxed types.
     // TODO: We might want to return null for boxed types sometimes, but this is complicated by the
     //       fact that TypeUtils can't distinguish between a primitive type and its wrapper and may
     //       thus easily cause false-positive NullPointerExceptions.
-    if (!type.isPrimitive() && data.consumeByte() == 0) {
-      if (visitor != null) {
-        if (type == Object.class) {
-          visitor.pushElement("null");
-        } else {
-          visitor.pushElement(String.format("(%s) null", type.getCanonicalName()));
+    String nullLiteral =
+        type == Object.class ? "null" : String.format("(%s) null", type.getCanonicalName());
+    return (data, visitor) -> {
+      if (data.consumeByte() == 0) {
+        if (visitor != null) {
+          visitor.pushElement(nullLiteral);
         }
+        return null;
       }
-      return null;
-    }
+      return nonNullPlan.consume(data, visitor);
+    };
+  }
+
+  private ConstructionPlan compileNonNullConstructionPlan(Type genericType, Class<?> type) {
     if (type == String.class || type == CharSequence.class) {
-      String result = data.consumeString(consumeArrayLength(data, 1));
-      if (visitor != null) {
-        visitor.addStringLiteral(result);
-      }
-      return result;
-    } else if (type.isArray()) {
-      if (type == byte[].class) {
-        byte[] result = data.consumeBytes(consumeArrayLength(data, Byte.BYTES));
+      return (data, visitor) -> {
+        String result = data.consumeString(consumeArrayLength(data, 1));
         if (visitor != null) {
-          visitor.pushElement(
-              IntStream.range(0, result.length)
-                  .mapToObj(i -> "(byte) " + result[i])
-                  .collect(Collectors.joining(", ", "new byte[]{", "}")));
+          visitor.addStringLiteral(result);
         }
         return result;
+      };
+    } else if (type.isArray()) {
+      if (type == byte[].class) {
+        return (data, visitor) -> {
+          byte[] result = data.consumeBytes(consumeArrayLength(data, Byte.BYTES));
+          if (visitor != null) {
+            visitor.pushElement(
+                IntStream.range(0, result.length)
+                    .mapToObj(i -> "(byte) " + result[i])
+                    .collect(Collectors.joining(", ", "new byte[]{", "}")));
+          }
+          return result;
+        };
       } else if (type == int[].class) {
-        int[] result = data.consumeInts(consumeArrayLength(data, Integer.BYTES));
-        if (visitor != null) {
-          visitor.pushElement(
-              Arrays.stream(result)
-                  .mapToObj(String::valueOf)
-                  .collect(Collectors.joining(", ", "new int[]{", "}")));
-        }
-        return result;
+        return (data, visitor) -> {
+          int[] result = data.consumeInts(consumeArrayLength(data, Integer.BYTES));
+          if (visitor != null) {
+            visitor.pushElement(
+                Arrays.stream(result)
+                    .mapToObj(String::valueOf)
+                    .collect(Collectors.joining(", ", "new int[]{", "}")));
+          }
+          return result;
+        };
       } else if (type == short[].class) {
-        short[] result = data.consumeShorts(consumeArrayLength(data, Short.BYTES));
+        return (data, visitor) -> {
+          short[] result = data.consumeShorts(consumeArrayLength(data, Short.BYTES));
+          if (visitor != null) {
+            visitor.pushElement(
+                IntStream.range(0, result.length)
+                    .mapToObj(i -> "(short) " + result[i])
+                    .collect(Collectors.joining(", ", "new short[]{", "}")));
+          }
+          return result;
+        };
+      } else if (type == long[].class) {
+        return (data, visitor) -> {
+          long[] result = data.consumeLongs(consumeArrayLength(data, Long.BYTES));
+          if (visitor != null) {
+            visitor.pushElement(
+                Arrays.stream(result)
+                    .mapToObj(e -> e + "L")
+                    .collect(Collectors.joining(", ", "new long[]{", "}")));
+          }
+          return result;
+        };
+      } else if (type == boolean[].class) {
+        return (data, visitor) -> {
+          boolean[] result = data.consumeBooleans(consumeArrayLength(data, 1));
+          if (visitor != null) {
+            visitor.pushElement(
+                Arrays.toString(result).replace(']', '}').replace("[", "new boolean[]{"));
+          }
+          return result;
+        };
+      } else {
+        Class<?> componentType = type.getComponentType();
+        ConstructionPlan componentPlan = lazyConstructionPlan(componentType);
+        String prefix = String.format("new %s[]{", componentType.getName());
+        return (data, visitor) -> {
+          if (visitor != null) {
+            visitor.pushGroup(prefix, ", ", "}");
+          }
+          int remainingBytesBeforeFirstElementCreation = data.remainingBytes();
+          Object firstElement = componentPlan.consume(data, visitor);
+          int remainingBytesAfterFirstElementCreation = data.remainingBytes();
+          int sizeOfElementEstimate =
+              remainingBytesBeforeFirstElementCreation - remainingBytesAfterFirstElementCreation;
+          Object array =
+              Array.newInstance(componentType, consumeArrayLength(data, sizeOfElementEstimate));
+          for (int i = 0; i < Array.getLength(array); i++) {
+            if (i == 0) {
+              Array.set(array, i, firstElement);
+            } else {
+              Array.set(array, i, componentPlan.consume(data, visitor));
+            }
+          }
+          if (visitor != null) {
+            if (Array.getLength(array) == 0) {
+              // We implicitly pushed the first element with the call to consume above, but it is
+              // not part of the array.
+              visitor.popElement();
+            }
+            visitor.popGroup();
+          }
+          return array;
+        };
+      }
+    } else if (type == ByteArrayInputStream.class || type == InputStream.class) {
+      return (data, visitor) -> {
+        byte[] array = data.consumeBytes(consumeArrayLength(data, Byte.BYTES));
         if (visitor != null) {
           visitor.pushElement(
-              IntStream.range(0, result.length)
-                  .mapToObj(i -> "(short) " + result[i])
-                  .collect(Collectors.joining(", ", "new short[]{", "}")));
+              IntStream.range(0, array.length)
+                  .mapToObj(i -> "(byte) " + array[i])
+                  .collect(
+                      Collectors.joining(
+                          ", ", "new java.io.ByteArrayInputStream(new byte[]{", "})")));
         }
-        return result;
-      } else if (type == long[].class) {
-        long[] result = data.consumeLongs(consumeArrayLength(data, Long.BYTES));
+        return new ByteArrayInputStream(array);
+      };
+    } else if (type == Map.class) {
+      ParameterizedType mapType = (ParameterizedType) genericType;
+      if (mapType.getActualTypeArguments().length != 2) {
+        throw new AutofuzzError(
+            "Expected Map generic type to have two type parameters: " + mapType);
+      }
+      Type keyType = mapType.getActualTypeArguments()[0];
+      Type valueType = mapType.getActualTypeArguments()[1];
+      ConstructionPlan keyPlan = lazyConstructionPlan(keyType);
+      ConstructionPlan valuePlan = lazyConstructionPlan(valueType);
+      // Do not use Collectors.toMap() since it cannot handle null values.
+      // Also annotate the type of the entry stream since it might be empty, in which case type
+      // inference on the accumulator could fail.
+      String prefix =
+          String.format(
+              "java.util.stream.Stream.<java.util.AbstractMap.SimpleEntry<%s, %s>>of(",
+              keyType.getTypeName(), valueType.getTypeName());
+      return (data, visitor) -> {
         if (visitor != null) {
-          visitor.pushElement(
-              Arrays.stream(result)
-                  .mapToObj(e -> e + "L")
-                  .collect(Collectors.joining(", ", "new long[]{", "}")));
+          visitor.pushGroup(
+              prefix,
+              ", ",
+              ").collect(java.util.HashMap::new, (map, e) -> map.put(e.getKey(), e.getValue()),"
+                  + " java.util.HashMap::putAll)");
         }
-        return result;
-      } else if (type == boolean[].class) {
-        boolean[] result = data.consumeBooleans(consumeArrayLength(data, 1));
+        int remainingBytesBeforeFirstEntryCreation = data.remainingBytes();
         if (visitor != null) {
-          visitor.pushElement(
-              Arrays.toString(result).replace(']', '}').replace("[", "new boolean[]{"));
+          visitor.pushGroup("new java.util.AbstractMap.SimpleEntry<>(", ", ", ")");
         }
-        return result;
-      } else {
+        Object firstKey = keyPlan.consume(data, visitor);
+        Object firstValue = valuePlan.consume(data, visitor);
         if (visitor != null) {
-          visitor.pushGroup(
-              String.format("new %s[]{", type.getComponentType().getName()), ", ", "}");
+          visitor.popGroup();
         }
-        int remainingBytesBeforeFirstElementCreation = data.remainingBytes();
-        Object firstElement = consume(data, type.getComponentType(), visitor);
-        int remainingBytesAfterFirstElementCreation = data.remainingBytes();
+        int remainingBytesAfterFirstEntryCreation = data.remainingBytes();
         int sizeOfElementEstimate =
-            remainingBytesBeforeFirstElementCreation - remainingBytesAfterFirstElementCreation;
-        Object array =
-            Array.newInstance(
-                type.getComponentType(), consumeArrayLength(data, sizeOfElementEstimate));
-        for (int i = 0; i < Array.getLength(array); i++) {
+            remainingBytesBeforeFirstEntryCreation - remainingBytesAfterFirstEntryCreation;
+        int mapSize = consumeArrayLength(data, sizeOfElementEstimate);
+        Map<Object, Object> map = new HashMap<>(mapSize);
+        for (int i = 0; i < mapSize; i++) {
           if (i == 0) {
-            Array.set(array, i, firstElement);
+            map.put(firstKey, firstValue);
           } else {
-            Array.set(array, i, consume(data, type.getComponentType(), visitor));
+            if (visitor != null) {
+              visitor.pushGroup("new java.util.AbstractMap.SimpleEntry<>(", ", ", ")");
+            }
+            map.put(keyPlan.consume(data, visitor), valuePlan.consume(data, visitor));
+            if (visitor != null) {
+              visitor.popGroup();
+            }
           }
         }
         if (visitor != null) {
-          if (Array.getLength(array) == 0) {
-            // We implicitly pushed the first element with the call to consume above, but it is not
+          if (mapSize == 0) {
+            // We implicitly pushed the first entry with the call to consume above, but it is not
             // part of the array.
             visitor.popElement();
           }
           visitor.popGroup();
         }
-        return array;
-      }
-    } else if (type == ByteArrayInputStream.class || type == InputStream.class) {
-      byte[] array = data.consumeBytes(consumeArrayLength(data, Byte.BYTES));
-      if (visitor != null) {
-        visitor.pushElement(
-            IntStream.range(0, array.length)
-                .mapToObj(i -> "(byte) " + array[i])
-                .collect(
-                    Collectors.joining(
-                        ", ", "new java.io.ByteArrayInputStream(new byte[]{", "})")));
-      }
-      return new ByteArrayInputStream(array);
-    } else if (type == Map.class) {
-      ParameterizedType mapType = (ParameterizedType) genericType;
-      if (mapType.getActualTypeArguments().length != 2) {
-        throw new AutofuzzError(
-            "Expected Map generic type to have two type parameters: " + mapType);
-      }
-      Type keyType = mapType.getActualTypeArguments()[0];
-      Type valueType = mapType.getActualTypeArguments()[1];
-      if (visitor != null) {
-        // Do not use Collectors.toMap() since it cannot handle null values.
-        // Also annotate the type of the entry stream since it might be empty, in which case type
-        // inference on the accumulator could fail.
-        visitor.pushGroup(
-            String.format(
-                "java.util.stream.Stream.<java.util.AbstractMap.SimpleEntry<%s, %s>>of(",
-                keyType.getTypeName(), valueType.getTypeName()),
-            ", ",
-            ").collect(java.util.HashMap::new, (map, e) -> map.put(e.getKey(), e.getValue()),"
-                + " java.util.HashMap::putAll)");
-      }
-      int remainingBytesBeforeFirstEntryCreation = data.remainingBytes();
-      if (visitor != null) {
-        visitor.pushGroup("new java.util.AbstractMap.SimpleEntry<>(", ", ", ")");
-      }
-      Object firstKey = consume(data, keyType, visitor);
-      Object firstValue = consume(data, valueType, visitor);
-      if (visitor != null) {
-        visitor.popGroup();
-      }
-      int remainingBytesAfterFirstEntryCreation = data.remainingBytes();
-      int sizeOfElementEstimate =
-          remainingBytesBeforeFirstEntryCreation - remainingBytesAfterFirstEntryCreation;
-      int mapSize = consumeArrayLength(data, sizeOfElementEstimate);
-      Map<Object, Object> map = new HashMap<>(mapSize);
-      for (int i = 0; i < mapSize; i++) {
-        if (i == 0) {
-          map.put(firstKey, firstValue);
-        } else {
-          if (visitor != null) {
-            visitor.pushGroup("new java.util.AbstractMap.SimpleEntry<>(", ", ", ")");
-          }
-          map.put(consume(data, keyType, visitor), consume(data, valueType, visitor));
-          if (visitor != null) {
-            visitor.popGroup();
-          }
-        }
-      }
-      if (visitor != null) {
-        if (mapSize == 0) {
-          // We implicitly pushed the first entry with the call to consume above, but it is not
-          // part of the array.
-          visitor.popElement();
-        }
-        visitor.popGroup();
-      }
-      return map;
+        return map;
+      };
     } else if (type.isEnum()) {
-      Enum<?> enumValue = (Enum<?>) data.pickValue(type.getEnumConstants());
-      if (visitor != null) {
-        visitor.pushElement(String.format("%s.%s", type.getName(), enumValue.name()));
-      }
-      return enumValue;
+      Object[] enumConstants = type.getEnumConstants();
+      return (data, visitor) -> {
+        Enum<?> enumValue = (Enum<?>) data.pickValue(enumConstants);
+        if (visitor != null) {
+          visitor.pushElement(String.format("%s.%s", type.getName(), enumValue.name()));
+        }
+        return enumValue;
+      };
     } else if (type == Class.class) {
-      if (visitor != null) {
-        visitor.pushElement(String.format("%s.class", YourAverageJavaClass.class.getName()));
-      }
-      return YourAverageJavaClass.class;
+      return (data, visitor) -> {
+        if (visitor != null) {
+          visitor.pushElement(String.format("%s.class", YourAverageJavaClass.class.getName()));
+        }
+        return YourAverageJavaClass.class;
+      };
     } else if (type == Method.class) {
-      if (visitor != null) {
-        throw new AutofuzzError("codegen has not been implemented for Method.class");
-      }
-      return data.pickValue(lookup.getAccessibleMethods(YourAverageJavaClass.class));
+      Method[] methods = lookup.getAccessibleMethods(YourAverageJavaClass.class);
+      return (data, visitor) -> {
+        if (visitor != null) {
+          throw new AutofuzzError("codegen has not been implemented for Method.class");
+        }
+        return data.pickValue(methods);
+      };
     } else if (type == Constructor.class) {
-      if (visitor != null) {
-        throw new AutofuzzError("codegen has not been implemented for Constructor.class");
-      }
-      return data.pickValue(lookup.getAccessibleConstructors(YourAverageJavaClass.class));
-    } else if (type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
-      List<Class<?>> implementingClasses = implementingClassesCache.get(type);
-      if (implementingClasses == null) {
-        // TODO: We may be scanning multiple times. Instead, we should keep the ScanResult around
-        //  for as long as there is enough memory.
-        ClassGraph classGraph =
-            new ClassGraph()
-                .enableClassInfo()
-                .ignoreClassVisibility()
-                .ignoreMethodVisibility()
-                .enableInterClassDependencies()
-                .rejectPackages("jaz");
-        if (!IS_TEST) {
-          classGraph.rejectPackages("com.code_intelligence.jazzer");
-        }
-        try (ScanResult result = classGraph.scan()) {
-          ClassInfoList children =
-              type.isInterface() ? result.getClassesImplementing(type) : result.getSubclasses(type);
-          implementingClasses =
-              children
-                  .getStandardClasses()
-                  .filter(info -> !Modifier.isAbstract(info.getModifiers()))
-                  .filter(info -> lookup.isAccessible(info, info.getModifiers()))
-                  // Filter out anonymous and local classes, which can't be
-                  // instantiated in reproducers.
-                  .filter(info -> info.getName() != null)
-                  .loadClasses();
-          implementingClassesCache.put(type, implementingClasses);
+      Constructor<?>[] constructors = lookup.getAccessibleConstructors(YourAverageJavaClass.class);
+      return (data, visitor) -> {
+        if (visitor != null) {
+          throw new AutofuzzError("codegen has not been implemented for Constructor.class");
         }
-      }
-      if (implementingClasses.isEmpty()) {
-        if (IS_DEBUG) {
-          throw new AutofuzzConstructionException(
-              String.format(
-                  "Could not find classes implementing %s on the classpath", type.getName()));
-        } else {
-          throw new AutofuzzConstructionException();
+        return data.pickValue(constructors);
+      };
+    } else if (type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+      // See the "Exception" note in the comment on consume.
+      boolean castToType = Modifier.isPublic(type.getModifiers());
+      String castPrefix = String.format("(%s) ", type.getCanonicalName());
+      return (data, visitor) -> {
+        // Not part of the plan as the cache of implementing classes is cleared when the classpath
+        // changes.
+        List<Class<?>> implementingClasses = getImplementingClasses(type);
+        if (implementingClasses.isEmpty()) {
+          if (IS_DEBUG) {
+            throw new AutofuzzConstructionException(
+                String.format(
+                    "Could not find classes implementing %s on the classpath", type.getName()));
+          } else {
+            throw new AutofuzzConstructionException();
+          }
         }
-      }
-      if (visitor != null) {
-        // See the "Exception" note in the method comment.
-        if (Modifier.isPublic(type.getModifiers())) {
+        if (visitor != null && castToType) {
           // This group will always have a single element: The instance of the implementing class.
-          visitor.pushGroup(String.format("(%s) ", type.getCanonicalName()), "", "");
+          visitor.pushGroup(castPrefix, "", "");
         }
-      }
-      Object result = consume(data, data.pickValue(implementingClasses), visitor);
-      if (visitor != null) {
-        if (Modifier.isPublic(type.getModifiers())) {
+        Object result = consume(data, data.pickValue(implementingClasses), visitor);
+        if (visitor != null && castToType) {
           visitor.popGroup();
         }
-      }
-      return result;
+        return result;
+      };
     }
     Constructor<?>[] constructors = lookup.getAccessibleConstructors(type);
     if (constructors.length > 0) {
-      Constructor<?> constructor = data.pickValue(constructors);
-      boolean applySetters = constructor.getParameterCount() == 0;
-      if (visitor != null && applySetters) {
-        // Embed the instance creation and setters into an immediately invoked lambda expression to
-        // turn them into an expression.
-        String uniqueVariableName = visitor.uniqueVariableName();
-        visitor.pushGroup(
-            String.format(
-                "((java.util.function.Supplier<%1$s>) (() -> {%1$s %2$s = ",
-                type.getCanonicalName(), uniqueVariableName),
-            String.format("; %s.", uniqueVariableName),
-            String.format("; return %s;})).get()", uniqueVariableName));
-      }
-      Object obj = autofuzzForConsume(data, constructor, visitor);
-      if (applySetters) {
-        List<Method> potentialSetters = getPotentialSetters(type);
-        if (!potentialSetters.isEmpty()) {
-          List<Method> pickedSetters =
-              data.pickValues(potentialSetters, data.consumeInt(0, potentialSetters.size()));
-          for (Method setter : pickedSetters) {
-            autofuzzForConsume(data, setter, obj, visitor);
-          }
+      ExecutablePlan[] constructorPlans =
+          Arrays.stream(constructors).map(this::getExecutablePlan).toArray(ExecutablePlan[]::new);
+      List<ExecutablePlan> potentialSetters =
+          Arrays.stream(constructors).anyMatch(constructor -> constructor.getParameterCount() == 0)
+              ? getPotentialSetters(type).stream()
+                  .map(this::getExecutablePlan)
+                  .collect(Collectors.toList())
+              : Collections.emptyList();
+      return (data, visitor) -> {
+        ExecutablePlan constructor = data.pickValue(constructorPlans);
+        boolean applySetters = constructor.getParameterCount() == 0;
+        if (visitor != null && applySetters) {
+          // Embed the instance creation and setters into an immediately invoked lambda expression
+          // to turn them into an expression.
+          String uniqueVariableName = visitor.uniqueVariableName();
+          visitor.pushGroup(
+              String.format(
+                  "((java.util.function.Supplier<%1$s>) (() -> {%1$s %2$s = ",
+                  type.getCanonicalName(), uniqueVariableName),
+              String.format("; %s.", uniqueVariableName),
+              String.format("; return %s;})).get()", uniqueVariableName));
         }
-        if (visitor != null) {
-          visitor.popGroup();
+        Object obj = autofuzzForConsume(data, constructor, null, visitor);
+        if (applySetters) {
+          if (!potentialSetters.isEmpty()) {
+            List<ExecutablePlan> pickedSetters =
+                data.pickValues(potentialSetters, data.consumeInt(0, potentialSetters.size()));
+            for (ExecutablePlan setter : pickedSetters) {
+              autofuzzForConsume(data, setter, obj, visitor);
+            }
+          }
+          if (visitor != null) {
+            visitor.popGroup();
+          }
         }
-      }
-      return obj;
+        return obj;
+      };
     }
     // We are out of more or less canonical ways to construct an instance of this class and have to
     // resort to more heuristic approaches.
 
     // First, try to find nested classes with names ending in Builder and call a subset of their
     // chaining methods.
-    List<Class<?>> nestedBuilderClasses = getNestedBuilderClasses(type);
-    if (!nestedBuilderClasses.isEmpty()) {
-      Class<?> pickedBuilder = data.pickValue(nestedBuilderClasses);
-      List<Method> cascadingBuilderMethods = getCascadingBuilderMethods(pickedBuilder);
-      List<Method> originalObjectCreationMethods = getOriginalObjectCreationMethods(pickedBuilder);
+    List<BuilderPlan> nestedBuilders =
+        getNestedBuilderClasses(type).stream().map(BuilderPlan::new).collect(Collectors.toList());
+    if (!nestedBuilders.isEmpty()) {
+      return (data, visitor) -> {
+        BuilderPlan pickedBuilder = data.pickValue(nestedBuilders);
+        List<ExecutablePlan> cascadingBuilderMethods = pickedBuilder.cascadingBuilderMethods;
+        List<ExecutablePlan> originalObjectCreationMethods =
+            pickedBuilder.originalObjectCreationMethods;
 
-      int pickedMethodsNumber = data.consumeInt(0, cascadingBuilderMethods.size());
-      List<Method> pickedMethods = data.pickValues(cascadingBuilderMethods, pickedMethodsNumber);
-      Method builderMethod = data.pickValue(originalObjectCreationMethods);
+        int pickedMethodsNumber = data.consumeInt(0, cascadingBuilderMethods.size());
+        List<ExecutablePlan> pickedMethods =
+            data.pickValues(cascadingBuilderMethods, pickedMethodsNumber);
+        ExecutablePlan builderMethod = data.pickValue(originalObjectCreationMethods);
 
-      if (visitor != null) {
-        // Group for the chain of builder methods.
-        visitor.pushGroup("", ".", "");
-      }
-      Object builderObj =
-          autofuzzForConsume(
-              data, data.pickValue(lookup.getAccessibleConstructors(pickedBuilder)), visitor);
-      for (Method method : pickedMethods) {
-        builderObj = autofuzzForConsume(data, method, builderObj, visitor);
-      }
-
-      try {
-        Object obj = autofuzzForConsume(data, builderMethod, builderObj, visitor);
         if (visitor != null) {
-          visitor.popGroup();
+          // Group for the chain of builder methods.
+          visitor.pushGroup("", ".", "");
         }
-        return obj;
-      } catch (Exception e) {
-        throw new AutofuzzConstructionException(e);
-      }
+        Object builderObj =
+            autofuzzForConsume(data, data.pickValue(pickedBuilder.constructors), null, visitor);
+        for (ExecutablePlan method : pickedMethods) {
+          builderObj = autofuzzForConsume(data, method, builderObj, visitor);
+        }
+
+        try {
+          Object obj = autofuzzForConsume(data, builderMethod, builderObj, visitor);
+          if (visitor != null) {
+            visitor.popGroup();
+          }
+          return obj;
+        } catch (Exception e) {
+          throw new AutofuzzConstructionException(e);
+        }
+      };
     }
 
     // We ran out of ways to construct an instance of the requested type. If in debug mode, report
@@ -742,12 +808,66 @@ public class Meta {
               Arrays.stream(lookup.getAccessibleClasses(type))
                   .map(Class::getName)
                   .collect(Collectors.joining(", ")));
-      throw new AutofuzzConstructionException(summary);
+      return (data, visitor) -> {
+        throw new AutofuzzConstructionException(summary);
+      };
     } else {
-      throw new AutofuzzConstructionException();
+      return (data, visitor) -> {
+        throw new AutofuzzConstructionException();
+      };
+    }
+  }
+
+  private final class BuilderPlan {
+    final List<ExecutablePlan> cascadingBuilderMethods;
+    final List<ExecutablePlan> originalObjectCreationMethods;
+    final ExecutablePlan[] constructors;
+
+    BuilderPlan(Class<?> builder) {
+      cascadingBuilderMethods =
+          getCascadingBuilderMethods(builder).stream()
+              .map(Meta.this::getExecutablePlan)
+              .collect(Collectors.toList());
+      originalObjectCreationMethods =
+          getOriginalObjectCreationMethods(builder).stream()
+              .map(Meta.this::getExecutablePlan)
+              .collect(Collectors.toList());
+      constructors =
+          Arrays.stream(lookup.getAccessibleConstructors(builder))
+              .map(Meta.this::getExecutablePlan)
+              .toArray(ExecutablePlan[]::new);
     }
   }
 
+  private List<Class<?>> getImplementingClasses(Class<?> type) {
+    List<Class<?>> implementingClasses = implementingClassesCache.get(type);
+    if (implementingClasses == null) {
+      ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+      implementingClasses =
+          getClasspathIndex().getImplementingClasses(type.getName()).stream()
+              .filter(info -> lookup.isAccessible(info.name, info.getPackageName(), info.modifiers))
+              .map(
+                  info -> {
+                    try {
+                      return Class.forName(info.name, false, classLoader);
+                    } catch (ClassNotFoundException | LinkageError e) {
+                      throw new IllegalArgumentException("Could not load class " + info.name, e);
+                    }
+                  })
+              .collect(Collectors.toList());
+      implementingClassesCache.put(type, implementingClasses);
+    }
+    return implementingClasses;
+  }
+
+  private static synchronized ClasspathIndex getClasspathIndex() {
+    if (classpathIndex == null) {
+      classpathIndex =
+          rescanRequested ? ClasspathIndex.rescan(IS_TEST) : ClasspathIndex.load(IS_TEST);
+    }
+    return classpathIndex;
+  }
+
   private List<Class<?>> getNestedBuilderClasses(Class<?> type) {
     List<Class<?>> nestedBuilderClasses = nestedBuilderClassesCache.get(type);
     if (nestedBuilderClasses == null) {
@@ -795,22 +915,168 @@ public class Meta {
 
   public Object[] consumeArguments(
       FuzzedDataProvider data, Executable executable, AutofuzzCodegenVisitor visitor) {
-    Object[] result;
-    try {
-      result =
-          Arrays.stream(executable.getGenericParameterTypes())
-              .map(type -> consume(data, type, visitor))
-              .toArray();
-      return result;
-    } catch (AutofuzzConstructionException e) {
-      // Do not nest AutofuzzConstructionExceptions.
-      throw e;
-    } catch (AutofuzzInvocationException e) {
-      // If an invocation fails while creating the arguments for another invocation, the exception
-      // should not be reported, so we rewrap it.
-      throw new AutofuzzConstructionException(e.getCause());
-    } catch (Throwable t) {
-      throw new AutofuzzConstructionException(t);
+    return getExecutablePlan(executable).consumeArguments(data, visitor);
+  }
+
+  private ExecutablePlan getExecutablePlan(Executable executable) {
+    ExecutablePlan plan = executablePlans.get(executable);
+    if (plan == null) {
+      plan = new ExecutablePlan(executable);
+      ExecutablePlan existingPlan = executablePlans.putIfAbsent(executable, plan);
+      if (existingPlan != null) {
+        plan = existingPlan;
+      }
+    }
+    return plan;
+  }
+
+  /**
+   * Consumes the arguments for and invokes a method or constructor via a {@link MethodHandle} of
+   * type {@link #INVOKER_TYPE}, which avoids the reflective access checks of {@link
+   * Method#invoke(Object, Object...)} on every invocation.
+   */
+  private final class ExecutablePlan {
+    private final Executable executable;
+    private final boolean hasReceiver;
+    private final String codegenPrefix;
+    // null if the executable can't be represented as a method handle, in which case it is invoked
+    // reflectively.
+    private final MethodHandle invoker;
+    private final Class<?>[] parameterTypes;
+    // The parameter types with primitive types replaced by their wrappers.
+    private final Class<?>[] argumentTypes;
+    private ConstructionPlan[] parameterPlans;
+
+    ExecutablePlan(Executable executable) {
+      this.executable = executable;
+      if (executable instanceof Method) {
+        hasReceiver = !Modifier.isStatic(executable.getModifiers());
+        codegenPrefix = String.format("%s(", executable.getName());
+      } else {
+        hasReceiver = false;
+        // getCanonicalName is correct also for nested classes.
+        codegenPrefix =
+            String.format("new %s(", executable.getDeclaringClass().getCanonicalName());
+      }
+      invoker = createInvoker();
+      parameterTypes = executable.getParameterTypes();
+      argumentTypes =
+          Arrays.stream(parameterTypes)
+              .map(type -> MethodType.methodType(type).wrap().returnType())
+              .toArray(Class<?>[]::new);
+    }
+
+    int getParameterCount() {
+      return executable.getParameterCount();
+    }
+
+    private MethodHandle createInvoker() {
+      MethodHandle handle;
+      try {
+        if (executable instanceof Method) {
+          handle = MethodHandles.lookup().unreflect((Method) executable);
+        } else {
+          handle = MethodHandles.lookup().unreflectConstructor((Constructor<?>) executable);
+        }
+      } catch (IllegalAccessException e) {
+        // For example, constructors of abstract classes can't be represented as method handles.
+        return null;
+      }
+      handle = handle.asFixedArity();
+      if (!hasReceiver) {
+        handle = MethodHandles.dropArguments(handle, 0, Object.class);
+      }
+      return handle
+          .asSpreader(Object[].class, executable.getParameterCount())
+          .asType(INVOKER_TYPE);
+    }
+
+    Object[] consumeArguments(FuzzedDataProvider data, AutofuzzCodegenVisitor visitor) {
+      try {
+        if (parameterPlans == null) {
+          parameterPlans =
+              Arrays.stream(executable.getGenericParameterTypes())
+                  .map(Meta.this::lazyConstructionPlan)
+                  .toArray(ConstructionPlan[]::new);
+        }
+        Object[] result = new Object[parameterPlans.length];
+        for (int i = 0; i < parameterPlans.length; i++) {
+          result[i] = parameterPlans[i].consume(data, visitor);
+        }
+        return result;
+      } catch (AutofuzzConstructionException e) {
+        // Do not nest AutofuzzConstructionExceptions.
+        throw e;
+      } catch (AutofuzzInvocationException e) {
+        // If an invocation fails while creating the arguments for another invocation, the
+        // exception should not be reported, so we rewrap it.
+        throw new AutofuzzConstructionException(e.getCause());
+      } catch (Throwable t) {
+        throw new AutofuzzConstructionException(t);
+      }
+    }
+
+    Object invoke(FuzzedDataProvider data, Object thisObject, AutofuzzCodegenVisitor visitor) {
+      if (visitor != null) {
+        visitor.pushGroup(codegenPrefix, ", ", ")");
+      }
+      Object[] arguments = consumeArguments(data, visitor);
+      if (visitor != null) {
+        visitor.popGroup();
+      }
+      if (invoker == null) {
+        return invokeReflectively(thisObject, arguments);
+      }
+      if ((hasReceiver && !executable.getDeclaringClass().isInstance(thisObject))
+          || !haveArgumentTypes(arguments)) {
+        // Method#invoke would throw a NullPointerException or an IllegalArgumentException. The
+        // invoker would throw a ClassCastException or a NullPointerException instead, which must
+        // not be mistaken for an exception thrown by the executable.
+        throw new AutofuzzError(getDebugSummary(executable, thisObject, arguments));
+      }
+      try {
+        return (Object) invoker.invokeExact(thisObject, arguments);
+      } catch (HardToCatchError e) {
+        throw new AutofuzzInvocationException();
+      } catch (Throwable t) {
+        throw new AutofuzzInvocationException(t);
+      }
+    }
+
+    private boolean haveArgumentTypes(Object[] arguments) {
+      if (arguments.length != argumentTypes.length) {
+        return false;
+      }
+      for (int i = 0; i < arguments.length; i++) {
+        if (arguments[i] == null
+            ? parameterTypes[i].isPrimitive()
+            : !argumentTypes[i].isInstance(arguments[i])) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private Object invokeReflectively(Object thisObject, Object[] arguments) {
+      try {
+        if (executable instanceof Method) {
+          return ((Method) executable).invoke(thisObject, arguments);
+        } else {
+          return ((Constructor<?>) executable).newInstance(arguments);
+        }
+      } catch (InstantiationException
+          | IllegalAccessException
+          | IllegalArgumentException
+          | NullPointerException e) {
+        // This should never be reached as the logic in consume should prevent us from e.g.
+        // calling constructors of abstract classes or private constructors.
+        throw new AutofuzzError(getDebugSummary(executable, thisObject, arguments), e);
+      } catch (InvocationTargetException e) {
+        if (e.getCause() instanceof HardToCatchError) {
+          throw new AutofuzzInvocationException();
+        }
+        throw new AutofuzzInvocationException(e.getCause());
+      }
     }
   }
 
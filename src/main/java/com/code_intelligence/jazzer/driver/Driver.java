@@ -66,6 +66,8 @@ public class Driver {
         return 1;
       }
 
+      // With a coverage ID layout, the file is only used for the IDs of classes that are not part of
+      // the layout.
       String idSyncFileArg = Opt.idSyncFile.get();
       Path idSyncFile;
       if (idSyncFileArg.isEmpty()) {
@@ -73,13 +75,7 @@ public class Driver {
         // pass its path to the agent in every child process. This requires adding
         // the argument to argv for it to be picked up by libFuzzer, which then
         // forwards it to child processes.
-        if (!IS_ANDROID) {
-          idSyncFile = Files.createTempFile("jazzer-", "");
-        } else {
-          File f = File.createTempFile("jazzer-", "", new File("/data/local/tmp/"));
-          idSyncFile = f.toPath();
-        }
-
+        idSyncFile = createTempFile();
         args.add("--id_sync_file=" + idSyncFile.toAbsolutePath());
       } else {
         // Creates the file, truncating it if it exists.
@@ -89,6 +85,17 @@ public class Driver {
       // run is expected to exit with a regular exit(0), which does cause JVM shutdown hooks to run:
       // https://github.com/llvm/llvm-project/blob/940e178c0018b32af2f1478d331fc41a92a7dac7/compiler-rt/lib/fuzzer/FuzzerFork.cpp#L491
       idSyncFile.toFile().deleteOnExit();
+
+      // The agent in this process populates the file with the classes targeted by hooks, which
+      // saves every child process a scan of the entire classpath.
+      Path hookTargetsFile = createTempFile();
+      if (Opt.hookTargetsFile.setIfDefault(hookTargetsFile.toAbsolutePath().toString())) {
+        args.add("--hook_targets_file=" + hookTargetsFile.toAbsolutePath());
+        hookTargetsFile.toFile().deleteOnExit();
+      } else {
+        // We are a subprocess ourselves and have been handed the file by our parent.
+        Files.delete(hookTargetsFile);
+      }
     }
 
     if (args.stream().anyMatch("-merge_inner=1"::equals)) {
@@ -161,6 +168,14 @@ public class Driver {
     return FuzzTargetRunner.startLibFuzzer(args);
   }
 
+  private static Path createTempFile() throws IOException {
+    if (!IS_ANDROID) {
+      return Files.createTempFile("jazzer-", "");
+    } else {
+      return File.createTempFile("jazzer-", "", new File("/data/local/tmp/")).toPath();
+    }
+  }
+
   private static String getDefaultRssLimitMbArg() {
     // Java OutOfMemoryErrors are strictly more informative than libFuzzer's out of memory crashes.
     // We thus want to scale the default libFuzzer memory limit, which includes all memory used by
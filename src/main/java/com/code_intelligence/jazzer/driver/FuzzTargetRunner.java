@@ -26,10 +26,9 @@ import com.code_intelligence.jazzer.instrumentor.CoverageRecorder;
 import com.code_intelligence.jazzer.mutation.ArgumentsMutator;
 import com.code_intelligence.jazzer.runtime.FuzzTargetRunnerNatives;
 import com.code_intelligence.jazzer.runtime.JazzerInternal;
+import com.code_intelligence.jazzer.runtime.TraceDataFlowBatchedCallbacks;
 import com.code_intelligence.jazzer.utils.Log;
 import com.code_intelligence.jazzer.utils.UnsafeProvider;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
@@ -104,9 +103,11 @@ public final class FuzzTargetRunner {
   private static final boolean useMutatorFramework;
   private static final boolean optimizeMergeInner = Opt.mergeInner.get();
   private static final boolean useHooks = Opt.hooks.get();
+  private static final boolean batchTrace = Opt.batchTrace.get();
   private static final boolean emitDedupToken = Opt.dedup.get();
   private static final long keepGoing = Opt.keepGoing.get();
   private static final long crossOverFrequency = Opt.mutatorCrossOverFrequency.get();
+  private static final boolean reuseMutatedArguments = Opt.mutatorReuseArguments.get();
   private static final FuzzedDataProviderImpl fuzzedDataProvider =
       FuzzedDataProviderImpl.withNativeData();
   private static final MethodHandle fuzzTargetMethod;
@@ -114,6 +115,12 @@ public final class FuzzTargetRunner {
   private static final boolean useFuzzedDataProvider;
   private static final ArgumentsMutator mutator;
   private static final ReproducerTemplate reproducerTemplate;
+  // Reused across iterations so that the mutator framework reads its inputs from and writes its
+  // outputs to libFuzzer's native buffers without intermediate copies on the Java heap.
+  private static final NativeMemoryInputStream mutatorInput = new NativeMemoryInputStream();
+  private static final NativeMemoryInputStream crossOverInput = new NativeMemoryInputStream();
+  private static final NativeMemoryOutputStream mutatorOutput = new NativeMemoryOutputStream();
+  private static final LastMutatedInput lastMutatedInput = new LastMutatedInput();
   private static Consumer<Throwable> fatalFindingHandlerForJUnit;
 
   static {
@@ -194,13 +201,11 @@ public final class FuzzTargetRunner {
     byte[] data;
     Object argument;
     if (useMutatorFramework) {
-      // TODO: Instead of copying the native data and then reading it in, consider the following
-      //  optimizations if they turn out to be worthwhile in benchmarks:
-      //  1. Let libFuzzer pass in a null pointer if the byte array hasn't changed since the last
-      //     call to our custom mutator and skip the read entirely.
-      //  2. Implement a InputStream backed by Unsafe to avoid the copyToArray overhead.
-      byte[] buf = copyToArray(dataPtr, dataLength);
-      mutator.read(new ByteArrayInputStream(buf));
+      if (!lastMutatedInput.matches(dataPtr, dataLength)) {
+        mutator.read(mutatorInput.reset(dataPtr, dataLength));
+      }
+      // The arguments are exposed to the fuzz target below and thus can't be reused afterwards.
+      lastMutatedInput.forget();
       data = null;
       argument = null;
     } else if (useFuzzedDataProvider) {
@@ -222,8 +227,9 @@ public final class FuzzTargetRunner {
       try {
         Object fuzzTargetInstance = lifecycleMethodsInvoker.getTestClassInstance();
         if (useMutatorFramework) {
-          // No need to detach as we are currently reading in the mutator state from bytes in every
-          // iteration.
+          // No need to detach: The arguments have either just been read from the input or been
+          // produced by the mutator and not exposed since. Once exposed here, they are never
+          // reused, as the next input is read from bytes unless the mutator produces it first.
           mutator.invoke(fuzzTargetInstance, false);
         } else if (fuzzTargetInstance == null) {
           fuzzTargetMethod.invoke(argument);
@@ -250,6 +256,11 @@ public final class FuzzTargetRunner {
       }
     }
 
+    // libFuzzer only looks at the data flow events of an input after runOne has returned.
+    if (batchTrace) {
+      TraceDataFlowBatchedCallbacks.flush();
+    }
+
     // When using libFuzzer's -merge flag, only the coverage of the current input is relevant, not
     // whether it is crashing. Since every crash would cause a restart of the process and thus the
     // JVM, we can optimize this case by not crashing.
@@ -364,8 +375,7 @@ public final class FuzzTargetRunner {
     if (size == 1 && UNSAFE.getByte(data) == '\n') {
       mutator.init(seed);
     } else {
-      // TODO: See the comment on earlier calls to read for potential optimizations.
-      mutator.read(new ByteArrayInputStream(copyToArray(data, size)));
+      mutator.read(mutatorInput.reset(data, size));
       mutator.mutate(seed);
     }
   }
@@ -384,9 +394,7 @@ public final class FuzzTargetRunner {
     // mutate is used in the other cases.
     if (crossOverFrequency != 0 && crossOverCount++ % crossOverFrequency == 0) {
       mutator.crossOver(
-          new ByteArrayInputStream(copyToArray(data1, size1)),
-          new ByteArrayInputStream(copyToArray(data2, size2)),
-          seed);
+          mutatorInput.reset(data1, size1), crossOverInput.reset(data2, size2), seed);
     } else {
       mutate(data1, size1, seed);
     }
@@ -395,13 +403,13 @@ public final class FuzzTargetRunner {
 
   @SuppressWarnings("SameParameterValue")
   private static int writeToMemory(ArgumentsMutator mutator, long out, int maxOutSize) {
-    ByteArrayOutputStream baos = new ByteArrayOutputStream();
-    // TODO: Instead of writing to a byte array and then copying that array's contents into
-    //  memory, consider introducing an OutputStream backed by Unsafe.
-    mutator.write(baos);
-    byte[] mutatedBytes = baos.toByteArray();
-    int newSize = Math.min(mutatedBytes.length, maxOutSize);
-    UNSAFE.copyMemory(mutatedBytes, BYTE_ARRAY_OFFSET, null, out, newSize);
+    // Bytes exceeding maxOutSize are dropped by the stream, which truncates the output just like
+    // libFuzzer does for its own mutations.
+    mutator.write(mutatorOutput.reset(out, maxOutSize));
+    int newSize = mutatorOutput.size();
+    if (reuseMutatedArguments) {
+      lastMutatedInput.remember(mutatorOutput);
+    }
     return newSize;
   }
 
@@ -543,6 +551,10 @@ public final class FuzzTargetRunner {
    * @return the return value of LLVMFuzzerRunDriver
    */
   private static int startLibFuzzer(byte[][] args) {
+    if (batchTrace) {
+      // The fuzz target is executed on the thread that starts libFuzzer.
+      TraceDataFlowBatchedCallbacks.bufferEventsOfCurrentThread();
+    }
     return FuzzTargetRunnerNatives.startLibFuzzer(
         args, FuzzTargetRunner.class, useMutatorFramework);
   }
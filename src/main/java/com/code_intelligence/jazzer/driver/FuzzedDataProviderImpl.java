@@ -14,10 +14,23 @@ import com.code_intelligence.jazzer.utils.UnsafeProvider;
 import com.github.fmeum.rules_jni.RulesJni;
 import sun.misc.Unsafe;
 
+/**
+ * A {@link FuzzedDataProvider} whose methods are implemented in native code, see
+ * fuzzed_data_provider.cpp.
+ *
+ * <p>Instances are obtained via the static factory methods, which return a {@link
+ * JavaFuzzedDataProviderImpl} with identical behavior instead if {@link
+ * Opt#javaFuzzedDataProvider} is set.
+ */
 public class FuzzedDataProviderImpl implements FuzzedDataProvider, AutoCloseable {
-  static {
-    RulesJni.loadLibrary("jazzer_fuzzed_data_provider", "/com/code_intelligence/jazzer/driver");
-    nativeInit();
+  // The native library is only loaded once the first instance that uses it is created.
+  private static final class NativeLibrary {
+    static {
+      RulesJni.loadLibrary("jazzer_fuzzed_data_provider", "/com/code_intelligence/jazzer/driver");
+      nativeInit();
+    }
+
+    static void ensureLoaded() {}
   }
 
   private static native void nativeInit();
@@ -26,11 +39,11 @@ public class FuzzedDataProviderImpl implements FuzzedDataProvider, AutoCloseable
   private long originalDataPtr;
   private int originalRemainingBytes;
 
-  // Accessed in fuzzed_data_provider.cpp.
-  private long dataPtr;
-  private int remainingBytes;
+  // Accessed in fuzzed_data_provider.cpp and JavaFuzzedDataProviderImpl.
+  long dataPtr;
+  int remainingBytes;
 
-  private FuzzedDataProviderImpl(long dataPtr, int remainingBytes, byte[] javaData) {
+  FuzzedDataProviderImpl(long dataPtr, int remainingBytes, byte[] javaData) {
     this.javaData = javaData;
     this.originalDataPtr = dataPtr;
     this.dataPtr = dataPtr;
@@ -51,7 +64,11 @@ public class FuzzedDataProviderImpl implements FuzzedDataProvider, AutoCloseable
    * @return a {@link FuzzedDataProvider} backed by {@code data}
    */
   public static FuzzedDataProviderImpl withJavaData(byte[] data) {
-    return new FuzzedDataProviderImpl(allocateNativeCopy(data), data.length, data);
+    return withJavaData(data, Opt.javaFuzzedDataProvider.get());
+  }
+
+  static FuzzedDataProviderImpl withJavaData(byte[] data, boolean pureJava) {
+    return create(allocateNativeCopy(data), data.length, data, pureJava);
   }
 
   /**
@@ -63,7 +80,16 @@ public class FuzzedDataProviderImpl implements FuzzedDataProvider, AutoCloseable
    * @return a {@link FuzzedDataProvider} backed by an empty array.
    */
   public static FuzzedDataProviderImpl withNativeData() {
-    return new FuzzedDataProviderImpl(0, 0, null);
+    return create(0, 0, null, Opt.javaFuzzedDataProvider.get());
+  }
+
+  private static FuzzedDataProviderImpl create(
+      long dataPtr, int remainingBytes, byte[] javaData, boolean pureJava) {
+    if (pureJava) {
+      return new JavaFuzzedDataProviderImpl(dataPtr, remainingBytes, javaData);
+    }
+    NativeLibrary.ensureLoaded();
+    return new FuzzedDataProviderImpl(dataPtr, remainingBytes, javaData);
   }
 
   /**
@@ -277,17 +303,17 @@ public class FuzzedDataProviderImpl implements FuzzedDataProvider, AutoCloseable
   @Override
   public native int remainingBytes();
 
-  private native byte consumeByteUnchecked(byte min, byte max);
+  native byte consumeByteUnchecked(byte min, byte max);
 
-  private native short consumeShortUnchecked(short min, short max);
+  native short consumeShortUnchecked(short min, short max);
 
-  private native char consumeCharUnchecked(char min, char max);
+  native char consumeCharUnchecked(char min, char max);
 
-  private native int consumeIntUnchecked(int min, int max);
+  native int consumeIntUnchecked(int min, int max);
 
-  private native long consumeLongUnchecked(long min, long max);
+  native long consumeLongUnchecked(long min, long max);
 
-  private native float consumeRegularFloatUnchecked(float min, float max);
+  native float consumeRegularFloatUnchecked(float min, float max);
 
-  private native double consumeRegularDoubleUnchecked(double min, double max);
+  native double consumeRegularDoubleUnchecked(double min, double max);
 }
@@ -0,0 +1,605 @@
+/*
+ * Copyright 2024 Code Intelligence GmbH
+ *
+ * By downloading, you agree to the Code Intelligence Jazzer Terms and Conditions.
+ *
+ * The Code Intelligence Jazzer Terms and Conditions are provided in LICENSE-JAZZER.txt
+ * located in the root directory of the project.
+ */
+
+package com.code_intelligence.jazzer.driver;
+
+import com.code_intelligence.jazzer.utils.UnsafeProvider;
+import sun.misc.Unsafe;
+
+/**
+ * A pure Java port of the native {@link FuzzedDataProviderImpl}, which reads the input directly
+ * from native memory via {@link Unsafe} instead of calling into fuzzed_data_provider.cpp for every
+ * consumed value.
+ *
+ * <p>All methods consume exactly the same bytes and return exactly the same values as their native
+ * counterparts. Each of them mirrors the function of the same name in fuzzed_data_provider.cpp,
+ * which should be consulted for the rationale behind the individual choices.
+ */
+final class JavaFuzzedDataProviderImpl extends FuzzedDataProviderImpl {
+  private static final Unsafe UNSAFE = UnsafeProvider.getUnsafe();
+
+  private static final long BOOLEAN_ARRAY_OFFSET = UNSAFE.arrayBaseOffset(boolean[].class);
+  private static final long BYTE_ARRAY_OFFSET = UNSAFE.arrayBaseOffset(byte[].class);
+  private static final long SHORT_ARRAY_OFFSET = UNSAFE.arrayBaseOffset(short[].class);
+  private static final long INT_ARRAY_OFFSET = UNSAFE.arrayBaseOffset(int[].class);
+  private static final long LONG_ARRAY_OFFSET = UNSAFE.arrayBaseOffset(long[].class);
+
+  private static final long UINT8_MAX = 0xFFL;
+  private static final long UINT16_MAX = 0xFFFFL;
+  private static final long UINT32_MAX = 0xFFFFFFFFL;
+  private static final long UINT64_MAX = -1L;
+
+  JavaFuzzedDataProviderImpl(long dataPtr, int remainingBytes, byte[] javaData) {
+    super(dataPtr, remainingBytes, javaData);
+  }
+
+  /**
+   * Consumes an integral value of a type with {@code numBits} bits in the range {@code [min, max]},
+   * where {@code min} and {@code max} are sign- or zero-extended according to the type.
+   *
+   * <p>Values are read from the end of the input. {@code typeMax} is the maximum value of the type
+   * as compared against the range in the native implementation: if they are equal, the consumed
+   * bytes are used without reducing them modulo the range.
+   */
+  private long consumeIntegralInRange(long min, long max, int numBits, long typeMax) {
+    long range = max - min;
+    long result = 0;
+    int offset = 0;
+    int remaining = remainingBytes;
+    while (offset < numBits && (range >>> offset) != 0 && remaining != 0) {
+      --remaining;
+      result = (result << 8) | (UNSAFE.getByte(dataPtr + remaining) & 0xFF);
+      offset += 8;
+    }
+    remainingBytes = remaining;
+    // If range covers all 64-bit values, range + 1 overflows to zero and every result is already in
+    // range.
+    if (range != typeMax && range != UINT64_MAX) {
+      result = Long.remainderUnsigned(result, range + 1);
+    }
+    return min + result;
+  }
+
+  @Override
+  public boolean consumeBoolean() {
+    return (consumeIntegralInRange(0, UINT8_MAX, 8, UINT8_MAX) & 1) != 0;
+  }
+
+  @Override
+  public byte consumeByte() {
+    return (byte) consumeIntegralInRange(0, UINT8_MAX, 8, UINT8_MAX);
+  }
+
+  @Override
+  byte consumeByteUnchecked(byte min, byte max) {
+    return (byte) consumeIntegralInRange(min, max, 8, Byte.MAX_VALUE);
+  }
+
+  @Override
+  public short consumeShort() {
+    return (short) consumeIntegralInRange(0, UINT16_MAX, 16, UINT16_MAX);
+  }
+
+  @Override
+  short consumeShortUnchecked(short min, short max) {
+    return (short) consumeIntegralInRange(min, max, 16, Short.MAX_VALUE);
+  }
+
+  @Override
+  public int consumeInt() {
+    return (int) consumeIntegralInRange(0, UINT32_MAX, 32, UINT32_MAX);
+  }
+
+  @Override
+  int consumeIntUnchecked(int min, int max) {
+    return (int) consumeIntegralInRange(min, max, 32, Integer.MAX_VALUE);
+  }
+
+  @Override
+  public long consumeLong() {
+    return consumeIntegralInRange(0, UINT64_MAX, 64, UINT64_MAX);
+  }
+
+  @Override
+  long consumeLongUnchecked(long min, long max) {
+    return consumeIntegralInRange(min, max, 64, Long.MAX_VALUE);
+  }
+
+  @Override
+  public char consumeChar() {
+    return (char) consumeIntegralInRange(0, UINT16_MAX, 16, UINT16_MAX);
+  }
+
+  @Override
+  char consumeCharUnchecked(char min, char max) {
+    return (char) consumeIntegralInRange(min, max, 16, UINT16_MAX);
+  }
+
+  @Override
+  public char consumeCharNoSurrogates() {
+    char rawCodepoint = consumeChar();
+    if (rawCodepoint >= 0xd800 && rawCodepoint < 0xe000) {
+      rawCodepoint -= 0xd800;
+    }
+    return rawCodepoint;
+  }
+
+  @Override
+  public float consumeProbabilityFloat() {
+    // The division by UINT32_MAX rounds it to 2^32 when converted to float.
+    return (float) consumeIntegralInRange(0, UINT32_MAX, 32, UINT32_MAX) / (float) UINT32_MAX;
+  }
+
+  @Override
+  public double consumeProbabilityDouble() {
+    return unsignedToDouble(consumeIntegralInRange(0, UINT64_MAX, 64, UINT64_MAX))
+        / unsignedToDouble(UINT64_MAX);
+  }
+
+  // Converts an unsigned 64-bit value to the nearest double, as C++ does.
+  private static double unsignedToDouble(long value) {
+    if (value >= 0) {
+      return value;
+    }
+    // Halve the value, but keep the lowest bit to preserve round-to-even behavior.
+    return (double) ((value >>> 1) | (value & 1)) * 2.0;
+  }
+
+  @Override
+  float consumeRegularFloatUnchecked(float min, float max) {
+    float range;
+    float result = min;
+    if (min < 0 && max > 0 && min + Float.MAX_VALUE < max) {
+      range = (max / 2) - (min / 2);
+      if (consumeBoolean()) {
+        result += range;
+      }
+    } else {
+      range = max - min;
+    }
+    result += range * consumeProbabilityFloat();
+    return max < result ? max : result;
+  }
+
+  @Override
+  double consumeRegularDoubleUnchecked(double min, double max) {
+    double range;
+    double result = min;
+    if (min < 0 && max > 0 && min + Double.MAX_VALUE < max) {
+      range = (max / 2) - (min / 2);
+      if (consumeBoolean()) {
+        result += range;
+      }
+    } else {
+      range = max - min;
+    }
+    result += range * consumeProbabilityDouble();
+    return max < result ? max : result;
+  }
+
+  @Override
+  public float consumeRegularFloat() {
+    return consumeRegularFloatUnchecked(-Float.MAX_VALUE, Float.MAX_VALUE);
+  }
+
+  @Override
+  public double consumeRegularDouble() {
+    return consumeRegularDoubleUnchecked(-Double.MAX_VALUE, Double.MAX_VALUE);
+  }
+
+  @Override
+  public float consumeFloat() {
+    if (remainingBytes == 0) {
+      return 0.0f;
+    }
+    byte typeVal = consumeByte();
+    if ((typeVal & 0xFF) > 10) {
+      return consumeRegularFloat();
+    }
+    // Consume the same amount of bytes as for a regular float.
+    consumeRegularFloat();
+    switch (typeVal) {
+      case 0:
+        return 0.0f;
+      case 1:
+        return -0.0f;
+      case 2:
+        return Float.POSITIVE_INFINITY;
+      case 3:
+        return Float.NEGATIVE_INFINITY;
+      case 4:
+        return Float.NaN;
+      case 5:
+        return Float.MIN_VALUE;
+      case 6:
+        return -Float.MIN_VALUE;
+      case 7:
+        return Float.MIN_NORMAL;
+      case 8:
+        return -Float.MIN_NORMAL;
+      case 9:
+        return Float.MAX_VALUE;
+      default:
+        return -Float.MAX_VALUE;
+    }
+  }
+
+  @Override
+  public double consumeDouble() {
+    if (remainingBytes == 0) {
+      return 0.0;
+    }
+    byte typeVal = consumeByte();
+    if ((typeVal & 0xFF) > 10) {
+      return consumeRegularDouble();
+    }
+    // Consume the same amount of bytes as for a regular double.
+    consumeRegularDouble();
+    switch (typeVal) {
+      case 0:
+        return 0.0;
+      case 1:
+        return -0.0;
+      case 2:
+        return Double.POSITIVE_INFINITY;
+      case 3:
+        return Double.NEGATIVE_INFINITY;
+      case 4:
+        return Double.NaN;
+      case 5:
+        return Double.MIN_VALUE;
+      case 6:
+        return -Double.MIN_VALUE;
+      case 7:
+        return Double.MIN_NORMAL;
+      case 8:
+        return -Double.MIN_NORMAL;
+      case 9:
+        return Double.MAX_VALUE;
+      default:
+        return -Double.MAX_VALUE;
+    }
+  }
+
+  /**
+   * Consumes the bytes of an array with at most {@code maxLength} elements of size {@code
+   * elementSize} from the start of the input and returns the number of elements.
+   */
+  private int consumeArrayLength(int maxLength, int elementSize) {
+    if (maxLength < 0) {
+      throw new IllegalArgumentException("maxLength must not be negative");
+    }
+    return (int) Math.min((long) elementSize * maxLength, remainingBytes) / elementSize;
+  }
+
+  private void advance(int numBytes) {
+    dataPtr += numBytes;
+    remainingBytes -= numBytes;
+  }
+
+  @Override
+  public boolean[] consumeBooleans(int maxLength) {
+    boolean[] result = new boolean[consumeArrayLength(maxLength, 1)];
+    // The native implementation copies the raw bytes, which results in booleans that are neither
+    // true nor false for bytes other than 0 and 1. Normalize them instead.
+    for (int i = 0; i < result.length; i++) {
+      result[i] = UNSAFE.getByte(dataPtr + i) != 0;
+    }
+    advance(result.length);
+    return result;
+  }
+
+  @Override
+  public byte[] consumeBytes(int maxLength) {
+    byte[] result = new byte[consumeArrayLength(maxLength, Byte.BYTES)];
+    UNSAFE.copyMemory(null, dataPtr, result, BYTE_ARRAY_OFFSET, result.length);
+    advance(result.length);
+    return result;
+  }
+
+  @Override
+  public byte[] consumeRemainingAsBytes() {
+    return consumeBytes(Integer.MAX_VALUE);
+  }
+
+  @Override
+  public short[] consumeShorts(int maxLength) {
+    short[] result = new short[consumeArrayLength(maxLength, Short.BYTES)];
+    int numBytes = result.length * Short.BYTES;
+    UNSAFE.copyMemory(null, dataPtr, result, SHORT_ARRAY_OFFSET, numBytes);
+    advance(numBytes);
+    return result;
+  }
+
+  @Override
+  public int[] consumeInts(int maxLength) {
+    int[] result = new int[consumeArrayLength(maxLength, Integer.BYTES)];
+    int numBytes = result.length * Integer.BYTES;
+    UNSAFE.copyMemory(null, dataPtr, result, INT_ARRAY_OFFSET, numBytes);
+    advance(numBytes);
+    return result;
+  }
+
+  @Override
+  public long[] consumeLongs(int maxLength) {
+    long[] result = new long[consumeArrayLength(maxLength, Long.BYTES)];
+    int numBytes = result.length * Long.BYTES;
+    UNSAFE.copyMemory(null, dataPtr, result, LONG_ARRAY_OFFSET, numBytes);
+    advance(numBytes);
+    return result;
+  }
+
+  @Override
+  public String consumeAsciiString(int maxLength) {
+    return consumeString(maxLength, true, true);
+  }
+
+  @Override
+  public String consumeString(int maxLength) {
+    return consumeString(maxLength, false, true);
+  }
+
+  @Override
+  public String consumeRemainingAsAsciiString() {
+    return consumeString(Integer.MAX_VALUE, true, false);
+  }
+
+  @Override
+  public String consumeRemainingAsString() {
+    return consumeString(Integer.MAX_VALUE, false, false);
+  }
+
+  @Override
+  public int remainingBytes() {
+    return remainingBytes;
+  }
+
+  private String consumeString(int maxLength, boolean asciiOnly, boolean stopOnBackslash) {
+    if (maxLength < 0) {
+      throw new IllegalArgumentException("maxLength must not be negative");
+    }
+    if (maxLength == 0 || remainingBytes == 0) {
+      return "";
+    }
+    if (remainingBytes == 1) {
+      remainingBytes = 0;
+      return "";
+    }
+    ModifiedUtf8 str = fixUpModifiedUtf8(maxLength, asciiOnly, stopOnBackslash);
+    advance(str.consumedBytes);
+    return str.decode();
+  }
+
+  private static final int LEADING_BYTE_GENERIC = 0;
+  private static final int LEADING_BYTE_AFTER_BACKSLASH = 1;
+  private static final int CONTINUATION_BYTE_GENERIC = 2;
+  private static final int CONTINUATION_BYTE_LOW_LEADING_BYTE = 3;
+  private static final int FIRST_CONTINUATION_BYTE_LOW_LEADING_BYTE = 4;
+  private static final int FIRST_CONTINUATION_BYTE_SURROGATE_LEADING_BYTE = 5;
+  private static final int FIRST_CONTINUATION_BYTE_GENERIC = 6;
+  private static final int SECOND_CONTINUATION_BYTE_GENERIC = 7;
+  private static final int LEADING_BYTE_LOW_SURROGATE = 8;
+  private static final int FIRST_CONTINUATION_BYTE_LOW_SURROGATE = 9;
+  private static final int SECOND_CONTINUATION_BYTE_HIGH_SURROGATE = 10;
+  private static final int SECOND_CONTINUATION_BYTE_LOW_SURROGATE = 11;
+
+  private static final int TWO_BYTE_ZERO_LEADING_BYTE = 0b11000000;
+  private static final int TWO_BYTE_ZERO_CONTINUATION_BYTE = 0b10000000;
+  private static final int THREE_BYTE_LOW_LEADING_BYTE = 0b11100000;
+  private static final int SURROGATE_LEADING_BYTE = 0b11101101;
+
+  /** A valid "modified UTF-8" string and the number of input bytes consumed to generate it. */
+  private static final class ModifiedUtf8 {
+    final byte[] bytes;
+    int length;
+    int consumedBytes;
+
+    ModifiedUtf8(int capacity) {
+      bytes = new byte[capacity];
+    }
+
+    String decode() {
+      char[] chars = new char[length];
+      int numChars = 0;
+      for (int i = 0; i < length; ) {
+        int c = bytes[i++] & 0xFF;
+        if (c < 0x80) {
+          chars[numChars++] = (char) c;
+        } else if (c < 0xE0) {
+          chars[numChars++] = (char) (((c & 0x1F) << 6) | (bytes[i++] & 0x3F));
+        } else {
+          chars[numChars++] =
+              (char) (((c & 0x0F) << 12) | ((bytes[i++] & 0x3F) << 6) | (bytes[i++] & 0x3F));
+        }
+      }
+      return new String(chars, 0, numChars);
+    }
+  }
+
+  // Forces a byte to be a valid UTF-8 continuation byte.
+  private static int forceContinuationByte(int c) {
+    return (c | (1 << 7)) & ~(1 << 6);
+  }
+
+  /**
+   * Consumes up to {@link #remainingBytes} arbitrary bytes and returns a valid "modified UTF-8"
+   * string of length at most {@code maxLength} that resembles the input bytes as closely as
+   * possible. See FixUpModifiedUtf8 in fuzzed_data_provider.cpp for details.
+   */
+  private ModifiedUtf8 fixUpModifiedUtf8(
+      int maxLength, boolean asciiOnly, boolean stopOnBackslash) {
+    final long data = dataPtr;
+    final int maxBytes = remainingBytes;
+    // Every consumed byte is transformed into at most one code unit, except for the case of a zero
+    // byte which requires two bytes, and every character is coded on at most three bytes.
+    ModifiedUtf8 str =
+        new ModifiedUtf8(
+            (int) Math.min(Math.min(2L * maxBytes, 3L * maxLength + 3), Integer.MAX_VALUE - 8));
+    final byte[] out = str.bytes;
+    int outLength = 0;
+
+    int state = LEADING_BYTE_GENERIC;
+    int pos = 0;
+    loop:
+    for (int length = 0; length < maxLength && pos != maxBytes; ++pos) {
+      int c = UNSAFE.getByte(data + pos) & 0xFF;
+      if (asciiOnly) {
+        // Clamp to 7-bit ASCII range.
+        c &= 0x7F;
+      }
+      switch (state) {
+        case LEADING_BYTE_GENERIC:
+          switch (asciiOnly ? 0 : Integer.numberOfLeadingZeros(~c & 0xFF) - 24) {
+            case 0:
+              // valid - 1-byte code point (ASCII)
+              if (c == 0) {
+                out[outLength++] = (byte) TWO_BYTE_ZERO_LEADING_BYTE;
+                c = TWO_BYTE_ZERO_CONTINUATION_BYTE;
+              } else if (stopOnBackslash && c == '\\') {
+                state = LEADING_BYTE_AFTER_BACKSLASH;
+                // The slash either signals the end of the string or is skipped, so don't append
+                // anything.
+                continue;
+              }
+              ++length;
+              break;
+            case 1:
+              // invalid - continuation byte at leader byte position
+              c |= 1 << 6;
+              c &= ~(1 << 5);
+              // fall through
+            case 2:
+              // (most likely) valid - start of a 2-byte sequence
+              if ((c & 0b00011110) == 0) {
+                state = CONTINUATION_BYTE_LOW_LEADING_BYTE;
+              } else {
+                state = CONTINUATION_BYTE_GENERIC;
+              }
+              break;
+            default:
+              // invalid - at least four leading ones
+              c &= ~(1 << 4);
+              // fall through
+            case 3:
+              // valid - start of a 3-byte sequence
+              if (c == THREE_BYTE_LOW_LEADING_BYTE) {
+                state = FIRST_CONTINUATION_BYTE_LOW_LEADING_BYTE;
+              } else if (c == SURROGATE_LEADING_BYTE) {
+                state = FIRST_CONTINUATION_BYTE_SURROGATE_LEADING_BYTE;
+              } else {
+                state = FIRST_CONTINUATION_BYTE_GENERIC;
+              }
+              break;
+          }
+          break;
+        case LEADING_BYTE_AFTER_BACKSLASH:
+          if (c != '\\') {
+            // Mark the current byte as consumed.
+            ++pos;
+            break loop;
+          }
+          // A double backslash is consumed as a single one.
+          state = LEADING_BYTE_GENERIC;
+          ++length;
+          break;
+        case CONTINUATION_BYTE_LOW_LEADING_BYTE:
+          c = forceContinuationByte(c);
+          int previousC = out[outLength - 1] & 0xFF;
+          if (previousC != TWO_BYTE_ZERO_LEADING_BYTE || c != TWO_BYTE_ZERO_CONTINUATION_BYTE) {
+            out[outLength - 1] = (byte) (previousC | (1 << 1));
+          }
+          state = LEADING_BYTE_GENERIC;
+          ++length;
+          break;
+        case CONTINUATION_BYTE_GENERIC:
+          c = forceContinuationByte(c);
+          state = LEADING_BYTE_GENERIC;
+          ++length;
+          break;
+        case FIRST_CONTINUATION_BYTE_LOW_LEADING_BYTE:
+          c = forceContinuationByte(c);
+          c |= 1 << 5;
+          state = SECOND_CONTINUATION_BYTE_GENERIC;
+          break;
+        case FIRST_CONTINUATION_BYTE_SURROGATE_LEADING_BYTE:
+          c = forceContinuationByte(c);
+          if ((c & (1 << 5)) != 0) {
+            // Start with a high surrogate (0xD800-0xDBFF).
+            c |= 1 << 5;
+            c &= ~(1 << 4);
+            state = SECOND_CONTINUATION_BYTE_HIGH_SURROGATE;
+          } else {
+            state = SECOND_CONTINUATION_BYTE_GENERIC;
+          }
+          break;
+        case FIRST_CONTINUATION_BYTE_GENERIC:
+          c = forceContinuationByte(c);
+          state = SECOND_CONTINUATION_BYTE_GENERIC;
+          break;
+        case SECOND_CONTINUATION_BYTE_HIGH_SURROGATE:
+          c = forceContinuationByte(c);
+          state = LEADING_BYTE_LOW_SURROGATE;
+          ++length;
+          break;
+        case SECOND_CONTINUATION_BYTE_LOW_SURROGATE:
+        case SECOND_CONTINUATION_BYTE_GENERIC:
+          c = forceContinuationByte(c);
+          state = LEADING_BYTE_GENERIC;
+          ++length;
+          break;
+        case LEADING_BYTE_LOW_SURROGATE:
+          // Emit the fixed low surrogate leading byte, but still consume a byte from the input.
+          c = SURROGATE_LEADING_BYTE;
+          state = FIRST_CONTINUATION_BYTE_LOW_SURROGATE;
+          break;
+        case FIRST_CONTINUATION_BYTE_LOW_SURROGATE:
+          c = forceContinuationByte(c);
+          // Low surrogates are code points in the range 0xDC00-0xDFFF.
+          c |= (1 << 5) | (1 << 4);
+          state = SECOND_CONTINUATION_BYTE_LOW_SURROGATE;
+          break;
+        default:
+          throw new IllegalStateException("Unexpected state: " + state);
+      }
+      out[outLength++] = (byte) c;
+    }
+
+    // Backtrack the current incomplete character, which also covers a high surrogate that isn't
+    // followed by a complete low surrogate.
+    switch (state) {
+      case SECOND_CONTINUATION_BYTE_LOW_SURROGATE:
+        outLength -= 5;
+        break;
+      case FIRST_CONTINUATION_BYTE_LOW_SURROGATE:
+        outLength -= 4;
+        break;
+      case LEADING_BYTE_LOW_SURROGATE:
+        outLength -= 3;
+        break;
+      case SECOND_CONTINUATION_BYTE_GENERIC:
+      case SECOND_CONTINUATION_BYTE_HIGH_SURROGATE:
+        outLength -= 2;
+        break;
+      case CONTINUATION_BYTE_GENERIC:
+      case CONTINUATION_BYTE_LOW_LEADING_BYTE:
+      case FIRST_CONTINUATION_BYTE_GENERIC:
+      case FIRST_CONTINUATION_BYTE_LOW_LEADING_BYTE:
+      case FIRST_CONTINUATION_BYTE_SURROGATE_LEADING_BYTE:
+        outLength -= 1;
+        break;
+      default:
+        // No backtracking required.
+        break;
+    }
+
+    str.length = outLength;
+    str.consumedBytes = pos;
+    return str;
+  }
+}
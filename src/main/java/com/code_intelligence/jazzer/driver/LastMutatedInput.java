@@ -0,0 +1,68 @@
+/*
+ * Copyright 2024 Code Intelligence GmbH
+ *
+ * By downloading, you agree to the Code Intelligence Jazzer Terms and Conditions.
+ *
+ * The Code Intelligence Jazzer Terms and Conditions are provided in LICENSE-JAZZER.txt
+ * located in the root directory of the project.
+ */
+
+package com.code_intelligence.jazzer.driver;
+
+import com.code_intelligence.jazzer.utils.UnsafeProvider;
+import sun.misc.Unsafe;
+
+/**
+ * Remembers a fingerprint of the input most recently written by the custom mutator.
+ *
+ * <p>libFuzzer usually executes the input it just obtained from the custom mutator next. If the
+ * input passed to the fuzz target matches the fingerprint, the mutator still holds the arguments it
+ * deserializes to and reading them in again can be skipped.
+ */
+final class LastMutatedInput {
+  private static final Unsafe UNSAFE = UnsafeProvider.getUnsafe();
+
+  // -1 if there is no input whose arguments can be reused.
+  private int size = -1;
+  private long hash;
+
+  /**
+   * Remembers the input written to {@code out} since its last reset, unless it has been truncated
+   * and thus doesn't deserialize to the mutator's current arguments in general.
+   */
+  void remember(NativeMemoryOutputStream out) {
+    if (out.isTruncated()) {
+      forget();
+    } else {
+      size = out.size();
+      hash = fingerprint(out.address(), size);
+    }
+  }
+
+  /** Forgets the remembered input, e.g. because its arguments have been exposed. */
+  void forget() {
+    size = -1;
+  }
+
+  /** Returns whether the given native memory region contains the remembered input. */
+  boolean matches(long dataPtr, int dataLength) {
+    return dataLength == size && fingerprint(dataPtr, dataLength) == hash;
+  }
+
+  /**
+   * Computes a 64-bit hash of the given native memory region that is much cheaper to obtain than
+   * deserializing the region with the mutator.
+   */
+  private static long fingerprint(long ptr, int length) {
+    long hash = 0x9E3779B97F4A7C15L ^ length;
+    int i = 0;
+    for (; i + Long.BYTES <= length; i += Long.BYTES) {
+      hash = (hash ^ UNSAFE.getLong(ptr + i)) * 0xFF51AFD7ED558CCDL;
+      hash ^= hash >>> 32;
+    }
+    for (; i < length; i++) {
+      hash = (hash ^ UNSAFE.getByte(ptr + i)) * 0xC4CEB9FE1A85EC53L;
+    }
+    return hash ^ (hash >>> 29);
+  }
+}
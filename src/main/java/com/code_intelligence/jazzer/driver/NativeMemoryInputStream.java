@@ -0,0 +1,87 @@
+/*
+ * Copyright 2024 Code Intelligence GmbH
+ *
+ * By downloading, you agree to the Code Intelligence Jazzer Terms and Conditions.
+ *
+ * The Code Intelligence Jazzer Terms and Conditions are provided in LICENSE-JAZZER.txt
+ * located in the root directory of the project.
+ */
+
+package com.code_intelligence.jazzer.driver;
+
+import com.code_intelligence.jazzer.utils.UnsafeProvider;
+import java.io.InputStream;
+import sun.misc.Unsafe;
+
+/**
+ * An {@link InputStream} that reads directly from native memory, such as the input buffers owned
+ * by libFuzzer.
+ *
+ * <p>Instances are meant to be reused across fuzzing iterations by calling {@link #reset(long,
+ * int)}, so that reading an input does not require copying it onto the Java heap first. Since the
+ * stream does not own the memory it reads from, callers have to ensure that the memory stays valid
+ * until the stream is reset or no longer used.
+ */
+final class NativeMemoryInputStream extends InputStream {
+  private static final Unsafe UNSAFE = UnsafeProvider.getUnsafe();
+  private static final long BYTE_ARRAY_OFFSET = UNSAFE.arrayBaseOffset(byte[].class);
+
+  private long position;
+  private long end;
+
+  /**
+   * Points this stream at a new region of native memory.
+   *
+   * @param dataPtr a native pointer to the first byte to read
+   * @param dataLength the number of bytes that can be read starting at {@code dataPtr}
+   * @return this stream
+   */
+  NativeMemoryInputStream reset(long dataPtr, int dataLength) {
+    if (dataLength < 0) {
+      throw new IllegalArgumentException("dataLength must be non-negative, got " + dataLength);
+    }
+    this.position = dataPtr;
+    this.end = dataPtr + dataLength;
+    return this;
+  }
+
+  @Override
+  public int read() {
+    if (position == end) {
+      return -1;
+    }
+    return UNSAFE.getByte(position++) & 0xFF;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) {
+    if (off < 0 || len < 0 || len > b.length - off) {
+      throw new IndexOutOfBoundsException();
+    }
+    if (len == 0) {
+      return 0;
+    }
+    if (position == end) {
+      return -1;
+    }
+    int bytesRead = (int) Math.min(len, end - position);
+    UNSAFE.copyMemory(null, position, b, BYTE_ARRAY_OFFSET + off, bytesRead);
+    position += bytesRead;
+    return bytesRead;
+  }
+
+  @Override
+  public long skip(long n) {
+    if (n <= 0) {
+      return 0;
+    }
+    long skipped = Math.min(n, end - position);
+    position += skipped;
+    return skipped;
+  }
+
+  @Override
+  public int available() {
+    return (int) (end - position);
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2024 Code Intelligence GmbH
+ *
+ * By downloading, you agree to the Code Intelligence Jazzer Terms and Conditions.
+ *
+ * The Code Intelligence Jazzer Terms and Conditions are provided in LICENSE-JAZZER.txt
+ * located in the root directory of the project.
+ */
+
+package com.code_intelligence.jazzer.driver;
+
+import com.code_intelligence.jazzer.utils.UnsafeProvider;
+import java.io.OutputStream;
+import sun.misc.Unsafe;
+
+/**
+ * An {@link OutputStream} that writes directly into a fixed-size region of native memory, such as
+ * the output buffer passed to libFuzzer's custom mutator.
+ *
+ * <p>Bytes written past the end of the region are silently discarded, which matches libFuzzer's
+ * semantics of truncating inputs to the maximum length. Instances are meant to be reused across
+ * fuzzing iterations by calling {@link #reset(long, int)}.
+ */
+final class NativeMemoryOutputStream extends OutputStream {
+  private static final Unsafe UNSAFE = UnsafeProvider.getUnsafe();
+  private static final long BYTE_ARRAY_OFFSET = UNSAFE.arrayBaseOffset(byte[].class);
+
+  private long start;
+  private long position;
+  private long end;
+  private boolean truncated;
+
+  /**
+   * Points this stream at a new region of native memory.
+   *
+   * @param dataPtr a native pointer to the first byte to write
+   * @param capacity the maximum number of bytes that can be written starting at {@code dataPtr}
+   * @return this stream
+   */
+  NativeMemoryOutputStream reset(long dataPtr, int capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("capacity must be non-negative, got " + capacity);
+    }
+    this.start = dataPtr;
+    this.position = dataPtr;
+    this.end = dataPtr + capacity;
+    this.truncated = false;
+    return this;
+  }
+
+  /** Returns the native pointer to the first byte of the region. */
+  long address() {
+    return start;
+  }
+
+  /** Returns the number of bytes that have actually been written to native memory. */
+  int size() {
+    return (int) (position - start);
+  }
+
+  /** Returns whether bytes have been discarded since the last call to {@link #reset(long, int)}. */
+  boolean isTruncated() {
+    return truncated;
+  }
+
+  @Override
+  public void write(int b) {
+    if (position != end) {
+      UNSAFE.putByte(position++, (byte) b);
+    } else {
+      truncated = true;
+    }
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) {
+    if (off < 0 || len < 0 || len > b.length - off) {
+      throw new IndexOutOfBoundsException();
+    }
+    int bytesToWrite = (int) Math.min(len, end - position);
+    if (bytesToWrite < len) {
+      truncated = true;
+    }
+    UNSAFE.copyMemory(b, BYTE_ARRAY_OFFSET + off, null, position, bytesToWrite);
+    position += bytesToWrite;
+  }
+}
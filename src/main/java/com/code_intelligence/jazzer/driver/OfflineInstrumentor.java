@@ -11,21 +11,29 @@
 
 package com.code_intelligence.jazzer.driver;
 
+import com.code_intelligence.jazzer.agent.Agent;
 import com.code_intelligence.jazzer.agent.AgentInstaller;
+import com.code_intelligence.jazzer.instrumentor.CoverageRecorder;
+import com.code_intelligence.jazzer.instrumentor.EdgeCoverageInstrumentor;
 import com.code_intelligence.jazzer.utils.Log;
 import com.code_intelligence.jazzer.utils.ZipUtils;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
+import java.util.stream.Collectors;
 import java.util.zip.ZipOutputStream;
 
 public class OfflineInstrumentor {
@@ -63,7 +71,7 @@ public class OfflineInstrumentor {
       Log.info("Instrumenting jar file: " + jarPath);
 
       try {
-        errorMessages = createInstrumentedClasses(jarPath);
+        errorMessages.addAll(createInstrumentedClasses(jarPath));
       } catch (IOException e) {
         errorMessages.add(
             "Failed to instrument jar: "
@@ -83,6 +91,15 @@ public class OfflineInstrumentor {
       }
     }
 
+    if (!Opt.coverageIdLayout.get().isEmpty()) {
+      // Lets fuzzer processes assign IDs to classes loaded at runtime after the ones used here.
+      try {
+        Agent.offlineCoverageIdStrategy.layout().write(Paths.get(Opt.coverageIdLayout.get()));
+      } catch (IOException e) {
+        errorMessages.add("Failed to write coverage ID layout: " + e);
+      }
+    }
+
     // Log all errors at the end
     for (String error : errorMessages) {
       Log.error(error);
@@ -136,22 +153,77 @@ public class OfflineInstrumentor {
     URL[] urls = new URL[] {url};
     ClassLoader cl = new URLClassLoader(urls);
 
-    // Loop through all files and load in all classes, agent will instrument them as they load
-    for (String className : allClasses) {
-      try {
-        cl.loadClass(className);
-      } catch (UnsupportedClassVersionError ucve) {
-        // The classes will still get instrumented here, but warn so the user knows something
-        // happened
-        Log.warn(ucve.toString());
-      } catch (Throwable e) {
-        // Catch all exceptions/errors and keep instrumenting to give user the option to manually
-        // fix one offs if possible
-        errorMessages.add("Failed to instrument class: " + className + ". Error: " + e);
+    reserveCoverageIds(cl, allClasses);
+
+    // Load all classes in parallel, agent will instrument them as they load. The coverage IDs have
+    // been reserved above, so the instrumented classes do not depend on the order of loading.
+    errorMessages.addAll(
+        allClasses.parallelStream()
+            .map(className -> loadClass(cl, className))
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList()));
+
+    return errorMessages;
+  }
+
+  /**
+   * Counts the edges of all classes that receive coverage instrumentation in parallel and reserves
+   * consecutive coverage IDs for them in the order in which they appear in the jar.
+   */
+  private static void reserveCoverageIds(ClassLoader cl, List<String> allClasses) {
+    List<String> classesToInstrument =
+        allClasses.stream()
+            .filter(CoverageRecorder.INSTANCE.getClassNameGlobber()::includes)
+            .collect(Collectors.toList());
+    int[] numEdges =
+        classesToInstrument.parallelStream()
+            .mapToInt(className -> countEdges(cl, className))
+            .toArray();
+    for (int i = 0; i < numEdges.length; i++) {
+      if (numEdges[i] >= 0) {
+        Agent.offlineCoverageIdStrategy.reserve(
+            classesToInstrument.get(i).replace('.', '/'), numEdges[i]);
       }
     }
+  }
 
-    return errorMessages;
+  /** Returns the number of edges of the given class or -1 if its bytecode can't be analyzed. */
+  private static int countEdges(ClassLoader cl, String className) {
+    try (InputStream stream = cl.getResourceAsStream(className.replace('.', '/') + ".class")) {
+      if (stream == null) {
+        return -1;
+      }
+      return EdgeCoverageInstrumentor.countEdges(readAllBytes(stream));
+    } catch (Throwable e) {
+      // The class receives IDs after all reserved ones if it is instrumented at all.
+      return -1;
+    }
+  }
+
+  /** Returns an error message if the given class could not be loaded, null otherwise. */
+  private static String loadClass(ClassLoader cl, String className) {
+    try {
+      cl.loadClass(className);
+    } catch (UnsupportedClassVersionError ucve) {
+      // The classes will still get instrumented here, but warn so the user knows something
+      // happened
+      Log.warn(ucve.toString());
+    } catch (Throwable e) {
+      // Catch all exceptions/errors and keep instrumenting to give user the option to manually
+      // fix one offs if possible
+      return "Failed to instrument class: " + className + ". Error: " + e;
+    }
+    return null;
+  }
+
+  private static byte[] readAllBytes(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[64 * 1024];
+    int read;
+    while ((read = in.read(buffer)) != -1) {
+      out.write(buffer, 0, read);
+    }
+    return out.toByteArray();
   }
 
   /**
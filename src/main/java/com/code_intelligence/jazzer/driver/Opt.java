@@ -100,6 +100,12 @@ public final class Opt {
           "autofuzz_ignore",
           ',',
           "Fully qualified names of exception classes to ignore during fuzzing");
+  public static final OptItem<Boolean> batchTrace =
+      boolSetting(
+          "batch_trace",
+          false,
+          "Collect the comparisons, divisions and array indices observed on the fuzzing thread and"
+              + " report them to libFuzzer in batches rather than one at a time (experimental)");
   public static final OptItem<String> coverageDump =
       stringSetting(
           "coverage_dump",
@@ -110,6 +116,14 @@ public final class Opt {
           "coverage_report",
           "",
           "Path to write a human-readable coverage report to when the fuzzer exits (if non-empty)");
+  public static final OptItem<String> coverageIdLayout =
+      stringSetting(
+          "coverage_id_layout",
+          "",
+          "File assigning coverage IDs to classes ahead of time so that all processes agree on"
+              + " them without synchronization (if non-empty). Computed from the class path if it"
+              + " does not exist and written with --instrument_only. Other classes still use"
+              + " --id_sync_file");
   public static final OptItem<List<String>> cp =
       stringListSetting("cp", "The class path to use for fuzzing (native launcher only)");
   public static final OptItem<List<String>> customHookExcludes =
@@ -134,6 +148,12 @@ public final class Opt {
           "dump_classes_dir",
           "",
           "Directory to dump instrumented .class files into (if non-empty)");
+  public static final OptItem<Boolean> javaFuzzedDataProvider =
+      boolSetting(
+          "java_fuzzed_data_provider",
+          false,
+          "Use a pure Java implementation of FuzzedDataProvider, which avoids a JNI call for every"
+              + " consumed value, instead of the native one");
   public static final OptItem<Boolean> mutatorFramework =
       boolSetting(
           "mutator_framework", true, "Use the internal mutator framework to generate inputs");
@@ -146,12 +166,25 @@ public final class Opt {
               + " all mutations), other invocations perform type specific mutations via the"
               + " mutator framework. (0 = disabled, 1 = every call, 2 = every other call,"
               + " etc.).");
+  public static final OptItem<Boolean> mutatorReuseArguments =
+      boolSetting(
+          "mutator_reuse_arguments",
+          true,
+          "(Used in mutator framework) Skip deserializing an input if it is the one the mutator"
+              + " has just produced and reuse the mutator's in-memory arguments instead");
   public static final OptItem<Boolean> fuzzNative =
       boolSetting(
           "native",
           false,
           "Allow fuzzing of native libraries compiled with '-fsanitize=fuzzer' (implied by --asan"
               + " and --ubsan)");
+  public static final OptItem<Boolean> foreignFunctionCallbacks =
+      boolSetting(
+          "foreign_function_callbacks",
+          false,
+          "Report comparisons, divisions and array indices to libFuzzer with the Foreign Function &"
+              + " Memory API rather than JNI on JDK 22+ (experimental, pass"
+              + " --enable-native-access=ALL-UNNAMED to the JVM to silence its warning)");
   public static final OptItem<Boolean> hooks =
       boolSetting(
           "hooks", true, "Apply fuzzing instrumentation (use 'trace' for finer-grained control)");
@@ -163,6 +196,12 @@ public final class Opt {
           "",
           "A file used by Jazzer subprocesses to coordinate coverage instrumented. If not set, "
               + "Jazzer will create a temporary file and pass it to subprocesses.");
+  public static final OptItem<String> instrumentationCacheDir =
+      stringSetting(
+          "instrumentation_cache_dir",
+          "",
+          "Directory in which instrumented classes are cached across fuzzer runs and subprocesses"
+              + " (if non-empty)");
   public static final OptItem<List<String>> ignore =
       stringListSetting(
           "ignore",
@@ -186,6 +225,12 @@ public final class Opt {
   public static final OptItem<Long> keepGoing =
       uint64Setting(
           "keep_going", 1, "Number of distinct findings after which the fuzzer should stop");
+  public static final OptItem<Boolean> pruneCoverageProbes =
+      boolSetting(
+          "prune_coverage_probes",
+          false,
+          "Don't instrument coverage probes whose execution is implied by other probes of the same"
+              + " method and reconstruct them for coverage reports (experimental)");
   public static final OptItem<String> reproducerPath =
       stringSetting(
           "reproducer_path",
@@ -235,6 +280,18 @@ public final class Opt {
   public static final OptItem<Boolean> conditionalHooks =
       boolSetting("conditional_hooks", false, null);
 
+  // Whether hooked call sites should be dispatched via invokedynamic, which allows enabling and
+  // disabling hooks at runtime without checking JazzerInternal#hooksEnabled on every call. Call
+  // sites that can't use invokedynamic fall back to the behavior selected by conditionalHooks.
+  // Classes loaded before the agent use conditional hooks as retransformation can't add the methods
+  // the invokedynamic call sites link to.
+  public static final OptItem<Boolean> indyHooks = boolSetting("indy_hooks", false, null);
+
+  // A file used by the subprocesses created by libFuzzer's -fork, -jobs and -merge modes to reuse
+  // the classes targeted by hooks as resolved by the parent process.
+  public static final OptItem<String> hookTargetsFile =
+      stringSetting("hook_targets_file", "", null);
+
   public static final OptItem<List<String>> instrumentOnly =
       stringListSetting(
           "instrument_only",
@@ -10,6 +10,9 @@
 package com.code_intelligence.jazzer.instrumentor
 
 import com.code_intelligence.jazzer.runtime.CoverageMap
+import com.code_intelligence.jazzer.third_party.org.jacoco.core.internal.instr.InstrSupport
+import org.objectweb.asm.ClassReader
+import org.objectweb.asm.ClassWriter
 
 fun extractClassFileMajorVersion(classfileBuffer: ByteArray): Int {
     return ((classfileBuffer[6].toInt() and 0xff) shl 8) or (classfileBuffer[7].toInt() and 0xff)
@@ -20,31 +23,99 @@ class ClassInstrumentor(private val internalClassName: String, bytecode: ByteArr
     var instrumentedBytecode = bytecode
         private set
 
-    fun coverage(initialEdgeId: Int): Int {
+    @JvmOverloads
+    fun coverage(initialEdgeId: Int, pruneProbes: Boolean = false): Int {
         val edgeCoverageInstrumentor = EdgeCoverageInstrumentor(
             defaultEdgeCoverageStrategy,
             defaultCoverageMap,
             initialEdgeId,
+            pruneProbes,
         )
         instrumentedBytecode = edgeCoverageInstrumentor.instrument(internalClassName, instrumentedBytecode)
         return edgeCoverageInstrumentor.numEdges
     }
 
-    fun traceDataFlow(instrumentations: Set<InstrumentationType>) {
-        instrumentedBytecode =
-            TraceDataFlowInstrumentor(instrumentations).instrument(internalClassName, instrumentedBytecode)
+    @JvmOverloads
+    fun traceDataFlow(instrumentations: Set<InstrumentationType>, batchTraceDataFlow: Boolean = false) {
+        instrumentedBytecode = TraceDataFlowInstrumentor(instrumentations, traceDataFlowCallbacks(batchTraceDataFlow))
+            .instrument(internalClassName, instrumentedBytecode)
     }
 
-    fun hooks(hooks: Iterable<Hook>, classWithHooksEnabledField: String?) {
+    @JvmOverloads
+    fun hooks(hooks: Iterable<Hook>, classWithHooksEnabledField: String?, indyHooks: Boolean = false) {
         instrumentedBytecode = HookInstrumentor(
             hooks,
             java6Mode = extractClassFileMajorVersion(instrumentedBytecode) < 51,
             classWithHooksEnabledField = classWithHooksEnabledField,
+            indyHooks = indyHooks,
         ).instrument(internalClassName, instrumentedBytecode)
     }
 
+    /**
+     * Applies [coverage], [traceDataFlow] and [hooks] instrumentation in this order, but parses and serializes the
+     * class file only once by chaining the individual instrumentations into a single visitor pipeline. Returns the
+     * number of edges added by the coverage instrumentation.
+     */
+    @JvmOverloads
+    fun fullInstrumentation(
+        initialEdgeId: Int,
+        instrumentations: Set<InstrumentationType>,
+        hooks: Iterable<Hook>,
+        classWithHooksEnabledField: String?,
+        batchTraceDataFlow: Boolean = false,
+        indyHooks: Boolean = false,
+        pruneCoverageProbes: Boolean = false,
+    ): Int {
+        val edgeCoverageInstrumentor = EdgeCoverageInstrumentor(
+            defaultEdgeCoverageStrategy,
+            defaultCoverageMap,
+            initialEdgeId,
+            pruneCoverageProbes,
+        )
+        val hookInstrumentor = HookInstrumentor(
+            hooks,
+            java6Mode = extractClassFileMajorVersion(instrumentedBytecode) < 51,
+            classWithHooksEnabledField = classWithHooksEnabledField,
+            indyHooks = indyHooks,
+        )
+        val reader = InstrSupport.classReaderFor(instrumentedBytecode)
+        val writer = ClassWriter(reader, ClassWriter.COMPUTE_MAXS)
+        // The visitors are chained in reverse order of application:
+        // * Coverage instrumentation must see the original code or there will be additional coverage points injected
+        //   for any calls inserted by the other instrumentations and JaCoCo will produce a broken coverage report.
+        // * Hook instrumentation must come after data flow tracing as the injected bytecode would trigger the GEP
+        //   callbacks for byte[].
+        val hooksVisitor = hookInstrumentor.classVisitor(internalClassName, writer)
+        val traceDataFlowVisitor = TraceDataFlowInstrumentor(instrumentations, traceDataFlowCallbacks(batchTraceDataFlow))
+            .classVisitor(hooksVisitor)
+        val coverageVisitor = edgeCoverageInstrumentor.classVisitor(reader, traceDataFlowVisitor)
+        reader.accept(coverageVisitor, ClassReader.EXPAND_FRAMES)
+        instrumentedBytecode = writer.toByteArray()
+        return edgeCoverageInstrumentor.numEdges
+    }
+
     companion object {
         val defaultEdgeCoverageStrategy = StaticMethodStrategy()
         val defaultCoverageMap = CoverageMap::class.java
+
+        /**
+         * Registers the coverage counters for the given range of edge IDs with [defaultCoverageMap], which otherwise
+         * happens as part of the coverage instrumentation. Required when instrumented bytecode is reused.
+         */
+        fun registerEdgeIds(firstId: Int, numIds: Int) {
+            val endId = firstId + numIds
+            var id = firstId
+            while (id < endId) {
+                CoverageMap.enlargeIfNeeded(id)
+                // Counters are registered in whole modules, so continue with the first ID of the next one.
+                id = (id / CoverageMap.COUNTERS_PER_MODULE + 1) * CoverageMap.COUNTERS_PER_MODULE
+            }
+        }
+
+        private fun traceDataFlowCallbacks(batched: Boolean) = if (batched) {
+            "com/code_intelligence/jazzer/runtime/TraceDataFlowBatchedCallbacks"
+        } else {
+            "com/code_intelligence/jazzer/runtime/TraceDataFlowNativeCallbacks"
+        }
     }
 }
@@ -22,22 +22,35 @@ import java.io.File
 import java.io.FileOutputStream
 import java.io.OutputStream
 import java.time.Instant
+import java.util.BitSet
 import java.util.UUID
 
+private fun IntArray.toBitSet() = BitSet().also { bitSet -> forEach { bitSet.set(it) } }
+
 private data class InstrumentedClassInfo(
     val classId: Long,
     val initialEdgeId: Int,
     val nextEdgeId: Int,
     val bytecode: ByteArray,
+    val prunedProbes: Boolean,
 )
 
 object CoverageRecorder {
     var classNameGlobber = ClassNameGlobber(emptyList(), emptyList())
     private val instrumentedClassInfo = mutableMapOf<String, InstrumentedClassInfo>()
     private var startTimestamp: Instant? = null
-    private val additionalCoverage = mutableSetOf<Int>()
+    private val additionalCoverage = BitSet()
 
-    fun recordInstrumentedClass(internalClassName: String, bytecode: ByteArray, firstId: Int, numIds: Int) {
+    // Synchronized as classes may be instrumented concurrently if the coverage IDs have been reserved up front.
+    @Synchronized
+    @JvmOverloads
+    fun recordInstrumentedClass(
+        internalClassName: String,
+        bytecode: ByteArray,
+        firstId: Int,
+        numIds: Int,
+        prunedProbes: Boolean = false,
+    ) {
         if (startTimestamp == null) {
             startTimestamp = Instant.now()
         }
@@ -46,6 +59,7 @@ object CoverageRecorder {
             firstId,
             firstId + numIds,
             bytecode,
+            prunedProbes,
         )
     }
 
@@ -55,7 +69,7 @@ object CoverageRecorder {
      */
     @JvmStatic
     fun updateCoveredIdsWithCoverageMap() {
-        additionalCoverage.addAll(CoverageMap.getCoveredIds())
+        additionalCoverage.or(CoverageMap.getCoveredIds())
     }
 
     /**
@@ -71,7 +85,7 @@ object CoverageRecorder {
 
     private fun computeFileCoverage(coveredIds: IntArray): String {
         fun Double.format(digits: Int) = "%.${digits}f".format(this)
-        val coverage = analyzeCoverage(coveredIds.toSet()) ?: return "No classes were instrumented"
+        val coverage = analyzeCoverage(coveredIds.toBitSet()) ?: return "No classes were instrumented"
         return coverage.sourceFiles.joinToString(
             "\n",
             prefix = "Branch coverage:\n",
@@ -137,43 +151,30 @@ object CoverageRecorder {
         outWriter.visitSessionInfo(
             SessionInfo(UUID.randomUUID().toString(), startTimestamp.epochSecond, dumpTimestamp.epochSecond),
         )
-        analyzeJacocoCoverage(coveredIds.toSet()).accept(outWriter)
+        analyzeJacocoCoverage(coveredIds.toBitSet()).accept(outWriter)
     }
 
     /**
      * Build up a JaCoCo [ExecutionDataStore] based on [coveredIds] containing the internally gathered coverage information.
      */
-    private fun analyzeJacocoCoverage(coveredIds: Set<Int>): ExecutionDataStore {
+    private fun analyzeJacocoCoverage(coveredIds: BitSet): ExecutionDataStore {
         val executionDataStore = ExecutionDataStore()
-        val sortedCoveredIds = (additionalCoverage + coveredIds).sorted().toIntArray()
+        val allCoveredIds = (additionalCoverage.clone() as BitSet).apply { or(coveredIds) }
         for ((internalClassName, info) in instrumentedClassInfo) {
-            // Determine the subarray of coverage IDs in sortedCoveredIds that contains the IDs generated while
-            // instrumenting the current class. Since the ID array is sorted, use binary search.
-            var coveredIdsStart = sortedCoveredIds.binarySearch(info.initialEdgeId)
-            if (coveredIdsStart < 0) {
-                coveredIdsStart = -(coveredIdsStart + 1)
-            }
-            var coveredIdsEnd = sortedCoveredIds.binarySearch(info.nextEdgeId)
-            if (coveredIdsEnd < 0) {
-                coveredIdsEnd = -(coveredIdsEnd + 1)
-            }
-            if (coveredIdsStart == coveredIdsEnd) {
+            var globalEdgeId = allCoveredIds.nextSetBit(info.initialEdgeId)
+            if (globalEdgeId !in info.initialEdgeId until info.nextEdgeId) {
                 // No coverage data for the class.
                 continue
             }
-            check(coveredIdsStart in 0 until coveredIdsEnd && coveredIdsEnd <= sortedCoveredIds.size) {
-                "Invalid range [$coveredIdsStart, $coveredIdsEnd) with coveredIds.size=${sortedCoveredIds.size}"
-            }
             // Generate a probes array for the current class only, i.e., mapping info.initialEdgeId to 0.
             val probes = BooleanArray(info.nextEdgeId - info.initialEdgeId)
-            (coveredIdsStart until coveredIdsEnd).asSequence()
-                .map {
-                    val globalEdgeId = sortedCoveredIds[it]
-                    globalEdgeId - info.initialEdgeId
-                }
-                .forEach { classLocalEdgeId ->
-                    probes[classLocalEdgeId] = true
-                }
+            while (globalEdgeId in info.initialEdgeId until info.nextEdgeId) {
+                probes[globalEdgeId - info.initialEdgeId] = true
+                globalEdgeId = allCoveredIds.nextSetBit(globalEdgeId + 1)
+            }
+            if (info.prunedProbes) {
+                EdgeCoverageInstrumentor.reconstructPrunedProbes(info.bytecode, probes)
+            }
             executionDataStore.visitClassExecution(ExecutionData(info.classId, internalClassName, probes))
         }
         return executionDataStore
@@ -182,7 +183,7 @@ object CoverageRecorder {
     /**
      * Create a [CoverageBuilder] containing all classes matching the include/exclude pattern and their coverage statistics.
      */
-    fun analyzeCoverage(coveredIds: Set<Int>): CoverageBuilder? {
+    fun analyzeCoverage(coveredIds: BitSet): CoverageBuilder? {
         return try {
             val coverage = CoverageBuilder()
             analyzeAllUncoveredClasses(coverage)
@@ -15,6 +15,7 @@ import com.code_intelligence.jazzer.third_party.org.jacoco.core.data.ExecutionDa
 import com.code_intelligence.jazzer.third_party.org.jacoco.core.internal.flow.ClassProbesAdapter
 import com.code_intelligence.jazzer.third_party.org.jacoco.core.internal.flow.ClassProbesVisitor
 import com.code_intelligence.jazzer.third_party.org.jacoco.core.internal.flow.IClassProbesAdapterFactory
+import com.code_intelligence.jazzer.third_party.org.jacoco.core.internal.flow.MethodProbesVisitor
 import com.code_intelligence.jazzer.third_party.org.jacoco.core.internal.instr.ClassInstrumenter
 import com.code_intelligence.jazzer.third_party.org.jacoco.core.internal.instr.IProbeArrayStrategy
 import com.code_intelligence.jazzer.third_party.org.jacoco.core.internal.instr.IProbeInserterFactory
@@ -24,6 +25,8 @@ import org.objectweb.asm.ClassReader
 import org.objectweb.asm.ClassVisitor
 import org.objectweb.asm.ClassWriter
 import org.objectweb.asm.MethodVisitor
+import org.objectweb.asm.Opcodes
+import org.objectweb.asm.tree.MethodNode
 import java.lang.invoke.MethodHandle
 import java.lang.invoke.MethodHandles.publicLookup
 import java.lang.invoke.MethodType.methodType
@@ -74,14 +77,20 @@ interface EdgeCoverageStrategy {
 
 // An instance of EdgeCoverageInstrumentor should only be used to instrument a single class as it
 // internally tracks the edge IDs, which have to be globally unique.
-class EdgeCoverageInstrumentor(
+class EdgeCoverageInstrumentor @JvmOverloads constructor(
     private val strategy: EdgeCoverageStrategy,
     /**
      * The class must have the following public static member
-     *  - method enlargeIfNeeded(int nextEdgeId): Called before a new edge ID is emitted.
+     *  - method enlargeIfNeeded(int nextEdgeId): Called before a new edge ID is emitted. Has to be thread-safe as
+     *    classes with reserved coverage IDs may be instrumented concurrently.
      */
     coverageMapClass: Class<*>,
     private val initialEdgeId: Int,
+    /**
+     * Whether to omit the probes whose execution can be reconstructed from other probes, see [ProbePruner]. The
+     * coverage of such probes has to be filled in with [reconstructPrunedProbes] before it is analyzed.
+     */
+    private val pruneProbes: Boolean = false,
 ) : Instrumentor {
     private var nextEdgeId = initialEdgeId
 
@@ -99,13 +108,21 @@ class EdgeCoverageInstrumentor(
     override fun instrument(internalClassName: String, bytecode: ByteArray): ByteArray {
         val reader = InstrSupport.classReaderFor(bytecode)
         val writer = ClassWriter(reader, 0)
+        reader.accept(classVisitor(reader, writer), ClassReader.EXPAND_FRAMES)
+        return writer.toByteArray()
+    }
+
+    /**
+     * Returns a [ClassVisitor] that adds edge coverage instrumentation to the class read by [reader] and passes the
+     * result on to [next]. The visitor expects to be driven by [ClassReader.EXPAND_FRAMES].
+     */
+    internal fun classVisitor(reader: ClassReader, next: ClassVisitor): ClassVisitor {
         val version = InstrSupport.getMajorVersion(reader)
-        val visitor = EdgeCoverageClassProbesAdapter(
-            ClassInstrumenter(edgeCoverageProbeArrayStrategy, edgeCoverageProbeInserterFactory, writer),
+        val classInstrumenter = ClassInstrumenter(edgeCoverageProbeArrayStrategy, edgeCoverageProbeInserterFactory, next)
+        return EdgeCoverageClassProbesAdapter(
+            if (pruneProbes) ProbePruningClassProbesVisitor(classInstrumenter) else classInstrumenter,
             InstrSupport.needsFrames(version),
         )
-        reader.accept(visitor, ClassReader.EXPAND_FRAMES)
-        return writer.toByteArray()
     }
 
     fun analyze(executionData: ExecutionDataStore, coverageVisitor: ICoverageVisitor, bytecode: ByteArray, internalClassName: String) {
@@ -139,7 +156,11 @@ class EdgeCoverageInstrumentor(
 
         override fun visitMaxs(maxStack: Int, maxLocals: Int) {
             val newMaxStack = max(maxStack + strategy.instrumentControlFlowEdgeStackSize, strategy.loadLocalVariableStackSize)
-            val newMaxLocals = maxLocals + if (strategy.localVariableType != null) 1 else 0
+            val newMaxLocals = maxLocals + when (strategy.localVariableType) {
+                null -> 0
+                Opcodes.LONG, Opcodes.DOUBLE -> 2
+                else -> 1
+            }
             mv.visitMaxs(newMaxStack, newMaxLocals)
         }
 
@@ -175,6 +196,67 @@ class EdgeCoverageInstrumentor(
 
         override fun addMembers(cv: ClassVisitor, probeCount: Int) {}
     }
+
+    companion object {
+        /**
+         * Returns the number of edges the coverage instrumentation would add to the class given by [bytecode] without
+         * instrumenting it or reserving edge IDs.
+         */
+        @JvmStatic
+        fun countEdges(bytecode: ByteArray): Int {
+            var numEdges = 0
+            val edgeCounter = object : ClassProbesVisitor() {
+                // Methods are still visited if this returns null, so the probe IDs match those used by the
+                // instrumentation.
+                override fun visitMethod(
+                    access: Int,
+                    name: String?,
+                    descriptor: String?,
+                    signature: String?,
+                    exceptions: Array<String>?,
+                ): MethodProbesVisitor? = null
+
+                override fun visitTotalProbeCount(count: Int) {
+                    numEdges = count
+                }
+            }
+            InstrSupport.classReaderFor(bytecode).accept(ClassProbesAdapter(edgeCounter, false), 0)
+            return numEdges
+        }
+
+        /**
+         * Marks the probes in [probes], indexed by their class-local IDs, that have been omitted from the class given by
+         * [bytecode] by an instrumentor with `pruneProbes` set as covered if their execution is implied by the covered
+         * probes.
+         */
+        @JvmStatic
+        fun reconstructPrunedProbes(bytecode: ByteArray, probes: BooleanArray) {
+            var firstProbeId = 0
+            val pruningAnalyzer = object : ClassProbesVisitor() {
+                override fun visitMethod(
+                    access: Int,
+                    name: String?,
+                    descriptor: String?,
+                    signature: String?,
+                    exceptions: Array<String>?,
+                ): MethodProbesVisitor = object : MethodProbesVisitor() {
+                    override fun accept(methodNode: MethodNode, methodVisitor: MethodVisitor) {
+                        // Probe IDs are assigned consecutively per method, so there is no need to visit the method.
+                        val pruned = ProbePruner.prune(methodNode)
+                        pruned.forEachIndexed { index, sources ->
+                            if (sources != null && sources.any { probes[firstProbeId + it] }) {
+                                probes[firstProbeId + index] = true
+                            }
+                        }
+                        firstProbeId += pruned.size
+                    }
+                }
+
+                override fun visitTotalProbeCount(count: Int) {}
+            }
+            InstrSupport.classReaderFor(bytecode).accept(ClassProbesAdapter(pruningAnalyzer, false), 0)
+        }
+    }
 }
 
 fun MethodVisitor.push(value: Int) {
@@ -30,6 +30,13 @@ class Hook private constructor(
     val hookInternalClassName: String,
     val hookMethodName: String,
     val hookMethodDescriptor: String,
+    /**
+     * Whether the hook method declares the exact types of the target method's receiver (if any), parameters and
+     * return value instead of receiving a MethodHandle, an Object[] and boxed values. See [MethodHook] for details.
+     */
+    val isTyped: Boolean,
+    /** Whether a typed hook receives the receiver of the call, i.e., whether it hooks an instance method. */
+    val typedHookTakesThis: Boolean,
 ) {
 
     override fun toString(): String {
@@ -47,6 +54,7 @@ class Hook private constructor(
             val targetReturnTypeDescriptor = annotation.targetMethodDescriptor
                 .takeIf { it.isNotBlank() }?.let { extractReturnTypeDescriptor(it) }
             val hookClassName: String = hookMethod.declaringClass.name
+            val isTyped = hookMethod.parameterTypes.firstOrNull() != MethodHandle::class.java
             return Hook(
                 targetClassName = targetClassName,
                 hookType = annotation.type,
@@ -60,14 +68,68 @@ class Hook private constructor(
                 hookInternalClassName = hookClassName.replace('.', '/'),
                 hookMethodName = hookMethod.name,
                 hookMethodDescriptor = hookMethod.descriptor,
+                isTyped = isTyped,
+                typedHookTakesThis = isTyped && annotation.targetMethodDescriptor.isNotBlank() &&
+                    hookMethod.parameterCount == numTypedHookParameters(annotation.type, annotation.targetMethodDescriptor) + 1,
             )
         }
 
+        // The number of parameters of a typed hook for a static target method.
+        private fun numTypedHookParameters(hookType: HookType, targetMethodDescriptor: String): Int {
+            val hasReturnValue = hookType == HookType.AFTER && extractReturnTypeDescriptor(targetMethodDescriptor) != "V"
+            return extractParameterTypeDescriptors(targetMethodDescriptor).size + 1 + (if (hasReturnValue) 1 else 0)
+        }
+
+        // Whether a typed hook parameter with the given descriptor can be passed a value of the given type without
+        // any conversion.
+        private fun acceptsTypedValue(parameterDescriptor: String, valueDescriptor: String): Boolean =
+            parameterDescriptor == valueDescriptor ||
+                (parameterDescriptor == "Ljava/lang/Object;" && !isPrimitiveType(valueDescriptor)) ||
+                (parameterDescriptor == "I" && valueDescriptor in listOf("B", "C", "S"))
+
+        private fun verifyTyped(hookMethod: Method, potentialHook: Hook) {
+            require(potentialHook.hookType != HookType.REPLACE) { "$potentialHook: first parameter must have type MethodHandle" }
+            require(potentialHook.targetMethodName != "<init>") { "$potentialHook: first parameter must have type MethodHandle for constructors" }
+            val targetMethodDescriptor = requireNotNull(potentialHook.targetMethodDescriptor) {
+                "$potentialHook: first parameter must have type MethodHandle unless targetMethodDescriptor is specified"
+            }
+            require(hookMethod.returnType == Void.TYPE) { "$potentialHook: return type must be void" }
+
+            val numParameters = numTypedHookParameters(potentialHook.hookType, targetMethodDescriptor)
+            require(hookMethod.parameterCount == numParameters || hookMethod.parameterCount == numParameters + 1) {
+                "$potentialHook: incorrect number of parameters (expected $numParameters for a static or ${numParameters + 1} for an instance target method)"
+            }
+            val parameterDescriptors = hookMethod.parameterTypes.map { it.descriptor }
+            val expectedDescriptors = mutableListOf<String>()
+            if (potentialHook.typedHookTakesThis) {
+                require(
+                    parameterDescriptors[0] == java.lang.Object::class.java.descriptor ||
+                        parameterDescriptors[0] == "L${potentialHook.targetInternalClassName};",
+                ) { "$potentialHook: first parameter must have type Object or ${potentialHook.targetClassName}" }
+                expectedDescriptors.add(parameterDescriptors[0])
+            }
+            expectedDescriptors.addAll(extractParameterTypeDescriptors(targetMethodDescriptor))
+            expectedDescriptors.add("I")
+            if (potentialHook.hookType == HookType.AFTER && potentialHook.targetReturnTypeDescriptor != "V") {
+                expectedDescriptors.add(potentialHook.targetReturnTypeDescriptor!!)
+            }
+            for ((i, expected) in expectedDescriptors.withIndex()) {
+                require(acceptsTypedValue(parameterDescriptors[i], expected)) {
+                    "$potentialHook: parameter ${i + 1} must have type $expected, Object (for reference types) or int (for byte, char and short)"
+                }
+            }
+        }
+
         private fun verify(hookMethod: Method, potentialHook: Hook) {
             // Verify the hook method's modifiers (public static).
             require(Modifier.isPublic(hookMethod.modifiers)) { "$potentialHook: hook method must be public" }
             require(Modifier.isStatic(hookMethod.modifiers)) { "$potentialHook: hook method must be static" }
 
+            if (potentialHook.isTyped) {
+                verifyTyped(hookMethod, potentialHook)
+                return
+            }
+
             // Verify the hook method's parameter count.
             val numParameters = hookMethod.parameters.size
             when (potentialHook.hookType) {
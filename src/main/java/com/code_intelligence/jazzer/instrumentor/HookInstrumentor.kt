@@ -12,21 +12,55 @@ package com.code_intelligence.jazzer.instrumentor
 import org.objectweb.asm.ClassReader
 import org.objectweb.asm.ClassVisitor
 import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Handle
 import org.objectweb.asm.MethodVisitor
+import org.objectweb.asm.Opcodes
+import org.objectweb.asm.Type
 
 internal class HookInstrumentor(
     private val hooks: Iterable<Hook>,
     private val java6Mode: Boolean,
     private val classWithHooksEnabledField: String?,
+    private val indyHooks: Boolean = false,
 ) : Instrumentor {
 
     private lateinit var random: DeterministicRandom
+    private var indyHookDispatch: IndyHookDispatch? = null
 
     override fun instrument(internalClassName: String, bytecode: ByteArray): ByteArray {
         val reader = ClassReader(bytecode)
         val writer = ClassWriter(reader, ClassWriter.COMPUTE_MAXS)
-        random = DeterministicRandom("hook", reader.className)
-        val interceptor = object : ClassVisitor(Instrumentor.ASM_API_VERSION, writer) {
+        reader.accept(classVisitor(internalClassName, writer), ClassReader.EXPAND_FRAMES)
+        return writer.toByteArray()
+    }
+
+    /**
+     * Returns a [ClassVisitor] that adds hook instrumentation to the class it visits and passes the result on to
+     * [next]. The visitor requires expanded frames and leaves the computation of maximum stack sizes to the
+     * [ClassWriter] at the end of the chain.
+     */
+    fun classVisitor(internalClassName: String, next: ClassVisitor): ClassVisitor =
+        object : ClassVisitor(Instrumentor.ASM_API_VERSION, next) {
+            override fun visit(
+                version: Int,
+                access: Int,
+                name: String,
+                signature: String?,
+                superName: String?,
+                interfaces: Array<String>?,
+            ) {
+                random = DeterministicRandom("hook", name)
+                val majorVersion = version and 0xFFFF
+                val isInterface = access and Opcodes.ACC_INTERFACE != 0
+                // invokedynamic requires Java 7 and private interface methods Java 9.
+                indyHookDispatch = if (indyHooks && majorVersion >= 51 && (!isInterface || majorVersion >= 53)) {
+                    IndyHookDispatch(internalClassName, isInterface)
+                } else {
+                    null
+                }
+                super.visit(version, access, name, signature, superName, interfaces)
+            }
+
             override fun visitMethod(
                 access: Int,
                 name: String?,
@@ -46,13 +80,101 @@ internal class HookInstrumentor(
                         java6Mode,
                         random,
                         classWithHooksEnabledField,
+                        indyHookDispatch,
                     )
                 } else {
                     mv
                 }
             }
+
+            override fun visitEnd() {
+                indyHookDispatch?.callSites?.forEach { callSite ->
+                    visitHooksMethod(callSite)
+                }
+                super.visitEnd()
+            }
+
+            // Emits the synthetic method that applies the hooks to a call site dispatched via invokedynamic. It
+            // takes the operands of the original call as its arguments and returns the result of the hooked call.
+            private fun visitHooksMethod(callSite: IndyHookDispatch.CallSite) {
+                val access = Opcodes.ACC_PRIVATE or Opcodes.ACC_STATIC or Opcodes.ACC_SYNTHETIC
+                val mv = cv.visitMethod(access, callSite.hooksMethodName, callSite.descriptor, null, null) ?: return
+                val hooksMethodVisitor = makeHookMethodVisitor(
+                    internalClassName,
+                    access,
+                    callSite.hooksMethodName,
+                    callSite.descriptor,
+                    mv,
+                    hooks,
+                    java6Mode = false,
+                    random,
+                    classWithHooksEnabledField = null,
+                    indyHookDispatch = null,
+                )
+                hooksMethodVisitor.visitCode()
+                var localIndex = 0
+                for (argumentType in Type.getArgumentTypes(callSite.descriptor)) {
+                    hooksMethodVisitor.visitVarInsn(argumentType.getOpcode(Opcodes.ILOAD), localIndex)
+                    localIndex += argumentType.size
+                }
+                hooksMethodVisitor.visitMethodInsn(
+                    callSite.opcode,
+                    callSite.owner,
+                    callSite.name,
+                    callSite.methodDescriptor,
+                    callSite.isInterface,
+                )
+                hooksMethodVisitor.visitInsn(Type.getReturnType(callSite.descriptor).getOpcode(Opcodes.IRETURN))
+                hooksMethodVisitor.visitMaxs(0, 0)
+                hooksMethodVisitor.visitEnd()
+            }
         }
-        reader.accept(interceptor, ClassReader.EXPAND_FRAMES)
-        return writer.toByteArray()
+}
+
+/**
+ * Collects the hooked call sites of a class that are dispatched via invokedynamic if `--indy_hooks` is set. The
+ * hooks of each such call site are applied by a synthetic method of the class, which
+ * `com.code_intelligence.jazzer.runtime.HookDispatch` links the call site to while hooks are enabled.
+ */
+internal class IndyHookDispatch(private val internalClassName: String, private val isInterface: Boolean) {
+
+    class CallSite(
+        val hooksMethodName: String,
+        val descriptor: String,
+        val opcode: Int,
+        val owner: String,
+        val name: String,
+        val methodDescriptor: String,
+        val isInterface: Boolean,
+    )
+
+    val callSites = mutableListOf<CallSite>()
+
+    /**
+     * Registers a hooked call site whose operands are described by [descriptor] and returns a handle to the
+     * synthetic method that will apply its hooks.
+     */
+    fun addCallSite(
+        opcode: Int,
+        owner: String,
+        name: String,
+        methodDescriptor: String,
+        isInterface: Boolean,
+        descriptor: String,
+    ): Handle {
+        val hooksMethodName = "jazzer\$hooks\$${callSites.size}"
+        callSites.add(CallSite(hooksMethodName, descriptor, opcode, owner, name, methodDescriptor, isInterface))
+        return Handle(Opcodes.H_INVOKESTATIC, internalClassName, hooksMethodName, descriptor, this.isInterface)
+    }
+
+    companion object {
+        val BOOTSTRAP = Handle(
+            Opcodes.H_INVOKESTATIC,
+            "com/code_intelligence/jazzer/runtime/HookDispatch",
+            "bootstrap",
+            "(Ljava/lang/invoke/MethodHandles\$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;" +
+                "Ljava/lang/invoke/MethodHandle;Ljava/lang/invoke/MethodHandle;)Ljava/lang/invoke/CallSite;",
+            false,
+        )
     }
 }
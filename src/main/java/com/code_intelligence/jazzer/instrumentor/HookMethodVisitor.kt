@@ -18,6 +18,7 @@ import org.objectweb.asm.Opcodes
 import org.objectweb.asm.Type
 import org.objectweb.asm.commons.AnalyzerAdapter
 import org.objectweb.asm.commons.LocalVariablesSorter
+import java.util.concurrent.ConcurrentHashMap
 import java.util.concurrent.atomic.AtomicBoolean
 
 internal fun makeHookMethodVisitor(
@@ -30,6 +31,7 @@ internal fun makeHookMethodVisitor(
     java6Mode: Boolean,
     random: DeterministicRandom,
     classWithHooksEnabledField: String?,
+    indyHookDispatch: IndyHookDispatch?,
 ): MethodVisitor {
     return HookMethodVisitor(
         owner,
@@ -41,6 +43,7 @@ internal fun makeHookMethodVisitor(
         java6Mode,
         random,
         classWithHooksEnabledField,
+        indyHookDispatch,
     ).lvs
 }
 
@@ -54,6 +57,7 @@ private class HookMethodVisitor(
     private val java6Mode: Boolean,
     private val random: DeterministicRandom,
     private val classWithHooksEnabledField: String?,
+    private val indyHookDispatch: IndyHookDispatch?,
 ) : MethodVisitor(
     Instrumentor.ASM_API_VERSION,
     // AnalyzerAdapter computes stack map frames at every instruction, which is needed for the
@@ -80,6 +84,9 @@ private class HookMethodVisitor(
 
     companion object {
         private val showUnsupportedHookWarning = AtomicBoolean(true)
+
+        // Typed hooks that have already been reported as not matching the receiver of their target method.
+        private val reportedReceiverMismatches = ConcurrentHashMap.newKeySet<Hook>()
     }
 
     val lvs = object : LocalVariablesSorter(Instrumentor.ASM_API_VERSION, access, descriptor, this) {
@@ -143,13 +150,33 @@ private class HookMethodVisitor(
         methodDescriptor: String,
         isInterface: Boolean,
     ) {
-        val matchingHooks = findMatchingHooks(owner, methodName, methodDescriptor)
+        val matchingHooks = findMatchingHooks(opcode, owner, methodName, methodDescriptor)
 
         if (matchingHooks.isEmpty()) {
             mv.visitMethodInsn(opcode, owner, methodName, methodDescriptor, isInterface)
             return
         }
 
+        // Constructor and super calls can't be moved into a separate static method and thus always apply the hooks
+        // inline.
+        if (indyHookDispatch != null && opcode != Opcodes.INVOKESPECIAL) {
+            // Let the call site be linked to either the original method or a synthetic method that applies the hooks,
+            // depending on whether hooks are enabled at runtime.
+            val callSiteDescriptor = if (opcode == Opcodes.INVOKESTATIC) {
+                methodDescriptor
+            } else {
+                "(${Type.getObjectType(owner).descriptor}${methodDescriptor.substring(1)}"
+            }
+            mv.visitInvokeDynamicInsn(
+                methodName,
+                callSiteDescriptor,
+                IndyHookDispatch.BOOTSTRAP,
+                Handle(methodHandleKind(opcode), owner, methodName, methodDescriptor, isInterface),
+                indyHookDispatch.addCallSite(opcode, owner, methodName, methodDescriptor, isInterface, callSiteDescriptor),
+            )
+            return
+        }
+
         val skipHooksLabel = Label()
         val applyHooksLabel = Label()
         val useConditionalHooks = classWithHooksEnabledField != null
@@ -184,7 +211,7 @@ private class HookMethodVisitor(
         }
 
         val paramDescriptors = extractParameterTypeDescriptors(methodDescriptor)
-        val localObjArr = storeMethodArguments(paramDescriptors)
+        val localArgs = storeMethodArguments(paramDescriptors)
         // If the method we're hooking is not static there is now a reference to
         // the object the method was invoked on at the top of the stack.
         // If the method is static, that object is missing. We make up for it by pushing a null ref.
@@ -199,8 +226,22 @@ private class HookMethodVisitor(
         // We now removed all values for the original method call from the operand stack
         // and saved them to local variables.
 
+        // Untyped hooks receive the arguments in an object array. Since they can modify its elements,
+        // the original method has to be called with the arguments loaded from the array in this case.
+        val hasUntypedHooks = matchingHooks.any { !it.isTyped }
+        val localObjArr = if (hasUntypedHooks) storeMethodArgumentsInArray(paramDescriptors, localArgs) else -1
+        val loadOriginalMethodArguments = {
+            if (hasUntypedHooks) {
+                loadMethodArguments(paramDescriptors, localObjArr)
+            } else {
+                loadMethodArguments(paramDescriptors, localArgs)
+            }
+        }
+
         val returnTypeDescriptor = extractReturnTypeDescriptor(methodDescriptor)
-        // Create a local variable to store the return value
+        // Create local variables to store the return value and, for untyped AFTER hooks, its wrapped form
+        val localReturnValue = if (returnTypeDescriptor != "V") lvs.newLocal(Type.getType(returnTypeDescriptor)) else -1
+        val hasUntypedAfterHooks = matchingHooks.any { !it.isTyped && it.hookType == HookType.AFTER }
         val localReturnObj = lvs.newLocal(Type.getType(getWrapperTypeDescriptor(returnTypeDescriptor)))
 
         matchingHooks.forEachIndexed { index, hook ->
@@ -208,7 +249,16 @@ private class HookMethodVisitor(
             val hookId = random.nextInt()
 
             // Start to build the arguments for the hook method.
-            if (methodName == "<init>") {
+            if (hook.isTyped) {
+                // Typed hooks receive the owner object (if any), the arguments and the hook id without any
+                // boxing. They are never applied to constructors.
+                if (opcode != Opcodes.INVOKESTATIC) {
+                    mv.visitVarInsn(Opcodes.ALOAD, localOwnerObj)
+                }
+                loadMethodArguments(paramDescriptors, localArgs)
+                mv.visitLdcInsn(hookId)
+                // Stack layout: ... | [owner (objectref)] | arg1 (primitive/objectref) | ... | hookId (int)
+            } else if (methodName == "<init>") {
                 // Constructor is invoked on an uninitialized object, and that's still on the stack.
                 // In case of REPLACE pop it from the stack and replace it afterwards with the returned
                 // one from the hook.
@@ -226,13 +276,7 @@ private class HookMethodVisitor(
                 }
             } else {
                 // Push a MethodHandle representing the hooked method.
-                val handleOpcode = when (opcode) {
-                    Opcodes.INVOKEVIRTUAL -> Opcodes.H_INVOKEVIRTUAL
-                    Opcodes.INVOKEINTERFACE -> Opcodes.H_INVOKEINTERFACE
-                    Opcodes.INVOKESTATIC -> Opcodes.H_INVOKESTATIC
-                    Opcodes.INVOKESPECIAL -> Opcodes.H_INVOKESPECIAL
-                    else -> -1
-                }
+                val handleOpcode = methodHandleKind(opcode)
                 if (java6Mode) {
                     // MethodHandle constants (type 15) are not supported in Java 6 class files (major version 50).
                     mv.visitInsn(Opcodes.ACONST_NULL) // push nullref
@@ -251,13 +295,15 @@ private class HookMethodVisitor(
                 // Push the owner object again
                 mv.visitVarInsn(Opcodes.ALOAD, localOwnerObj)
             }
-            // Stack layout: ... | MethodHandle (objectref) | owner (objectref)
-            // Push a reference to our object array with the saved arguments
-            mv.visitVarInsn(Opcodes.ALOAD, localObjArr)
-            // Stack layout: ... | MethodHandle (objectref) | owner (objectref) | object array (arrayref)
-            // Push the hook id
-            mv.visitLdcInsn(hookId)
-            // Stack layout: ... | MethodHandle (objectref) | owner (objectref) | object array (arrayref) | hookId (int)
+            if (!hook.isTyped) {
+                // Stack layout: ... | MethodHandle (objectref) | owner (objectref)
+                // Push a reference to our object array with the saved arguments
+                mv.visitVarInsn(Opcodes.ALOAD, localObjArr)
+                // Stack layout: ... | MethodHandle (objectref) | owner (objectref) | object array (arrayref)
+                // Push the hook id
+                mv.visitLdcInsn(hookId)
+                // Stack layout: ... | MethodHandle (objectref) | owner (objectref) | object array (arrayref) | hookId (int)
+            }
             // How we proceed depends on the type of hook we want to implement
             when (hook.hookType) {
                 HookType.BEFORE -> {
@@ -278,7 +324,7 @@ private class HookMethodVisitor(
                         if (opcode != Opcodes.INVOKESTATIC) {
                             mv.visitVarInsn(Opcodes.ALOAD, localOwnerObj) // push owner object
                         }
-                        loadMethodArguments(paramDescriptors, localObjArr) // push all method arguments
+                        loadOriginalMethodArguments() // push all method arguments
                         // Stack layout: ... | [owner (objectref)] | arg1 (primitive/objectref) | arg2 (primitive/objectref) | ...
                         mv.visitMethodInsn(opcode, owner, methodName, methodDescriptor, isInterface)
                     }
@@ -319,19 +365,31 @@ private class HookMethodVisitor(
                         if (opcode != Opcodes.INVOKESTATIC) {
                             mv.visitVarInsn(Opcodes.ALOAD, localOwnerObj) // push owner object
                         }
-                        loadMethodArguments(paramDescriptors, localObjArr) // push all method arguments
+                        loadOriginalMethodArguments() // push all method arguments
                         // Stack layout: ... | MethodHandle (objectref) | owner (objectref) | object array (arrayref) | hookId (int)
                         //                   | [owner (objectref)] | arg1 (primitive/objectref) | arg2 (primitive/objectref) | ...
                         mv.visitMethodInsn(opcode, owner, methodName, methodDescriptor, isInterface)
-                        if (returnTypeDescriptor == "V") {
-                            // If the method didn't return anything, we push a nullref as placeholder
-                            mv.visitInsn(Opcodes.ACONST_NULL) // push nullref
+                        if (returnTypeDescriptor != "V") {
+                            mv.visitVarInsn(Type.getType(returnTypeDescriptor).getOpcode(Opcodes.ISTORE), localReturnValue)
+                        }
+                        if (hasUntypedAfterHooks) {
+                            if (returnTypeDescriptor == "V") {
+                                // If the method didn't return anything, we push a nullref as placeholder
+                                mv.visitInsn(Opcodes.ACONST_NULL) // push nullref
+                            } else {
+                                mv.visitVarInsn(Type.getType(returnTypeDescriptor).getOpcode(Opcodes.ILOAD), localReturnValue)
+                            }
+                            // Wrap return value if it is a primitive type
+                            wrapTypeIfPrimitive(returnTypeDescriptor)
+                            mv.visitVarInsn(Opcodes.ASTORE, localReturnObj) // consume objectref
                         }
-                        // Wrap return value if it is a primitive type
-                        wrapTypeIfPrimitive(returnTypeDescriptor)
-                        mv.visitVarInsn(Opcodes.ASTORE, localReturnObj) // consume objectref
                     }
-                    mv.visitVarInsn(Opcodes.ALOAD, localReturnObj) // push objectref
+                    if (!hook.isTyped) {
+                        mv.visitVarInsn(Opcodes.ALOAD, localReturnObj) // push objectref
+                    } else if (returnTypeDescriptor != "V") {
+                        // Typed hooks receive the unwrapped return value, if any
+                        mv.visitVarInsn(Type.getType(returnTypeDescriptor).getOpcode(Opcodes.ILOAD), localReturnValue)
+                    }
 
                     // Stack layout: ... | MethodHandle (objectref) | owner (objectref) | object array (arrayref) | hookId (int)
                     //                   | return value (objectref)
@@ -348,9 +406,7 @@ private class HookMethodVisitor(
                     // Push the return value on the stack after the last AFTER hook if the original method returns a value
                     if (index == matchingHooks.size - 1 && returnTypeDescriptor != "V") {
                         // Push the return value again
-                        mv.visitVarInsn(Opcodes.ALOAD, localReturnObj) // push objectref
-                        // Unwrap it, if it was a primitive value
-                        unwrapTypeIfPrimitive(returnTypeDescriptor)
+                        mv.visitVarInsn(Type.getType(returnTypeDescriptor).getOpcode(Opcodes.ILOAD), localReturnValue)
                         // Stack layout: ... | return value (primitive/objectref)
                     }
                 }
@@ -374,6 +430,14 @@ private class HookMethodVisitor(
         }
     }
 
+    private fun methodHandleKind(opcode: Int) = when (opcode) {
+        Opcodes.INVOKEVIRTUAL -> Opcodes.H_INVOKEVIRTUAL
+        Opcodes.INVOKEINTERFACE -> Opcodes.H_INVOKEINTERFACE
+        Opcodes.INVOKESTATIC -> Opcodes.H_INVOKESTATIC
+        Opcodes.INVOKESPECIAL -> Opcodes.H_INVOKESPECIAL
+        else -> -1
+    }
+
     private fun isMethodInvocationOp(opcode: Int) = opcode in listOf(
         Opcodes.INVOKEVIRTUAL,
         Opcodes.INVOKEINTERFACE,
@@ -381,7 +445,7 @@ private class HookMethodVisitor(
         Opcodes.INVOKESPECIAL,
     )
 
-    private fun findMatchingHooks(owner: String, name: String, descriptor: String): List<Hook> {
+    private fun findMatchingHooks(opcode: Int, owner: String, name: String, descriptor: String): List<Hook> {
         val result = HookType.values().flatMap { hookType ->
             val withoutDescriptorKey = "$hookType#$owner#$name"
             val withDescriptorKey = "$withoutDescriptorKey#$descriptor"
@@ -397,6 +461,7 @@ private class HookMethodVisitor(
 
         return result
             .filter { !isReplaceHookInJava6mode(it) }
+            .filter { !isTypedHookWithMismatchedReceiver(it, opcode, owner, name, descriptor) }
             .sortedByDescending { it.toString() }
     }
 
@@ -415,33 +480,70 @@ private class HookMethodVisitor(
         return false
     }
 
-    // Stores all arguments for a method call in a local object array.
+    // A typed hook only applies to call sites whose owner object, or lack thereof, matches its parameters. As the
+    // target method is otherwise identified by name and descriptor, a mismatch is most likely a mistake in the hook.
+    private fun isTypedHookWithMismatchedReceiver(
+        hook: Hook,
+        opcode: Int,
+        owner: String,
+        name: String,
+        descriptor: String,
+    ): Boolean {
+        val isStaticCall = opcode == Opcodes.INVOKESTATIC
+        if (!hook.isTyped || hook.typedHookTakesThis != isStaticCall) {
+            return false
+        }
+        if (reportedReceiverMismatches.add(hook)) {
+            val targetKind = if (isStaticCall) "a static" else "an instance"
+            val expectation = if (isStaticCall) "must not take" else "has to take"
+            Log.warn(
+                "$hook: not applied to ${owner.replace('/', '.')}.$name$descriptor, which is $targetKind method; " +
+                    "the hook $expectation the receiver as its first parameter",
+            )
+        }
+        return true
+    }
+
+    // Stores all arguments for a method call in local variables of their respective types.
+    // paramDescriptors: The type descriptors for all method arguments
+    private fun storeMethodArguments(paramDescriptors: List<String>): List<Int> {
+        val localArgs = paramDescriptors.map { lvs.newLocal(Type.getType(it)) }
+        // Loop over all arguments in reverse order (because the last argument is on top).
+        for ((argIdx, argDescriptor) in paramDescriptors.withIndex().reversed()) {
+            mv.visitVarInsn(Type.getType(argDescriptor).getOpcode(Opcodes.ISTORE), localArgs[argIdx])
+        }
+        // Return the indices of the local variables with the arguments.
+        return localArgs
+    }
+
+    // Loads all arguments for a method call from local variables of their respective types.
+    // paramDescriptors: The type descriptors for all method arguments
+    // localArgs: Indices of the local variables containing the arguments
+    private fun loadMethodArguments(paramDescriptors: List<String>, localArgs: List<Int>) {
+        for ((argIdx, argDescriptor) in paramDescriptors.withIndex()) {
+            mv.visitVarInsn(Type.getType(argDescriptor).getOpcode(Opcodes.ILOAD), localArgs[argIdx])
+        }
+    }
+
+    // Copies all arguments for a method call from local variables into a local object array.
     // paramDescriptors: The type descriptors for all method arguments
-    private fun storeMethodArguments(paramDescriptors: List<String>): Int {
+    // localArgs: Indices of the local variables containing the arguments
+    private fun storeMethodArgumentsInArray(paramDescriptors: List<String>, localArgs: List<Int>): Int {
         // Allocate a new Object[] for the methods parameters.
         mv.visitIntInsn(Opcodes.SIPUSH, paramDescriptors.size)
         mv.visitTypeInsn(Opcodes.ANEWARRAY, "java/lang/Object")
-        val localObjArr = lvs.newLocal(Type.getType("[Ljava/lang/Object;"))
-        mv.visitVarInsn(Opcodes.ASTORE, localObjArr)
-
-        // Loop over all arguments in reverse order (because the last argument is on top).
-        for ((argIdx, argDescriptor) in paramDescriptors.withIndex().reversed()) {
+        // Stack layout: ... | object array (arrayref)
+        for ((argIdx, argDescriptor) in paramDescriptors.withIndex()) {
+            mv.visitInsn(Opcodes.DUP)
+            mv.visitIntInsn(Opcodes.SIPUSH, argIdx)
+            mv.visitVarInsn(Type.getType(argDescriptor).getOpcode(Opcodes.ILOAD), localArgs[argIdx])
             // If the argument is a primitive type, wrap it in it's wrapper class
             wrapTypeIfPrimitive(argDescriptor)
-            // Store the argument in our object array, for that we need to shape the stack first.
-            // Stack layout: ... | method argument (objectref)
-            mv.visitVarInsn(Opcodes.ALOAD, localObjArr)
-            // Stack layout: ... | method argument (objectref) | object array (arrayref)
-            mv.visitInsn(Opcodes.SWAP)
-            // Stack layout: ... | object array (arrayref) | method argument (objectref)
-            mv.visitIntInsn(Opcodes.SIPUSH, argIdx)
-            // Stack layout: ... | object array (arrayref) | method argument (objectref) | argument index (int)
-            mv.visitInsn(Opcodes.SWAP)
-            // Stack layout: ... | object array (arrayref) | argument index (int) | method argument (objectref)
-            mv.visitInsn(Opcodes.AASTORE) // consume all three: arrayref, index, value
-            // Stack layout: ...
-            // Continue with the remaining method arguments
+            // Stack layout: ... | object array (arrayref) | object array (arrayref) | argument index (int) | method argument (objectref)
+            mv.visitInsn(Opcodes.AASTORE) // consume arrayref, index, value
         }
+        val localObjArr = lvs.newLocal(Type.getType("[Ljava/lang/Object;"))
+        mv.visitVarInsn(Opcodes.ASTORE, localObjArr)
 
         // Return a reference to the array with the parameters.
         return localObjArr
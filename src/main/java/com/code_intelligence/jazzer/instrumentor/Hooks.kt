@@ -19,6 +19,9 @@ import io.github.classgraph.ClassGraph
 import io.github.classgraph.ScanResult
 import java.lang.instrument.Instrumentation
 import java.lang.reflect.Method
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardCopyOption
 import java.util.jar.JarFile
 
 data class Hooks(
@@ -45,22 +48,96 @@ data class Hooks(
                 .forEach { instrumentation.appendToBootstrapClassLoaderSearch(it) }
         }
 
-        fun loadHooks(excludeHookClassNames: List<String>, vararg hookClassNames: Set<String>): List<Hooks> {
-            return ClassGraph()
-                .enableClassInfo()
-                .enableSystemJarsAndModules()
-                .acceptLibOrExtJars()
-                .rejectPackages("jaz.*", "com.code_intelligence.jazzer.*")
-                .scan()
-                .use { scanResult ->
-                    // Capture scanResult in HooksLoader field to not pass it through
-                    // all internal hook loading methods.
-                    val loader = HooksLoader(scanResult, excludeHookClassNames)
-                    hookClassNames.map(loader::load)
+        /**
+         * Loads the hooks declared in the given sets of hook classes.
+         *
+         * Resolving the classes targeted by hooks on interfaces and abstract classes requires a scan of the entire
+         * classpath. If [hookTargetsFile] is provided and non-empty, the resolved targets are read from it instead
+         * and the scan is only performed for targets missing from the file. If the file is empty, it is populated with
+         * the targets resolved by this process. This allows the subprocesses spawned by libFuzzer's -fork, -jobs and
+         * -merge modes to skip the scan performed by their parent.
+         */
+        fun loadHooks(
+            excludeHookClassNames: List<String>,
+            vararg hookClassNames: Set<String>,
+            hookTargetsFile: Path? = null,
+        ): List<Hooks> {
+            val cachedHookTargets = hookTargetsFile?.let(::readHookTargets) ?: emptyMap()
+            return HookTargetResolver(cachedHookTargets).use { resolver ->
+                val loader = HooksLoader(resolver, excludeHookClassNames)
+                hookClassNames.map(loader::load).also {
+                    if (hookTargetsFile != null && cachedHookTargets.isEmpty()) {
+                        writeHookTargets(hookTargetsFile, resolver.resolvedTargets)
+                    }
+                }
+            }
+        }
+
+        // The hook targets file consists of lines of the form
+        // <annotation target class name>:<comma-separated list of classes to hook>
+        private fun readHookTargets(hookTargetsFile: Path): Map<String, List<String>> {
+            if (!Files.exists(hookTargetsFile)) {
+                return emptyMap()
+            }
+            return Files.readAllLines(hookTargetsFile)
+                .filterNot { it.isBlank() }
+                .associate { line ->
+                    val parts = line.split(':')
+                    check(parts.size == 2) {
+                        "Expected hook targets file line to be of the form '<class name>:<classes to hook>', got '$line'"
+                    }
+                    parts[0] to parts[1].split(',')
+                }
+        }
+
+        private fun writeHookTargets(hookTargetsFile: Path, hookTargets: Map<String, List<String>>) {
+            // Write to a temporary file first and move it into place atomically so that concurrently starting
+            // subprocesses never observe a partially written file.
+            val tempFile = Files.createTempFile(hookTargetsFile.toAbsolutePath().parent, "jazzer-hooks-", "")
+            Files.write(tempFile, hookTargets.map { (target, classes) -> "$target:${classes.joinToString(",")}" })
+            Files.move(tempFile, hookTargetsFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE)
+        }
+
+        /**
+         * Resolves hook targets to the list of classes to hook, scanning the classpath only if a target can't be found
+         * in [cachedHookTargets].
+         */
+        private class HookTargetResolver(private val cachedHookTargets: Map<String, List<String>>) : AutoCloseable {
+            private var scanResult: ScanResult? = null
+            val resolvedTargets = mutableMapOf<String, List<String>>()
+
+            fun lookupClassesToHook(annotationTargetClassName: String): List<String> {
+                // Allowing arbitrary exterior whitespace in the target class name allows for an easy workaround
+                // for mangled hooks due to shading applied to hooks.
+                val targetClassName = annotationTargetClassName.trim()
+                return resolvedTargets.getOrPut(targetClassName) {
+                    cachedHookTargets[targetClassName] ?: scan(targetClassName)
+                }
+            }
+
+            private fun scan(targetClassName: String): List<String> {
+                val scanResult = scanResult ?: ClassGraph()
+                    .enableClassInfo()
+                    .enableSystemJarsAndModules()
+                    .acceptLibOrExtJars()
+                    .rejectPackages("jaz.*", "com.code_intelligence.jazzer.*")
+                    .scan()
+                    .also { scanResult = it }
+                val targetClassInfo = scanResult.getClassInfo(targetClassName) ?: return listOf(targetClassName)
+                val additionalTargetClasses = when {
+                    targetClassInfo.isInterface -> scanResult.getClassesImplementing(targetClassName)
+                    targetClassInfo.isAbstract -> scanResult.getSubclasses(targetClassName)
+                    else -> emptyList()
                 }
+                return (listOf(targetClassName) + additionalTargetClasses.map { it.name }).sorted()
+            }
+
+            override fun close() {
+                scanResult?.close()
+            }
         }
 
-        private class HooksLoader(private val scanResult: ScanResult, val excludeHookClassNames: List<String>) {
+        private class HooksLoader(private val resolver: HookTargetResolver, val excludeHookClassNames: List<String>) {
 
             fun load(hookClassNames: Set<String>): Hooks {
                 val hooksWithHookClasses = hookClassNames.flatMap(::loadHooks)
@@ -107,24 +184,11 @@ data class Hooks(
             }
 
             private fun verifyAndGetHooks(hookMethod: Method, hookData: MethodHook): List<Hook> {
-                return lookupClassesToHook(hookData.targetClassName)
+                return resolver.lookupClassesToHook(hookData.targetClassName)
                     .map { className ->
                         Hook.createAndVerifyHook(hookMethod, hookData, className)
                     }
             }
-
-            private fun lookupClassesToHook(annotationTargetClassName: String): List<String> {
-                // Allowing arbitrary exterior whitespace in the target class name allows for an easy workaround
-                // for mangled hooks due to shading applied to hooks.
-                val targetClassName = annotationTargetClassName.trim()
-                val targetClassInfo = scanResult.getClassInfo(targetClassName) ?: return listOf(targetClassName)
-                val additionalTargetClasses = when {
-                    targetClassInfo.isInterface -> scanResult.getClassesImplementing(targetClassName)
-                    targetClassInfo.isAbstract -> scanResult.getSubclasses(targetClassName)
-                    else -> emptyList()
-                }
-                return (listOf(targetClassName) + additionalTargetClasses.map { it.name }).sorted()
-            }
         }
     }
 }
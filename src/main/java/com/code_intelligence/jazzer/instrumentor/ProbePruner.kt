@@ -0,0 +1,322 @@
+/*
+ * Copyright 2024 Code Intelligence GmbH
+ *
+ * By downloading, you agree to the Code Intelligence Jazzer Terms and Conditions.
+ *
+ * The Code Intelligence Jazzer Terms and Conditions are provided in LICENSE-JAZZER.txt
+ * located in the root directory of the project.
+ */
+
+package com.code_intelligence.jazzer.instrumentor
+
+import com.code_intelligence.jazzer.third_party.org.jacoco.core.internal.flow.ClassProbesVisitor
+import com.code_intelligence.jazzer.third_party.org.jacoco.core.internal.flow.IFrame
+import com.code_intelligence.jazzer.third_party.org.jacoco.core.internal.flow.LabelInfo
+import com.code_intelligence.jazzer.third_party.org.jacoco.core.internal.flow.MethodProbesAdapter
+import com.code_intelligence.jazzer.third_party.org.jacoco.core.internal.flow.MethodProbesVisitor
+import org.objectweb.asm.Label
+import org.objectweb.asm.MethodVisitor
+import org.objectweb.asm.Opcodes
+import org.objectweb.asm.tree.MethodNode
+
+/**
+ * Determines the JaCoCo probes of a method whose execution is implied by other probes of the same method, similar to
+ * the pruning of basic blocks performed by SanitizerCoverage.
+ *
+ * Consider the graph whose nodes are the probes of a method and which has an edge from probe p to probe q if control
+ * can flow from p to q without passing another probe, taking exception handlers into account. A probe q is pruned if
+ * * all its predecessors are probes that lead to q only (q post-dominates them), in which case it has been executed
+ *   iff one of its predecessors has, or
+ * * all its successors are probes that can only be reached from q (q dominates them), in which case it has been
+ *   executed iff one of its successors has.
+ *
+ * A pruned probe may be reconstructed from probes with smaller IDs that have been pruned themselves, so reconstruction
+ * has to happen in order of probe IDs. The reconstruction is exact up to exceptions thrown and infinite loops entered
+ * between the two probes, which also means that the probes JaCoCo places after method invocations to detect partially
+ * executed lines are usually pruned.
+ */
+internal object ProbePruner {
+    private const val ENTRY = -1
+    private const val UNKNOWN = -2
+
+    // Methods whose analysis would require more steps are not pruned to keep instrumentation fast.
+    private const val MAX_ANALYSIS_STEPS = 1 shl 22
+
+    /**
+     * Returns, for each probe of [methodNode] in the order in which JaCoCo assigns probe IDs, either `null` if the probe
+     * has to be instrumented or the method-local indices of the probes whose disjunction determines whether it has
+     * been executed. JaCoCo's `LabelFlowAnalyzer` must already have marked the labels of [methodNode].
+     */
+    fun prune(methodNode: MethodNode): Array<IntArray?> {
+        val graph = ProbeGraphBuilder()
+        var nextId = 0
+        val probesAdapter = MethodProbesAdapter(graph) { nextId++ }
+        // MethodNode.accept would reset the labels and thus the information attached to them by JaCoCo, so only visit
+        // the parts relevant for control flow.
+        methodNode.tryCatchBlocks.forEach { it.accept(probesAdapter) }
+        methodNode.instructions.accept(probesAdapter)
+        return graph.prune(nextId)
+    }
+
+    private sealed class Event {
+        // A label or any other instruction that falls through to the next event.
+        object FallThrough : Event()
+
+        // A probe that is executed when control falls through to the next event.
+        class Probe(val id: Int) : Event()
+
+        // A return or throw instruction with a probe.
+        class Exit(val id: Int) : Event()
+
+        class Jump(val opcode: Int, val label: Label, val id: Int) : Event()
+
+        class Switch(val labels: List<Label>, val ids: List<Int>) : Event()
+    }
+
+    private class ProbeGraphBuilder : MethodProbesVisitor() {
+        private val events = mutableListOf<Event>()
+        private val labelIndices = mutableMapOf<Label, Int>()
+        private val tryCatchBlocks = mutableListOf<Triple<Label, Label, Label>>()
+
+        // The indices of the exception handlers that control can reach from each event.
+        private var handlers = emptyArray<MutableList<Int>>()
+
+        override fun visitTryCatchBlock(start: Label, end: Label, handler: Label, type: String?) {
+            tryCatchBlocks.add(Triple(start, end, handler))
+        }
+
+        override fun visitLabel(label: Label) {
+            labelIndices[label] = events.size
+            events.add(Event.FallThrough)
+        }
+
+        override fun visitProbe(probeId: Int) {
+            events.add(Event.Probe(probeId))
+        }
+
+        override fun visitInsnWithProbe(opcode: Int, probeId: Int) {
+            events.add(Event.Exit(probeId))
+        }
+
+        override fun visitJumpInsn(opcode: Int, label: Label) {
+            events.add(Event.Jump(opcode, label, LabelInfo.NO_PROBE))
+        }
+
+        override fun visitJumpInsnWithProbe(opcode: Int, label: Label, probeId: Int, frame: IFrame?) {
+            events.add(Event.Jump(opcode, label, probeId))
+        }
+
+        override fun visitTableSwitchInsn(min: Int, max: Int, dflt: Label, vararg labels: Label) {
+            addSwitch(dflt, labels, false)
+        }
+
+        override fun visitTableSwitchInsnWithProbes(min: Int, max: Int, dflt: Label, labels: Array<Label>, frame: IFrame?) {
+            addSwitch(dflt, labels, true)
+        }
+
+        override fun visitLookupSwitchInsn(dflt: Label, keys: IntArray?, labels: Array<Label>) {
+            addSwitch(dflt, labels, false)
+        }
+
+        override fun visitLookupSwitchInsnWithProbes(dflt: Label, keys: IntArray?, labels: Array<Label>, frame: IFrame?) {
+            addSwitch(dflt, labels, true)
+        }
+
+        private fun addSwitch(dflt: Label, labels: Array<out Label>, withProbes: Boolean) {
+            val targets = listOf(dflt) + labels
+            events.add(
+                Event.Switch(targets, targets.map { if (withProbes) LabelInfo.getProbeId(it) else LabelInfo.NO_PROBE }),
+            )
+        }
+
+        fun prune(numProbes: Int): Array<IntArray?> {
+            val pruned = arrayOfNulls<IntArray>(numProbes)
+            if (numProbes < 2 || numProbes.toLong() * events.size > MAX_ANALYSIS_STEPS) {
+                return pruned
+            }
+            handlers = Array(events.size) { mutableListOf<Int>() }
+            for ((start, end, handler) in tryCatchBlocks) {
+                for (index in labelIndices[start]!! until labelIndices[end]!!) {
+                    handlers[index].add(labelIndices[handler]!!)
+                }
+            }
+            val successors = Array(numProbes) { emptySet<Int>() }
+            val predecessors = Array(numProbes) { mutableSetOf<Int>() }
+            fun addSuccessors(probe: Int, start: Int) {
+                val probeSuccessors = successorsFrom(start)
+                if (probe != ENTRY) {
+                    successors[probe] = probeSuccessors
+                }
+                for (successor in probeSuccessors) {
+                    if (successor >= 0) {
+                        predecessors[successor].add(probe)
+                    }
+                }
+            }
+            addSuccessors(ENTRY, 0)
+            events.forEachIndexed { index, event ->
+                when (event) {
+                    is Event.Probe -> addSuccessors(event.id, index + 1)
+                    is Event.Jump -> if (event.id != LabelInfo.NO_PROBE) addSuccessors(event.id, labelIndices[event.label]!!)
+                    is Event.Switch -> event.labels.zip(event.ids).distinct().forEach { (label, id) ->
+                        if (id != LabelInfo.NO_PROBE) addSuccessors(id, labelIndices[label]!!)
+                    }
+                    else -> {}
+                }
+            }
+
+            // Probes used to reconstruct other probes can't be pruned later. As a result, all probes a pruned probe is
+            // reconstructed from are either instrumented or have been pruned before it.
+            val pinned = BooleanArray(numProbes)
+            fun tryPrune(probe: Int, sources: Set<Int>, isOnlyLinkOfSource: (Int) -> Boolean) {
+                if (sources.isEmpty() || sources.any { it < 0 || it == probe }) return
+                if (!sources.all(isOnlyLinkOfSource)) return
+                pruned[probe] = sources.sorted().toIntArray()
+                sources.forEach { pinned[it] = true }
+            }
+            for (probe in 0 until numProbes) {
+                if (pinned[probe]) continue
+                tryPrune(probe, predecessors[probe]) { successors[it] == setOf(probe) }
+                if (pruned[probe] != null) continue
+                tryPrune(probe, successors[probe]) { predecessors[it] == setOf(probe) }
+            }
+            return pruned
+        }
+
+        private fun successorsFrom(start: Int): Set<Int> {
+            val result = mutableSetOf<Int>()
+            val visited = BooleanArray(events.size)
+            val worklist = ArrayDeque<Int>()
+            worklist.add(start)
+            fun enqueue(label: Label, id: Int) {
+                if (id != LabelInfo.NO_PROBE) {
+                    result.add(id)
+                } else {
+                    worklist.add(labelIndices[label]!!)
+                }
+            }
+            while (worklist.isNotEmpty()) {
+                val index = worklist.removeLast()
+                if (index >= events.size) {
+                    // Control falls off the end of the method, which the verifier doesn't allow.
+                    result.add(UNKNOWN)
+                    continue
+                }
+                if (visited[index]) continue
+                visited[index] = true
+                worklist.addAll(handlers[index])
+                when (val event = events[index]) {
+                    is Event.Probe -> result.add(event.id)
+                    is Event.Exit -> result.add(event.id)
+                    is Event.Jump -> {
+                        enqueue(event.label, event.id)
+                        if (event.opcode != Opcodes.GOTO) {
+                            worklist.add(index + 1)
+                        }
+                    }
+                    is Event.Switch -> event.labels.zip(event.ids).forEach { (label, id) -> enqueue(label, id) }
+                    Event.FallThrough -> worklist.add(index + 1)
+                }
+            }
+            return result
+        }
+    }
+}
+
+/**
+ * A [ClassProbesVisitor] that forwards to [cpv], but omits the probes determined by [ProbePruner].
+ */
+internal class ProbePruningClassProbesVisitor(private val cpv: ClassProbesVisitor) : ClassProbesVisitor(cpv) {
+    override fun visitMethod(
+        access: Int,
+        name: String?,
+        descriptor: String?,
+        signature: String?,
+        exceptions: Array<String>?,
+    ): MethodProbesVisitor? {
+        val mpv = cpv.visitMethod(access, name, descriptor, signature, exceptions) ?: return null
+        return ProbePruningMethodProbesVisitor(mpv)
+    }
+
+    override fun visitTotalProbeCount(count: Int) {
+        cpv.visitTotalProbeCount(count)
+    }
+
+    private class ProbePruningMethodProbesVisitor(private val mpv: MethodProbesVisitor) : MethodProbesVisitor(mpv) {
+        private var pruned = emptyArray<IntArray?>()
+
+        // Probe IDs are assigned consecutively within a method, so the first one seen maps to index 0 of pruned.
+        private var firstProbeId = -1
+
+        override fun accept(methodNode: MethodNode, methodVisitor: MethodVisitor) {
+            pruned = ProbePruner.prune(methodNode)
+            mpv.accept(methodNode, methodVisitor)
+        }
+
+        private fun isPruned(probeId: Int): Boolean {
+            if (firstProbeId == -1) {
+                firstProbeId = probeId
+            }
+            return pruned[probeId - firstProbeId] != null
+        }
+
+        override fun visitProbe(probeId: Int) {
+            if (!isPruned(probeId)) {
+                mpv.visitProbe(probeId)
+            }
+        }
+
+        override fun visitInsnWithProbe(opcode: Int, probeId: Int) {
+            if (isPruned(probeId)) {
+                mpv.visitInsn(opcode)
+            } else {
+                mpv.visitInsnWithProbe(opcode, probeId)
+            }
+        }
+
+        override fun visitJumpInsnWithProbe(opcode: Int, label: Label, probeId: Int, frame: IFrame) {
+            if (isPruned(probeId)) {
+                mpv.visitJumpInsn(opcode, label)
+            } else {
+                mpv.visitJumpInsnWithProbe(opcode, label, probeId, frame)
+            }
+        }
+
+        override fun visitTableSwitchInsnWithProbes(min: Int, max: Int, dflt: Label, labels: Array<Label>, frame: IFrame) {
+            if (removePrunedSwitchProbes(dflt, labels)) {
+                mpv.visitTableSwitchInsnWithProbes(min, max, dflt, labels, frame)
+            } else {
+                mpv.visitTableSwitchInsn(min, max, dflt, *labels)
+            }
+        }
+
+        override fun visitLookupSwitchInsnWithProbes(dflt: Label, keys: IntArray, labels: Array<Label>, frame: IFrame) {
+            if (removePrunedSwitchProbes(dflt, labels)) {
+                mpv.visitLookupSwitchInsnWithProbes(dflt, keys, labels, frame)
+            } else {
+                mpv.visitLookupSwitchInsn(dflt, keys, labels)
+            }
+        }
+
+        /**
+         * Clears the probe IDs of the targets of a switch whose probes have been pruned, which makes JaCoCo jump to
+         * them directly. Returns whether any probes remain.
+         */
+        private fun removePrunedSwitchProbes(dflt: Label, labels: Array<Label>): Boolean {
+            val targets = listOf(dflt) + labels
+            // The probe IDs of the switch are the smallest not seen yet, so make sure the smallest one is seen first.
+            targets.map { LabelInfo.getProbeId(it) }.filter { it != LabelInfo.NO_PROBE }.sorted().forEach { isPruned(it) }
+            var hasProbes = false
+            for (label in targets) {
+                val probeId = LabelInfo.getProbeId(label)
+                if (probeId == LabelInfo.NO_PROBE) continue
+                if (isPruned(probeId)) {
+                    LabelInfo.setProbeId(label, LabelInfo.NO_PROBE)
+                } else {
+                    hasProbes = true
+                }
+            }
+            return hasProbes
+        }
+    }
+}
@@ -10,10 +10,12 @@
 package com.code_intelligence.jazzer.instrumentor
 
 import org.objectweb.asm.ClassReader
+import org.objectweb.asm.ClassVisitor
 import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Label
+import org.objectweb.asm.MethodVisitor
 import org.objectweb.asm.Opcodes
 import org.objectweb.asm.tree.AbstractInsnNode
-import org.objectweb.asm.tree.ClassNode
 import org.objectweb.asm.tree.InsnList
 import org.objectweb.asm.tree.InsnNode
 import org.objectweb.asm.tree.IntInsnNode
@@ -24,6 +26,7 @@ import org.objectweb.asm.tree.MethodInsnNode
 import org.objectweb.asm.tree.MethodNode
 import org.objectweb.asm.tree.TableSwitchInsnNode
 import org.objectweb.asm.tree.VarInsnNode
+import java.util.IdentityHashMap
 
 internal class TraceDataFlowInstrumentor(
     private val types: Set<InstrumentationType>,
@@ -33,21 +36,57 @@ internal class TraceDataFlowInstrumentor(
     private lateinit var random: DeterministicRandom
 
     override fun instrument(internalClassName: String, bytecode: ByteArray): ByteArray {
-        val node = ClassNode()
         val reader = ClassReader(bytecode)
-        reader.accept(node, 0)
-        random = DeterministicRandom("trace", node.name)
-        for (method in node.methods) {
-            if (shouldInstrument(method)) {
-                addDataFlowInstrumentation(method)
-            }
-        }
-
         val writer = ClassWriter(ClassWriter.COMPUTE_MAXS)
-        node.accept(writer)
+        reader.accept(classVisitor(writer), 0)
         return writer.toByteArray()
     }
 
+    /**
+     * Returns a [ClassVisitor] that adds data flow instrumentation to the class it visits and passes the result on to
+     * [next]. Every method is buffered in a [MethodNode] so that the instrumentation can inspect neighboring
+     * instructions, but only one method is held in memory at a time. The injected instructions never introduce new
+     * branches, so the frames of the method remain valid. The maximum stack size has to be recomputed by the
+     * [ClassWriter] at the end of the chain.
+     */
+    fun classVisitor(next: ClassVisitor): ClassVisitor = object : ClassVisitor(Instrumentor.ASM_API_VERSION, next) {
+        override fun visit(
+            version: Int,
+            access: Int,
+            name: String,
+            signature: String?,
+            superName: String?,
+            interfaces: Array<String>?,
+        ) {
+            random = DeterministicRandom("trace", name)
+            super.visit(version, access, name, signature, superName, interfaces)
+        }
+
+        override fun visitMethod(
+            access: Int,
+            name: String?,
+            descriptor: String?,
+            signature: String?,
+            exceptions: Array<String>?,
+        ): MethodVisitor? {
+            val mv = cv.visitMethod(access, name, descriptor, signature, exceptions) ?: return null
+            return object : MethodNode(Instrumentor.ASM_API_VERSION, access, name, descriptor, signature, exceptions) {
+                private val labelNodes = IdentityHashMap<Label, LabelNode>()
+
+                // MethodNode stores the LabelNode of a Label in Label.info by default, but the coverage instrumentation
+                // upstream of this visitor keeps its own data about the same labels in that field.
+                override fun getLabelNode(label: Label): LabelNode = labelNodes.getOrPut(label) { LabelNode() }
+
+                override fun visitEnd() {
+                    if (shouldInstrument(this)) {
+                        addDataFlowInstrumentation(this)
+                    }
+                    accept(mv)
+                }
+            }
+        }
+    }
+
     private fun addDataFlowInstrumentation(method: MethodNode) {
         loop@ for (inst in method.instructions.toArray()) {
             when (inst.opcode) {
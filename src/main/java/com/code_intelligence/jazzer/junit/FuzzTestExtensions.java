@@ -37,7 +37,7 @@ class FuzzTestExtensions
       "com.code_intelligence.jazzer.runtime.JazzerInternal";
   private static final AtomicReference<Method> fuzzTestMethod = new AtomicReference<>();
   private static Field lastFindingField;
-  private static Field hooksEnabledField;
+  private static Method setHooksEnabledMethod;
 
   @Override
   public void interceptTestTemplateMethod(
@@ -87,7 +87,7 @@ class FuzzTestExtensions
     getLastFindingField().set(null, null);
     // When running in regression test mode, the agent emits additional bytecode logic in front of
     // method hook invocations that enables them only while a global variable managed by
-    // withHooksEnabled is true.
+    // withHooksEnabled is true. With --indy_hooks, the hooked call sites are relinked instead.
     //
     // Alternatives considered:
     // * Using a dedicated class loader for @FuzzTests: First-class support for this isn't
@@ -195,19 +195,19 @@ class FuzzTestExtensions
     return lastFindingField;
   }
 
-  private static Field getHooksEnabledField() throws ClassNotFoundException, NoSuchFieldException {
-    if (hooksEnabledField == null) {
+  private static Method getSetHooksEnabledMethod()
+      throws ClassNotFoundException, NoSuchMethodException {
+    if (setHooksEnabledMethod == null) {
       Class<?> jazzerInternal = Class.forName(JAZZER_INTERNAL);
-      hooksEnabledField = jazzerInternal.getField("hooksEnabled");
+      setHooksEnabledMethod = jazzerInternal.getMethod("setHooksEnabled", boolean.class);
     }
-    return hooksEnabledField;
+    return setHooksEnabledMethod;
   }
 
-  private static AutoCloseable withHooksEnabled()
-      throws NoSuchFieldException, ClassNotFoundException, IllegalAccessException {
-    Field hooksEnabledField = getHooksEnabledField();
-    hooksEnabledField.setBoolean(null, true);
-    return () -> hooksEnabledField.setBoolean(null, false);
+  private static AutoCloseable withHooksEnabled() throws ReflectiveOperationException {
+    Method setHooksEnabledMethod = getSetHooksEnabledMethod();
+    setHooksEnabledMethod.invoke(null, true);
+    return () -> setHooksEnabledMethod.invoke(null, false);
   }
 
   @Override
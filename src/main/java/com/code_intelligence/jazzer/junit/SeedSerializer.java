@@ -88,7 +88,11 @@ interface SeedSerializer {
     @Override
     public Object[] read(byte[] bytes) {
       mutator.read(new ByteArrayInputStream(bytes));
-      return mutator.getArguments();
+      Object[] args = mutator.getArguments();
+      // Seeds are read one after the other without ever being fuzzed, so the per-iteration mutator
+      // cache would otherwise keep all of them alive until the end of the test.
+      mutator.finishFuzzingIteration();
+      return args;
     }
 
     @Override
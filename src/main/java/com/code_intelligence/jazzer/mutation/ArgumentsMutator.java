@@ -13,6 +13,7 @@ import static com.code_intelligence.jazzer.mutation.support.AnnotationSupport.va
 import static com.code_intelligence.jazzer.mutation.support.Preconditions.require;
 import static com.code_intelligence.jazzer.mutation.support.StreamSupport.toArrayOrEmpty;
 import static java.lang.String.format;
+import static java.lang.invoke.MethodType.methodType;
 import static java.util.Arrays.stream;
 import static java.util.stream.Collectors.joining;
 
@@ -25,19 +26,20 @@ import com.code_intelligence.jazzer.mutation.engine.SeededPseudoRandom;
 import com.code_intelligence.jazzer.mutation.mutator.Mutators;
 import com.code_intelligence.jazzer.mutation.support.Preconditions;
 import com.code_intelligence.jazzer.utils.Log;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.AnnotatedType;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.Optional;
 
 public final class ArgumentsMutator {
   private final ExtendedMutatorFactory mutatorFactory;
-  private final Method method;
+  private final MethodHandle invoker;
   private final InPlaceProductMutator productMutator;
 
   private Object[] arguments;
@@ -55,10 +57,31 @@ public final class ArgumentsMutator {
   private ArgumentsMutator(
       ExtendedMutatorFactory mutatorFactory, Method method, InPlaceProductMutator productMutator) {
     this.mutatorFactory = mutatorFactory;
-    this.method = method;
+    this.invoker = makeInvoker(method);
     this.productMutator = productMutator;
   }
 
+  /**
+   * Returns a {@link MethodHandle} of type {@code (Object, Object[])void} that invokes {@code
+   * method} on the given instance (ignored for static methods) with the arguments spread from the
+   * array. In contrast to {@link Method#invoke(Object, Object...)}, access checks are only
+   * performed once and exceptions thrown by the method propagate unwrapped.
+   */
+  private static MethodHandle makeInvoker(Method method) {
+    MethodHandle handle;
+    try {
+      handle = MethodHandles.lookup().unreflect(method);
+    } catch (IllegalAccessException e) {
+      throw new IllegalStateException("method should have been made accessible", e);
+    }
+    if (Modifier.isStatic(method.getModifiers())) {
+      handle = MethodHandles.dropArguments(handle, 0, Object.class);
+    }
+    return handle
+        .asSpreader(Object[].class, method.getParameterCount())
+        .asType(methodType(void.class, Object.class, Object[].class));
+  }
+
   private static String prettyPrintMethod(Method method) {
     return format(
         "%s.%s(%s)",
@@ -132,7 +155,7 @@ public final class ArgumentsMutator {
   /**
    * @throws UncheckedIOException if the underlying InputStream throws
    */
-  public void read(ByteArrayInputStream data) {
+  public void read(InputStream data) {
     try {
       arguments = productMutator.readExclusive(data);
       argumentsExposed = false;
@@ -188,13 +211,7 @@ public final class ArgumentsMutator {
       invokeArguments = arguments;
       argumentsExposed = true;
     }
-    try {
-      method.invoke(instance, invokeArguments);
-    } catch (IllegalAccessException e) {
-      throw new IllegalStateException("method should have been made accessible", e);
-    } catch (InvocationTargetException e) {
-      throw e.getCause();
-    }
+    invoker.invokeExact(instance, invokeArguments);
   }
 
   public Object[] getArguments() {
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2024 Code Intelligence GmbH
+ *
+ * By downloading, you agree to the Code Intelligence Jazzer Terms and Conditions.
+ *
+ * The Code Intelligence Jazzer Terms and Conditions are provided in LICENSE-JAZZER.txt
+ * located in the root directory of the project.
+ */
+
+package com.code_intelligence.jazzer.mutation.api;
+
+import com.google.errorprone.annotations.CheckReturnValue;
+
+/**
+ * A {@link ValueMutator} for an integral type that can also operate on values widened to {@code
+ * long}.
+ *
+ * <p>Mutators for containers of such values use these methods to keep the values in primitive
+ * arrays instead of boxing every element. Every method behaves exactly like its boxed counterpart,
+ * including the calls it makes on the {@link PseudoRandom}.
+ */
+public interface LongValueMutator<T extends Number> extends ValueMutator<T> {
+  /** Like {@link ValueMutator#init(PseudoRandom)}. */
+  @CheckReturnValue
+  long initAsLong(PseudoRandom prng);
+
+  /** Like {@link ValueMutator#mutate(Object, PseudoRandom)}. */
+  @CheckReturnValue
+  long mutateAsLong(long value, PseudoRandom prng);
+
+  /** Like {@link ValueMutator#crossOver(Object, Object, PseudoRandom)}. */
+  @CheckReturnValue
+  long crossOverAsLong(long value, long otherValue, PseudoRandom prng);
+
+  /**
+   * Maps an arbitrary value of the underlying primitive type to a valid value in the same way as
+   * {@link Serializer#read(java.io.DataInputStream)} maps the raw value it reads.
+   */
+  @CheckReturnValue
+  long forceInRange(long value);
+}
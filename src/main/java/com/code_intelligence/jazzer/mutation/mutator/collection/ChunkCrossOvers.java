@@ -9,6 +9,7 @@
 
 package com.code_intelligence.jazzer.mutation.mutator.collection;
 
+import com.code_intelligence.jazzer.mutation.api.LongValueMutator;
 import com.code_intelligence.jazzer.mutation.api.PseudoRandom;
 import com.code_intelligence.jazzer.mutation.api.SerializingMutator;
 import java.util.ArrayList;
@@ -49,6 +50,63 @@ final class ChunkCrossOvers {
         elementMutator.hasFixedSize());
   }
 
+  static <T extends Number> void insertChunk(
+      PrimitiveList<T> list,
+      PrimitiveList<T> otherList,
+      int maxSize,
+      PseudoRandom prng,
+      boolean hasFixedSize) {
+    int maxChunkSize = Math.min(maxSize - list.size(), otherList.size());
+    int chunkSize = prng.sizeInClosedRange(1, maxChunkSize, hasFixedSize);
+    int fromPos = prng.closedRange(0, otherList.size() - chunkSize);
+    int toPos = prng.closedRange(0, list.size());
+    list.insertRange(toPos, otherList, fromPos, fromPos + chunkSize);
+  }
+
+  static <T extends Number> void overwriteChunk(
+      PrimitiveList<T> list, PrimitiveList<T> otherList, PseudoRandom prng, boolean hasFixedSize) {
+    onCorrespondingPrimitiveChunks(
+        list,
+        otherList,
+        prng,
+        (toPos, element) -> list.setLong(toPos, element),
+        hasFixedSize);
+  }
+
+  static <T extends Number> void crossOverChunk(
+      PrimitiveList<T> list,
+      PrimitiveList<T> otherList,
+      LongValueMutator<T> elementMutator,
+      PseudoRandom prng) {
+    onCorrespondingPrimitiveChunks(
+        list,
+        otherList,
+        prng,
+        (toPos, element) ->
+            list.setLong(toPos, elementMutator.crossOverAsLong(list.getLong(toPos), element, prng)),
+        elementMutator.hasFixedSize());
+  }
+
+  @FunctionalInterface
+  private interface ChunkPrimitiveListElementOperation {
+    void apply(int toPos, long element);
+  }
+
+  private static void onCorrespondingPrimitiveChunks(
+      PrimitiveList<?> list,
+      PrimitiveList<?> otherList,
+      PseudoRandom prng,
+      ChunkPrimitiveListElementOperation operation,
+      boolean hasFixedSize) {
+    int maxChunkSize = Math.min(list.size(), otherList.size());
+    int chunkSize = prng.sizeInClosedRange(1, maxChunkSize, hasFixedSize);
+    int fromPos = prng.closedRange(0, otherList.size() - chunkSize);
+    int toPos = prng.closedRange(0, list.size() - chunkSize);
+    for (int i = 0; i < chunkSize; i++) {
+      operation.apply(toPos + i, otherList.getLong(fromPos + i));
+    }
+  }
+
   @FunctionalInterface
   private interface ChunkListElementOperation<T> {
     void apply(int toPos, T chunk);
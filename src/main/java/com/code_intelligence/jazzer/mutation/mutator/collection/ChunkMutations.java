@@ -9,6 +9,7 @@
 
 package com.code_intelligence.jazzer.mutation.mutator.collection;
 
+import com.code_intelligence.jazzer.mutation.api.LongValueMutator;
 import com.code_intelligence.jazzer.mutation.api.PseudoRandom;
 import com.code_intelligence.jazzer.mutation.api.SerializingMutator;
 import com.code_intelligence.jazzer.mutation.api.ValueMutator;
@@ -76,6 +77,15 @@ final class ChunkMutations {
     list.addAll(chunkOffset, new ArraySharingList<>(chunk));
   }
 
+  static <T extends Number> void insertRandomChunk(
+      PrimitiveList<T> list, int maxSize, LongValueMutator<T> elementMutator, PseudoRandom prng) {
+    int oldSize = list.size();
+    int chunkSize = prng.sizeInClosedRange(1, maxSize - oldSize, elementMutator.hasFixedSize());
+    int chunkOffset = prng.closedRange(0, oldSize);
+
+    list.insertCopies(chunkOffset, chunkSize, elementMutator.initAsLong(prng));
+  }
+
   static <T> boolean insertRandomChunk(
       Set<T> set,
       Consumer<T> addIfNew,
@@ -97,11 +107,28 @@ final class ChunkMutations {
     }
   }
 
+  static <T extends Number> void mutateRandomChunk(
+      PrimitiveList<T> list, LongValueMutator<T> mutator, PseudoRandom prng) {
+    int size = list.size();
+    int chunkSize = prng.sizeInClosedRange(1, size, mutator.hasFixedSize());
+    int chunkOffset = prng.closedRange(0, size - chunkSize);
+
+    for (int i = chunkOffset; i < chunkOffset + chunkSize; i++) {
+      list.setLong(i, mutator.mutateAsLong(list.getLong(i), prng));
+    }
+  }
+
   static <T> void mutateRandomAt(List<T> list, ValueMutator<T> mutator, PseudoRandom prng) {
     int index = prng.indexIn(list.size());
     list.set(index, mutator.mutate(list.get(index), prng));
   }
 
+  static <T extends Number> void mutateRandomAt(
+      PrimitiveList<T> list, LongValueMutator<T> mutator, PseudoRandom prng) {
+    int index = prng.indexIn(list.size());
+    list.setLong(index, mutator.mutateAsLong(list.getLong(index), prng));
+  }
+
   static <K, V, KW, VW> boolean mutateRandomKeysChunk(
       Map<K, V> map, SerializingMutator<K> keyMutator, PseudoRandom prng) {
     int originalSize = map.size();
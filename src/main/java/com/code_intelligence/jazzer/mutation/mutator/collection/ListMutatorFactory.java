@@ -27,6 +27,7 @@ import static java.lang.String.format;
 import com.code_intelligence.jazzer.mutation.annotation.WithSize;
 import com.code_intelligence.jazzer.mutation.api.Debuggable;
 import com.code_intelligence.jazzer.mutation.api.ExtendedMutatorFactory;
+import com.code_intelligence.jazzer.mutation.api.LongValueMutator;
 import com.code_intelligence.jazzer.mutation.api.MutatorFactory;
 import com.code_intelligence.jazzer.mutation.api.PseudoRandom;
 import com.code_intelligence.jazzer.mutation.api.SerializingInPlaceMutator;
@@ -39,32 +40,46 @@ import java.lang.reflect.AnnotatedType;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.IntFunction;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 final class ListMutatorFactory implements MutatorFactory {
   @Override
+  @SuppressWarnings("unchecked")
   public Optional<SerializingMutator<?>> tryCreate(
       AnnotatedType type, ExtendedMutatorFactory factory) {
-    return parameterTypeIfParameterized(type, List.class)
-        .map(innerType -> propagatePropertyConstraints(type, innerType))
+    Optional<AnnotatedType> elementType =
+        parameterTypeIfParameterized(type, List.class)
+            .map(innerType -> propagatePropertyConstraints(type, innerType));
+    return elementType
         .flatMap(factory::tryCreate)
         .map(
             elementMutator -> {
               Optional<WithSize> withSize = Optional.ofNullable(type.getAnnotation(WithSize.class));
               int minSize = withSize.map(WithSize::min).orElse(ListMutator.DEFAULT_MIN_SIZE);
               int maxSize = withSize.map(WithSize::max).orElse(ListMutator.DEFAULT_MAX_SIZE);
+              // Lists of non-nullable boxed integral values are backed by primitive arrays.
+              if (elementMutator instanceof LongValueMutator
+                  && elementType.get().getType() instanceof Class) {
+                Optional<IntFunction<PrimitiveList<?>>> newList =
+                    PrimitiveList.constructorFor((Class<?>) elementType.get().getType());
+                if (newList.isPresent()) {
+                  return new PrimitiveListMutator<>(
+                      (SerializingMutator<Number>) elementMutator, newList.get(), minSize, maxSize);
+                }
+              }
               return new ListMutator<>(elementMutator, minSize, maxSize);
             });
   }
 
-  private static final class ListMutator<T> extends SerializingInPlaceMutator<List<T>> {
+  private static class ListMutator<T> extends SerializingInPlaceMutator<List<T>> {
     private static final int DEFAULT_MIN_SIZE = 0;
     private static final int DEFAULT_MAX_SIZE = 1000;
 
-    private final SerializingMutator<T> elementMutator;
-    private final int minSize;
-    private final int maxSize;
+    final SerializingMutator<T> elementMutator;
+    final int minSize;
+    final int maxSize;
 
     ListMutator(SerializingMutator<T> elementMutator, int minSize, int maxSize) {
       this.elementMutator = elementMutator;
@@ -169,15 +184,150 @@ final class ListMutatorFactory implements MutatorFactory {
       return "List<" + elementMutator.toDebugString(isInCycle) + ">";
     }
 
-    private int minInitialSize() {
+    int minInitialSize() {
       return minSize;
     }
 
-    private int maxInitialSize() {
+    int maxInitialSize() {
       if (elementMutator.requiresRecursionBreaking()) {
         return minInitialSize();
       }
       return min(maxSize, minSize + 1);
     }
   }
+
+  /**
+   * A {@link ListMutator} for lists of boxed integral values that creates and operates on {@link
+   * PrimitiveList}s, so that elements are only boxed when the fuzz test accesses them. Mutations
+   * make the same calls on the {@link PseudoRandom} as those of {@link ListMutator} and thus
+   * produce equal lists. Lists of other types are handled by {@link ListMutator}.
+   */
+  private static final class PrimitiveListMutator<T extends Number> extends ListMutator<T> {
+    private final LongValueMutator<T> longElementMutator;
+    private final IntFunction<PrimitiveList<T>> newList;
+
+    @SuppressWarnings("unchecked")
+    PrimitiveListMutator(
+        SerializingMutator<T> elementMutator,
+        IntFunction<PrimitiveList<?>> newList,
+        int minSize,
+        int maxSize) {
+      super(elementMutator, minSize, maxSize);
+      this.longElementMutator = (LongValueMutator<T>) elementMutator;
+      this.newList = capacity -> (PrimitiveList<T>) newList.apply(capacity);
+    }
+
+    @Override
+    public List<T> read(DataInputStream in) throws IOException {
+      int size = RandomSupport.clamp(in.readInt(), minSize, maxSize);
+      PrimitiveList<T> list = newList.apply(size);
+      list.readElements(in, size);
+      for (int i = 0; i < size; i++) {
+        long value = list.getLong(i);
+        long valueInRange = longElementMutator.forceInRange(value);
+        if (valueInRange != value) {
+          list.setLong(i, valueInRange);
+        }
+      }
+      return list;
+    }
+
+    @Override
+    public void write(List<T> list, DataOutputStream out) throws IOException {
+      if (!(list instanceof PrimitiveList)) {
+        super.write(list, out);
+        return;
+      }
+      out.writeInt(list.size());
+      ((PrimitiveList<T>) list).writeElements(out);
+    }
+
+    @Override
+    protected List<T> makeDefaultInstance() {
+      return newList.apply(maxInitialSize());
+    }
+
+    @Override
+    public void initInPlace(List<T> list, PseudoRandom prng) {
+      if (!(list instanceof PrimitiveList)) {
+        super.initInPlace(list, prng);
+        return;
+      }
+      PrimitiveList<T> primitiveList = (PrimitiveList<T>) list;
+      int targetSize = prng.closedRange(minInitialSize(), maxInitialSize());
+      primitiveList.clear();
+      for (int i = 0; i < targetSize; i++) {
+        primitiveList.insertCopies(i, 1, longElementMutator.initAsLong(prng));
+      }
+    }
+
+    @Override
+    public void mutateInPlace(List<T> list, PseudoRandom prng) {
+      if (!(list instanceof PrimitiveList)) {
+        super.mutateInPlace(list, prng);
+        return;
+      }
+      PrimitiveList<T> primitiveList = (PrimitiveList<T>) list;
+      switch (pickRandomMutationAction(list, minSize, maxSize, prng)) {
+        case DELETE_CHUNK:
+          // Clearing a sublist of a PrimitiveList doesn't box its elements.
+          deleteRandomChunk(list, minSize, prng, longElementMutator.hasFixedSize());
+          break;
+        case INSERT_CHUNK:
+          insertRandomChunk(primitiveList, maxSize, longElementMutator, prng);
+          break;
+        case MUTATE_CHUNK:
+          // Prioritize mutating a single element over a chunk mutation 70% of the time.
+          if (prng.indexIn(10) < 7) {
+            mutateRandomAt(primitiveList, longElementMutator, prng);
+          } else {
+            mutateRandomChunk(primitiveList, longElementMutator, prng);
+          }
+          break;
+        default:
+          throw new IllegalStateException("unsupported action");
+      }
+    }
+
+    @Override
+    public void crossOverInPlace(List<T> reference, List<T> otherReference, PseudoRandom prng) {
+      if (!(reference instanceof PrimitiveList)
+          || reference.getClass() != otherReference.getClass()) {
+        super.crossOverInPlace(reference, otherReference, prng);
+        return;
+      }
+      PrimitiveList<T> primitiveReference = (PrimitiveList<T>) reference;
+      PrimitiveList<T> primitiveOtherReference = (PrimitiveList<T>) otherReference;
+      switch (pickRandomCrossOverAction(reference, otherReference, maxSize, prng)) {
+        case INSERT_CHUNK:
+          insertChunk(
+              primitiveReference,
+              primitiveOtherReference,
+              maxSize,
+              prng,
+              longElementMutator.hasFixedSize());
+          break;
+        case OVERWRITE_CHUNK:
+          overwriteChunk(
+              primitiveReference,
+              primitiveOtherReference,
+              prng,
+              longElementMutator.hasFixedSize());
+          break;
+        case CROSS_OVER_CHUNK:
+          crossOverChunk(primitiveReference, primitiveOtherReference, longElementMutator, prng);
+          break;
+        default:
+          // Both lists are empty or could otherwise not be crossed over.
+      }
+    }
+
+    @Override
+    public List<T> detach(List<T> value) {
+      if (!(value instanceof PrimitiveList)) {
+        return super.detach(value);
+      }
+      return ((PrimitiveList<T>) value).copy();
+    }
+  }
 }
@@ -0,0 +1,391 @@
+/*
+ * Copyright 2024 Code Intelligence GmbH
+ *
+ * By downloading, you agree to the Code Intelligence Jazzer Terms and Conditions.
+ *
+ * The Code Intelligence Jazzer Terms and Conditions are provided in LICENSE-JAZZER.txt
+ * located in the root directory of the project.
+ */
+
+package com.code_intelligence.jazzer.mutation.mutator.collection;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.RandomAccess;
+import java.util.function.IntFunction;
+
+/**
+ * A mutable list of boxed integral values that stores them unboxed in a primitive array of the
+ * corresponding type.
+ *
+ * <p>Elements are only boxed when accessed through the {@link java.util.List} interface. Mutators
+ * use {@link #getLong(int)} and {@link #setLong(int, long)} instead and serialize the elements in
+ * bulk, using the same big-endian representation as {@link DataOutputStream}.
+ */
+abstract class PrimitiveList<T extends Number> extends AbstractList<T> implements RandomAccess {
+  private static final int MIN_CAPACITY = 8;
+
+  // A primitive array of the type corresponding to T.
+  Object array;
+  private int size;
+
+  private PrimitiveList(int capacity) {
+    this.array = newArray(capacity);
+  }
+
+  /**
+   * Returns a function creating an empty list of the given capacity for the boxed integral type
+   * {@code elementClass}, or nothing if the type is not supported.
+   */
+  static Optional<IntFunction<PrimitiveList<?>>> constructorFor(Class<?> elementClass) {
+    if (elementClass == Byte.class) {
+      return Optional.of(ByteList::new);
+    } else if (elementClass == Short.class) {
+      return Optional.of(ShortList::new);
+    } else if (elementClass == Integer.class) {
+      return Optional.of(IntList::new);
+    } else if (elementClass == Long.class) {
+      return Optional.of(LongList::new);
+    } else {
+      return Optional.empty();
+    }
+  }
+
+  abstract Object newArray(int capacity);
+
+  abstract long getUnchecked(int index);
+
+  abstract void setUnchecked(int index, long value);
+
+  abstract T box(long value);
+
+  /** Reads {@code count} elements from {@code in} into the array starting at index 0. */
+  abstract void readArray(DataInputStream in, int count) throws IOException;
+
+  /** Writes the first {@code count} elements of the array to {@code out}. */
+  abstract void writeArray(DataOutputStream out, int count) throws IOException;
+
+  /** Returns a new, empty list of the same type and with the given capacity. */
+  abstract PrimitiveList<T> newInstance(int capacity);
+
+  final long getLong(int index) {
+    checkIndex(index);
+    return getUnchecked(index);
+  }
+
+  final void setLong(int index, long value) {
+    checkIndex(index);
+    setUnchecked(index, value);
+  }
+
+  /** Inserts {@code count} copies of {@code value} at {@code index}. */
+  final void insertCopies(int index, int count, long value) {
+    openGap(index, count);
+    for (int i = index; i < index + count; i++) {
+      setUnchecked(i, value);
+    }
+  }
+
+  /** Inserts the elements of {@code other} in the range [from, to) at {@code index}. */
+  final void insertRange(int index, PrimitiveList<T> other, int from, int to) {
+    int count = to - from;
+    Object source = other.array;
+    if (other == this) {
+      // Opening the gap would move the elements to insert.
+      source = newArray(count);
+      System.arraycopy(array, from, source, 0, count);
+      from = 0;
+    }
+    openGap(index, count);
+    System.arraycopy(source, from, array, index, count);
+  }
+
+  /** Replaces the elements of this list with {@code count} elements read from {@code in}. */
+  final void readElements(DataInputStream in, int count) throws IOException {
+    ensureCapacity(count);
+    modCount++;
+    size = count;
+    readArray(in, count);
+  }
+
+  final void writeElements(DataOutputStream out) throws IOException {
+    writeArray(out, size);
+  }
+
+  final PrimitiveList<T> copy() {
+    PrimitiveList<T> copy = newInstance(size);
+    System.arraycopy(array, 0, copy.array, 0, size);
+    copy.size = size;
+    return copy;
+  }
+
+  @Override
+  public final T get(int index) {
+    return box(getLong(index));
+  }
+
+  @Override
+  public final T set(int index, T element) {
+    T previous = get(index);
+    setUnchecked(index, element.longValue());
+    return previous;
+  }
+
+  @Override
+  public final void add(int index, T element) {
+    long value = element.longValue();
+    if (index < 0 || index > size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+    openGap(index, 1);
+    setUnchecked(index, value);
+  }
+
+  @Override
+  public final boolean addAll(Collection<? extends T> elements) {
+    return addAll(size, elements);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public final boolean addAll(int index, Collection<? extends T> elements) {
+    if (index < 0 || index > size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+    if (elements.getClass() == getClass()) {
+      PrimitiveList<T> other = (PrimitiveList<T>) elements;
+      insertRange(index, other, 0, other.size);
+      return other.size != 0;
+    }
+    return super.addAll(index, elements);
+  }
+
+  @Override
+  public final T remove(int index) {
+    T previous = get(index);
+    removeRange(index, index + 1);
+    return previous;
+  }
+
+  @Override
+  protected final void removeRange(int fromIndex, int toIndex) {
+    modCount++;
+    System.arraycopy(array, toIndex, array, fromIndex, size - toIndex);
+    size -= toIndex - fromIndex;
+  }
+
+  @Override
+  public final void clear() {
+    modCount++;
+    size = 0;
+  }
+
+  @Override
+  public final int size() {
+    return size;
+  }
+
+  private void openGap(int index, int count) {
+    ensureCapacity(size + count);
+    modCount++;
+    System.arraycopy(array, index, array, index + count, size - index);
+    size += count;
+  }
+
+  private void ensureCapacity(int capacity) {
+    int currentCapacity = Array.getLength(array);
+    if (capacity > currentCapacity) {
+      Object newArray = newArray(Math.max(capacity, Math.max(MIN_CAPACITY, 2 * currentCapacity)));
+      System.arraycopy(array, 0, newArray, 0, size);
+      array = newArray;
+    }
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+  }
+
+  private static final class ByteList extends PrimitiveList<Byte> {
+    ByteList(int capacity) {
+      super(capacity);
+    }
+
+    @Override
+    Object newArray(int capacity) {
+      return new byte[capacity];
+    }
+
+    @Override
+    long getUnchecked(int index) {
+      return ((byte[]) array)[index];
+    }
+
+    @Override
+    void setUnchecked(int index, long value) {
+      ((byte[]) array)[index] = (byte) value;
+    }
+
+    @Override
+    Byte box(long value) {
+      return (byte) value;
+    }
+
+    @Override
+    void readArray(DataInputStream in, int count) throws IOException {
+      in.readFully((byte[]) array, 0, count);
+    }
+
+    @Override
+    void writeArray(DataOutputStream out, int count) throws IOException {
+      out.write((byte[]) array, 0, count);
+    }
+
+    @Override
+    PrimitiveList<Byte> newInstance(int capacity) {
+      return new ByteList(capacity);
+    }
+  }
+
+  private static final class ShortList extends PrimitiveList<Short> {
+    ShortList(int capacity) {
+      super(capacity);
+    }
+
+    @Override
+    Object newArray(int capacity) {
+      return new short[capacity];
+    }
+
+    @Override
+    long getUnchecked(int index) {
+      return ((short[]) array)[index];
+    }
+
+    @Override
+    void setUnchecked(int index, long value) {
+      ((short[]) array)[index] = (short) value;
+    }
+
+    @Override
+    Short box(long value) {
+      return (short) value;
+    }
+
+    @Override
+    void readArray(DataInputStream in, int count) throws IOException {
+      byte[] bytes = new byte[count * Short.BYTES];
+      in.readFully(bytes);
+      ByteBuffer.wrap(bytes).asShortBuffer().get((short[]) array, 0, count);
+    }
+
+    @Override
+    void writeArray(DataOutputStream out, int count) throws IOException {
+      ByteBuffer bytes = ByteBuffer.allocate(count * Short.BYTES);
+      bytes.asShortBuffer().put((short[]) array, 0, count);
+      out.write(bytes.array());
+    }
+
+    @Override
+    PrimitiveList<Short> newInstance(int capacity) {
+      return new ShortList(capacity);
+    }
+  }
+
+  private static final class IntList extends PrimitiveList<Integer> {
+    IntList(int capacity) {
+      super(capacity);
+    }
+
+    @Override
+    Object newArray(int capacity) {
+      return new int[capacity];
+    }
+
+    @Override
+    long getUnchecked(int index) {
+      return ((int[]) array)[index];
+    }
+
+    @Override
+    void setUnchecked(int index, long value) {
+      ((int[]) array)[index] = (int) value;
+    }
+
+    @Override
+    Integer box(long value) {
+      return (int) value;
+    }
+
+    @Override
+    void readArray(DataInputStream in, int count) throws IOException {
+      byte[] bytes = new byte[count * Integer.BYTES];
+      in.readFully(bytes);
+      ByteBuffer.wrap(bytes).asIntBuffer().get((int[]) array, 0, count);
+    }
+
+    @Override
+    void writeArray(DataOutputStream out, int count) throws IOException {
+      ByteBuffer bytes = ByteBuffer.allocate(count * Integer.BYTES);
+      bytes.asIntBuffer().put((int[]) array, 0, count);
+      out.write(bytes.array());
+    }
+
+    @Override
+    PrimitiveList<Integer> newInstance(int capacity) {
+      return new IntList(capacity);
+    }
+  }
+
+  private static final class LongList extends PrimitiveList<Long> {
+    LongList(int capacity) {
+      super(capacity);
+    }
+
+    @Override
+    Object newArray(int capacity) {
+      return new long[capacity];
+    }
+
+    @Override
+    long getUnchecked(int index) {
+      return ((long[]) array)[index];
+    }
+
+    @Override
+    void setUnchecked(int index, long value) {
+      ((long[]) array)[index] = value;
+    }
+
+    @Override
+    Long box(long value) {
+      return value;
+    }
+
+    @Override
+    void readArray(DataInputStream in, int count) throws IOException {
+      byte[] bytes = new byte[count * Long.BYTES];
+      in.readFully(bytes);
+      ByteBuffer.wrap(bytes).asLongBuffer().get((long[]) array, 0, count);
+    }
+
+    @Override
+    void writeArray(DataOutputStream out, int count) throws IOException {
+      ByteBuffer bytes = ByteBuffer.allocate(count * Long.BYTES);
+      bytes.asLongBuffer().put((long[]) array, 0, count);
+      out.write(bytes.array());
+    }
+
+    @Override
+    PrimitiveList<Long> newInstance(int capacity) {
+      return new LongList(capacity);
+    }
+  }
+}
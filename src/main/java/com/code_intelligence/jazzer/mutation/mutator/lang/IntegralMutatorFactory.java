@@ -15,6 +15,7 @@ import static java.lang.String.format;
 import com.code_intelligence.jazzer.mutation.annotation.InRange;
 import com.code_intelligence.jazzer.mutation.api.Debuggable;
 import com.code_intelligence.jazzer.mutation.api.ExtendedMutatorFactory;
+import com.code_intelligence.jazzer.mutation.api.LongValueMutator;
 import com.code_intelligence.jazzer.mutation.api.MutatorFactory;
 import com.code_intelligence.jazzer.mutation.api.PseudoRandom;
 import com.code_intelligence.jazzer.mutation.api.SerializingMutator;
@@ -182,7 +183,8 @@ final class IntegralMutatorFactory implements MutatorFactory {
   // Copyright 2022 Google LLC
   //
   // Visible for testing.
-  abstract static class AbstractIntegralMutator<T extends Number> extends SerializingMutator<T> {
+  abstract static class AbstractIntegralMutator<T extends Number> extends SerializingMutator<T>
+      implements LongValueMutator<T> {
     private static final long RANDOM_WALK_RANGE = 5;
     private final long minValue;
     private final long maxValue;
@@ -320,6 +322,21 @@ final class IntegralMutatorFactory implements MutatorFactory {
       return mean + (1 & xor & (mean >>> 31));
     }
 
+    @Override
+    public final long initAsLong(PseudoRandom prng) {
+      return initImpl(prng);
+    }
+
+    @Override
+    public final long mutateAsLong(long value, PseudoRandom prng) {
+      return mutateImpl(value, prng);
+    }
+
+    @Override
+    public final long crossOverAsLong(long value, long otherValue, PseudoRandom prng) {
+      return crossOverImpl(value, otherValue, prng);
+    }
+
     @ForOverride
     protected abstract long mutateWithLibFuzzer(long value);
 
@@ -328,7 +345,8 @@ final class IntegralMutatorFactory implements MutatorFactory {
      * bits as possible (e.g. so that mutations that apply to the raw byte representation still have
      * a good chance to actually mutate the value). Clamping would not have this property.
      */
-    protected final long forceInRange(long value) {
+    @Override
+    public final long forceInRange(long value) {
       // Fast path for the common case.
       if (value >= minValue && value <= maxValue) {
         return value;
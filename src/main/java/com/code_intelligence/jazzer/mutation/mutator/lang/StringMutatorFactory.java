@@ -9,21 +9,28 @@
 
 package com.code_intelligence.jazzer.mutation.mutator.lang;
 
-import static com.code_intelligence.jazzer.mutation.combinator.MutatorCombinators.mutateThenMapToImmutable;
 import static com.code_intelligence.jazzer.mutation.support.TypeSupport.*;
 
 import com.code_intelligence.jazzer.mutation.annotation.Ascii;
 import com.code_intelligence.jazzer.mutation.annotation.UrlSegment;
 import com.code_intelligence.jazzer.mutation.annotation.WithUtf8Length;
+import com.code_intelligence.jazzer.mutation.api.Cache;
 import com.code_intelligence.jazzer.mutation.api.Debuggable;
 import com.code_intelligence.jazzer.mutation.api.ExtendedMutatorFactory;
 import com.code_intelligence.jazzer.mutation.api.MutatorFactory;
+import com.code_intelligence.jazzer.mutation.api.PseudoRandom;
 import com.code_intelligence.jazzer.mutation.api.SerializingMutator;
 import com.code_intelligence.jazzer.mutation.mutator.libfuzzer.LibFuzzerMutatorFactory;
 import com.code_intelligence.jazzer.mutation.support.TypeHolder;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.reflect.AnnotatedType;
 import java.nio.charset.StandardCharsets;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 
 final class StringMutatorFactory implements MutatorFactory {
@@ -173,22 +180,124 @@ final class StringMutatorFactory implements MutatorFactory {
             })
         .map(
             byteArrayMutator -> {
-              boolean fixUpAscii = type.getDeclaredAnnotation(Ascii.class) != null;
-              boolean fixUpPchar = type.getDeclaredAnnotation(UrlSegment.class) != null;
-              return mutateThenMapToImmutable(
-                  (SerializingMutator<byte[]>) byteArrayMutator,
-                  bytes -> {
-                    if (fixUpPchar) {
-                      fixUpPchar(bytes);
-                    } else if (fixUpAscii) {
-                      fixUpAscii(bytes);
-                    } else {
-                      fixUpUtf8(bytes);
-                    }
-                    return new String(bytes, StandardCharsets.UTF_8);
-                  },
-                  string -> string.getBytes(StandardCharsets.UTF_8),
-                  (Predicate<Debuggable> inCycle) -> "String");
+              Consumer<byte[]> fixUp;
+              if (type.getDeclaredAnnotation(UrlSegment.class) != null) {
+                fixUp = StringMutatorFactory::fixUpPchar;
+              } else if (type.getDeclaredAnnotation(Ascii.class) != null) {
+                fixUp = StringMutatorFactory::fixUpAscii;
+              } else {
+                fixUp = StringMutatorFactory::fixUpUtf8;
+              }
+              return new StringMutator(
+                  (SerializingMutator<byte[]>) byteArrayMutator, fixUp, factory.getCache());
             });
   }
+
+  /**
+   * Mutates strings via their UTF-8 representation.
+   *
+   * <p>The UTF-8 bytes of every string created by this mutator are kept in the per-iteration {@link
+   * Cache}, keyed by the identity of the string. Serializing, mutating or crossing over such a
+   * string reuses these bytes instead of encoding the string again.
+   */
+  private static final class StringMutator extends SerializingMutator<String> {
+    private final SerializingMutator<byte[]> byteArrayMutator;
+    private final Consumer<byte[]> fixUp;
+    private final Cache cache;
+
+    StringMutator(
+        SerializingMutator<byte[]> byteArrayMutator, Consumer<byte[]> fixUp, Cache cache) {
+      this.byteArrayMutator = byteArrayMutator;
+      this.fixUp = fixUp;
+      this.cache = cache;
+    }
+
+    @Override
+    public String read(DataInputStream in) throws IOException {
+      return toString(byteArrayMutator.read(in));
+    }
+
+    @Override
+    public String readExclusive(InputStream in) throws IOException {
+      return toString(byteArrayMutator.readExclusive(in));
+    }
+
+    @Override
+    public void write(String value, DataOutputStream out) throws IOException {
+      byteArrayMutator.write(toBytes(value), out);
+    }
+
+    @Override
+    public void writeExclusive(String value, OutputStream out) throws IOException {
+      byteArrayMutator.writeExclusive(toBytes(value), out);
+    }
+
+    @Override
+    public String detach(String value) {
+      return value;
+    }
+
+    @Override
+    public String init(PseudoRandom prng) {
+      return toString(byteArrayMutator.init(prng));
+    }
+
+    @Override
+    public String mutate(String value, PseudoRandom prng) {
+      return toString(byteArrayMutator.mutate(takeBytes(value), prng));
+    }
+
+    @Override
+    public String crossOver(String value, String otherValue, PseudoRandom prng) {
+      // Take the bytes of value first so that they are not shared with otherValue if both are the
+      // same string.
+      byte[] bytes = takeBytes(value);
+      byte[] otherBytes = toBytes(otherValue);
+      byte[] result = byteArrayMutator.crossOver(bytes, otherBytes, prng);
+      if (result == otherBytes) {
+        result = byteArrayMutator.detach(result);
+      }
+      return toString(result);
+    }
+
+    @Override
+    protected boolean computeHasFixedSize() {
+      return byteArrayMutator.hasFixedSize();
+    }
+
+    @Override
+    public String toDebugString(Predicate<Debuggable> isInCycle) {
+      return "String";
+    }
+
+    private String toString(byte[] bytes) {
+      fixUp.accept(bytes);
+      // The fixed up bytes are valid UTF-8 and thus equal to the encoding of the string.
+      String value = new String(bytes, StandardCharsets.UTF_8);
+      cache.put(value, bytes);
+      return value;
+    }
+
+    private byte[] toBytes(String value) {
+      byte[] bytes = cache.get(value);
+      if (bytes == null) {
+        return value.getBytes(StandardCharsets.UTF_8);
+      }
+      return bytes;
+    }
+
+    /**
+     * Returns the UTF-8 bytes of {@code value} for use as an argument the byte array mutator may
+     * modify. Cached bytes are handed over rather than copied, so that other references to the
+     * same string fall back to encoding it again.
+     */
+    private byte[] takeBytes(String value) {
+      byte[] bytes = cache.get(value);
+      if (bytes == null) {
+        return value.getBytes(StandardCharsets.UTF_8);
+      }
+      cache.put(value, null);
+      return bytes;
+    }
+  }
 }
@@ -37,6 +37,10 @@ public final class LibFuzzerMutate {
       // Mutation failed. This should happen very rarely.
       return data;
     }
+    if (mutatedBytes != data && newSize == mutatedBytes.length) {
+      // The mutated bytes are already a copy of the right size.
+      return mutatedBytes;
+    }
     return Arrays.copyOf(mutatedBytes, newSize);
   }
 
@@ -50,10 +54,24 @@ public final class LibFuzzerMutate {
           "writeExclusive is not expected to throw if the underlying stream doesn't", e);
     }
 
-    byte[] mutatedBytes = mutateDefault(out.toByteArray(), maxSizeIncrease);
+    // The serialized bytes are not shared, so they can be mutated in place and read back without
+    // copying them to an array of the new size.
+    byte[] data = out.toByteArray();
+    byte[] mutatedBytes;
+    if (maxSizeIncrease == 0) {
+      mutatedBytes = data;
+    } else {
+      mutatedBytes = Arrays.copyOf(data, data.length + maxSizeIncrease);
+    }
+    int newSize = defaultMutate(mutatedBytes, data.length);
+    if (newSize == 0) {
+      // Mutation failed. This should happen very rarely.
+      mutatedBytes = data;
+      newSize = data.length;
+    }
 
     try {
-      return serializer.readExclusive(new ByteArrayInputStream(mutatedBytes));
+      return serializer.readExclusive(new ByteArrayInputStream(mutatedBytes, 0, newSize));
     } catch (IOException e) {
       throw new IllegalStateException(
           "readExclusive is not expected to throw if the underlying stream doesn't", e);
@@ -18,9 +18,8 @@ import com.github.fmeum.rules_jni.RulesJni;
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.Set;
+import java.nio.ByteOrder;
+import java.util.BitSet;
 import sun.misc.Unsafe;
 
 /**
@@ -39,6 +38,8 @@ public final class CoverageMap {
           ? Integer.parseInt(System.getenv(ENV_MAX_NUM_COUNTERS))
           : 1 << 20;
 
+  private static final boolean BIG_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN;
+
   private static final Unsafe UNSAFE = UnsafeProvider.getUnsafe();
   private static final Class<?> LOG;
   private static final MethodHandle LOG_INFO;
@@ -74,48 +75,88 @@ public final class CoverageMap {
     initialize(countersAddress);
   }
 
-  private static final int INITIAL_NUM_COUNTERS = 1 << 9;
+  /**
+   * Coverage counters are registered with libFuzzer in modules of this many counters, which are
+   * registered lazily when the first edge ID in the module is handed out. libFuzzer clears and
+   * scans all registered counters after every execution, so this keeps the per-execution cost
+   * proportional to the number of IDs actually in use, even if they are spread out over the ID
+   * space as with a reserved coverage ID layout. The module size grows with the maximum number of
+   * counters as libFuzzer supports only a limited number of modules.
+   */
+  public static final int COUNTERS_PER_MODULE =
+      Math.max(1 << 9, Integer.highestOneBit(Math.max(1, (MAX_NUM_COUNTERS - 1) / 2048)) << 1);
 
-  static {
-    registerNewCounters(0, INITIAL_NUM_COUNTERS);
-  }
+  private static final int NUM_MODULES =
+      (MAX_NUM_COUNTERS + COUNTERS_PER_MODULE - 1) / COUNTERS_PER_MODULE;
+
+  /**
+   * A bit set of the modules that have been registered with libFuzzer. Only modified while holding
+   * the lock on this class.
+   */
+  private static final long[] registeredModules = new long[(NUM_MODULES + 63) / 64];
 
   /**
    * The number of coverage counters that are currently registered with libFuzzer. This number grows
    * dynamically as classes are instrumented and should be kept as low as possible as libFuzzer has
-   * to iterate over the whole map for every execution.
+   * to iterate over all registered counters for every execution.
    */
-  private static int currentNumCounters = INITIAL_NUM_COUNTERS;
+  private static int currentNumCounters = 0;
 
+  /** One more than the highest ID in any registered module. */
+  private static int registeredEndId = 0;
+
+  static {
+    // Coverage recorded without instrumentation, e.g. in tests, uses the lowest IDs.
+    enlargeIfNeeded(0);
+  }
+
+  /**
+   * Ensures that the counter for the given edge ID is registered with libFuzzer. Safe to call
+   * concurrently, e.g. while classes with reserved coverage IDs are instrumented in parallel.
+   */
   // Called via reflection.
   @SuppressWarnings("unused")
-  public static void enlargeIfNeeded(int nextId) {
-    int newNumCounters = currentNumCounters;
-    while (nextId >= newNumCounters) {
-      newNumCounters = 2 * newNumCounters;
-      if (newNumCounters > MAX_NUM_COUNTERS) {
-        logError(
-            String.format(
-                "Maximum number (%s) of coverage counters exceeded. Try to limit the scope of a"
-                    + " single fuzz target as much as possible to keep the fuzzer fast. If that is"
-                    + " not possible, the maximum number of counters can be increased via the %s"
-                    + " environment variable.",
-                MAX_NUM_COUNTERS, ENV_MAX_NUM_COUNTERS),
-            null);
-        System.exit(1);
-      }
+  public static synchronized void enlargeIfNeeded(int nextId) {
+    if (nextId >= MAX_NUM_COUNTERS) {
+      logError(
+          String.format(
+              "Maximum number (%s) of coverage counters exceeded. Try to limit the scope of a"
+                  + " single fuzz target as much as possible to keep the fuzzer fast. If that is"
+                  + " not possible, the maximum number of counters can be increased via the %s"
+                  + " environment variable.",
+              MAX_NUM_COUNTERS, ENV_MAX_NUM_COUNTERS),
+          null);
+      System.exit(1);
+    }
+    int module = nextId / COUNTERS_PER_MODULE;
+    if (isModuleRegistered(module)) {
+      return;
     }
-    if (newNumCounters > currentNumCounters) {
-      registerNewCounters(currentNumCounters, newNumCounters);
-      currentNumCounters = newNumCounters;
+    int firstId = module * COUNTERS_PER_MODULE;
+    int endId = Math.min(firstId + COUNTERS_PER_MODULE, MAX_NUM_COUNTERS);
+    registerNewCounters(firstId, endId);
+    registeredModules[module >>> 6] |= 1L << module;
+    registeredEndId = Math.max(registeredEndId, endId);
+    int previousNumCounters = currentNumCounters;
+    currentNumCounters += endId - firstId;
+    // Only log when the number of counters crosses a power of two to keep the output short.
+    if (previousNumCounters != 0
+        && Integer.highestOneBit(previousNumCounters)
+            != Integer.highestOneBit(currentNumCounters)) {
       logInfo("New number of coverage counters: " + currentNumCounters);
     }
   }
 
+  private static boolean isModuleRegistered(int module) {
+    return (registeredModules[module >>> 6] & (1L << module)) != 0;
+  }
+
   // Called by the coverage instrumentation.
   @SuppressWarnings("unused")
   public static void recordCoverage(final int id) {
-    if (IS_ANDROID) {
+    // Avoid taking the lock for every edge if the module has been registered already. A stale read
+    // only results in taking the lock.
+    if (IS_ANDROID && (id >= MAX_NUM_COUNTERS || !isModuleRegistered(id / COUNTERS_PER_MODULE))) {
       enlargeIfNeeded(id);
     }
 
@@ -124,18 +165,61 @@ public final class CoverageMap {
     UNSAFE.putByte(address, (byte) (counter == -1 ? 1 : counter + 1));
   }
 
-  public static Set<Integer> getCoveredIds() {
-    Set<Integer> coveredIds = new HashSet<>();
-    for (int id = 0; id < currentNumCounters; id++) {
-      if (UNSAFE.getByte(countersAddress + id) > 0) {
-        coveredIds.add(id);
+  /**
+   * Returns the IDs of all edges covered in the current run as a bit set, which stays compact even
+   * for millions of coverage counters.
+   */
+  public static BitSet getCoveredIds() {
+    long[] words = new long[(registeredEndId + 63) / 64];
+    for (int i = 0; i < registeredModules.length; i++) {
+      // Counters in modules that have not been registered are never incremented.
+      for (long modules = registeredModules[i]; modules != 0; modules &= modules - 1) {
+        int module = (i << 6) + Long.numberOfTrailingZeros(modules);
+        int firstId = module * COUNTERS_PER_MODULE;
+        int endId = Math.min(firstId + COUNTERS_PER_MODULE, MAX_NUM_COUNTERS);
+        addCoveredIds(words, firstId, endId);
+      }
+    }
+    return BitSet.valueOf(words);
+  }
+
+  private static void addCoveredIds(long[] words, int firstId, int endId) {
+    int id = firstId;
+    // Modules are always aligned to eight counters, so the bits for eight counters never straddle
+    // two words.
+    for (; id + 8 <= endId; id += 8) {
+      long counters = UNSAFE.getLong(countersAddress + id);
+      if (counters == 0) {
+        continue;
       }
+      words[id >>> 6] |= nonZeroBytesMask(counters) << (id & 63);
+    }
+    for (; id < endId; id++) {
+      if (UNSAFE.getByte(countersAddress + id) != 0) {
+        words[id >>> 6] |= 1L << id;
+      }
+    }
+  }
+
+  private static final long LOW_SEVEN_BITS = 0x7F7F7F7F7F7F7F7FL;
+
+  /**
+   * Returns a mask whose lowest eight bits indicate which of the eight counters read as a single
+   * word are non-zero, with the counter at the lowest address corresponding to the lowest bit.
+   */
+  private static long nonZeroBytesMask(long counters) {
+    if (BIG_ENDIAN) {
+      counters = Long.reverseBytes(counters);
     }
-    return Collections.unmodifiableSet(coveredIds);
+    // The highest bit of every byte is set if and only if any bit of the byte is set. Adding 0x7F
+    // to the lower seven bits doesn't carry over into the next byte.
+    long highBits = (((counters & LOW_SEVEN_BITS) + LOW_SEVEN_BITS) | counters) & ~LOW_SEVEN_BITS;
+    // Gather the highest bits of all bytes into the highest byte.
+    return (highBits >>> 7) * 0x0102040810204080L >>> 56;
   }
 
-  public static void replayCoveredIds(Set<Integer> coveredIds) {
-    for (int id : coveredIds) {
+  public static void replayCoveredIds(BitSet coveredIds) {
+    for (int id = coveredIds.nextSetBit(0); id >= 0; id = coveredIds.nextSetBit(id + 1)) {
       UNSAFE.putByte(countersAddress + id, (byte) 1);
     }
   }
@@ -168,5 +252,5 @@ public final class CoverageMap {
 
   private static native void initialize(long countersAddress);
 
-  private static native void registerNewCounters(int oldNumCounters, int newNumCounters);
+  private static native void registerNewCounters(int firstId, int endId);
 }
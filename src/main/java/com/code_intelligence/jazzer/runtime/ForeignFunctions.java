@@ -0,0 +1,142 @@
+/*
+ * Copyright 2024 Code Intelligence GmbH
+ *
+ * By downloading, you agree to the Code Intelligence Jazzer Terms and Conditions.
+ *
+ * The Code Intelligence Jazzer Terms and Conditions are provided in LICENSE-JAZZER.txt
+ * located in the root directory of the project.
+ */
+
+package com.code_intelligence.jazzer.runtime;
+
+import static com.code_intelligence.jazzer.runtime.Constants.IS_ANDROID;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+
+/**
+ * Binds native functions with the Foreign Function & Memory API, which results in cheaper
+ * transitions than JNI as critical downcalls neither change the thread state nor pass a JNIEnv.
+ *
+ * <p>The API is accessed reflectively as Jazzer has to remain compatible with Java 8 and can only
+ * use it on JDK 22+, which provides {@code Linker.Option.critical}. It is only used if enabled via
+ * {@code --foreign_function_callbacks} as the JVM prints a warning about the use of a restricted
+ * method unless it is started with {@code --enable-native-access=ALL-UNNAMED}.
+ */
+public final class ForeignFunctions {
+  // The reflectively obtained parts of the API, or null if it hasn't been enabled or isn't
+  // available.
+  private static volatile Api api;
+
+  private ForeignFunctions() {}
+
+  /**
+   * Makes {@link #criticalVoidDowncall(long, Class[])} use the Foreign Function & Memory API if
+   * available. Has to be called before the callbacks that rely on it are bound, i.e., before {@link
+   * TraceDataFlowNativeCallbacks} is initialized.
+   */
+  public static void enable() {
+    if (IS_ANDROID) {
+      warn("--foreign_function_callbacks is not supported on Android, using JNI instead", null);
+      return;
+    }
+    try {
+      api = new Api();
+    } catch (ReflectiveOperationException | LinkageError e) {
+      warn(
+          "--foreign_function_callbacks requires JDK 22 or later, using JNI instead (" + e + ")",
+          null);
+    }
+  }
+
+  /**
+   * Returns a method handle of type {@code (parameterTypes)void} that performs a critical downcall
+   * to the C function at {@code address}, or {@code null} if such downcalls aren't enabled or
+   * available.
+   *
+   * <p>The function must not call back into Java and should be fast, as the JVM can't reach a
+   * safepoint while it is running.
+   *
+   * @param parameterTypes the parameter types of the function, each either {@code int.class} or
+   *     {@code long.class}
+   */
+  static MethodHandle criticalVoidDowncall(long address, Class<?>... parameterTypes) {
+    Api api = ForeignFunctions.api;
+    if (api == null || address == 0) {
+      return null;
+    }
+    try {
+      return api.criticalVoidDowncall(address, parameterTypes);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      warn("Failed to bind a native callback with critical downcalls, using JNI instead", e);
+      return null;
+    }
+  }
+
+  // Logs via the Log class in the system class loader as this class is loaded in the bootstrap
+  // class loader.
+  private static void warn(String message, Throwable t) {
+    try {
+      Class<?> log =
+          Class.forName(
+              "com.code_intelligence.jazzer.utils.Log", false, ClassLoader.getSystemClassLoader());
+      log.getMethod("warn", String.class, Throwable.class).invoke(null, message, t);
+    } catch (ReflectiveOperationException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static final class Api {
+    private final Object linker;
+    private final Method downcallHandle;
+    private final Method ofAddress;
+    private final Method ofVoid;
+    private final Class<?> memoryLayout;
+    private final Object javaInt;
+    private final Object javaLong;
+    private final Object options;
+
+    Api() throws ReflectiveOperationException {
+      Class<?> linkerClass = Class.forName("java.lang.foreign.Linker");
+      Class<?> optionClass = Class.forName("java.lang.foreign.Linker$Option");
+      Class<?> memorySegment = Class.forName("java.lang.foreign.MemorySegment");
+      Class<?> functionDescriptor = Class.forName("java.lang.foreign.FunctionDescriptor");
+      Class<?> valueLayout = Class.forName("java.lang.foreign.ValueLayout");
+      memoryLayout = Class.forName("java.lang.foreign.MemoryLayout");
+      // Throws NoSuchMethodException before JDK 22.
+      Method critical = optionClass.getMethod("critical", boolean.class);
+      options = Array.newInstance(optionClass, 1);
+      Array.set(options, 0, critical.invoke(null, false));
+      linker = linkerClass.getMethod("nativeLinker").invoke(null);
+      downcallHandle =
+          linkerClass.getMethod(
+              "downcallHandle", memorySegment, functionDescriptor, options.getClass());
+      ofAddress = memorySegment.getMethod("ofAddress", long.class);
+      ofVoid =
+          functionDescriptor.getMethod("ofVoid", Array.newInstance(memoryLayout, 0).getClass());
+      javaInt = valueLayout.getField("JAVA_INT").get(null);
+      javaLong = valueLayout.getField("JAVA_LONG").get(null);
+    }
+
+    MethodHandle criticalVoidDowncall(long address, Class<?>... parameterTypes)
+        throws ReflectiveOperationException {
+      Object layouts = Array.newInstance(memoryLayout, parameterTypes.length);
+      for (int i = 0; i < parameterTypes.length; i++) {
+        if (parameterTypes[i] == int.class) {
+          Array.set(layouts, i, javaInt);
+        } else if (parameterTypes[i] == long.class) {
+          Array.set(layouts, i, javaLong);
+        } else {
+          throw new IllegalArgumentException("Unsupported parameter type: " + parameterTypes[i]);
+        }
+      }
+      Object descriptor = ofVoid.invoke(null, layouts);
+      Object segment = ofAddress.invoke(null, address);
+      MethodHandle handle =
+          (MethodHandle) downcallHandle.invoke(linker, segment, descriptor, options);
+      return handle.asType(MethodType.methodType(void.class, parameterTypes));
+    }
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2024 Code Intelligence GmbH
+ *
+ * By downloading, you agree to the Code Intelligence Jazzer Terms and Conditions.
+ *
+ * The Code Intelligence Jazzer Terms and Conditions are provided in LICENSE-JAZZER.txt
+ * located in the root directory of the project.
+ */
+
+package com.code_intelligence.jazzer.runtime;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.MutableCallSite;
+import java.lang.invoke.SwitchPoint;
+
+/**
+ * Links the invokedynamic instructions emitted for hooked call sites if --indy_hooks is set.
+ *
+ * <p>Every call site is linked to either a method that runs the hooks around the original call or
+ * to the original method itself, depending on whether hooks are currently enabled. The link is
+ * guarded by a {@link SwitchPoint} that is invalidated whenever hooks are enabled or disabled,
+ * after which each call site relinks itself on its next invocation. While the state doesn't
+ * change, the guard is free after JIT compilation, so call sites with disabled hooks cost as much
+ * as a plain call.
+ */
+public final class HookDispatch {
+  private static final MethodHandle RELINK_AND_INVOKE;
+
+  static {
+    try {
+      RELINK_AND_INVOKE =
+          MethodHandles.lookup()
+              .findVirtual(
+                  HookCallSite.class,
+                  "relinkAndInvoke",
+                  MethodType.methodType(Object.class, Object[].class));
+    } catch (NoSuchMethodException | IllegalAccessException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static volatile State state = new State(JazzerInternal.hooksEnabled);
+
+  private HookDispatch() {}
+
+  /**
+   * Bootstrap method of hooked call sites.
+   *
+   * @param original the method called at the call site
+   * @param hooks a method of the same type as the call site that invokes the hooks and the original
+   *     method
+   */
+  @SuppressWarnings("unused")
+  public static CallSite bootstrap(
+      MethodHandles.Lookup caller,
+      String name,
+      MethodType type,
+      MethodHandle original,
+      MethodHandle hooks) {
+    HookCallSite callSite = new HookCallSite(type, original.asType(type), hooks.asType(type));
+    callSite.relink();
+    return callSite;
+  }
+
+  static synchronized void setHooksEnabled(boolean hooksEnabled) {
+    State previous = state;
+    if (previous.hooksEnabled == hooksEnabled) {
+      return;
+    }
+    state = new State(hooksEnabled);
+    SwitchPoint.invalidateAll(new SwitchPoint[] {previous.switchPoint});
+  }
+
+  private static final class State {
+    final boolean hooksEnabled;
+    final SwitchPoint switchPoint = new SwitchPoint();
+
+    State(boolean hooksEnabled) {
+      this.hooksEnabled = hooksEnabled;
+    }
+  }
+
+  static final class HookCallSite extends MutableCallSite {
+    private final MethodHandle original;
+    private final MethodHandle hooks;
+    private final MethodHandle relinkAndInvoke;
+
+    HookCallSite(MethodType type, MethodHandle original, MethodHandle hooks) {
+      super(type);
+      this.original = original;
+      this.hooks = hooks;
+      this.relinkAndInvoke =
+          RELINK_AND_INVOKE
+              .bindTo(this)
+              .asCollector(Object[].class, type.parameterCount())
+              .asType(type);
+    }
+
+    MethodHandle relink() {
+      // If the switch point has been invalidated concurrently, the new target immediately falls
+      // back to relinking again.
+      State current = state;
+      MethodHandle target =
+          current.switchPoint.guardWithTest(
+              current.hooksEnabled ? hooks : original, relinkAndInvoke);
+      setTarget(target);
+      return target;
+    }
+
+    Object relinkAndInvoke(Object[] arguments) throws Throwable {
+      return relink().invokeWithArguments(arguments);
+    }
+  }
+}
@@ -36,6 +36,13 @@ public final class JazzerInternal {
     throw new HardToCatchError();
   }
 
+  // Accessed from junit.FuzzTestExtensions via reflection.
+  public static void setHooksEnabled(boolean enabled) {
+    hooksEnabled = enabled;
+    // Call sites instrumented with --indy_hooks don't read the field.
+    HookDispatch.setHooksEnabled(enabled);
+  }
+
   public static void registerOnFuzzTargetReadyCallback(Runnable callback) {
     onFuzzTargetReadyCallbacks.add(callback);
   }
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2024 Code Intelligence GmbH
+ *
+ * By downloading, you agree to the Code Intelligence Jazzer Terms and Conditions.
+ *
+ * The Code Intelligence Jazzer Terms and Conditions are provided in LICENSE-JAZZER.txt
+ * located in the root directory of the project.
+ */
+
+package com.code_intelligence.jazzer.runtime;
+
+import com.code_intelligence.jazzer.utils.UnsafeProvider;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import sun.misc.Unsafe;
+
+/**
+ * A sorted snapshot of the {@link Comparable} keys of a {@link Map}, used to find the keys that
+ * bracket a missed lookup key by binary search rather than by enumerating the map.
+ *
+ * <p>Indices are kept in a small direct-mapped cache that references maps weakly and by identity.
+ * An index is rebuilt when the size of its map changes, when the modification count of a {@link
+ * HashMap} changes or when one of the keys it returns has been removed from the map.
+ *
+ * <p>Maps with more than {@link #MAX_NUM_KEYS_TO_INDEX} keys are not indexed, so callers have to
+ * fall back to enumerating their keys. Unless all keys are enumerated, the keys found that way
+ * depend on the iteration order of the map and are thus not deterministic.
+ */
+final class MapKeyIndex {
+  // Maps with more keys are not indexed as rebuilding the index after every modification could be
+  // much more expensive than the lookups it speeds up.
+  static final int MAX_NUM_KEYS_TO_INDEX = 4096;
+
+  private static final int CACHE_SIZE = 256;
+  private static final Entry[] CACHE = new Entry[CACHE_SIZE];
+
+  private static final Unsafe UNSAFE = UnsafeProvider.getUnsafe();
+  private static final long HASH_MAP_MOD_COUNT_OFFSET = hashMapModCountOffset();
+
+  private MapKeyIndex() {}
+
+  /**
+   * Returns the keys of {@code map} closest to {@code key} from below and above as the first and
+   * second element of an array, each {@code null} if there is no such key.
+   *
+   * <p>The array is reused for later calls with the same map, so its elements have to be read
+   * before the next call.
+   *
+   * @return {@code null} if the keys of {@code map} can't be indexed
+   */
+  static Object[] findBracketingKeys(Map<?, ?> map, Object key) {
+    if (map.size() > MAX_NUM_KEYS_TO_INDEX) {
+      return null;
+    }
+    Entry entry = lookup(map);
+    if (entry.sortedKeys == null) {
+      return null;
+    }
+    findBracketingKeys(entry.sortedKeys, key, entry.bounds);
+    if (!isStillContained(map, entry.bounds)) {
+      entry = rebuild(map);
+      if (entry.sortedKeys == null) {
+        return null;
+      }
+      findBracketingKeys(entry.sortedKeys, key, entry.bounds);
+    }
+    return entry.bounds;
+  }
+
+  private static void findBracketingKeys(Object[] sortedKeys, Object key, Object[] bounds) {
+    bounds[0] = null;
+    bounds[1] = null;
+    int index;
+    try {
+      index = Arrays.binarySearch(sortedKeys, key);
+    } catch (ClassCastException ignored) {
+      // Thrown if key is of a type that can't be compared to the map's keys.
+      return;
+    }
+    int lower;
+    int upper;
+    if (index >= 0) {
+      // The key compares equal to a key of the map, but the lookup failed anyway, e.g. because
+      // compareTo is inconsistent with equals. Bracket it by its neighbors.
+      lower = index - 1;
+      upper = index + 1;
+    } else {
+      int insertionPoint = -(index + 1);
+      lower = insertionPoint - 1;
+      upper = insertionPoint;
+    }
+    if (lower >= 0) {
+      bounds[0] = sortedKeys[lower];
+    }
+    if (upper < sortedKeys.length) {
+      bounds[1] = sortedKeys[upper];
+    }
+  }
+
+  private static boolean isStillContained(Map<?, ?> map, Object[] bounds) {
+    return (bounds[0] == null || map.containsKey(bounds[0]))
+        && (bounds[1] == null || map.containsKey(bounds[1]));
+  }
+
+  private static Entry lookup(Map<?, ?> map) {
+    Entry entry = CACHE[slot(map)];
+    if (entry != null && entry.get() == map && entry.stamp == stamp(map)) {
+      return entry;
+    }
+    return rebuild(map);
+  }
+
+  private static Entry rebuild(Map<?, ?> map) {
+    // Take the stamp first so that a concurrent modification at worst causes another rebuild.
+    long stamp = stamp(map);
+    Entry entry = new Entry(map, stamp, sortKeys(map));
+    CACHE[slot(map)] = entry;
+    return entry;
+  }
+
+  private static Object[] sortKeys(Map<?, ?> map) {
+    Object[] keys = new Object[map.size()];
+    int numKeys = 0;
+    for (Object key : map.keySet()) {
+      if (!(key instanceof Comparable)) continue;
+      if (numKeys == keys.length) {
+        // The map grew concurrently.
+        keys = Arrays.copyOf(keys, 2 * numKeys + 1);
+      }
+      keys[numKeys++] = key;
+    }
+    if (numKeys != keys.length) {
+      keys = Arrays.copyOf(keys, numKeys);
+    }
+    try {
+      // Sorting makes the result independent of the iteration order of the map.
+      Arrays.sort(keys);
+    } catch (ClassCastException | IllegalArgumentException e) {
+      // The keys aren't mutually comparable or compareTo violates its contract.
+      return null;
+    }
+    return keys;
+  }
+
+  private static long stamp(Map<?, ?> map) {
+    int modCount = 0;
+    if (map instanceof HashMap && HASH_MAP_MOD_COUNT_OFFSET != -1) {
+      modCount = UNSAFE.getInt(map, HASH_MAP_MOD_COUNT_OFFSET);
+    }
+    return ((long) modCount << 32) | (map.size() & 0xFFFFFFFFL);
+  }
+
+  private static int slot(Map<?, ?> map) {
+    int hash = System.identityHashCode(map);
+    return (hash ^ (hash >>> 16)) & (CACHE_SIZE - 1);
+  }
+
+  private static long hashMapModCountOffset() {
+    try {
+      return UNSAFE.objectFieldOffset(HashMap.class.getDeclaredField("modCount"));
+    } catch (NoSuchFieldException | RuntimeException e) {
+      // Fall back to the size and the containment check.
+      return -1;
+    }
+  }
+
+  private static final class Entry extends WeakReference<Map<?, ?>> {
+    final long stamp;
+    // null if the keys of the map can't be sorted.
+    final Object[] sortedKeys;
+    // Reused by every lookup of the map to avoid an allocation per missed key. Concurrent lookups
+    // may overwrite each other's results, which at worst yields other keys of the same map.
+    final Object[] bounds = new Object[2];
+
+    Entry(Map<?, ?> map, long stamp, Object[] sortedKeys) {
+      super(map);
+      this.stamp = stamp;
+      this.sortedKeys = sortedKeys;
+    }
+  }
+}
@@ -51,10 +51,8 @@ public final class TraceCmpHooks {
       targetClassName = "kotlin.jvm.internal.Intrinsics ",
       targetMethod = "compare",
       targetMethodDescriptor = "(II)I")
-  public static void integerCompare(
-      MethodHandle method, Object alwaysNull, Object[] arguments, int hookId) {
-    TraceDataFlowNativeCallbacks.traceCmpInt(
-        ((Number) arguments[0]).intValue(), ((Number) arguments[1]).intValue(), hookId);
+  public static void integerCompare(int arg1, int arg2, int hookId) {
+    TraceDataFlowNativeCallbacks.traceCmpInt(arg1, arg2, hookId);
   }
 
   @MethodHook(
@@ -72,10 +70,9 @@ public final class TraceCmpHooks {
       targetClassName = "java.lang.Integer",
       targetMethod = "compareTo",
       targetMethodDescriptor = "(Ljava/lang/Integer;)I")
-  public static void integerCompareTo(
-      MethodHandle method, Object thisObject, Object[] arguments, int hookId) {
+  public static void integerCompareTo(Object thisObject, Object other, int hookId) {
     TraceDataFlowNativeCallbacks.traceCmpInt(
-        ((Number) thisObject).intValue(), ((Number) arguments[0]).intValue(), hookId);
+        ((Number) thisObject).intValue(), ((Number) other).intValue(), hookId);
   }
 
   @MethodHook(
@@ -88,9 +85,8 @@ public final class TraceCmpHooks {
       targetClassName = "java.lang.Long",
       targetMethod = "compareUnsigned",
       targetMethodDescriptor = "(JJ)I")
-  public static void longCompare(
-      MethodHandle method, Object thisObject, Object[] arguments, int hookId) {
-    TraceDataFlowNativeCallbacks.traceCmpLong((long) arguments[0], (long) arguments[1], hookId);
+  public static void longCompare(long arg1, long arg2, int hookId) {
+    TraceDataFlowNativeCallbacks.traceCmpLong(arg1, arg2, hookId);
   }
 
   @MethodHook(
@@ -113,13 +109,11 @@ public final class TraceCmpHooks {
       targetClassName = "clojure.lang.Numbers",
       targetMethod = "gte",
       targetMethodDescriptor = "(Ljava/lang/Object;Ljava/lang/Object;)Z")
-  public static void numberCompare(
-      MethodHandle method, Object thisObject, Object[] arguments, int hookId) {
+  public static void numberCompare(Object arg1, Object arg2, int hookId) {
     // Clojure unconditionally casts the arguments to Number.
     // https://github.com/clojure/clojure/blob/2a058814e5fa3e8fb630ae507c3fa7dc865138c6/src/jvm/clojure/lang/Numbers.java#L253
-    Number arg1 = (Number) arguments[0];
-    Number arg2 = (Number) arguments[1];
-    TraceDataFlowNativeCallbacks.traceCmpLong(arg1.longValue(), arg2.longValue(), hookId);
+    TraceDataFlowNativeCallbacks.traceCmpLong(
+        ((Number) arg1).longValue(), ((Number) arg2).longValue(), hookId);
   }
 
   @MethodHook(
@@ -127,9 +121,8 @@ public final class TraceCmpHooks {
       targetClassName = "java.lang.Long",
       targetMethod = "compareTo",
       targetMethodDescriptor = "(Ljava/lang/Long;)I")
-  public static void longCompareTo(
-      MethodHandle method, Long thisObject, Object[] arguments, int hookId) {
-    TraceDataFlowNativeCallbacks.traceCmpLong(thisObject, (long) arguments[0], hookId);
+  public static void longCompareTo(Long thisObject, Long other, int hookId) {
+    TraceDataFlowNativeCallbacks.traceCmpLong(thisObject, other, hookId);
   }
 
   @MethodHook(
@@ -147,9 +140,7 @@ public final class TraceCmpHooks {
       targetClassName = "clojure.lang.Numbers",
       targetMethod = "isNeg",
       targetMethodDescriptor = "(Ljava/lang/Number;)Z")
-  public static void staticNumberCompareZero(
-      MethodHandle method, Object thisObject, Object[] arguments, int hookId) {
-    Number arg = (Number) arguments[0];
+  public static void staticNumberCompareZero(Number arg, int hookId) {
     TraceDataFlowNativeCallbacks.traceCmpLong(arg.longValue(), 0, hookId);
   }
 
@@ -158,34 +149,36 @@ public final class TraceCmpHooks {
       targetClassName = "kotlin.jvm.internal.Intrinsics ",
       targetMethod = "compare",
       targetMethodDescriptor = "(JJ)I")
-  public static void longCompareKt(
-      MethodHandle method, Object alwaysNull, Object[] arguments, int hookId) {
-    TraceDataFlowNativeCallbacks.traceCmpLong((long) arguments[0], (long) arguments[1], hookId);
+  public static void longCompareKt(long arg1, long arg2, int hookId) {
+    TraceDataFlowNativeCallbacks.traceCmpLong(arg1, arg2, hookId);
   }
 
-  @MethodHook(type = HookType.AFTER, targetClassName = "java.lang.String", targetMethod = "equals")
   @MethodHook(
       type = HookType.AFTER,
       targetClassName = "java.lang.String",
-      targetMethod = "equalsIgnoreCase")
-  public static void equals(
-      MethodHandle method, String thisObject, Object[] arguments, int hookId, Boolean areEqual) {
-    if (!areEqual && arguments.length == 1 && arguments[0] instanceof String) {
+      targetMethod = "equals",
+      targetMethodDescriptor = "(Ljava/lang/Object;)Z")
+  @MethodHook(
+      type = HookType.AFTER,
+      targetClassName = "java.lang.String",
+      targetMethod = "equalsIgnoreCase",
+      targetMethodDescriptor = "(Ljava/lang/String;)Z")
+  public static void equals(String thisObject, Object other, int hookId, boolean areEqual) {
+    if (!areEqual && other instanceof String) {
       // The precise value of the result of the comparison is not used by libFuzzer as long as it is
       // non-zero.
-      TraceDataFlowNativeCallbacks.traceStrcmp(thisObject, (String) arguments[0], 1, hookId);
+      TraceDataFlowNativeCallbacks.traceStrcmp(thisObject, (String) other, 1, hookId);
     }
   }
 
-  @MethodHook(type = HookType.AFTER, targetClassName = "java.util.Objects", targetMethod = "equals")
-  public static void genericObjectsEquals(
-      MethodHandle method, Object thisObject, Object[] arguments, int hookId, Boolean areEqual) {
-    if (!areEqual
-        && arguments.length == 2
-        && arguments[0] != null
-        && arguments[1] != null
-        && arguments[0].getClass() == arguments[1].getClass()) {
-      TraceDataFlowNativeCallbacks.traceGenericCmp(arguments[0], arguments[1], hookId);
+  @MethodHook(
+      type = HookType.AFTER,
+      targetClassName = "java.util.Objects",
+      targetMethod = "equals",
+      targetMethodDescriptor = "(Ljava/lang/Object;Ljava/lang/Object;)Z")
+  public static void genericObjectsEquals(Object a, Object b, int hookId, boolean areEqual) {
+    if (!areEqual && a != null && b != null && a.getClass() == b.getClass()) {
+      TraceDataFlowNativeCallbacks.traceGenericCmp(a, b, hookId);
     }
   }
 
@@ -222,46 +215,47 @@ public final class TraceCmpHooks {
       targetClassName = "clojure.lang.Util",
       targetMethod = "compare",
       targetMethodDescriptor = "(Ljava/lang/Object;Ljava/lang/Object;)I")
-  public static void genericStaticCompareTo(
-      MethodHandle method, Object thisObject, Object[] arguments, int hookId, Integer result) {
-    if (result != 0
-        && arguments.length == 2
-        && arguments[0] != null
-        && arguments[1] != null
-        && arguments[1].getClass() == arguments[0].getClass()) {
-      TraceDataFlowNativeCallbacks.traceGenericCmp(arguments[0], arguments[1], hookId);
+  public static void genericStaticCompareTo(Object a, Object b, int hookId, int result) {
+    if (result != 0 && a != null && b != null && b.getClass() == a.getClass()) {
+      TraceDataFlowNativeCallbacks.traceGenericCmp(a, b, hookId);
     }
   }
 
   @MethodHook(
       type = HookType.AFTER,
       targetClassName = "java.lang.String",
-      targetMethod = "compareTo")
+      targetMethod = "compareTo",
+      targetMethodDescriptor = "(Ljava/lang/String;)I")
   @MethodHook(
       type = HookType.AFTER,
       targetClassName = "java.lang.String",
-      targetMethod = "compareToIgnoreCase")
-  public static void compareTo(
-      MethodHandle method, String thisObject, Object[] arguments, int hookId, Integer returnValue) {
-    if (returnValue != 0 && arguments.length == 1 && arguments[0] instanceof String) {
-      TraceDataFlowNativeCallbacks.traceStrcmp(
-          thisObject, (String) arguments[0], returnValue, hookId);
+      targetMethod = "compareTo",
+      targetMethodDescriptor = "(Ljava/lang/Object;)I")
+  @MethodHook(
+      type = HookType.AFTER,
+      targetClassName = "java.lang.String",
+      targetMethod = "compareToIgnoreCase",
+      targetMethodDescriptor = "(Ljava/lang/String;)I")
+  public static void compareTo(String thisObject, Object other, int hookId, int returnValue) {
+    if (returnValue != 0 && other instanceof String) {
+      TraceDataFlowNativeCallbacks.traceStrcmp(thisObject, (String) other, returnValue, hookId);
     }
   }
 
   @MethodHook(
       type = HookType.AFTER,
       targetClassName = "java.lang.String",
-      targetMethod = "contentEquals")
+      targetMethod = "contentEquals",
+      targetMethodDescriptor = "(Ljava/lang/CharSequence;)Z")
+  @MethodHook(
+      type = HookType.AFTER,
+      targetClassName = "java.lang.String",
+      targetMethod = "contentEquals",
+      targetMethodDescriptor = "(Ljava/lang/StringBuffer;)Z")
   public static void contentEquals(
-      MethodHandle method,
-      String thisObject,
-      Object[] arguments,
-      int hookId,
-      Boolean areEqualContents) {
-    if (!areEqualContents && arguments.length == 1 && arguments[0] instanceof CharSequence) {
-      TraceDataFlowNativeCallbacks.traceStrcmp(
-          thisObject, ((CharSequence) arguments[0]).toString(), 1, hookId);
+      String thisObject, Object other, int hookId, boolean areEqualContents) {
+    if (!areEqualContents && other instanceof CharSequence) {
+      TraceDataFlowNativeCallbacks.traceStrcmp(thisObject, other.toString(), 1, hookId);
     }
   }
 
@@ -271,13 +265,16 @@ public final class TraceCmpHooks {
       targetMethod = "regionMatches",
       targetMethodDescriptor = "(ZILjava/lang/String;II)Z")
   public static void regionsMatches5(
-      MethodHandle method, Object thisObject, Object[] arguments, int hookId, Boolean returnValue) {
+      String thisObject,
+      boolean ignoreCase,
+      int toffset,
+      String other,
+      int ooffset,
+      int len,
+      int hookId,
+      boolean returnValue) {
     if (!returnValue) {
-      int toffset = (int) arguments[1];
-      String other = (String) arguments[2];
-      int ooffset = (int) arguments[3];
-      int len = (int) arguments[4];
-      regionMatchesInternal((String) thisObject, toffset, other, ooffset, len, hookId);
+      regionMatchesInternal(thisObject, toffset, other, ooffset, len, hookId);
     }
   }
 
@@ -287,13 +284,15 @@ public final class TraceCmpHooks {
       targetMethod = "regionMatches",
       targetMethodDescriptor = "(ILjava/lang/String;II)Z")
   public static void regionMatches4(
-      MethodHandle method, Object thisObject, Object[] arguments, int hookId, Boolean returnValue) {
+      String thisObject,
+      int toffset,
+      String other,
+      int ooffset,
+      int len,
+      int hookId,
+      boolean returnValue) {
     if (!returnValue) {
-      int toffset = (int) arguments[0];
-      String other = (String) arguments[1];
-      int ooffset = (int) arguments[2];
-      int len = (int) arguments[3];
-      regionMatchesInternal((String) thisObject, toffset, other, ooffset, len, hookId);
+      regionMatchesInternal(thisObject, toffset, other, ooffset, len, hookId);
     }
   }
 
@@ -310,12 +309,12 @@ public final class TraceCmpHooks {
   @MethodHook(
       type = HookType.AFTER,
       targetClassName = "java.lang.String",
-      targetMethod = "contains")
+      targetMethod = "contains",
+      targetMethodDescriptor = "(Ljava/lang/CharSequence;)Z")
   public static void contains(
-      MethodHandle method, String thisObject, Object[] arguments, int hookId, Boolean doesContain) {
-    if (!doesContain && arguments.length == 1 && arguments[0] instanceof CharSequence) {
-      TraceDataFlowNativeCallbacks.traceStrstr(
-          thisObject, ((CharSequence) arguments[0]).toString(), hookId);
+      String thisObject, CharSequence other, int hookId, boolean doesContain) {
+    if (!doesContain && other != null) {
+      TraceDataFlowNativeCallbacks.traceStrstr(thisObject, other.toString(), hookId);
     }
   }
 
@@ -351,29 +350,40 @@ public final class TraceCmpHooks {
   @MethodHook(
       type = HookType.AFTER,
       targetClassName = "java.lang.String",
-      targetMethod = "startsWith")
+      targetMethod = "startsWith",
+      targetMethodDescriptor = "(Ljava/lang/String;)Z")
   public static void startsWith(
-      MethodHandle method,
-      String thisObject,
-      Object[] arguments,
-      int hookId,
-      Boolean doesStartWith) {
-    if (!doesStartWith && arguments.length >= 1 && arguments[0] instanceof String) {
-      String needle = (String) arguments[0];
-      String haystack = thisObject.substring(0, Math.min(thisObject.length(), needle.length()));
-      TraceDataFlowNativeCallbacks.traceStrcmp(haystack, needle, 1, hookId);
-      TraceDataFlowNativeCallbacks.traceStrstr(thisObject, needle, 31 * hookId + 11);
+      String thisObject, String needle, int hookId, boolean doesStartWith) {
+    if (!doesStartWith && needle != null) {
+      startsWithInternal(thisObject, needle, hookId);
     }
   }
 
   @MethodHook(
       type = HookType.AFTER,
       targetClassName = "java.lang.String",
-      targetMethod = "endsWith")
-  public static void endsWith(
-      MethodHandle method, String thisObject, Object[] arguments, int hookId, Boolean doesEndWith) {
-    if (!doesEndWith && arguments.length >= 1 && arguments[0] instanceof String) {
-      String needle = (String) arguments[0];
+      targetMethod = "startsWith",
+      targetMethodDescriptor = "(Ljava/lang/String;I)Z")
+  public static void startsWithOffset(
+      String thisObject, String needle, int offset, int hookId, boolean doesStartWith) {
+    if (!doesStartWith && needle != null) {
+      startsWithInternal(thisObject, needle, hookId);
+    }
+  }
+
+  private static void startsWithInternal(String thisObject, String needle, int hookId) {
+    String haystack = thisObject.substring(0, Math.min(thisObject.length(), needle.length()));
+    TraceDataFlowNativeCallbacks.traceStrcmp(haystack, needle, 1, hookId);
+    TraceDataFlowNativeCallbacks.traceStrstr(thisObject, needle, 31 * hookId + 11);
+  }
+
+  @MethodHook(
+      type = HookType.AFTER,
+      targetClassName = "java.lang.String",
+      targetMethod = "endsWith",
+      targetMethodDescriptor = "(Ljava/lang/String;)Z")
+  public static void endsWith(String thisObject, String needle, int hookId, boolean doesEndWith) {
+    if (!doesEndWith && needle != null) {
       String haystack = thisObject.substring(Math.min(thisObject.length(), needle.length()));
       TraceDataFlowNativeCallbacks.traceStrcmp(haystack, needle, 1, hookId);
       TraceDataFlowNativeCallbacks.traceStrstr(thisObject, needle, 31 * hookId + 11);
@@ -387,12 +397,14 @@ public final class TraceCmpHooks {
       targetMethodDescriptor =
           "(Ljava/lang/CharSequence;Ljava/lang/CharSequence;)Ljava/lang/String;")
   public static void replace(
-      MethodHandle method, Object thisObject, Object[] arguments, int hookId, String returnValue) {
-    String original = (String) thisObject;
+      String original,
+      CharSequence target,
+      CharSequence replacement,
+      int hookId,
+      String returnValue) {
     // Report only if the replacement was not successful.
     if (original.equals(returnValue)) {
-      String target = arguments[0].toString();
-      TraceDataFlowNativeCallbacks.traceStrstr(original, target, hookId);
+      TraceDataFlowNativeCallbacks.traceStrstr(original, target.toString(), hookId);
     }
   }
 
@@ -637,23 +649,37 @@ public final class TraceCmpHooks {
       targetClassName = "kotlin.text.StringsKt ",
       targetMethod = "regionMatches",
       targetMethodDescriptor = "(Ljava/lang/String;ILjava/lang/String;IIZ)Z")
+  public static void regionMatchesKt(
+      String thisString,
+      int thisOffset,
+      String other,
+      int otherOffset,
+      int length,
+      boolean ignoreCase,
+      int hookId,
+      boolean doesRegionMatch) {
+    if (!doesRegionMatch) {
+      regionMatchesInternal(thisString, thisOffset, other, otherOffset, length, hookId);
+    }
+  }
+
   @MethodHook(
       type = HookType.AFTER,
       targetClassName = "kotlin.text.StringsKt ",
       targetMethod = "regionMatches$default",
       targetMethodDescriptor = "(Ljava/lang/String;ILjava/lang/String;IIZILjava/lang/Object;)Z")
-  public static void regionMatchesKt(
-      MethodHandle method,
-      Object alwaysNull,
-      Object[] arguments,
+  public static void regionMatchesDefaultKt(
+      String thisString,
+      int thisOffset,
+      String other,
+      int otherOffset,
+      int length,
+      boolean ignoreCase,
+      int mask,
+      Object handler,
       int hookId,
-      Boolean doesRegionMatch) {
+      boolean doesRegionMatch) {
     if (!doesRegionMatch) {
-      String thisString = arguments[0].toString();
-      int thisOffset = (int) arguments[1];
-      String other = arguments[2].toString();
-      int otherOffset = (int) arguments[3];
-      int length = (int) arguments[4];
       regionMatchesInternal(thisString, thisOffset, other, otherOffset, length, hookId);
     }
   }
@@ -732,11 +758,8 @@ public final class TraceCmpHooks {
       targetClassName = "java.util.Arrays",
       targetMethod = "equals",
       targetMethodDescriptor = "([B[B)Z")
-  public static void arraysEquals(
-      MethodHandle method, Object thisObject, Object[] arguments, int hookId, Boolean returnValue) {
+  public static void arraysEquals(byte[] first, byte[] second, int hookId, boolean returnValue) {
     if (returnValue) return;
-    byte[] first = (byte[]) arguments[0];
-    byte[] second = (byte[]) arguments[1];
     TraceDataFlowNativeCallbacks.traceMemcmp(first, second, 1, hookId);
   }
 
@@ -746,12 +769,17 @@ public final class TraceCmpHooks {
       targetMethod = "equals",
       targetMethodDescriptor = "([BII[BII)Z")
   public static void arraysEqualsRange(
-      MethodHandle method, Object thisObject, Object[] arguments, int hookId, Boolean returnValue) {
+      byte[] a,
+      int aFromIndex,
+      int aToIndex,
+      byte[] b,
+      int bFromIndex,
+      int bToIndex,
+      int hookId,
+      boolean returnValue) {
     if (returnValue) return;
-    byte[] first =
-        Arrays.copyOfRange((byte[]) arguments[0], (int) arguments[1], (int) arguments[2]);
-    byte[] second =
-        Arrays.copyOfRange((byte[]) arguments[3], (int) arguments[4], (int) arguments[5]);
+    byte[] first = Arrays.copyOfRange(a, aFromIndex, aToIndex);
+    byte[] second = Arrays.copyOfRange(b, bFromIndex, bToIndex);
     TraceDataFlowNativeCallbacks.traceMemcmp(first, second, 1, hookId);
   }
 
@@ -765,11 +793,8 @@ public final class TraceCmpHooks {
       targetClassName = "java.util.Arrays",
       targetMethod = "compareUnsigned",
       targetMethodDescriptor = "([B[B)I")
-  public static void arraysCompare(
-      MethodHandle method, Object thisObject, Object[] arguments, int hookId, Integer returnValue) {
+  public static void arraysCompare(byte[] first, byte[] second, int hookId, int returnValue) {
     if (returnValue == 0) return;
-    byte[] first = (byte[]) arguments[0];
-    byte[] second = (byte[]) arguments[1];
     TraceDataFlowNativeCallbacks.traceMemcmp(first, second, returnValue, hookId);
   }
 
@@ -784,17 +809,22 @@ public final class TraceCmpHooks {
       targetMethod = "compareUnsigned",
       targetMethodDescriptor = "([BII[BII)I")
   public static void arraysCompareRange(
-      MethodHandle method, Object thisObject, Object[] arguments, int hookId, Integer returnValue) {
+      byte[] a,
+      int aFromIndex,
+      int aToIndex,
+      byte[] b,
+      int bFromIndex,
+      int bToIndex,
+      int hookId,
+      int returnValue) {
     if (returnValue == 0) return;
-    byte[] first =
-        Arrays.copyOfRange((byte[]) arguments[0], (int) arguments[1], (int) arguments[2]);
-    byte[] second =
-        Arrays.copyOfRange((byte[]) arguments[3], (int) arguments[4], (int) arguments[5]);
+    byte[] first = Arrays.copyOfRange(a, aFromIndex, aToIndex);
+    byte[] second = Arrays.copyOfRange(b, bFromIndex, bToIndex);
     TraceDataFlowNativeCallbacks.traceMemcmp(first, second, returnValue, hookId);
   }
 
-  // The maximal number of elements of a non-TreeMap Map that will be sorted and searched for the
-  // key closest to the current lookup key in the mapGet hook.
+  // The maximal number of elements of a non-TreeMap Map that will be searched for the key closest
+  // to the current lookup key in the mapGet hook if the map can't be indexed by MapKeyIndex.
   private static final int MAX_NUM_KEYS_TO_ENUMERATE = 100;
 
   @MethodHook(
@@ -802,10 +832,9 @@ public final class TraceCmpHooks {
       targetClassName = "java.util.Map",
       targetMethod = "containsKey",
       targetMethodDescriptor = "(Ljava/lang/Object;)Z")
-  public static void containsKey(
-      MethodHandle method, Object thisObject, Object[] arguments, int hookId, Boolean isContained) {
+  public static void containsKey(Object thisObject, Object key, int hookId, boolean isContained) {
     if (!isContained) {
-      mapHookInternal((Map) thisObject, arguments[0], hookId);
+      mapHookInternal((Map) thisObject, key, hookId);
     }
   }
 
@@ -814,10 +843,9 @@ public final class TraceCmpHooks {
       targetClassName = "java.util.Map",
       targetMethod = "get",
       targetMethodDescriptor = "(Ljava/lang/Object;)Ljava/lang/Object;")
-  public static void mapGet(
-      MethodHandle method, Object thisObject, Object[] arguments, int hookId, Object value) {
+  public static void mapGet(Object thisObject, Object key, int hookId, Object value) {
     if (value == null) {
-      mapHookInternal((Map) thisObject, arguments[0], hookId);
+      mapHookInternal((Map) thisObject, key, hookId);
     }
   }
 
@@ -827,10 +855,9 @@ public final class TraceCmpHooks {
       targetMethod = "getOrDefault",
       targetMethodDescriptor = "(Ljava/lang/Object;Ljava/lang/Object;)Ljava/lang/Object;")
   public static void mapGetOrDefault(
-      MethodHandle method, Object thisObject, Object[] arguments, int hookId, Object value) {
-    Object defaultValue = arguments[1];
+      Object thisObject, Object key, Object defaultValue, int hookId, Object value) {
     if (value == defaultValue) {
-      mapHookInternal((Map) thisObject, arguments[0], hookId);
+      mapHookInternal((Map) thisObject, key, hookId);
     }
   }
 
@@ -855,28 +882,35 @@ public final class TraceCmpHooks {
         }
       } else if (currentKey instanceof Comparable) {
         final Comparable comparableCurrentKey = (Comparable) currentKey;
-        // Find two keys that bracket currentKey.
-        // Note: This is not deterministic if map.size() > MAX_NUM_KEYS_TO_ENUMERATE.
-        int enumeratedKeys = 0;
-        for (Object validKey : map.keySet()) {
-          if (!(validKey instanceof Comparable)) continue;
-          final Comparable comparableValidKey = (Comparable) validKey;
-          // If the key sorts lower than the non-existing key, but higher than the current lower
-          // bound, update the lower bound and vice versa for the upper bound.
-          try {
-            if (comparableValidKey.compareTo(comparableCurrentKey) < 0
-                && (lowerBoundKey == null || comparableValidKey.compareTo(lowerBoundKey) > 0)) {
-              lowerBoundKey = validKey;
+        Object[] bounds = MapKeyIndex.findBracketingKeys(map, currentKey);
+        if (bounds != null) {
+          lowerBoundKey = bounds[0];
+          upperBoundKey = bounds[1];
+        } else {
+          // The map is too large to be indexed or its keys can't be sorted, so find two keys that
+          // bracket currentKey among the first keys.
+          // Note: This is not deterministic if map.size() > MAX_NUM_KEYS_TO_ENUMERATE.
+          int enumeratedKeys = 0;
+          for (Object validKey : map.keySet()) {
+            if (!(validKey instanceof Comparable)) continue;
+            final Comparable comparableValidKey = (Comparable) validKey;
+            // If the key sorts lower than the non-existing key, but higher than the current lower
+            // bound, update the lower bound and vice versa for the upper bound.
+            try {
+              if (comparableValidKey.compareTo(comparableCurrentKey) < 0
+                  && (lowerBoundKey == null || comparableValidKey.compareTo(lowerBoundKey) > 0)) {
+                lowerBoundKey = validKey;
+              }
+              if (comparableValidKey.compareTo(comparableCurrentKey) > 0
+                  && (upperBoundKey == null || comparableValidKey.compareTo(upperBoundKey) < 0)) {
+                upperBoundKey = validKey;
+              }
+            } catch (ClassCastException ignored) {
+              // Can be thrown by floorKey and ceilingKey if currentKey is of a type that can't be
+              // compared to the maps keys.
             }
-            if (comparableValidKey.compareTo(comparableCurrentKey) > 0
-                && (upperBoundKey == null || comparableValidKey.compareTo(upperBoundKey) < 0)) {
-              upperBoundKey = validKey;
-            }
-          } catch (ClassCastException ignored) {
-            // Can be thrown by floorKey and ceilingKey if currentKey is of a type that can't be
-            // compared to the maps keys.
+            if (enumeratedKeys++ > MAX_NUM_KEYS_TO_ENUMERATE) break;
           }
-          if (enumeratedKeys++ > MAX_NUM_KEYS_TO_ENUMERATE) break;
         }
       }
     } catch (ConcurrentModificationException ignored) {
@@ -897,6 +931,12 @@ public final class TraceCmpHooks {
       targetClassName = "org.junit.jupiter.api.Assertions",
       targetMethod = "assertNotEquals",
       targetMethodDescriptor = "(Ljava/lang/Object;Ljava/lang/Object;)V")
+  public static void assertEquals(Object unexpected, Object actual, int hookId) {
+    if (unexpected != null && actual != null && unexpected.getClass() == actual.getClass()) {
+      TraceDataFlowNativeCallbacks.traceGenericCmp(unexpected, actual, hookId);
+    }
+  }
+
   @MethodHook(
       type = HookType.AFTER,
       targetClassName = "org.junit.jupiter.api.Assertions",
@@ -908,10 +948,8 @@ public final class TraceCmpHooks {
       targetMethod = "assertNotEquals",
       targetMethodDescriptor =
           "(Ljava/lang/Object;Ljava/lang/Object;Ljava/util/function/Supplier;)V")
-  public static void assertEquals(
-      MethodHandle method, Object node, Object[] args, int hookId, Object alwaysNull) {
-    if (args[0] != null && args[1] != null && args[0].getClass() == args[1].getClass()) {
-      TraceDataFlowNativeCallbacks.traceGenericCmp(args[0], args[1], hookId);
-    }
+  public static void assertEqualsWithMessage(
+      Object unexpected, Object actual, Object message, int hookId) {
+    assertEquals(unexpected, actual, hookId);
   }
 }
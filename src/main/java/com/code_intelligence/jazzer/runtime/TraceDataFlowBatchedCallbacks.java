@@ -0,0 +1,130 @@
+/*
+ * Copyright 2024 Code Intelligence GmbH
+ *
+ * By downloading, you agree to the Code Intelligence Jazzer Terms and Conditions.
+ *
+ * The Code Intelligence Jazzer Terms and Conditions are provided in LICENSE-JAZZER.txt
+ * located in the root directory of the project.
+ */
+
+package com.code_intelligence.jazzer.runtime;
+
+import com.code_intelligence.jazzer.utils.UnsafeProvider;
+import sun.misc.Unsafe;
+
+/**
+ * Replaces the trace-cmp, trace-div and trace-gep callbacks of {@link
+ * TraceDataFlowNativeCallbacks} in the instrumentation if --batch_trace is set.
+ *
+ * <p>Events observed on the fuzzing thread are appended to an off-heap buffer and handed to
+ * libFuzzer with a single JNI call when the buffer is full or {@link #flush()} is called after an
+ * execution of the fuzz target. Events on other threads as well as switches, which come with a
+ * variable number of case values, are reported immediately.
+ */
+@SuppressWarnings("unused")
+public final class TraceDataFlowBatchedCallbacks {
+  private static final Unsafe UNSAFE = UnsafeProvider.getUnsafe();
+
+  // The layout of a record and the event kinds have to be kept in sync with
+  // jazzer_fuzzer_callbacks.cpp: int kind, int pc, long arg1, long arg2.
+  private static final int RECORD_SIZE = 24;
+  private static final int CAPACITY = 4096;
+  private static final int CMP4 = 0;
+  private static final int CMP8 = 1;
+  private static final int DIV4 = 2;
+  private static final int DIV8 = 3;
+  private static final int GEP = 4;
+
+  private static final long BUFFER = UNSAFE.allocateMemory((long) RECORD_SIZE * CAPACITY);
+
+  // Only a single thread appends to the buffer, which is cheaper to check for than looking up a
+  // ThreadLocal. Volatile so that a thread that stops being the buffering thread sees the switch
+  // right away rather than continuing to append to the buffer concurrently with the new one. On
+  // common platforms, a volatile read is as cheap as a plain one.
+  private static volatile Thread bufferingThread;
+  private static int size;
+
+  /** Buffers the events of the current thread, which should be the one running the fuzz target. */
+  public static void bufferEventsOfCurrentThread() {
+    flush();
+    bufferingThread = Thread.currentThread();
+  }
+
+  /** Reports all buffered events to libFuzzer. Must be called on the buffering thread. */
+  public static void flush() {
+    if (size != 0) {
+      TraceDataFlowNativeCallbacks.traceBatch(BUFFER, size);
+      size = 0;
+    }
+  }
+
+  public static int traceCmpLongWrapper(long arg1, long arg2, int pc) {
+    traceCmpLong(arg1, arg2, pc);
+    // Long.compare serves as a substitute for the lcmp opcode, which can't be used directly
+    // as the stack layout required for the call can't be achieved without local variables.
+    return Long.compare(arg1, arg2);
+  }
+
+  public static void traceCmpInt(int arg1, int arg2, int pc) {
+    if (Thread.currentThread() == bufferingThread) {
+      append(CMP4, pc, arg1, arg2);
+    } else {
+      TraceDataFlowNativeCallbacks.traceCmpInt(arg1, arg2, pc);
+    }
+  }
+
+  public static void traceConstCmpInt(int arg1, int arg2, int pc) {
+    if (Thread.currentThread() == bufferingThread) {
+      append(CMP4, pc, arg1, arg2);
+    } else {
+      TraceDataFlowNativeCallbacks.traceConstCmpInt(arg1, arg2, pc);
+    }
+  }
+
+  public static void traceCmpLong(long arg1, long arg2, int pc) {
+    if (Thread.currentThread() == bufferingThread) {
+      append(CMP8, pc, arg1, arg2);
+    } else {
+      TraceDataFlowNativeCallbacks.traceCmpLong(arg1, arg2, pc);
+    }
+  }
+
+  public static void traceSwitch(long val, long[] cases, int pc) {
+    TraceDataFlowNativeCallbacks.traceSwitch(val, cases, pc);
+  }
+
+  public static void traceDivInt(int val, int pc) {
+    if (Thread.currentThread() == bufferingThread) {
+      append(DIV4, pc, val, 0);
+    } else {
+      TraceDataFlowNativeCallbacks.traceDivInt(val, pc);
+    }
+  }
+
+  public static void traceDivLong(long val, int pc) {
+    if (Thread.currentThread() == bufferingThread) {
+      append(DIV8, pc, val, 0);
+    } else {
+      TraceDataFlowNativeCallbacks.traceDivLong(val, pc);
+    }
+  }
+
+  public static void traceGep(long val, int pc) {
+    if (Thread.currentThread() == bufferingThread) {
+      append(GEP, pc, val, 0);
+    } else {
+      TraceDataFlowNativeCallbacks.traceGep(val, pc);
+    }
+  }
+
+  private static void append(int kind, int pc, long arg1, long arg2) {
+    long record = BUFFER + (long) size * RECORD_SIZE;
+    UNSAFE.putInt(record, kind);
+    UNSAFE.putInt(record + 4, pc);
+    UNSAFE.putLong(record + 8, arg1);
+    UNSAFE.putLong(record + 16, arg2);
+    if (++size == CAPACITY) {
+      flush();
+    }
+  }
+}
@@ -10,48 +10,77 @@
 package com.code_intelligence.jazzer.runtime;
 
 import com.github.fmeum.rules_jni.RulesJni;
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Executable;
 import java.lang.reflect.Method;
-import java.nio.charset.Charset;
 import java.util.Arrays;
 import org.objectweb.asm.Type;
 
 @SuppressWarnings("unused")
 public final class TraceDataFlowNativeCallbacks {
-  // Note that we are not encoding as modified UTF-8 here: The FuzzedDataProvider transparently
-  // converts CESU8 into modified UTF-8 by coding null bytes on two bytes. Since the fuzzer is more
-  // likely to insert literal null bytes, having both the fuzzer input and the reported string
-  // comparisons be CESU8 should perform even better than the current implementation using modified
-  // UTF-8.
-  private static final Charset FUZZED_DATA_CHARSET = Charset.forName("CESU8");
+  // libFuzzer string hooks only ever consume the first 64 bytes.
+  static final int MAX_ENCODED_LENGTH = 64;
+
+  // Strings are encoded into these per-thread buffers so that tracing string comparisons doesn't
+  // allocate. Comparisons need two buffers. Since encodeForLibFuzzer may write up to two bytes past
+  // MAX_ENCODED_LENGTH, the buffers are slightly larger.
+  private static final ThreadLocal<byte[][]> ENCODING_BUFFERS =
+      new ThreadLocal<byte[][]>() {
+        @Override
+        protected byte[][] initialValue() {
+          return new byte[][] {
+            new byte[MAX_ENCODED_LENGTH + 2], new byte[MAX_ENCODED_LENGTH + 2]
+          };
+        }
+      };
 
   static {
     RulesJni.loadLibrary("jazzer_driver", "/com/code_intelligence/jazzer/driver");
   }
 
+  // Critical downcalls to the C functions backing the callbacks that only take primitive
+  // arguments, or null if they aren't enabled via ForeignFunctions#enable or the JVM doesn't
+  // support them. The order of the addresses has to be kept in sync with
+  // jazzer_fuzzer_callbacks.cpp.
+  private static final long[] FOREIGN_ADDRESSES = foreignCallbackAddresses();
+  private static final MethodHandle FOREIGN_TRACE_CMP4 =
+      ForeignFunctions.criticalVoidDowncall(FOREIGN_ADDRESSES[0], int.class, int.class, int.class);
+  private static final MethodHandle FOREIGN_TRACE_CMP8 =
+      ForeignFunctions.criticalVoidDowncall(
+          FOREIGN_ADDRESSES[1], long.class, long.class, int.class);
+  private static final MethodHandle FOREIGN_TRACE_DIV4 =
+      ForeignFunctions.criticalVoidDowncall(FOREIGN_ADDRESSES[2], int.class, int.class);
+  private static final MethodHandle FOREIGN_TRACE_DIV8 =
+      ForeignFunctions.criticalVoidDowncall(FOREIGN_ADDRESSES[3], long.class, int.class);
+  private static final MethodHandle FOREIGN_TRACE_GEP =
+      ForeignFunctions.criticalVoidDowncall(FOREIGN_ADDRESSES[4], long.class, int.class);
+  private static final MethodHandle FOREIGN_TRACE_PC_INDIR =
+      ForeignFunctions.criticalVoidDowncall(FOREIGN_ADDRESSES[5], int.class, int.class);
+  private static final MethodHandle FOREIGN_TRACE_BATCH =
+      ForeignFunctions.criticalVoidDowncall(FOREIGN_ADDRESSES[6], long.class, int.class);
+
   // It is possible for RulesJni#loadLibrary to trigger a hook even though it isn't instrumented if
   // it uses regexes, which it does with at least some JDKs due to its use of String#format. This
   // led to exceptions in the past when the hook ended up calling traceStrcmp or traceStrstr before
-  // the static initializer was run: FUZZED_DATA_CHARSET used to be initialized after the call and
-  // thus still had the value null when encodeForLibFuzzer was called, resulting in an NPE in
-  // String#getBytes(Charset). Just switching the order may actually make this bug worse: It could
-  // now lead to traceMemcmp being called before the native library has been loaded. We guard
-  // against this by making the hooks noops when static initialization of this class hasn't
-  // completed yet.
+  // the static initializer was run: The charset used by encodeForLibFuzzer used to be initialized
+  // after the call and thus still had the value null when encodeForLibFuzzer was called, resulting
+  // in an NPE in String#getBytes(Charset). Just switching the order may actually make this bug
+  // worse: It could now lead to traceMemcmp being called before the native library has been
+  // loaded. We guard against this by making the hooks noops when static initialization of this
+  // class hasn't completed yet.
   private static final boolean NATIVE_INITIALIZED = true;
 
   public static native void traceMemcmp(byte[] b1, byte[] b2, int result, int pc);
 
   public static void traceStrcmp(String s1, String s2, int result, int pc) {
-    if (NATIVE_INITIALIZED) {
-      traceMemcmp(encodeForLibFuzzer(s1), encodeForLibFuzzer(s2), result, pc);
-    }
+    traceCharSequenceCmp(s1, s2, result, pc);
   }
 
   public static void traceStrstr(String s1, String s2, int pc) {
     if (NATIVE_INITIALIZED) {
-      traceStrstr0(encodeForLibFuzzer(s2), pc);
+      byte[] needle = ENCODING_BUFFERS.get()[0];
+      traceStrstr0(needle, encodeForLibFuzzer(s2, needle), pc);
     }
   }
 
@@ -77,7 +106,7 @@ public final class TraceDataFlowNativeCallbacks {
   // The caller has to ensure that arg1 and arg2 have the same class.
   public static void traceGenericCmp(Object arg1, Object arg2, int pc) {
     if (arg1 instanceof CharSequence) {
-      traceStrcmp(arg1.toString(), arg2.toString(), 1, pc);
+      traceCharSequenceCmp((CharSequence) arg1, (CharSequence) arg2, 1, pc);
     } else if (arg1 instanceof Integer) {
       traceCmpInt((int) arg1, (int) arg2, pc);
     } else if (arg1 instanceof Long) {
@@ -96,32 +125,185 @@ public final class TraceDataFlowNativeCallbacks {
   }
 
   /* trace-cmp */
-  public static native void traceCmpInt(int arg1, int arg2, int pc);
+  public static void traceCmpInt(int arg1, int arg2, int pc) {
+    if (FOREIGN_TRACE_CMP4 != null) {
+      invokeForeign(FOREIGN_TRACE_CMP4, arg1, arg2, pc);
+    } else {
+      traceCmpInt0(arg1, arg2, pc);
+    }
+  }
 
-  public static native void traceConstCmpInt(int arg1, int arg2, int pc);
+  public static void traceConstCmpInt(int arg1, int arg2, int pc) {
+    if (FOREIGN_TRACE_CMP4 != null) {
+      invokeForeign(FOREIGN_TRACE_CMP4, arg1, arg2, pc);
+    } else {
+      traceConstCmpInt0(arg1, arg2, pc);
+    }
+  }
 
-  public static native void traceCmpLong(long arg1, long arg2, int pc);
+  public static void traceCmpLong(long arg1, long arg2, int pc) {
+    if (FOREIGN_TRACE_CMP8 != null) {
+      invokeForeign(FOREIGN_TRACE_CMP8, arg1, arg2, pc);
+    } else {
+      traceCmpLong0(arg1, arg2, pc);
+    }
+  }
 
   public static native void traceSwitch(long val, long[] cases, int pc);
 
   /* trace-div */
-  public static native void traceDivInt(int val, int pc);
+  public static void traceDivInt(int val, int pc) {
+    if (FOREIGN_TRACE_DIV4 != null) {
+      invokeForeign(FOREIGN_TRACE_DIV4, val, pc);
+    } else {
+      traceDivInt0(val, pc);
+    }
+  }
 
-  public static native void traceDivLong(long val, int pc);
+  public static void traceDivLong(long val, int pc) {
+    if (FOREIGN_TRACE_DIV8 != null) {
+      invokeForeign(FOREIGN_TRACE_DIV8, val, pc);
+    } else {
+      traceDivLong0(val, pc);
+    }
+  }
 
   /* trace-gep */
-  public static native void traceGep(long val, int pc);
+  public static void traceGep(long val, int pc) {
+    if (FOREIGN_TRACE_GEP != null) {
+      invokeForeign(FOREIGN_TRACE_GEP, val, pc);
+    } else {
+      traceGep0(val, pc);
+    }
+  }
 
   /* indirect-calls */
-  public static native void tracePcIndir(int callee, int caller);
+  public static void tracePcIndir(int callee, int caller) {
+    if (FOREIGN_TRACE_PC_INDIR != null) {
+      invokeForeign(FOREIGN_TRACE_PC_INDIR, callee, caller);
+    } else {
+      tracePcIndir0(callee, caller);
+    }
+  }
 
   public static native void handleLibraryLoad();
 
-  private static byte[] encodeForLibFuzzer(String str) {
-    // libFuzzer string hooks only ever consume the first 64 bytes, so we can definitely cut the
-    // string off after 64 characters.
-    return str.substring(0, Math.min(str.length(), 64)).getBytes(FUZZED_DATA_CHARSET);
+  // Reports the events recorded by TraceDataFlowBatchedCallbacks.
+  static void traceBatch(long address, int count) {
+    if (FOREIGN_TRACE_BATCH != null) {
+      invokeForeign(FOREIGN_TRACE_BATCH, address, count);
+    } else {
+      traceBatch0(address, count);
+    }
   }
 
-  private static native void traceStrstr0(byte[] needle, int pc);
+  // The method handles passed to the helpers below are static final and the helpers are small
+  // enough to be inlined, so that invokeExact compiles down to a direct downcall. The downcalls
+  // never throw as the C functions don't.
+
+  private static void invokeForeign(MethodHandle callback, int arg1, int arg2, int arg3) {
+    try {
+      callback.invokeExact(arg1, arg2, arg3);
+    } catch (Throwable t) {
+      throw new IllegalStateException(t);
+    }
+  }
+
+  private static void invokeForeign(MethodHandle callback, long arg1, long arg2, int arg3) {
+    try {
+      callback.invokeExact(arg1, arg2, arg3);
+    } catch (Throwable t) {
+      throw new IllegalStateException(t);
+    }
+  }
+
+  private static void invokeForeign(MethodHandle callback, int arg1, int arg2) {
+    try {
+      callback.invokeExact(arg1, arg2);
+    } catch (Throwable t) {
+      throw new IllegalStateException(t);
+    }
+  }
+
+  private static void invokeForeign(MethodHandle callback, long arg1, int arg2) {
+    try {
+      callback.invokeExact(arg1, arg2);
+    } catch (Throwable t) {
+      throw new IllegalStateException(t);
+    }
+  }
+
+  private static void traceCharSequenceCmp(CharSequence s1, CharSequence s2, int result, int pc) {
+    if (NATIVE_INITIALIZED) {
+      byte[][] buffers = ENCODING_BUFFERS.get();
+      byte[] b1 = buffers[0];
+      byte[] b2 = buffers[1];
+      traceStrcmp0(b1, encodeForLibFuzzer(s1, b1), b2, encodeForLibFuzzer(s2, b2), result, pc);
+    }
+  }
+
+  /**
+   * Writes the first {@link #MAX_ENCODED_LENGTH} bytes of the CESU-8 encoding of {@code str} into
+   * {@code out}, which has to have room for two additional bytes, and returns their number.
+   *
+   * <p>Note that we are not encoding as modified UTF-8 here: The FuzzedDataProvider transparently
+   * converts CESU8 into modified UTF-8 by coding null bytes on two bytes. Since the fuzzer is more
+   * likely to insert literal null bytes, having both the fuzzer input and the reported string
+   * comparisons be CESU8 should perform even better than the current implementation using modified
+   * UTF-8.
+   */
+  static int encodeForLibFuzzer(CharSequence str, byte[] out) {
+    int length = str.length();
+    int pos = 0;
+    for (int i = 0; i < length && pos < MAX_ENCODED_LENGTH; i++) {
+      char c = str.charAt(i);
+      if (c < 0x80) {
+        out[pos++] = (byte) c;
+      } else if (c < 0x800) {
+        out[pos++] = (byte) (0xC0 | (c >> 6));
+        out[pos++] = (byte) (0x80 | (c & 0x3F));
+      } else if (!Character.isSurrogate(c)
+          || (Character.isHighSurrogate(c)
+              && i + 1 < length
+              && Character.isLowSurrogate(str.charAt(i + 1)))) {
+        // CESU-8 encodes the two surrogates of a supplementary character separately.
+        out[pos++] = (byte) (0xE0 | (c >> 12));
+        out[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+        out[pos++] = (byte) (0x80 | (c & 0x3F));
+        if (Character.isHighSurrogate(c) && pos < MAX_ENCODED_LENGTH) {
+          char low = str.charAt(++i);
+          out[pos++] = (byte) (0xE0 | (low >> 12));
+          out[pos++] = (byte) (0x80 | ((low >> 6) & 0x3F));
+          out[pos++] = (byte) (0x80 | (low & 0x3F));
+        }
+      } else {
+        // An unpaired surrogate is replaced just like String#getBytes(Charset) does.
+        out[pos++] = '?';
+      }
+    }
+    return Math.min(pos, MAX_ENCODED_LENGTH);
+  }
+
+  private static native void traceStrcmp0(
+      byte[] b1, int length1, byte[] b2, int length2, int result, int pc);
+
+  private static native void traceStrstr0(byte[] needle, int length, int pc);
+
+  private static native void traceCmpInt0(int arg1, int arg2, int pc);
+
+  private static native void traceConstCmpInt0(int arg1, int arg2, int pc);
+
+  private static native void traceCmpLong0(long arg1, long arg2, int pc);
+
+  private static native void traceDivInt0(int val, int pc);
+
+  private static native void traceDivLong0(long val, int pc);
+
+  private static native void traceGep0(long val, int pc);
+
+  private static native void tracePcIndir0(int callee, int caller);
+
+  private static native void traceBatch0(long address, int count);
+
+  private static native long[] foreignCallbackAddresses();
 }
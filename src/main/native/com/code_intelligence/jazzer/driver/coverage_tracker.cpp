@@ -11,6 +11,7 @@
 #include <jni.h>
 #include <stdint.h>
 
+#include <algorithm>
 #include <iostream>
 #include <vector>
 
@@ -37,6 +38,9 @@ namespace jazzer {
 
 uint8_t *CoverageTracker::counters_ = nullptr;
 PCTableEntry *CoverageTracker::pc_entries_ = nullptr;
+std::vector<jint> CoverageTracker::range_first_ids_;
+std::vector<std::size_t> CoverageTracker::range_first_indices_;
+std::size_t CoverageTracker::num_registered_counters_ = 0;
 
 void CoverageTracker::Initialize(JNIEnv &env, jlong counters) {
   if (counters_ != nullptr) {
@@ -48,40 +52,49 @@ void CoverageTracker::Initialize(JNIEnv &env, jlong counters) {
   counters_ = reinterpret_cast<uint8_t *>(static_cast<uintptr_t>(counters));
 }
 
-void CoverageTracker::RegisterNewCounters(JNIEnv &env, jint old_num_counters,
-                                          jint new_num_counters) {
+void CoverageTracker::RegisterNewCounters(JNIEnv &env, jint first_id,
+                                          jint end_id) {
   if (counters_ == nullptr) {
     std::cerr
         << "ERROR: CoverageTracker::Initialize should have been called first"
         << std::endl;
     _Exit(1);
   }
-  if (new_num_counters < old_num_counters) {
-    std::cerr
-        << "ERROR: new_num_counters must not be smaller than old_num_counters"
-        << std::endl;
+  if (end_id < first_id) {
+    std::cerr << "ERROR: end_id must not be smaller than first_id" << std::endl;
     _Exit(1);
   }
-  if (new_num_counters == old_num_counters) {
+  if (end_id == first_id) {
     return;
   }
-  std::size_t diff_num_counters = new_num_counters - old_num_counters;
+  std::size_t num_counters = end_id - first_id;
   // libFuzzer requires an array containing the instruction addresses associated
   // with the coverage counters registered above. This is required to report how
   // many edges have been covered. However, libFuzzer only checks these
   // addresses when the corresponding flag is set to 1. Therefore, it is safe to
   // set the all PC entries to any value as long as the corresponding flag is
-  // set to zero. We set the value of each PC to the index of the corresponding
-  // edge ID. This facilitates finding the edge ID of each covered PC reported
-  // by libFuzzer.
-  pc_entries_ = new PCTableEntry[diff_num_counters];
-  for (std::size_t i = 0; i < diff_num_counters; ++i) {
-    pc_entries_[i] = {i, 0};
+  // set to zero. We set the value of each PC to the corresponding edge ID.
+  // libFuzzer reports covered PCs by their index in the PC tables, which is
+  // mapped back to the edge ID by EdgeIdForIndex.
+  pc_entries_ = new PCTableEntry[num_counters];
+  for (std::size_t i = 0; i < num_counters; ++i) {
+    pc_entries_[i] = {first_id + i, 0};
   }
-  __sanitizer_cov_8bit_counters_init(counters_ + old_num_counters,
-                                     counters_ + new_num_counters);
+  range_first_ids_.push_back(first_id);
+  range_first_indices_.push_back(num_registered_counters_);
+  num_registered_counters_ += num_counters;
+  __sanitizer_cov_8bit_counters_init(counters_ + first_id, counters_ + end_id);
   __sanitizer_cov_pcs_init((uintptr_t *)(pc_entries_),
-                           (uintptr_t *)(pc_entries_ + diff_num_counters));
+                           (uintptr_t *)(pc_entries_ + num_counters));
+}
+
+jint CoverageTracker::EdgeIdForIndex(std::size_t index) {
+  // Find the last range that starts at or before the index.
+  auto range = std::upper_bound(range_first_indices_.cbegin(),
+                                range_first_indices_.cend(), index) -
+               1;
+  return range_first_ids_[range - range_first_indices_.cbegin()] +
+         static_cast<jint>(index - *range);
 }
 }  // namespace jazzer
 
@@ -93,9 +106,8 @@ Java_com_code_1intelligence_jazzer_runtime_CoverageMap_initialize(
 
 [[maybe_unused]] void
 Java_com_code_1intelligence_jazzer_runtime_CoverageMap_registerNewCounters(
-    JNIEnv *env, jclass, jint old_num_counters, jint new_num_counters) {
-  ::jazzer::CoverageTracker::RegisterNewCounters(*env, old_num_counters,
-                                                 new_num_counters);
+    JNIEnv *env, jclass, jint first_id, jint end_id) {
+  ::jazzer::CoverageTracker::RegisterNewCounters(*env, first_id, end_id);
 }
 
 [[maybe_unused]] jintArray
@@ -103,8 +115,10 @@ Java_com_code_1intelligence_jazzer_runtime_CoverageMap_getEverCoveredIds(
     JNIEnv *env, jclass) {
   uintptr_t *covered_pcs;
   jint num_covered_pcs = __sanitizer_cov_get_observed_pcs(&covered_pcs);
-  std::vector<jint> covered_edge_ids(covered_pcs,
-                                     covered_pcs + num_covered_pcs);
+  std::vector<jint> covered_edge_ids(num_covered_pcs);
+  std::transform(covered_pcs, covered_pcs + num_covered_pcs,
+                 covered_edge_ids.begin(),
+                 ::jazzer::CoverageTracker::EdgeIdForIndex);
   delete[] covered_pcs;
 
   jintArray covered_edge_ids_jni = env->NewIntArray(num_covered_pcs);
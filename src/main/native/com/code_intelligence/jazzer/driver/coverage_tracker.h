@@ -11,7 +11,9 @@
 #include <jni.h>
 #include <stdint.h>
 
+#include <cstddef>
 #include <string>
+#include <vector>
 
 namespace jazzer {
 
@@ -22,14 +24,26 @@ struct __attribute__((packed)) PCTableEntry {
 
 // CoverageTracker registers an array of 8-bit coverage counters with
 // libFuzzer. The array is populated from Java using Unsafe.
+//
+// Ranges of the array are registered lazily and not necessarily in order, so
+// the index of a counter among all counters registered with libFuzzer can
+// differ from its edge ID.
 class CoverageTracker {
  private:
   static uint8_t *counters_;
   static PCTableEntry *pc_entries_;
+  // The first edge ID and the index of its counter among all registered
+  // counters for every range passed to RegisterNewCounters, in the order of
+  // registration.
+  static std::vector<jint> range_first_ids_;
+  static std::vector<std::size_t> range_first_indices_;
+  static std::size_t num_registered_counters_;
 
  public:
   static void Initialize(JNIEnv &env, jlong counters);
-  static void RegisterNewCounters(JNIEnv &env, jint old_num_counters,
-                                  jint new_num_counters);
+  static void RegisterNewCounters(JNIEnv &env, jint first_id, jint end_id);
+  // Returns the edge ID of the counter with the given index among all
+  // registered counters as reported by libFuzzer.
+  static jint EdgeIdForIndex(std::size_t index);
 };
 }  // namespace jazzer
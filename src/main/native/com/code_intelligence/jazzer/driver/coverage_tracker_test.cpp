@@ -0,0 +1,95 @@
+// Copyright 2024 Code Intelligence GmbH
+//
+// By downloading, you agree to the Code Intelligence Jazzer Terms and
+// Conditions.
+//
+// The Code Intelligence Jazzer Terms and Conditions are provided in
+// LICENSE-JAZZER.txt located in the root directory of the project.
+
+#include "coverage_tracker.h"
+
+#include <jni.h>
+
+#include <cstddef>
+#include <cstdint>
+#include <utility>
+#include <vector>
+
+#include "gtest/gtest.h"
+
+// The counters and PC tables registered by CoverageTracker are recorded by the
+// functions below instead of being passed to libFuzzer.
+namespace {
+std::vector<std::pair<uint8_t *, uint8_t *>> registered_counters;
+std::vector<std::vector<uintptr_t>> registered_pcs;
+}  // namespace
+
+extern "C" {
+void __sanitizer_cov_8bit_counters_init(uint8_t *start, uint8_t *end) {
+  registered_counters.emplace_back(start, end);
+}
+
+void __sanitizer_cov_pcs_init(const uintptr_t *pcs_beg,
+                              const uintptr_t *pcs_end) {
+  // Every entry consists of a PC and its flags.
+  std::vector<uintptr_t> pcs;
+  for (const uintptr_t *pc = pcs_beg; pc < pcs_end; pc += 2) {
+    pcs.push_back(*pc);
+  }
+  registered_pcs.push_back(pcs);
+}
+
+size_t __sanitizer_cov_get_observed_pcs(uintptr_t **pc_entries) {
+  *pc_entries = nullptr;
+  return 0;
+}
+}
+
+namespace {
+// Registration only ever happens once per process, so all checks live in a
+// single test.
+TEST(CoverageTrackerTest, RegistersModulesOutOfOrder) {
+  static uint8_t counters[4096];
+  // The JNIEnv is only used to report Java exceptions, which can't occur here.
+  JNIEnv env{};
+  jazzer::CoverageTracker::Initialize(env, reinterpret_cast<jlong>(counters));
+
+  // Modules are registered in the order in which their first IDs are handed
+  // out, e.g. with a reserved coverage ID layout.
+  jazzer::CoverageTracker::RegisterNewCounters(env, 1024, 1536);
+  jazzer::CoverageTracker::RegisterNewCounters(env, 0, 512);
+  // Empty ranges are ignored.
+  jazzer::CoverageTracker::RegisterNewCounters(env, 512, 512);
+  jazzer::CoverageTracker::RegisterNewCounters(env, 3584, 4096);
+
+  ASSERT_EQ(3, registered_counters.size());
+  EXPECT_EQ(std::make_pair(counters + 1024, counters + 1536),
+            registered_counters[0]);
+  EXPECT_EQ(std::make_pair(counters + 0, counters + 512),
+            registered_counters[1]);
+  EXPECT_EQ(std::make_pair(counters + 3584, counters + 4096),
+            registered_counters[2]);
+
+  // The PC of every counter is its edge ID.
+  ASSERT_EQ(3, registered_pcs.size());
+  std::vector<uintptr_t> expected_pcs;
+  for (uintptr_t id = 1024; id < 1536; ++id) {
+    expected_pcs.push_back(id);
+  }
+  EXPECT_EQ(expected_pcs, registered_pcs[0]);
+  EXPECT_EQ(512, registered_pcs[1].size());
+  EXPECT_EQ(0, registered_pcs[1].front());
+  EXPECT_EQ(511, registered_pcs[1].back());
+  EXPECT_EQ(512, registered_pcs[2].size());
+  EXPECT_EQ(3584, registered_pcs[2].front());
+
+  // libFuzzer indexes the counters in the order of registration.
+  EXPECT_EQ(1024, jazzer::CoverageTracker::EdgeIdForIndex(0));
+  EXPECT_EQ(1535, jazzer::CoverageTracker::EdgeIdForIndex(511));
+  EXPECT_EQ(0, jazzer::CoverageTracker::EdgeIdForIndex(512));
+  EXPECT_EQ(100, jazzer::CoverageTracker::EdgeIdForIndex(612));
+  EXPECT_EQ(511, jazzer::CoverageTracker::EdgeIdForIndex(1023));
+  EXPECT_EQ(3584, jazzer::CoverageTracker::EdgeIdForIndex(1024));
+  EXPECT_EQ(4095, jazzer::CoverageTracker::EdgeIdForIndex(1535));
+}
+}  // namespace
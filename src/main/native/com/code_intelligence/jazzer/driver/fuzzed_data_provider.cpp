@@ -105,7 +105,10 @@ T JNICALL ConsumeIntegralInRange(JNIEnv &env, jobject self, T min, T max) {
   env.SetIntField(self, gRemainingBytesField, remainingBytes);
   // dataPtr hasn't been modified, so we don't need to update gDataPtrField.
 
-  if (range != std::numeric_limits<T>::max())
+  // If range covers all 64-bit values, range + 1 overflows to zero and every
+  // result is already in range.
+  if (range != std::numeric_limits<T>::max() &&
+      range != std::numeric_limits<uint64_t>::max())
     // We accept modulo bias in favor of reading a dynamic number of bytes as
     // this would make it harder for the fuzzer to mutate towards values from
     // the table of recent compares.
@@ -27,24 +27,94 @@ void __sanitizer_weak_hook_memmem(void *called_pc, const void *s1, size_t len1,
 inline __attribute__((always_inline)) void *idToPc(jint id) {
   return reinterpret_cast<void *>(static_cast<uintptr_t>(id));
 }
+
+// A single event recorded by TraceDataFlowBatchedCallbacks. The layout and the
+// event kinds have to be kept in sync with the Java class.
+struct TraceEvent {
+  jint kind;
+  jint id;
+  jlong arg1;
+  jlong arg2;
+};
+static_assert(sizeof(TraceEvent) == 24, "TraceEvent must not be padded");
+
+enum TraceEventKind : jint {
+  kCmp4 = 0,
+  kCmp8 = 1,
+  kDiv4 = 2,
+  kDiv8 = 3,
+  kGep = 4,
+};
+
+void traceBatch(jlong address, jint count) {
+  const auto *events = reinterpret_cast<const TraceEvent *>(address);
+  for (jint i = 0; i < count; ++i) {
+    const TraceEvent &event = events[i];
+    switch (event.kind) {
+      case kCmp4:
+        __sanitizer_cov_trace_cmp4_with_pc(idToPc(event.id),
+                                           static_cast<uint32_t>(event.arg1),
+                                           static_cast<uint32_t>(event.arg2));
+        break;
+      case kCmp8:
+        __sanitizer_cov_trace_cmp8_with_pc(idToPc(event.id), event.arg1,
+                                           event.arg2);
+        break;
+      case kDiv4:
+        __sanitizer_cov_trace_div4_with_pc(idToPc(event.id),
+                                           static_cast<uint32_t>(event.arg1));
+        break;
+      case kDiv8:
+        __sanitizer_cov_trace_div8_with_pc(idToPc(event.id), event.arg1);
+        break;
+      case kGep:
+        __sanitizer_cov_trace_gep_with_pc(idToPc(event.id),
+                                          static_cast<uintptr_t>(event.arg1));
+        break;
+      default:
+        break;
+    }
+  }
+}
 }  // namespace
 
 [[maybe_unused]] void
 Java_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceStrstr0(
-    JNIEnv *env, jclass cls, jbyteArray needle, jint id) {
-  jint needle_length = env->GetArrayLength(needle);
+    JNIEnv *env, jclass cls, jbyteArray needle, jint length, jint id) {
   auto *needle_native =
       static_cast<jbyte *>(env->GetPrimitiveArrayCritical(needle, nullptr));
-  __sanitizer_weak_hook_memmem(idToPc(id), nullptr, 0, needle_native,
-                               needle_length, nullptr);
+  __sanitizer_weak_hook_memmem(idToPc(id), nullptr, 0, needle_native, length,
+                               nullptr);
   env->ReleasePrimitiveArrayCritical(needle, needle_native, JNI_ABORT);
 }
 
 extern "C" [[maybe_unused]] JNIEXPORT void JNICALL
 JavaCritical_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceStrstr0(
-    jint needle_length, jbyte *needle_native, jint id) {
-  __sanitizer_weak_hook_memmem(idToPc(id), nullptr, 0, needle_native,
-                               needle_length, nullptr);
+    jint needle_array_length, jbyte *needle_native, jint length, jint id) {
+  __sanitizer_weak_hook_memmem(idToPc(id), nullptr, 0, needle_native, length,
+                               nullptr);
+}
+
+[[maybe_unused]] void
+Java_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceStrcmp0(
+    JNIEnv *env, jclass cls, jbyteArray b1, jint length1, jbyteArray b2,
+    jint length2, jint result, jint id) {
+  auto *b1_native =
+      static_cast<jbyte *>(env->GetPrimitiveArrayCritical(b1, nullptr));
+  auto *b2_native =
+      static_cast<jbyte *>(env->GetPrimitiveArrayCritical(b2, nullptr));
+  __sanitizer_weak_hook_compare_bytes(idToPc(id), b1_native, b2_native, length1,
+                                      length2, result);
+  env->ReleasePrimitiveArrayCritical(b1, b1_native, JNI_ABORT);
+  env->ReleasePrimitiveArrayCritical(b2, b2_native, JNI_ABORT);
+}
+
+extern "C" [[maybe_unused]] JNIEXPORT void JNICALL
+JavaCritical_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceStrcmp0(
+    jint b1_array_length, jbyte *b1, jint length1, jint b2_array_length,
+    jbyte *b2, jint length2, jint result, jint id) {
+  __sanitizer_weak_hook_compare_bytes(idToPc(id), b1, b2, length1, length2,
+                                      result);
 }
 
 [[maybe_unused]] void
@@ -72,37 +142,37 @@ JavaCritical_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_
 }
 
 [[maybe_unused]] void
-Java_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceCmpLong(
+Java_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceCmpLong0(
     JNIEnv *env, jclass cls, jlong value1, jlong value2, jint id) {
   __sanitizer_cov_trace_cmp8_with_pc(idToPc(id), value1, value2);
 }
 
 extern "C" [[maybe_unused]] JNIEXPORT void JNICALL
-JavaCritical_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceCmpLong(
+JavaCritical_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceCmpLong0(
     jlong value1, jlong value2, jint id) {
   __sanitizer_cov_trace_cmp8_with_pc(idToPc(id), value1, value2);
 }
 
 [[maybe_unused]] void
-Java_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceCmpInt(
+Java_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceCmpInt0(
     JNIEnv *env, jclass cls, jint value1, jint value2, jint id) {
   __sanitizer_cov_trace_cmp4_with_pc(idToPc(id), value1, value2);
 }
 
 extern "C" [[maybe_unused]] JNIEXPORT void JNICALL
-JavaCritical_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceCmpInt(
+JavaCritical_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceCmpInt0(
     jint value1, jint value2, jint id) {
   __sanitizer_cov_trace_cmp4_with_pc(idToPc(id), value1, value2);
 }
 
 [[maybe_unused]] void
-Java_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceConstCmpInt(
+Java_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceConstCmpInt0(
     JNIEnv *env, jclass cls, jint value1, jint value2, jint id) {
   __sanitizer_cov_trace_cmp4_with_pc(idToPc(id), value1, value2);
 }
 
 extern "C" [[maybe_unused]] JNIEXPORT void JNICALL
-JavaCritical_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceConstCmpInt(
+JavaCritical_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceConstCmpInt0(
     jint value1, jint value2, jint id) {
   __sanitizer_cov_trace_cmp4_with_pc(idToPc(id), value1, value2);
 }
@@ -128,51 +198,112 @@ JavaCritical_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_
 }
 
 [[maybe_unused]] void
-Java_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceDivLong(
+Java_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceDivLong0(
     JNIEnv *env, jclass cls, jlong value, jint id) {
   __sanitizer_cov_trace_div8_with_pc(idToPc(id), value);
 }
 
 extern "C" [[maybe_unused]] JNIEXPORT void JNICALL
-JavaCritical_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceDivLong(
+JavaCritical_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceDivLong0(
     jlong value, jint id) {
   __sanitizer_cov_trace_div8_with_pc(idToPc(id), value);
 }
 
 [[maybe_unused]] void
-Java_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceDivInt(
+Java_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceDivInt0(
     JNIEnv *env, jclass cls, jint value, jint id) {
   __sanitizer_cov_trace_div4_with_pc(idToPc(id), value);
 }
 
 extern "C" [[maybe_unused]] JNIEXPORT void JNICALL
-JavaCritical_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceDivInt(
+JavaCritical_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceDivInt0(
     jint value, jint id) {
   __sanitizer_cov_trace_div4_with_pc(idToPc(id), value);
 }
 
 [[maybe_unused]] void
-Java_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceGep(
+Java_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceGep0(
     JNIEnv *env, jclass cls, jlong idx, jint id) {
   __sanitizer_cov_trace_gep_with_pc(idToPc(id), static_cast<uintptr_t>(idx));
 }
 
 extern "C" [[maybe_unused]] JNIEXPORT void JNICALL
-JavaCritical_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceGep(
+JavaCritical_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceGep0(
     jlong idx, jint id) {
   __sanitizer_cov_trace_gep_with_pc(idToPc(id), static_cast<uintptr_t>(idx));
 }
 
 [[maybe_unused]] void
-Java_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_tracePcIndir(
+Java_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_tracePcIndir0(
     JNIEnv *env, jclass cls, jint caller_id, jint callee_id) {
   __sanitizer_cov_trace_pc_indir_with_pc(idToPc(caller_id),
                                          static_cast<uintptr_t>(callee_id));
 }
 
 extern "C" [[maybe_unused]] JNIEXPORT void JNICALL
-JavaCritical_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_tracePcIndir(
+JavaCritical_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_tracePcIndir0(
     jint caller_id, jint callee_id) {
   __sanitizer_cov_trace_pc_indir_with_pc(idToPc(caller_id),
                                          static_cast<uintptr_t>(callee_id));
 }
+
+[[maybe_unused]] void
+Java_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceBatch0(
+    JNIEnv *env, jclass cls, jlong address, jint count) {
+  traceBatch(address, count);
+}
+
+extern "C" [[maybe_unused]] JNIEXPORT void JNICALL
+JavaCritical_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceBatch0(
+    jlong address, jint count) {
+  traceBatch(address, count);
+}
+
+// Plain C versions of the callbacks with primitive arguments, which are called
+// via critical downcalls of the Foreign Function & Memory API on JDK 22+.
+namespace {
+void traceCmp4(jint value1, jint value2, jint id) {
+  __sanitizer_cov_trace_cmp4_with_pc(idToPc(id), value1, value2);
+}
+
+void traceCmp8(jlong value1, jlong value2, jint id) {
+  __sanitizer_cov_trace_cmp8_with_pc(idToPc(id), value1, value2);
+}
+
+void traceDiv4(jint value, jint id) {
+  __sanitizer_cov_trace_div4_with_pc(idToPc(id), value);
+}
+
+void traceDiv8(jlong value, jint id) {
+  __sanitizer_cov_trace_div8_with_pc(idToPc(id), value);
+}
+
+void traceGep(jlong idx, jint id) {
+  __sanitizer_cov_trace_gep_with_pc(idToPc(id), static_cast<uintptr_t>(idx));
+}
+
+void tracePcIndir(jint caller_id, jint callee_id) {
+  __sanitizer_cov_trace_pc_indir_with_pc(idToPc(caller_id),
+                                         static_cast<uintptr_t>(callee_id));
+}
+}  // namespace
+
+[[maybe_unused]] jlongArray
+Java_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_foreignCallbackAddresses(
+    JNIEnv *env, jclass cls) {
+  // The order has to be kept in sync with TraceDataFlowNativeCallbacks.
+  const jlong addresses[] = {
+      reinterpret_cast<jlong>(&traceCmp4),
+      reinterpret_cast<jlong>(&traceCmp8),
+      reinterpret_cast<jlong>(&traceDiv4),
+      reinterpret_cast<jlong>(&traceDiv8),
+      reinterpret_cast<jlong>(&traceGep),
+      reinterpret_cast<jlong>(&tracePcIndir),
+      reinterpret_cast<jlong>(&traceBatch),
+  };
+  constexpr jsize kNumAddresses = sizeof(addresses) / sizeof(addresses[0]);
+  jlongArray result = env->NewLongArray(kNumAddresses);
+  if (result == nullptr) return nullptr;
+  env->SetLongArrayRegion(result, 0, kNumAddresses, addresses);
+  return result;
+}
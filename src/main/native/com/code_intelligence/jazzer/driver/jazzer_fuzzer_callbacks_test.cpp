@@ -0,0 +1,118 @@
+// Copyright 2024 Code Intelligence GmbH
+//
+// By downloading, you agree to the Code Intelligence Jazzer Terms and
+// Conditions.
+//
+// The Code Intelligence Jazzer Terms and Conditions are provided in
+// LICENSE-JAZZER.txt located in the root directory of the project.
+
+#include <jni.h>
+
+#include <cstddef>
+#include <cstdint>
+#include <tuple>
+#include <vector>
+
+#include "com_code_intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks.h"
+#include "gtest/gtest.h"
+
+// The callbacks under test report to libFuzzer via the functions below, which
+// record the calls instead.
+namespace {
+enum class Hook { kCmp4, kCmp8, kDiv4, kDiv8, kGep };
+
+using Call = std::tuple<Hook, uintptr_t, uint64_t, uint64_t>;
+
+std::vector<Call> calls;
+
+void record(Hook hook, void *caller_pc, uint64_t arg1, uint64_t arg2) {
+  calls.emplace_back(hook, reinterpret_cast<uintptr_t>(caller_pc), arg1, arg2);
+}
+}  // namespace
+
+extern "C" {
+void __sanitizer_cov_trace_cmp4_with_pc(void *caller_pc, uint32_t arg1,
+                                        uint32_t arg2) {
+  record(Hook::kCmp4, caller_pc, arg1, arg2);
+}
+
+void __sanitizer_cov_trace_cmp8_with_pc(void *caller_pc, uint64_t arg1,
+                                        uint64_t arg2) {
+  record(Hook::kCmp8, caller_pc, arg1, arg2);
+}
+
+void __sanitizer_cov_trace_div4_with_pc(void *caller_pc, uint32_t val) {
+  record(Hook::kDiv4, caller_pc, val, 0);
+}
+
+void __sanitizer_cov_trace_div8_with_pc(void *caller_pc, uint64_t val) {
+  record(Hook::kDiv8, caller_pc, val, 0);
+}
+
+void __sanitizer_cov_trace_gep_with_pc(void *caller_pc, uintptr_t idx) {
+  record(Hook::kGep, caller_pc, idx, 0);
+}
+
+void __sanitizer_cov_trace_switch_with_pc(void *caller_pc, uint64_t val,
+                                          uint64_t *cases) {}
+
+void __sanitizer_cov_trace_pc_indir_with_pc(void *caller_pc,
+                                            uintptr_t callee) {}
+
+void __sanitizer_weak_hook_compare_bytes(void *caller_pc, const void *s1,
+                                         const void *s2, std::size_t n1,
+                                         std::size_t n2, int result) {}
+
+void __sanitizer_weak_hook_memmem(void *called_pc, const void *s1, size_t len1,
+                                  const void *s2, size_t len2, void *result) {}
+}
+
+namespace {
+// A single event as recorded by TraceDataFlowBatchedCallbacks.
+struct TraceEvent {
+  jint kind;
+  jint id;
+  jlong arg1;
+  jlong arg2;
+};
+
+// Mirrors how TraceDataFlowBatchedCallbacks widens int arguments to long.
+TraceEvent event(jint kind, jint id, jlong arg1, jlong arg2 = 0) {
+  return {kind, id, arg1, arg2};
+}
+
+// The primitive callbacks don't use the JNIEnv, so they can be called directly.
+TEST(TraceBatchTest, BatchedEventsAreReportedLikeUnbatchedOnes) {
+  calls.clear();
+  Java_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceCmpInt0(
+      nullptr, nullptr, -1, 42, 1);
+  Java_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceConstCmpInt0(
+      nullptr, nullptr, 7, INT32_MIN, 2);
+  Java_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceCmpLong0(
+      nullptr, nullptr, -1, INT64_MAX, 3);
+  Java_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceDivInt0(
+      nullptr, nullptr, -5, 4);
+  Java_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceDivLong0(
+      nullptr, nullptr, INT64_MIN, 5);
+  Java_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceGep0(
+      nullptr, nullptr, 123456789, 6);
+  std::vector<Call> unbatched = calls;
+  ASSERT_EQ(6, unbatched.size());
+
+  calls.clear();
+  const std::vector<TraceEvent> events = {
+      event(0, 1, -1, 42),        event(0, 2, 7, INT32_MIN),
+      event(1, 3, -1, INT64_MAX), event(2, 4, -5),
+      event(3, 5, INT64_MIN),     event(4, 6, 123456789),
+  };
+  Java_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceBatch0(
+      nullptr, nullptr, reinterpret_cast<jlong>(events.data()),
+      static_cast<jint>(events.size()));
+  EXPECT_EQ(unbatched, calls);
+
+  calls.clear();
+  Java_com_code_1intelligence_jazzer_runtime_TraceDataFlowNativeCallbacks_traceBatch0(
+      nullptr, nullptr, reinterpret_cast<jlong>(events.data()), 0);
+  EXPECT_TRUE(calls.empty());
+}
+}  // namespace
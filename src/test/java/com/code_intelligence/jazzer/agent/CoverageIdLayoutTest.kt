@@ -0,0 +1,112 @@
+/*
+ * Copyright 2024 Code Intelligence GmbH
+ *
+ * By downloading, you agree to the Code Intelligence Jazzer Terms and Conditions.
+ *
+ * The Code Intelligence Jazzer Terms and Conditions are provided in LICENSE-JAZZER.txt
+ * located in the root directory of the project.
+ */
+
+package com.code_intelligence.jazzer.agent
+
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.nio.file.Files
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+
+class CoverageIdLayoutTest {
+    @get:Rule
+    val tempFolder = TemporaryFolder()
+
+    private val layout = CoverageIdLayout(
+        listOf(
+            CoverageIdLayout.Entry("com/example/A", 0, 3),
+            CoverageIdLayout.Entry("com/example/B", 3, 0),
+            CoverageIdLayout.Entry("com/example/C", 3, 5),
+        ),
+    )
+
+    @Test
+    fun testWriteRead() {
+        val path = tempFolder.root.toPath().resolve("layout")
+        layout.write(path)
+        assertEquals(listOf("com/example/A:0:3", "com/example/B:3:0", "com/example/C:3:5"), Files.readAllLines(path))
+        // No temporary files are left behind.
+        assertEquals(listOf("layout"), tempFolder.root.list()!!.toList())
+
+        val readLayout = CoverageIdLayout.read(path)
+        assertEquals(layout.entries.map { it.toTriple() }, readLayout.entries.map { it.toTriple() })
+        assertEquals(8, readLayout.endId)
+
+        // Overwriting a layout replaces it.
+        CoverageIdLayout(layout.entries.take(1)).write(path)
+        assertEquals(listOf("com/example/A:0:3"), Files.readAllLines(path))
+    }
+
+    @Test
+    fun testReadInvalid() {
+        val path = tempFolder.newFile().toPath()
+        Files.write(path, listOf("com/example/A:0"))
+        assertFailsWith<IllegalStateException> { CoverageIdLayout.read(path) }
+        Files.write(path, listOf("com/example/A:0:-1"))
+        assertFailsWith<IllegalStateException> { CoverageIdLayout.read(path) }
+        Files.write(path, listOf("com/example/A:0:x"))
+        assertFailsWith<NumberFormatException> { CoverageIdLayout.read(path) }
+        // Blank lines are ignored.
+        Files.write(path, listOf("", "com/example/A:0:3", " "))
+        assertEquals(3, CoverageIdLayout.read(path).endId)
+    }
+
+    @Test
+    fun testReservedIds() {
+        val strategy = ReservedCoverageIdStrategy().apply { reserve(layout) }
+        assertEquals(3, strategy.firstIdForClass("com/example/C", 5))
+        assertEquals(0, strategy.firstIdForClass("com/example/A", 3))
+        assertEquals(3, strategy.firstIdForClass("com/example/B", 0))
+        assertEquals(layout.entries.map { it.toTriple() }, strategy.layout().entries.map { it.toTriple() })
+    }
+
+    @Test
+    fun testChangedAndMissingClassFallback() {
+        val strategy = ReservedCoverageIdStrategy().apply { reserve(layout) }
+        // A class whose edge count changed and a class missing from the layout receive IDs after the layout.
+        assertEquals(8, strategy.firstIdForClass("com/example/A", 4))
+        assertEquals(12, strategy.firstIdForClass("com/example/D", 2))
+        assertEquals(14, strategy.firstIdForClass("com/example/E", 1))
+        // The reservations are unaffected.
+        assertEquals(0, strategy.firstIdForClass("com/example/A", 3))
+    }
+
+    @Test
+    fun testChangedAndMissingClassFallbackAcrossProcesses() {
+        val idSyncFile = tempFolder.newFile().toPath()
+        // Simulates two processes that use the same layout and ID sync file, but load classes in a different order.
+        val first =
+            ReservedCoverageIdStrategy(MappedFileCoverageIdStrategy(idSyncFile, layout.endId)).apply { reserve(layout) }
+        val second =
+            ReservedCoverageIdStrategy(MappedFileCoverageIdStrategy(idSyncFile, layout.endId)).apply { reserve(layout) }
+
+        assertEquals(8, first.firstIdForClass("com/example/D", 2))
+        assertEquals(10, second.firstIdForClass("com/example/A", 4))
+        assertEquals(14, second.firstIdForClass("com/example/E", 1))
+        assertEquals(10, first.firstIdForClass("com/example/A", 4))
+        assertEquals(14, first.firstIdForClass("com/example/E", 1))
+        assertEquals(8, second.firstIdForClass("com/example/D", 2))
+        // Reserved classes don't use the ID sync file.
+        assertEquals(3, second.firstIdForClass("com/example/C", 5))
+        assertEquals(15, first.firstIdForClass("com/example/F", 1))
+    }
+
+    private fun CoverageIdLayout.Entry.toTriple() = Triple(internalClassName, firstId, numIds)
+
+    private fun CoverageIdStrategy.firstIdForClass(className: String, idCount: Int): Int {
+        var firstId = -1
+        withIdForClass(className, idCount) {
+            firstId = it
+            idCount
+        }
+        return firstId
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2024 Code Intelligence GmbH
+ *
+ * By downloading, you agree to the Code Intelligence Jazzer Terms and Conditions.
+ *
+ * The Code Intelligence Jazzer Terms and Conditions are provided in LICENSE-JAZZER.txt
+ * located in the root directory of the project.
+ */
+
+package com.code_intelligence.jazzer.agent
+
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import kotlin.streams.toList
+import kotlin.test.assertContentEquals
+import kotlin.test.assertEquals
+import kotlin.test.assertNotNull
+import kotlin.test.assertNull
+
+class InstrumentationCacheTest {
+    @get:Rule
+    val tempFolder = TemporaryFolder()
+
+    private val originalBytecode = "original bytecode of com/example/A".toByteArray()
+    private val instrumentedBytecode = "instrumented bytecode of com/example/A".toByteArray()
+
+    @Test
+    fun testHitAndMiss() {
+        val cacheDir = tempFolder.newFolder().toPath()
+        val cache = InstrumentationCache(cacheDir, SETTINGS)
+        assertNull(cache.get(CLASS_NAME, originalBytecode, 5))
+
+        cache.put(CLASS_NAME, originalBytecode, 5, InstrumentationCache.Entry(instrumentedBytecode, 3))
+        assertEntry(cache.get(CLASS_NAME, originalBytecode, 5))
+        // The cache is shared with other instances using the same directory, e.g. in other processes.
+        assertEntry(InstrumentationCache(cacheDir, SETTINGS).get(CLASS_NAME, originalBytecode, 5))
+
+        // Entries are only reused for the same original bytecode and first coverage ID.
+        assertNull(cache.get(CLASS_NAME, "other bytecode".toByteArray(), 5))
+        assertNull(cache.get(CLASS_NAME, originalBytecode, 6))
+        assertNull(cache.get(CLASS_NAME, originalBytecode, -1))
+    }
+
+    @Test
+    fun testSettingsChangeInvalidatesEntries() {
+        val cacheDir = tempFolder.newFolder().toPath()
+        InstrumentationCache(cacheDir, SETTINGS)
+            .put(CLASS_NAME, originalBytecode, 5, InstrumentationCache.Entry(instrumentedBytecode, 3))
+
+        assertNull(InstrumentationCache(cacheDir, "$SETTINGS\n--custom_hooks=com.example.Hooks").get(CLASS_NAME, originalBytecode, 5))
+        assertEntry(InstrumentationCache(cacheDir, SETTINGS).get(CLASS_NAME, originalBytecode, 5))
+    }
+
+    @Test
+    fun testCorruptedEntries() {
+        val cacheDir = tempFolder.newFolder().toPath()
+        val cache = InstrumentationCache(cacheDir, SETTINGS)
+        cache.put(CLASS_NAME, originalBytecode, 5, InstrumentationCache.Entry(instrumentedBytecode, 3))
+        val entryPath = entryFiles(cacheDir).single()
+        val content = Files.readAllBytes(entryPath)
+
+        fun assertRejected(corruptedContent: ByteArray) {
+            Files.write(entryPath, corruptedContent)
+            assertNull(cache.get(CLASS_NAME, originalBytecode, 5))
+        }
+
+        assertRejected(ByteArray(0))
+        // Truncated in the header, in the bytecode and in the checksum.
+        assertRejected(content.copyOf(2))
+        assertRejected(content.copyOf(content.size - Long.SIZE_BYTES - 1))
+        assertRejected(content.copyOf(content.size - 1))
+        assertRejected(content + 0.toByte())
+        assertRejected(content.copyOf().also { it[10] = (it[10] + 1).toByte() })
+        // A negative bytecode length.
+        assertRejected(content.copyOf().also { it[4] = 0x80.toByte() })
+
+        // A rejected entry is replaced when the class is instrumented again.
+        cache.put(CLASS_NAME, originalBytecode, 5, InstrumentationCache.Entry(instrumentedBytecode, 3))
+        assertEntry(cache.get(CLASS_NAME, originalBytecode, 5))
+    }
+
+    @Test
+    fun testConcurrentWriters() {
+        val cacheDir = tempFolder.newFolder().toPath()
+        val numThreads = 8
+        val executor = Executors.newFixedThreadPool(numThreads)
+        try {
+            val start = CountDownLatch(1)
+            // Every thread uses its own cache instance and writes the same entries, which simulates fuzzers running
+            // concurrently, while also reading the entries written by other threads.
+            val results = (0 until numThreads).map {
+                executor.submit(
+                    Callable {
+                        val cache = InstrumentationCache(cacheDir, SETTINGS)
+                        start.await()
+                        for (i in 0 until 200) {
+                            val original = "original $i".toByteArray()
+                            val entry = cache.get(CLASS_NAME, original, i)
+                            if (entry != null) {
+                                assertContentEquals("instrumented $i".toByteArray(), entry.bytecode)
+                                assertEquals(i, entry.numEdges)
+                            }
+                            cache.put(CLASS_NAME, original, i, InstrumentationCache.Entry("instrumented $i".toByteArray(), i))
+                        }
+                    },
+                )
+            }
+            start.countDown()
+            results.forEach { it.get() }
+        } finally {
+            executor.shutdownNow()
+        }
+
+        // No temporary files are left behind and all entries are complete.
+        assertEquals(200, entryFiles(cacheDir).size)
+        val cache = InstrumentationCache(cacheDir, SETTINGS)
+        for (i in 0 until 200) {
+            val entry = cache.get(CLASS_NAME, "original $i".toByteArray(), i)
+            assertNotNull(entry)
+            assertContentEquals("instrumented $i".toByteArray(), entry.bytecode)
+        }
+    }
+
+    private fun assertEntry(entry: InstrumentationCache.Entry?) {
+        assertNotNull(entry)
+        assertContentEquals(instrumentedBytecode, entry.bytecode)
+        assertEquals(3, entry.numEdges)
+    }
+
+    private fun entryFiles(cacheDir: Path) = Files.list(cacheDir).use { it.toList() }
+
+    companion object {
+        private const val CLASS_NAME = "com/example/A"
+        private const val SETTINGS = "--instrumentation_includes=com.example.**"
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2024 Code Intelligence GmbH
+ *
+ * By downloading, you agree to the Code Intelligence Jazzer Terms and Conditions.
+ *
+ * The Code Intelligence Jazzer Terms and Conditions are provided in LICENSE-JAZZER.txt
+ * located in the root directory of the project.
+ */
+
+package com.code_intelligence.jazzer.agent
+
+import com.code_intelligence.jazzer.agent.MappedFileCoverageIdStrategy.Companion.FIRST_ID_OFFSET
+import com.code_intelligence.jazzer.agent.MappedFileCoverageIdStrategy.Companion.ID_COUNT_OFFSET
+import com.code_intelligence.jazzer.agent.MappedFileCoverageIdStrategy.Companion.SECOND_HASH_OFFSET
+import com.code_intelligence.jazzer.agent.MappedFileCoverageIdStrategy.Companion.SLOT_SIZE
+import com.code_intelligence.jazzer.agent.MappedFileCoverageIdStrategy.Companion.TABLE_OFFSET
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.nio.channels.FileChannel
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.Paths
+import java.nio.file.StandardOpenOption
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import kotlin.random.Random
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+import kotlin.test.assertTrue
+
+class MappedFileCoverageIdStrategyTest {
+    @get:Rule
+    val tempFolder = TemporaryFolder()
+
+    @Test
+    fun testIdsAreSharedViaFile() {
+        val idSyncFile = tempFolder.newFile().toPath()
+        val first = MappedFileCoverageIdStrategy(idSyncFile)
+        val second = MappedFileCoverageIdStrategy(idSyncFile)
+
+        assertEquals(0, first.firstIdForClass("com/example/A", 3))
+        assertEquals(3, second.firstIdForClass("com/example/B", 0))
+        assertEquals(3, second.firstIdForClass("com/example/C", 5))
+        assertEquals(0, second.firstIdForClass("com/example/A", 3))
+        assertEquals(3, first.firstIdForClass("com/example/C", 5))
+        // The IDs are handed out relative to the minimum ID.
+        assertEquals(108, MappedFileCoverageIdStrategy(idSyncFile, 100).firstIdForClass("com/example/D", 1))
+
+        // A class keeps the number of IDs it was first encountered with.
+        val e = assertFailsWith<CoverageIdException> { first.firstIdForClass("com/example/A", 4) }
+        assertTrue(e.cause!!.message!!.contains("4 edges, but 3 edges reserved"))
+    }
+
+    @Test
+    fun testNotAnIdFile() {
+        val idSyncFile = tempFolder.newFile().toPath()
+        Files.write(idSyncFile, "not a coverage ID file".toByteArray())
+        assertFailsWith<CoverageIdException> { MappedFileCoverageIdStrategy(idSyncFile) }
+    }
+
+    @Test
+    fun testTableGrowth() {
+        val idSyncFile = tempFolder.newFile().toPath()
+        val strategy = MappedFileCoverageIdStrategy(idSyncFile, numSlots = 4)
+        // The file is grown to the size of the table when it is first mapped.
+        assertEquals(TABLE_OFFSET + 4 * SLOT_SIZE, Files.size(idSyncFile))
+        // All processes have to agree on the size of the table.
+        assertFailsWith<CoverageIdException> { MappedFileCoverageIdStrategy(idSyncFile, numSlots = 8) }
+
+        for (i in 0 until 4) {
+            assertEquals(i, strategy.firstIdForClass("com/example/C$i", 1))
+        }
+        // Probing finds all classes even if the table is full.
+        for (i in 0 until 4) {
+            assertEquals(i, strategy.firstIdForClass("com/example/C$i", 1))
+        }
+        val e = assertFailsWith<CoverageIdException> { strategy.firstIdForClass("com/example/C4", 1) }
+        assertTrue(e.cause!!.message!!.contains("No free slot"))
+    }
+
+    @Test
+    fun testHashCollision() {
+        val idSyncFile = tempFolder.newFile().toPath()
+        val strategy = MappedFileCoverageIdStrategy(idSyncFile, numSlots = 16)
+        // Simulate a different class whose first hash collides with that of com/example/A by claiming the slot of the
+        // latter with a different second hash.
+        val className = "com/example/A"
+        writeSlot(
+            idSyncFile,
+            MappedFileCoverageIdStrategy.hash(className).toInt() and 15,
+            MappedFileCoverageIdStrategy.hash(className),
+            MappedFileCoverageIdStrategy.secondHash(className) + 1,
+            firstId = 100,
+            idCountPlusOne = 11,
+        )
+
+        // The class doesn't share the IDs of the colliding class and is found again in the next slot.
+        assertEquals(0, strategy.firstIdForClass(className, 5))
+        assertEquals(0, MappedFileCoverageIdStrategy(idSyncFile, numSlots = 16).firstIdForClass(className, 5))
+        assertEquals(5, strategy.firstIdForClass("com/example/B", 1))
+    }
+
+    @Test
+    fun testPublishTimeout() {
+        val idSyncFile = tempFolder.newFile().toPath()
+        val strategy = MappedFileCoverageIdStrategy(
+            idSyncFile,
+            numSlots = 16,
+            publishTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(100),
+        )
+        // Simulate a process that died after claiming the slot of a class, but before publishing its IDs.
+        val className = "com/example/A"
+        writeSlot(
+            idSyncFile,
+            MappedFileCoverageIdStrategy.hash(className).toInt() and 15,
+            MappedFileCoverageIdStrategy.hash(className),
+            0,
+            firstId = 0,
+            idCountPlusOne = 0,
+        )
+
+        val start = System.nanoTime()
+        val e = assertFailsWith<CoverageIdException> { strategy.firstIdForClass(className, 1) }
+        assertTrue(e.cause!!.message!!.contains("Timed out"))
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100))
+        // Other classes are unaffected.
+        assertEquals(0, strategy.firstIdForClass("com/example/B", 1))
+    }
+
+    @Test
+    fun testConcurrentThreads() {
+        val idSyncFile = tempFolder.newFile().toPath()
+        val numThreads = 8
+        val executor = Executors.newFixedThreadPool(numThreads)
+        try {
+            val start = CountDownLatch(1)
+            // Half of the threads share a strategy, the others use their own, which simulates both concurrent
+            // instrumentation within a process and processes running concurrently.
+            val sharedStrategy = MappedFileCoverageIdStrategy(idSyncFile, numSlots = 1 shl 12)
+            val results = (0 until numThreads).map { thread ->
+                executor.submit(
+                    Callable {
+                        val strategy = if (thread % 2 == 0) {
+                            sharedStrategy
+                        } else {
+                            MappedFileCoverageIdStrategy(idSyncFile, numSlots = 1 shl 12)
+                        }
+                        start.await()
+                        claimIds(strategy, Random(thread))
+                    },
+                )
+            }
+            start.countDown()
+            assertConsistentIds(results.map { it.get() })
+        } finally {
+            executor.shutdownNow()
+        }
+    }
+
+    @Test
+    fun testConcurrentProcesses() {
+        val idSyncFile = tempFolder.newFile().toPath()
+        val java = Paths.get(System.getProperty("java.home"), "bin", "java").toString()
+        val processes = (0 until 4).map { seed ->
+            ProcessBuilder(
+                java,
+                "-cp",
+                System.getProperty("java.class.path"),
+                ClaimIds::class.java.name,
+                idSyncFile.toString(),
+                seed.toString(),
+            ).redirectError(ProcessBuilder.Redirect.INHERIT).start()
+        }
+        val results = processes.map { process ->
+            val lines = process.inputStream.bufferedReader().readLines()
+            assertEquals(0, process.waitFor())
+            lines.associate { line ->
+                val (className, firstId) = line.split(':')
+                className to firstId.toInt()
+            }
+        }
+        assertConsistentIds(results)
+    }
+
+    private fun writeSlot(
+        idSyncFile: Path,
+        slot: Int,
+        hash: Long,
+        secondHash: Long,
+        firstId: Int,
+        idCountPlusOne: Int,
+    ) {
+        val slotBuffer = ByteBuffer.allocate(SLOT_SIZE.toInt()).order(ByteOrder.nativeOrder())
+            .putLong(0, hash)
+            .putLong(SECOND_HASH_OFFSET.toInt(), secondHash)
+            .putInt(FIRST_ID_OFFSET.toInt(), firstId)
+            .putInt(ID_COUNT_OFFSET.toInt(), idCountPlusOne)
+        FileChannel.open(idSyncFile, StandardOpenOption.WRITE).use {
+            it.write(slotBuffer, TABLE_OFFSET + slot * SLOT_SIZE)
+        }
+    }
+
+    private fun assertConsistentIds(results: List<Map<String, Int>>) {
+        // Every class receives the same IDs everywhere and the IDs of distinct classes don't overlap.
+        for (result in results) {
+            assertEquals(results[0], result)
+        }
+        val ids = results[0].map { (className, firstId) -> firstId until firstId + idCount(className) }
+        assertEquals(
+            (0 until NUM_CLASSES).sumOf { idCount(className(it)) },
+            ids.flatten().toSet().size,
+        )
+        assertEquals(0, ids.minOf { it.first })
+    }
+
+    companion object {
+        private const val NUM_CLASSES = 1000
+
+        private fun className(i: Int) = "com/example/C$i"
+
+        private fun idCount(className: String) = className.hashCode() and 7
+
+        /**
+         * Obtains IDs for [NUM_CLASSES] classes in an order determined by [random] and returns them by class name.
+         */
+        fun claimIds(strategy: CoverageIdStrategy, random: Random): Map<String, Int> =
+            (0 until NUM_CLASSES).map(::className).shuffled(random).associateWith {
+                strategy.firstIdForClass(it, idCount(it))
+            }
+
+        private fun CoverageIdStrategy.firstIdForClass(className: String, idCount: Int): Int {
+            var firstId = -1
+            withIdForClass(className, idCount) {
+                firstId = it
+                idCount
+            }
+            return firstId
+        }
+    }
+}
+
+/**
+ * Claims IDs in the ID file given as the first argument in the order determined by the seed given as the second one
+ * and prints them as `<class name>:<first ID>` lines.
+ */
+object ClaimIds {
+    @JvmStatic
+    fun main(args: Array<String>) {
+        val strategy = MappedFileCoverageIdStrategy(Paths.get(args[0]), numSlots = 1 shl 12)
+        for ((className, firstId) in MappedFileCoverageIdStrategyTest.claimIds(strategy, Random(args[1].toInt()))) {
+            println("$className:$firstId")
+        }
+    }
+}
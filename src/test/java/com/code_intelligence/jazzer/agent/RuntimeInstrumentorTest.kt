@@ -0,0 +1,97 @@
+/*
+ * Copyright 2024 Code Intelligence GmbH
+ *
+ * By downloading, you agree to the Code Intelligence Jazzer Terms and Conditions.
+ *
+ * The Code Intelligence Jazzer Terms and Conditions are provided in LICENSE-JAZZER.txt
+ * located in the root directory of the project.
+ */
+
+package com.code_intelligence.jazzer.agent
+
+import com.code_intelligence.jazzer.api.HookType
+import com.code_intelligence.jazzer.api.MethodHook
+import com.code_intelligence.jazzer.instrumentor.Hooks
+import com.code_intelligence.jazzer.runtime.JazzerInternal
+import com.code_intelligence.jazzer.utils.ClassNameGlobber
+import net.bytebuddy.agent.ByteBuddyAgent
+import org.junit.Test
+import org.objectweb.asm.ClassReader
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.commons.ClassRemapper
+import org.objectweb.asm.commons.SimpleRemapper
+import java.lang.invoke.MethodHandle
+import java.util.function.Supplier
+import kotlin.test.assertEquals
+
+class RetransformationTarget : Supplier<String> {
+    override fun get(): String = Integer.toHexString(42)
+}
+
+object RetransformationHooks {
+    @JvmStatic
+    @MethodHook(type = HookType.REPLACE, targetClassName = "java.lang.Integer", targetMethod = "toHexString")
+    fun toHexString(method: MethodHandle, thisObject: Any?, arguments: Array<Any?>, hookId: Int): String = "hooked"
+}
+
+class RuntimeInstrumentorTest {
+    @Test
+    fun testRetransformationWithIndyHooks() {
+        // Classes in our own packages are never instrumented, so the target is loaded under a different name.
+        val targetClass = defineTargetClass()
+        val target = targetClass.getDeclaredConstructor().newInstance() as Supplier<*>
+        assertEquals("2a", target.get())
+
+        val instrumentation = ByteBuddyAgent.install()
+        val runtimeInstrumentor = RuntimeInstrumentor(
+            instrumentation,
+            ClassNameGlobber(emptyList(), listOf("**")),
+            ClassNameGlobber(listOf(TARGET_CLASS_NAME), emptyList()),
+            false,
+            emptySet(),
+            emptyList(),
+            Hooks.loadHooks(emptyList(), setOf(RetransformationHooks::class.java.name)).first().hooks,
+            false,
+            false,
+            true,
+            false,
+            ClassNameGlobber(emptyList(), listOf("**")),
+            MemSyncCoverageIdStrategy(),
+            null,
+        )
+        instrumentation.addTransformer(runtimeInstrumentor, true)
+        try {
+            // Retransformation can't add the methods that call sites dispatched via invokedynamic need, so if the
+            // instrumentor didn't fall back to conditional hooks, the class would be left unchanged.
+            instrumentation.retransformClasses(targetClass)
+        } finally {
+            instrumentation.removeTransformer(runtimeInstrumentor)
+        }
+        assertEquals("hooked", target.get())
+
+        try {
+            JazzerInternal.setHooksEnabled(false)
+            assertEquals("2a", target.get())
+        } finally {
+            JazzerInternal.setHooksEnabled(true)
+        }
+        assertEquals("hooked", target.get())
+    }
+
+    private fun defineTargetClass(): Class<*> {
+        val originalName = RetransformationTarget::class.java.name.replace('.', '/')
+        val bytecode = RetransformationTarget::class.java.getResourceAsStream("/$originalName.class")!!.use {
+            ClassReader(it.readBytes())
+        }.let { reader ->
+            val remapper = SimpleRemapper(originalName, TARGET_CLASS_NAME.replace('.', '/'))
+            ClassWriter(0).also { reader.accept(ClassRemapper(it, remapper), 0) }.toByteArray()
+        }
+        return object : ClassLoader(RuntimeInstrumentorTest::class.java.classLoader) {
+            fun define() = defineClass(TARGET_CLASS_NAME, bytecode, 0, bytecode.size)
+        }.define()
+    }
+
+    companion object {
+        private const val TARGET_CLASS_NAME = "com.example.RetransformationTarget"
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2024 Code Intelligence GmbH
+ *
+ * By downloading, you agree to the Code Intelligence Jazzer Terms and Conditions.
+ *
+ * The Code Intelligence Jazzer Terms and Conditions are provided in LICENSE-JAZZER.txt
+ * located in the root directory of the project.
+ */
+
+package com.code_intelligence.jazzer.autofuzz;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import com.code_intelligence.jazzer.autofuzz.ClasspathIndex.IndexedClass;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Modifier;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ClasspathIndexTest {
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  public interface Shape {}
+
+  public interface Polygon extends Shape {}
+
+  public abstract static class AbstractPolygon implements Polygon {}
+
+  public static class Triangle extends AbstractPolygon {}
+
+  static class Square extends AbstractPolygon {}
+
+  public static class Circle implements Shape {}
+
+  private static List<String> names(List<IndexedClass> classes) {
+    return classes.stream().map(info -> info.name).collect(Collectors.toList());
+  }
+
+  @Test
+  public void testScan() {
+    ClasspathIndex index = ClasspathIndex.rescan(true);
+
+    String prefix = ClasspathIndexTest.class.getName() + "$";
+    assertEquals(
+        Arrays.asList(prefix + "Circle", prefix + "Square", prefix + "Triangle"),
+        names(index.getImplementingClasses(Shape.class.getName())));
+    assertEquals(
+        Arrays.asList(prefix + "Square", prefix + "Triangle"),
+        names(index.getImplementingClasses(Polygon.class.getName())));
+    assertEquals(
+        Arrays.asList(prefix + "Square", prefix + "Triangle"),
+        names(index.getImplementingClasses(AbstractPolygon.class.getName())));
+    assertEquals(
+        Collections.emptyList(), index.getImplementingClasses(Triangle.class.getName()));
+
+    IndexedClass square = index.getImplementingClasses(Polygon.class.getName()).get(0);
+    assertEquals(ClasspathIndexTest.class.getPackage().getName(), square.getPackageName());
+    assertEquals(0, square.modifiers & (Modifier.PUBLIC | Modifier.PROTECTED | Modifier.PRIVATE));
+  }
+
+  @Test
+  public void testWriteAndRead() throws IOException {
+    Map<String, List<String>> subtypes = new HashMap<>();
+    subtypes.put("com.example.Zoo", Arrays.asList("com.example.Ape", "com.example.Lion"));
+    subtypes.put("com.example.Animal", Arrays.asList("com.example.Lion"));
+    subtypes.put("com.example.\u00dcnicode", Arrays.asList("Default"));
+    Map<String, Integer> modifiers = new HashMap<>();
+    modifiers.put("com.example.Ape", Modifier.PUBLIC);
+    modifiers.put("com.example.Lion", Modifier.PRIVATE | Modifier.STATIC);
+    Path path = temporaryFolder.getRoot().toPath().resolve("index");
+
+    ClasspathIndex.create(subtypes, modifiers).write(path);
+    ClasspathIndex index = ClasspathIndex.read(path);
+
+    List<IndexedClass> zoo = index.getImplementingClasses("com.example.Zoo");
+    assertEquals(Arrays.asList("com.example.Ape", "com.example.Lion"), names(zoo));
+    assertEquals(Modifier.PUBLIC, zoo.get(0).modifiers);
+    assertEquals(Modifier.PRIVATE | Modifier.STATIC, zoo.get(1).modifiers);
+    assertEquals(
+        Collections.singletonList("com.example.Lion"),
+        names(index.getImplementingClasses("com.example.Animal")));
+    List<IndexedClass> unicode = index.getImplementingClasses("com.example.\u00dcnicode");
+    assertEquals(Collections.singletonList("Default"), names(unicode));
+    assertEquals("", unicode.get(0).getPackageName());
+    assertEquals(Collections.emptyList(), index.getImplementingClasses("com.example.Ape"));
+    assertEquals(Collections.emptyList(), index.getImplementingClasses("com.example.Zebra"));
+    assertEquals(Collections.emptyList(), index.getImplementingClasses(""));
+  }
+
+  @Test
+  public void testReadInvalidIndex() throws IOException {
+    Path path = temporaryFolder.newFile().toPath();
+    Files.write(path, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16});
+
+    assertThrows(IOException.class, () -> ClasspathIndex.read(path));
+  }
+
+  @Test
+  public void testHashClasspath() throws IOException {
+    File directory = temporaryFolder.newFolder();
+    File classFile = new File(directory, "Foo.class");
+    Files.write(classFile.toPath(), new byte[] {1});
+    File jar = temporaryFolder.newFile("foo.jar");
+    List<File> classpath = Arrays.asList(directory, jar);
+
+    String hash = ClasspathIndex.hashClasspath(classpath, false);
+    assertEquals(hash, ClasspathIndex.hashClasspath(classpath, false));
+    assertNotEquals(hash, ClasspathIndex.hashClasspath(classpath, true));
+    assertNotEquals(hash, ClasspathIndex.hashClasspath(Collections.singletonList(jar), false));
+
+    Files.write(classFile.toPath(), new byte[] {1, 2});
+    String changedClassHash = ClasspathIndex.hashClasspath(classpath, false);
+    assertNotEquals(hash, changedClassHash);
+
+    Files.write(new File(directory, "Bar.class").toPath(), new byte[] {1});
+    assertNotEquals(changedClassHash, ClasspathIndex.hashClasspath(classpath, false));
+    assertTrue(hash.matches("[0-9a-f]{32}"));
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2024 Code Intelligence GmbH
+ *
+ * By downloading, you agree to the Code Intelligence Jazzer Terms and Conditions.
+ *
+ * The Code Intelligence Jazzer Terms and Conditions are provided in LICENSE-JAZZER.txt
+ * located in the root directory of the project.
+ */
+
+package com.code_intelligence.jazzer.autofuzz;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.code_intelligence.jazzer.api.AutofuzzConstructionException;
+import com.code_intelligence.jazzer.autofuzz.testdata.EmployeeWithSetters;
+import com.code_intelligence.jazzer.driver.FuzzedDataProviderImpl;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import org.junit.Test;
+
+public class ExecutablePlanTest {
+  public static class Point {
+    private final int x;
+    private final int y;
+
+    private Point(Builder builder) {
+      x = builder.x;
+      y = builder.y;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      Point point = (Point) o;
+      return x == point.x && y == point.y;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(x, y);
+    }
+
+    public static class Builder {
+      private int x;
+      private int y;
+
+      public Builder withX(int x) {
+        this.x = x;
+        return this;
+      }
+
+      public Builder withY(int y) {
+        this.y = y;
+        return this;
+      }
+
+      public Point build() {
+        return new Point(this);
+      }
+    }
+  }
+
+  public interface Shape {
+    long area();
+  }
+
+  public static class Square implements Shape {
+    private final long side;
+
+    public Square(long side) {
+      this.side = side;
+    }
+
+    @Override
+    public long area() {
+      return side * side;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Square && side == ((Square) o).side;
+    }
+
+    @Override
+    public int hashCode() {
+      return Long.hashCode(side);
+    }
+  }
+
+  public static class Label implements Shape {
+    private final String text;
+
+    public Label(String text) {
+      this.text = text;
+    }
+
+    @Override
+    public long area() {
+      return text.length();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Label && Objects.equals(text, ((Label) o).text);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(text);
+    }
+  }
+
+  public static List<Object> target(
+      EmployeeWithSetters employee, Point point, Map<String, Integer> map, Shape shape) {
+    return Arrays.asList(employee, point, map, shape);
+  }
+
+  // Consumes the arguments for the target with the given visitor and returns the result as well as
+  // the number of bytes left over.
+  private static List<Object> autofuzz(Meta meta, byte[] input, AutofuzzCodegenVisitor visitor)
+      throws NoSuchMethodException {
+    Method target =
+        ExecutablePlanTest.class.getMethod(
+            "target", EmployeeWithSetters.class, Point.class, Map.class, Shape.class);
+    try (FuzzedDataProviderImpl data = FuzzedDataProviderImpl.withJavaData(input)) {
+      Object result;
+      try {
+        result = meta.autofuzz(data, target, visitor);
+      } catch (AutofuzzConstructionException e) {
+        result = e.getClass();
+      }
+      return Arrays.asList(result, data.remainingBytes());
+    }
+  }
+
+  @Test
+  public void testPlansMatchCodegen() throws NoSuchMethodException {
+    // Without a visitor, Meta reuses the construction plans it caches, with a visitor it also
+    // generates code. Both have to construct the same objects from the same bytes.
+    Meta planMeta = new Meta(null);
+    Meta codegenMeta = new Meta(null);
+    Random random = new Random(42);
+    StringBuilder allCode = new StringBuilder();
+    for (int i = 0; i < 2000; i++) {
+      byte[] input = new byte[random.nextInt(200)];
+      random.nextBytes(input);
+      AutofuzzCodegenVisitor visitor = new AutofuzzCodegenVisitor();
+      List<Object> expected = autofuzz(codegenMeta, input, visitor);
+      assertEquals(expected, autofuzz(planMeta, input, null));
+      if (!(expected.get(0) instanceof Class)) {
+        allCode.append(visitor.generate());
+      }
+    }
+
+    // Verify that all kinds of construction have been exercised.
+    String code = allCode.toString();
+    assertTrue(code.contains(".setAge("));
+    assertTrue(code.contains(".withX("));
+    assertTrue(code.contains(".build()"));
+    assertTrue(code.contains("java.util.Map"));
+    assertTrue(code.contains("ExecutablePlanTest.Square("));
+    assertTrue(code.contains("ExecutablePlanTest.Label("));
+  }
+}
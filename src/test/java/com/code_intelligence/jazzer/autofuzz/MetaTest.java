@@ -21,6 +21,7 @@ import java.lang.reflect.Type;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Map;
+import java.util.Objects;
 import org.junit.Test;
 
 public class MetaTest {
@@ -251,6 +252,40 @@ public class MetaTest {
             0 /* first (and only) constructor*/));
   }
 
+  public static class LinkedNode {
+    private final LinkedNode next;
+
+    public LinkedNode(LinkedNode next) {
+      this.next = next;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof LinkedNode && Objects.equals(next, ((LinkedNode) o).next);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(next);
+    }
+  }
+
+  @Test
+  public void testRecursiveType() {
+    consumeTestCase(
+        new LinkedNode(new LinkedNode(null)),
+        "new com.code_intelligence.jazzer.autofuzz.MetaTest.LinkedNode(new"
+            + " com.code_intelligence.jazzer.autofuzz.MetaTest.LinkedNode((com.code_intelligence.jazzer.autofuzz.MetaTest.LinkedNode)"
+            + " null))",
+        Arrays.asList(
+            (byte) 1, // do not return null
+            0, // first (and only) constructor
+            (byte) 1, // do not return null
+            0, // first (and only) constructor
+            (byte) 0 // *do* return null
+            ));
+  }
+
   Class<?>[] returnsClassArray() {
     throw new IllegalStateException(
         "Should not be called, only exists to construct its generic return type");
@@ -18,7 +18,11 @@ import java.util.stream.Collectors;
 public class FuzzedDataProviderImplTest {
   public static void main(String[] args) {
     try (FuzzedDataProviderImpl fuzzedDataProvider =
-        FuzzedDataProviderImpl.withJavaData(INPUT_BYTES)) {
+        FuzzedDataProviderImpl.withJavaData(INPUT_BYTES, false)) {
+      verifyFuzzedDataProvider(fuzzedDataProvider);
+    }
+    try (FuzzedDataProviderImpl fuzzedDataProvider =
+        FuzzedDataProviderImpl.withJavaData(INPUT_BYTES, true)) {
       verifyFuzzedDataProvider(fuzzedDataProvider);
     }
   }
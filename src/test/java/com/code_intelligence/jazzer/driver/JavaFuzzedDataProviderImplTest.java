@@ -0,0 +1,209 @@
+/*
+ * Copyright 2024 Code Intelligence GmbH
+ *
+ * By downloading, you agree to the Code Intelligence Jazzer Terms and Conditions.
+ *
+ * The Code Intelligence Jazzer Terms and Conditions are provided in LICENSE-JAZZER.txt
+ * located in the root directory of the project.
+ */
+
+package com.code_intelligence.jazzer.driver;
+
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import com.code_intelligence.jazzer.api.FuzzedDataProvider;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.BiFunction;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Verifies that {@link JavaFuzzedDataProviderImpl} consumes the same bytes and returns the same
+ * values as the native {@link FuzzedDataProviderImpl} for random inputs and call sequences.
+ */
+public class JavaFuzzedDataProviderImplTest {
+  private static final int NUM_INPUTS = 10000;
+  private static final int MAX_CALLS_PER_INPUT = 20;
+
+  private static final List<BiFunction<FuzzedDataProvider, Random, Object>> CALLS =
+      new ArrayList<>();
+
+  static {
+    CALLS.add((data, random) -> data.consumeBoolean());
+    CALLS.add((data, random) -> data.consumeByte());
+    CALLS.add(
+        (data, random) -> {
+          byte a = (byte) random.nextInt();
+          byte b = (byte) random.nextInt();
+          return data.consumeByte((byte) Math.min(a, b), (byte) Math.max(a, b));
+        });
+    CALLS.add((data, random) -> data.consumeShort());
+    CALLS.add(
+        (data, random) -> {
+          short a = (short) random.nextInt();
+          short b = (short) random.nextInt();
+          return data.consumeShort((short) Math.min(a, b), (short) Math.max(a, b));
+        });
+    CALLS.add((data, random) -> data.consumeInt());
+    CALLS.add(
+        (data, random) -> {
+          int a = interestingInt(random);
+          int b = interestingInt(random);
+          return data.consumeInt(Math.min(a, b), Math.max(a, b));
+        });
+    CALLS.add((data, random) -> data.consumeLong());
+    CALLS.add(
+        (data, random) -> {
+          long a = interestingLong(random);
+          long b = interestingLong(random);
+          return data.consumeLong(Math.min(a, b), Math.max(a, b));
+        });
+    CALLS.add((data, random) -> data.consumeChar());
+    CALLS.add(
+        (data, random) -> {
+          char a = (char) random.nextInt();
+          char b = (char) random.nextInt();
+          return data.consumeChar((char) Math.min(a, b), (char) Math.max(a, b));
+        });
+    CALLS.add((data, random) -> data.consumeCharNoSurrogates());
+    CALLS.add((data, random) -> data.consumeFloat());
+    CALLS.add((data, random) -> data.consumeRegularFloat());
+    CALLS.add(
+        (data, random) -> {
+          float a = interestingFloat(random);
+          float b = interestingFloat(random);
+          return data.consumeRegularFloat(Math.min(a, b), Math.max(a, b));
+        });
+    CALLS.add((data, random) -> data.consumeProbabilityFloat());
+    CALLS.add((data, random) -> data.consumeDouble());
+    CALLS.add((data, random) -> data.consumeRegularDouble());
+    CALLS.add(
+        (data, random) -> {
+          double a = interestingDouble(random);
+          double b = interestingDouble(random);
+          return data.consumeRegularDouble(Math.min(a, b), Math.max(a, b));
+        });
+    CALLS.add((data, random) -> data.consumeProbabilityDouble());
+    // Native boolean arrays may contain values other than 0 and 1, which Arrays.equals treats as
+    // different from true.
+    CALLS.add((data, random) -> Arrays.toString(data.consumeBooleans(maxLength(random))));
+    CALLS.add((data, random) -> data.consumeBytes(maxLength(random)));
+    CALLS.add((data, random) -> data.consumeShorts(maxLength(random)));
+    CALLS.add((data, random) -> data.consumeInts(maxLength(random)));
+    CALLS.add((data, random) -> data.consumeLongs(maxLength(random)));
+    CALLS.add((data, random) -> data.consumeAsciiString(maxLength(random)));
+    CALLS.add((data, random) -> data.consumeString(maxLength(random)));
+    CALLS.add((data, random) -> data.consumeRemainingAsBytes());
+    CALLS.add((data, random) -> data.consumeRemainingAsAsciiString());
+    CALLS.add((data, random) -> data.consumeRemainingAsString());
+  }
+
+  @Test
+  void testSameResultsAsNative() {
+    Random random = new Random(0);
+    for (int i = 0; i < NUM_INPUTS; i++) {
+      byte[] input = randomInput(random);
+      long seed = random.nextLong();
+      try (FuzzedDataProviderImpl nativeData = FuzzedDataProviderImpl.withJavaData(input, false);
+          FuzzedDataProviderImpl javaData = FuzzedDataProviderImpl.withJavaData(input, true)) {
+        Random nativeRandom = new Random(seed);
+        Random javaRandom = new Random(seed);
+        int numCalls = nativeRandom.nextInt(MAX_CALLS_PER_INPUT);
+        javaRandom.nextInt(MAX_CALLS_PER_INPUT);
+        for (int call = 0; call < numCalls; call++) {
+          int index = nativeRandom.nextInt(CALLS.size());
+          javaRandom.nextInt(CALLS.size());
+          Object expected = invoke(CALLS.get(index), nativeData, nativeRandom);
+          Object actual = invoke(CALLS.get(index), javaData, javaRandom);
+          String message =
+              String.format("call %d (#%d) on input %s", call, index, Arrays.toString(input));
+          assertWithMessage(message)
+              .that(new Object[] {actual})
+              .isEqualTo(new Object[] {expected});
+          assertWithMessage(message)
+              .that(javaData.remainingBytes())
+              .isEqualTo(nativeData.remainingBytes());
+        }
+      }
+    }
+  }
+
+  private static Object invoke(
+      BiFunction<FuzzedDataProvider, Random, Object> call,
+      FuzzedDataProvider data,
+      Random random) {
+    try {
+      return call.apply(data, random);
+    } catch (IllegalArgumentException e) {
+      return e.getClass();
+    }
+  }
+
+  private static byte[] randomInput(Random random) {
+    byte[] input = new byte[random.nextInt(64)];
+    for (int i = 0; i < input.length; i++) {
+      // Favor bytes that are interesting for the string and floating point special cases.
+      switch (random.nextInt(4)) {
+        case 0:
+          input[i] = (byte) random.nextInt(11);
+          break;
+        case 1:
+          input[i] = (byte) (random.nextBoolean() ? '\\' : 0xED);
+          break;
+        default:
+          input[i] = (byte) random.nextInt();
+      }
+    }
+    return input;
+  }
+
+  private static int maxLength(Random random) {
+    return random.nextInt(20) - 1;
+  }
+
+  private static int interestingInt(Random random) {
+    switch (random.nextInt(3)) {
+      case 0:
+        return random.nextBoolean() ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+      case 1:
+        return random.nextInt(256) - 128;
+      default:
+        return random.nextInt();
+    }
+  }
+
+  private static long interestingLong(Random random) {
+    switch (random.nextInt(3)) {
+      case 0:
+        return random.nextBoolean() ? Long.MIN_VALUE : Long.MAX_VALUE;
+      case 1:
+        return random.nextInt(256) - 128;
+      default:
+        return random.nextLong();
+    }
+  }
+
+  private static float interestingFloat(Random random) {
+    switch (random.nextInt(3)) {
+      case 0:
+        return random.nextBoolean() ? -Float.MAX_VALUE : Float.MAX_VALUE;
+      case 1:
+        return random.nextFloat() * 10 - 5;
+      default:
+        return Float.intBitsToFloat(random.nextInt() & ~0x40000000);
+    }
+  }
+
+  private static double interestingDouble(Random random) {
+    switch (random.nextInt(3)) {
+      case 0:
+        return random.nextBoolean() ? -Double.MAX_VALUE : Double.MAX_VALUE;
+      case 1:
+        return random.nextDouble() * 10 - 5;
+      default:
+        return Double.longBitsToDouble(random.nextLong() & ~0x4000000000000000L);
+    }
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2024 Code Intelligence GmbH
+ *
+ * By downloading, you agree to the Code Intelligence Jazzer Terms and Conditions.
+ *
+ * The Code Intelligence Jazzer Terms and Conditions are provided in LICENSE-JAZZER.txt
+ * located in the root directory of the project.
+ */
+
+package com.code_intelligence.jazzer.driver;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.code_intelligence.jazzer.utils.UnsafeProvider;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import sun.misc.Unsafe;
+
+class NativeMemoryStreamsTest {
+  private static final Unsafe UNSAFE = UnsafeProvider.getUnsafe();
+  private static final int CAPACITY = 16;
+
+  private long memory;
+
+  @BeforeEach
+  void allocate() {
+    memory = UNSAFE.allocateMemory(CAPACITY);
+    UNSAFE.setMemory(memory, CAPACITY, (byte) 0);
+  }
+
+  @AfterEach
+  void free() {
+    UNSAFE.freeMemory(memory);
+  }
+
+  @Test
+  void testInputStream() {
+    for (int i = 0; i < CAPACITY; i++) {
+      UNSAFE.putByte(memory + i, (byte) (0xF0 + i));
+    }
+    NativeMemoryInputStream in = new NativeMemoryInputStream().reset(memory, 6);
+
+    assertThat(in.available()).isEqualTo(6);
+    assertThat(in.read()).isEqualTo(0xF0);
+    assertThat(in.skip(1)).isEqualTo(1);
+
+    byte[] buffer = new byte[8];
+    assertThat(in.read(buffer, 1, 0)).isEqualTo(0);
+    assertThat(in.read(buffer, 1, 7)).isEqualTo(4);
+    assertThat(buffer)
+        .isEqualTo(new byte[] {0, (byte) 0xF2, (byte) 0xF3, (byte) 0xF4, (byte) 0xF5, 0, 0, 0});
+    assertThat(in.available()).isEqualTo(0);
+    assertThat(in.read()).isEqualTo(-1);
+    assertThat(in.read(buffer, 0, 1)).isEqualTo(-1);
+    assertThat(in.skip(1)).isEqualTo(0);
+
+    in.reset(memory + 10, 1);
+    assertThat(in.read()).isEqualTo(0xFA);
+    assertThat(in.read()).isEqualTo(-1);
+  }
+
+  @Test
+  void testOutputStreamTruncates() throws IOException {
+    NativeMemoryOutputStream out = new NativeMemoryOutputStream().reset(memory, 5);
+    DataOutputStream dataOut = new DataOutputStream(out);
+    dataOut.writeByte(0x12);
+    dataOut.writeInt(0x34567890);
+    assertThat(out.isTruncated()).isFalse();
+    dataOut.write(new byte[] {1, 2, 3});
+    dataOut.writeByte(4);
+
+    assertThat(out.size()).isEqualTo(5);
+    assertThat(out.isTruncated()).isTrue();
+    DataInputStream in = new DataInputStream(new NativeMemoryInputStream().reset(memory, 6));
+    assertThat(in.readByte()).isEqualTo(0x12);
+    assertThat(in.readInt()).isEqualTo(0x34567890);
+    // The byte after the capacity has not been written to.
+    assertThat(in.readByte()).isEqualTo(0);
+
+    out.reset(memory, CAPACITY);
+    assertThat(out.size()).isEqualTo(0);
+    assertThat(out.isTruncated()).isFalse();
+    out.write(0xAB);
+    assertThat(out.size()).isEqualTo(1);
+    assertThat(UNSAFE.getByte(memory)).isEqualTo((byte) 0xAB);
+  }
+
+  @Test
+  void testLastMutatedInput() throws IOException {
+    LastMutatedInput lastMutatedInput = new LastMutatedInput();
+    assertThat(lastMutatedInput.matches(memory, 0)).isFalse();
+
+    NativeMemoryOutputStream out = new NativeMemoryOutputStream().reset(memory, CAPACITY);
+    new DataOutputStream(out).writeLong(0x0123456789ABCDEFL);
+    out.write(0x42);
+    lastMutatedInput.remember(out);
+    // The input the mutator has just produced can be reused.
+    assertThat(lastMutatedInput.matches(memory, 9)).isTrue();
+
+    // A copy of the input elsewhere in memory is recognized as well.
+    long copy = memory + 10;
+    out.reset(copy, 4).write(new byte[] {1, 2, 3, 4});
+    lastMutatedInput.remember(out);
+    UNSAFE.copyMemory(copy, memory, 4);
+    assertThat(lastMutatedInput.matches(memory, 4)).isTrue();
+
+    // Inputs that differ in length or content have to be read again.
+    assertThat(lastMutatedInput.matches(memory, 3)).isFalse();
+    assertThat(lastMutatedInput.matches(memory, 5)).isFalse();
+    UNSAFE.putByte(memory + 3, (byte) 5);
+    assertThat(lastMutatedInput.matches(memory, 4)).isFalse();
+    UNSAFE.putByte(memory + 3, (byte) 4);
+    assertThat(lastMutatedInput.matches(memory, 4)).isTrue();
+
+    // Once the arguments have been exposed, they can't be reused.
+    lastMutatedInput.forget();
+    assertThat(lastMutatedInput.matches(memory, 4)).isFalse();
+
+    // A truncated input doesn't deserialize to the mutator's arguments in general.
+    out.reset(memory, 4).write(new byte[] {1, 2, 3, 4, 5});
+    lastMutatedInput.remember(out);
+    assertThat(lastMutatedInput.matches(memory, 4)).isFalse();
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2024 Code Intelligence GmbH
+ *
+ * By downloading, you agree to the Code Intelligence Jazzer Terms and Conditions.
+ *
+ * The Code Intelligence Jazzer Terms and Conditions are provided in LICENSE-JAZZER.txt
+ * located in the root directory of the project.
+ */
+
+package com.code_intelligence.jazzer.driver;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Verifies that the coverage IDs assigned by {@link OfflineInstrumentor} don't depend on the number
+ * of threads the classes of a jar are instrumented with.
+ */
+public class OfflineInstrumentorTest {
+  @TempDir Path tempDir;
+
+  @Test
+  public void coverageIdsDoNotDependOnParallelism() throws IOException, InterruptedException {
+    // A jar that isn't on the classpath of the test and thus isn't loaded by it.
+    Path jar = Paths.get(System.getProperty("offline_instrumentation_target")).toAbsolutePath();
+    Path fewThreadsDir = instrument(jar, 1);
+    Path manyThreadsDir = instrument(jar, 8);
+
+    String layout =
+        new String(Files.readAllBytes(fewThreadsDir.resolve("layout.txt")), StandardCharsets.UTF_8);
+    assertThat(layout).contains("com/google/json/JsonSanitizer:");
+    assertThat(Files.readAllBytes(manyThreadsDir.resolve("layout.txt")))
+        .isEqualTo(layout.getBytes(StandardCharsets.UTF_8));
+
+    // The IDs are embedded in the instrumented bytecode, which also covers classes without a
+    // reservation. Classes are dumped into a directory named after the jar they are loaded from.
+    String jarBaseName = jar.getFileName().toString().replaceFirst("\\.jar$", "");
+    Map<String, byte[]> fewThreadsClasses =
+        instrumentedClasses(fewThreadsDir.resolve("dump").resolve(jarBaseName));
+    Map<String, byte[]> manyThreadsClasses =
+        instrumentedClasses(manyThreadsDir.resolve("dump").resolve(jarBaseName));
+    assertThat(fewThreadsClasses).containsKey("com/google/json/JsonSanitizer.class");
+    assertThat(manyThreadsClasses.keySet()).containsExactlyElementsIn(fewThreadsClasses.keySet());
+    for (Map.Entry<String, byte[]> entry : fewThreadsClasses.entrySet()) {
+      assertWithMessage(entry.getKey())
+          .that(manyThreadsClasses.get(entry.getKey()))
+          .isEqualTo(entry.getValue());
+    }
+  }
+
+  /**
+   * Instruments the given jar in a new JVM whose parallel streams use the given number of threads
+   * and returns the directory containing the coverage ID layout and the dumped classes.
+   */
+  private Path instrument(Path jar, int parallelism) throws IOException, InterruptedException {
+    Path workDir = Files.createDirectory(tempDir.resolve("parallelism_" + parallelism));
+    Path dumpDir = Files.createDirectory(workDir.resolve("dump"));
+    Process process =
+        new ProcessBuilder(
+                Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-XX:+IgnoreUnrecognizedVMOptions",
+                "-XX:+EnableDynamicAgentLoading",
+                "-Djava.util.concurrent.ForkJoinPool.common.parallelism=" + parallelism,
+                "-Djazzer.instrument_only=" + jar,
+                "-Djazzer.instrumentation_includes=com.google.json.**",
+                "-Djazzer.dump_classes_dir=" + dumpDir,
+                "-Djazzer.coverage_id_layout=" + workDir.resolve("layout.txt"),
+                "-cp",
+                System.getProperty("java.class.path"),
+                OfflineInstrumentorTest.class.getName())
+            .directory(workDir.toFile())
+            .inheritIO()
+            .start();
+    assertThat(process.waitFor()).isEqualTo(0);
+    return workDir;
+  }
+
+  /** Returns the instrumented classes in the given directory by their relative path. */
+  private static Map<String, byte[]> instrumentedClasses(Path dir) throws IOException {
+    Map<String, byte[]> classes = new TreeMap<>();
+    try (Stream<Path> files = Files.walk(dir)) {
+      for (Path file : (Iterable<Path>) files::iterator) {
+        String path = dir.relativize(file).toString().replace(File.separatorChar, '/');
+        if (path.endsWith(".class") && !path.endsWith(".original.class")) {
+          classes.put(path, Files.readAllBytes(file));
+        }
+      }
+    }
+    return classes;
+  }
+
+  public static void main(String[] args) {
+    System.exit(OfflineInstrumentor.instrumentJars(Opt.instrumentOnly.get()) ? 0 : 1);
+  }
+}
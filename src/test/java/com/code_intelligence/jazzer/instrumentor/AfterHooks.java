@@ -59,6 +59,19 @@ public class AfterHooks {
     ((AfterHooksTargetContract) thisObject).verifySecondSecret((String) returnValue);
   }
 
+  @MethodHook(
+      type = HookType.AFTER,
+      targetClassName = "com.code_intelligence.jazzer.instrumentor.AfterHooksTarget",
+      targetMethod = "getFourthSecret",
+      targetMethodDescriptor = "(BJ)I")
+  public static void patchGetFourthSecret(
+      Object thisObject, byte tens, long ones, int hookId, int returnValue) {
+    // The typed hook receives the arguments and the return value without boxing.
+    if (tens == 4 && ones == 2) {
+      ((AfterHooksTargetContract) thisObject).verifyFourthSecret(returnValue);
+    }
+  }
+
   // Verify the interaction of a BEFORE and an AFTER hook. The BEFORE hook modifies the argument of
   // the StringBuilder constructor.
   @MethodHook(
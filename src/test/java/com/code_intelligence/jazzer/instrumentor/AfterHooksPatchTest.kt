@@ -13,6 +13,7 @@ package com.code_intelligence.jazzer.instrumentor
 
 import com.code_intelligence.jazzer.instrumentor.PatchTestUtils.bytecodeToClass
 import com.code_intelligence.jazzer.instrumentor.PatchTestUtils.classToBytecode
+import com.code_intelligence.jazzer.runtime.JazzerInternal
 import org.junit.Test
 import java.io.File
 
@@ -31,13 +32,17 @@ private fun getNoHooksAfterHooksTargetInstance(): AfterHooksTargetContract {
     return patchedClass.getDeclaredConstructor().newInstance() as AfterHooksTargetContract
 }
 
-private fun getPatchedAfterHooksTargetInstance(classWithHooksEnabledField: Class<*>?): AfterHooksTargetContract {
+private fun getPatchedAfterHooksTargetInstance(
+    classWithHooksEnabledField: Class<*>?,
+    indyHooks: Boolean = false,
+): AfterHooksTargetContract {
     val originalBytecode = classToBytecode(AfterHooksTarget::class.java)
     val hooks = Hooks.loadHooks(emptyList(), setOf(AfterHooks::class.java.name)).first().hooks
     val patchedBytecode = HookInstrumentor(
         hooks,
         false,
         classWithHooksEnabledField = classWithHooksEnabledField?.name?.replace('.', '/'),
+        indyHooks = indyHooks,
     ).instrument(AfterHooksTarget::class.java.name.replace('.', '/'), originalBytecode)
     // Make the patched class available in bazel-testlogs/.../test.outputs for manual inspection.
     val outDir = System.getenv("TEST_UNDECLARED_OUTPUTS_DIR")
@@ -83,4 +88,19 @@ class AfterHooksPatchTest {
     fun testPatchedWithConditionalHooksDisabled() {
         assertSelfCheck(getPatchedAfterHooksTargetInstance(HooksDisabled::class.java), false)
     }
+
+    @Test
+    fun testPatchedWithIndyHooks() {
+        val patchedClass = getPatchedAfterHooksTargetInstance(JazzerInternal::class.java, indyHooks = true).javaClass
+        val newInstance = { patchedClass.getDeclaredConstructor().newInstance() as AfterHooksTargetContract }
+        assertSelfCheck(newInstance(), true)
+        try {
+            // Disabling the hooks relinks the existing call sites to the original methods.
+            JazzerInternal.setHooksEnabled(false)
+            assertSelfCheck(newInstance(), false)
+        } finally {
+            JazzerInternal.setHooksEnabled(true)
+        }
+        assertSelfCheck(newInstance(), true)
+    }
 }
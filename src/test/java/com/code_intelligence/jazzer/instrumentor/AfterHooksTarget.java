@@ -43,6 +43,9 @@ public class AfterHooksTarget implements AfterHooksTargetContract {
     verifyThirdSecret("not_the_secret");
     new StringBuilder("not_hunter3");
 
+    verifyFourthSecret(0);
+    getFourthSecret((byte) 4, 2L);
+
     return results;
   }
 
@@ -77,4 +80,13 @@ public class AfterHooksTarget implements AfterHooksTargetContract {
   public void verifyThirdSecret(String secret) {
     results.put("verifyThirdSecret", secret.equals("hunter3"));
   }
+
+  @SuppressWarnings("UnusedReturnValue")
+  int getFourthSecret(byte tens, long ones) {
+    return tens * 10 + (int) ones;
+  }
+
+  public void verifyFourthSecret(int secret) {
+    results.put("verifyFourthSecret", secret == 42);
+  }
 }
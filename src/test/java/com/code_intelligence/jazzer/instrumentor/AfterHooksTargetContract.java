@@ -21,4 +21,6 @@ public interface AfterHooksTargetContract extends DynamicTestContract {
   void verifySecondSecret(String secret);
 
   void verifyThirdSecret(String secret);
+
+  void verifyFourthSecret(int secret);
 }
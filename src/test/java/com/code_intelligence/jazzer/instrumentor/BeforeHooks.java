@@ -49,4 +49,16 @@ public class BeforeHooks {
       ((BeforeHooksTargetContract) thisObject).setFuncWithArgsCalled((Boolean) arguments[0]);
     }
   }
+
+  @MethodHook(
+      type = HookType.BEFORE,
+      targetClassName = "com.code_intelligence.jazzer.instrumentor.BeforeHooksTarget",
+      targetMethod = "hasFuncWithPrimitiveArgsBeenCalled",
+      targetMethodDescriptor = "(CD)Z")
+  public static void patchHasFuncWithPrimitiveArgsBeenCalled(
+      Object thisObject, int charArgument, double doubleArgument, int hookId) {
+    // The typed hook receives the char argument as an int.
+    ((BeforeHooksTargetContract) thisObject)
+        .setFuncWithPrimitiveArgsCalled(charArgument == 'a' && doubleArgument == 1.5);
+  }
 }
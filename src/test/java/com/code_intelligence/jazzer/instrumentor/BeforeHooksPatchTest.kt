@@ -11,10 +11,15 @@
 
 package com.code_intelligence.jazzer.instrumentor
 
+import com.code_intelligence.jazzer.api.HookType
+import com.code_intelligence.jazzer.api.MethodHook
 import com.code_intelligence.jazzer.instrumentor.PatchTestUtils.bytecodeToClass
 import com.code_intelligence.jazzer.instrumentor.PatchTestUtils.classToBytecode
 import org.junit.Test
+import java.io.ByteArrayOutputStream
 import java.io.File
+import java.io.PrintStream
+import kotlin.test.assertContains
 
 private fun getOriginalBeforeHooksTargetInstance(): BeforeHooksTargetContract {
     return BeforeHooksTarget()
@@ -83,4 +88,41 @@ class BeforeHooksPatchTest {
     fun testPatchedWithConditionalHooksDisabled() {
         assertSelfCheck(getPatchedBeforeHooksTargetInstance(HooksDisabled::class.java), false)
     }
+
+    object ReceiverMismatchHooks {
+        // Lacks the receiver of the instance method it targets.
+        @JvmStatic
+        @MethodHook(
+            type = HookType.BEFORE,
+            targetClassName = "com.code_intelligence.jazzer.instrumentor.BeforeHooksTarget",
+            targetMethod = "hasFuncWithPrimitiveArgsBeenCalled",
+            targetMethodDescriptor = "(CD)Z",
+        )
+        fun patchHasFuncWithPrimitiveArgsBeenCalled(charArgument: Int, doubleArgument: Double, hookId: Int) {
+            throw IllegalStateException("hook with mismatched receiver must not be applied")
+        }
+    }
+
+    @Test
+    fun testTypedHookWithMismatchedReceiver() {
+        val hooks = Hooks.loadHooks(emptyList(), setOf(ReceiverMismatchHooks::class.java.name)).first().hooks
+        val originalErr = System.err
+        val err = ByteArrayOutputStream()
+        val patchedBytecode = try {
+            System.setErr(PrintStream(err, true))
+            HookInstrumentor(hooks, false, null).instrument(
+                BeforeHooksTarget::class.java.name.replace('.', '/'),
+                classToBytecode(BeforeHooksTarget::class.java),
+            )
+        } finally {
+            System.setErr(originalErr)
+        }
+        assertContains(
+            err.toString(),
+            "not applied to com.code_intelligence.jazzer.instrumentor.BeforeHooksTarget." +
+                "hasFuncWithPrimitiveArgsBeenCalled(CD)Z, which is an instance method",
+        )
+        val patchedClass = bytecodeToClass(BeforeHooksTarget::class.java.name, patchedBytecode)
+        assertSelfCheck(patchedClass.getDeclaredConstructor().newInstance() as BeforeHooksTargetContract, false)
+    }
 }
@@ -18,6 +18,7 @@ public class BeforeHooksTarget implements BeforeHooksTargetContract {
   Map<String, Boolean> results = new HashMap<>();
   Boolean func1Called = false;
   Boolean funcWithArgsCalled = false;
+  Boolean funcWithPrimitiveArgsCalled = false;
 
   static Integer getTimesCalled() {
     return ++timesCalled;
@@ -35,6 +36,8 @@ public class BeforeHooksTarget implements BeforeHooksTargetContract {
       results.put("hasBeenCalledWithArgs", hasFuncWithArgsBeenCalled(true, "foo"));
     }
 
+    results.put("hasBeenCalledWithPrimitiveArgs", hasFuncWithPrimitiveArgsBeenCalled('a', 1.5));
+
     return results;
   }
 
@@ -53,4 +56,12 @@ public class BeforeHooksTarget implements BeforeHooksTargetContract {
   private boolean hasFuncWithArgsBeenCalled(Boolean boolArgument, String stringArgument) {
     return funcWithArgsCalled;
   }
+
+  public void setFuncWithPrimitiveArgsCalled(Boolean val) {
+    funcWithPrimitiveArgsCalled = val;
+  }
+
+  private boolean hasFuncWithPrimitiveArgsBeenCalled(char charArgument, double doubleArgument) {
+    return funcWithPrimitiveArgsCalled;
+  }
 }
@@ -17,4 +17,6 @@ public interface BeforeHooksTargetContract extends DynamicTestContract {
   void func1();
 
   void setFuncWithArgsCalled(Boolean val);
+
+  void setFuncWithPrimitiveArgsCalled(Boolean val);
 }
@@ -30,6 +30,18 @@ public class CoverageInstrumentationSpecialCasesTarget {
     }
   }
 
+  public int consecutiveTryCatch(int[] array) {
+    try {
+      array[0] = 1;
+    } catch (RuntimeException e) {
+    }
+    try {
+      array[1] = 2;
+    } catch (RuntimeException e) {
+    }
+    return array.length;
+  }
+
   public static class ReturnClass {
     public ReturnClass(String content) {}
   }
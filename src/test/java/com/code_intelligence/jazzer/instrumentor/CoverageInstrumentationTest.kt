@@ -12,10 +12,14 @@ package com.code_intelligence.jazzer.instrumentor
 import com.code_intelligence.jazzer.instrumentor.PatchTestUtils.bytecodeToClass
 import com.code_intelligence.jazzer.instrumentor.PatchTestUtils.classToBytecode
 import org.junit.Test
+import org.objectweb.asm.ClassReader
+import org.objectweb.asm.ClassWriter
 import org.objectweb.asm.MethodVisitor
 import org.objectweb.asm.Opcodes
 import java.io.File
+import kotlin.test.assertContentEquals
 import kotlin.test.assertEquals
+import kotlin.test.assertTrue
 
 /**
  * Amends the instrumentation performed by [strategy] to call the map's public static void method
@@ -38,12 +42,13 @@ private fun getOriginalInstrumentationTargetInstance(): DynamicTestContract {
     return CoverageInstrumentationTarget()
 }
 
-private fun getInstrumentedInstrumentationTargetInstance(): DynamicTestContract {
+private fun getInstrumentedInstrumentationTargetInstance(pruneProbes: Boolean = false): DynamicTestContract {
     val originalBytecode = classToBytecode(CoverageInstrumentationTarget::class.java)
     val patchedBytecode = EdgeCoverageInstrumentor(
         makeTestable(ClassInstrumentor.defaultEdgeCoverageStrategy),
         MockCoverageMap::class.java,
         0,
+        pruneProbes,
     ).instrument(CoverageInstrumentationTarget::class.java.name.replace('.', '/'), originalBytecode)
     // Make the patched class available in bazel-testlogs/.../test.outputs for manual inspection.
     val outDir = System.getenv("TEST_UNDECLARED_OUTPUTS_DIR")
@@ -150,6 +155,64 @@ class CoverageInstrumentationTest {
         }
     }
 
+    @Test
+    fun testPrunedProbes() {
+        val originalBytecode = classToBytecode(CoverageInstrumentationTarget::class.java)
+        val numEdges = EdgeCoverageInstrumentor.countEdges(originalBytecode)
+        fun coveredEdges(pruneProbes: Boolean): BooleanArray {
+            MockCoverageMap.clear()
+            assertSelfCheck(getInstrumentedInstrumentationTargetInstance(pruneProbes))
+            return BooleanArray(numEdges) { MockCoverageMap.counters[it] != 0.toByte() }
+        }
+
+        val expectedCoverage = coveredEdges(pruneProbes = false)
+        val prunedCoverage = coveredEdges(pruneProbes = true)
+        assertTrue(prunedCoverage.count { it } < expectedCoverage.count { it })
+        EdgeCoverageInstrumentor.reconstructPrunedProbes(originalBytecode, prunedCoverage)
+        assertContentEquals(expectedCoverage, prunedCoverage)
+
+        val specialCasesBytecode = classToBytecode(CoverageInstrumentationSpecialCasesTarget::class.java)
+        val patchedSpecialCasesBytecode = EdgeCoverageInstrumentor(
+            ClassInstrumentor.defaultEdgeCoverageStrategy,
+            MockCoverageMap::class.java,
+            0,
+            pruneProbes = true,
+        ).instrument(CoverageInstrumentationSpecialCasesTarget::class.java.name.replace('.', '/'), specialCasesBytecode)
+        // Trigger a class load
+        bytecodeToClass(CoverageInstrumentationSpecialCasesTarget::class.java.name, patchedSpecialCasesBytecode)
+            .declaredMethods
+    }
+
+    @Test
+    fun testChainedWithDataFlowTracing() {
+        val originalBytecode = classToBytecode(CoverageInstrumentationSpecialCasesTarget::class.java)
+        // Class files older than Java 6 are instrumented without stack map frames.
+        val java5Bytecode = originalBytecode.copyOf().apply {
+            this[6] = 0
+            this[7] = Opcodes.V1_5.toByte()
+        }
+        for (bytecode in listOf(originalBytecode, java5Bytecode)) {
+            val reader = ClassReader(bytecode)
+            val writer = ClassWriter(reader, ClassWriter.COMPUTE_MAXS)
+            val traceDataFlowVisitor = TraceDataFlowInstrumentor(
+                InstrumentationType.values().toSet(),
+                "com/code_intelligence/jazzer/runtime/TraceDataFlowNativeCallbacks",
+            ).classVisitor(writer)
+            val coverageVisitor = EdgeCoverageInstrumentor(
+                ClassInstrumentor.defaultEdgeCoverageStrategy,
+                MockCoverageMap::class.java,
+                0,
+            ).classVisitor(reader, traceDataFlowVisitor)
+            reader.accept(coverageVisitor, ClassReader.EXPAND_FRAMES)
+            val patchedBytecode = writer.toByteArray()
+            if (bytecode === originalBytecode) {
+                // Trigger a class load
+                bytecodeToClass(CoverageInstrumentationSpecialCasesTarget::class.java.name, patchedBytecode)
+                    .declaredMethods
+            }
+        }
+    }
+
     @Test
     fun testSpecialCases() {
         val originalBytecode = classToBytecode(CoverageInstrumentationSpecialCasesTarget::class.java)
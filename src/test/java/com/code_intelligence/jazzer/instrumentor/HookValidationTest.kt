@@ -13,6 +13,7 @@ package com.code_intelligence.jazzer.instrumentor
 
 import com.code_intelligence.jazzer.api.MethodHook
 import org.junit.Test
+import java.nio.file.Files
 import kotlin.test.assertEquals
 import kotlin.test.assertFailsWith
 
@@ -20,7 +21,38 @@ class HookValidationTest {
     @Test
     fun testValidHooks() {
         val hooks = Hooks.loadHooks(emptyList(), setOf(ValidHookMocks::class.java.name)).first().hooks
-        assertEquals(5, hooks.size)
+        assertEquals(6, hooks.size)
+    }
+
+    @Test
+    fun testHookTargetsFile() {
+        val hookTargetsFile = Files.createTempFile("jazzer-hooks-", "")
+        try {
+            // An empty file is populated with the resolved hook targets.
+            val hooks = Hooks.loadHooks(
+                emptyList(),
+                setOf(ValidHookMocks::class.java.name),
+                hookTargetsFile = hookTargetsFile,
+            ).first().hooks
+            assertEquals(6, hooks.size)
+            assertEquals(listOf("java.lang.String:java.lang.String"), Files.readAllLines(hookTargetsFile))
+
+            // A non-empty file is used instead of scanning the classpath and left unchanged. The hooks are verified
+            // against the cached targets, so they have to be valid for them, but a scan never yields duplicates.
+            Files.write(hookTargetsFile, listOf("java.lang.String:java.lang.String,java.lang.String"))
+            val cachedHooks = Hooks.loadHooks(
+                emptyList(),
+                setOf(ValidHookMocks::class.java.name),
+                hookTargetsFile = hookTargetsFile,
+            ).first().hooks
+            assertEquals(12, cachedHooks.size)
+            assertEquals(
+                listOf("java.lang.String:java.lang.String,java.lang.String"),
+                Files.readAllLines(hookTargetsFile),
+            )
+        } finally {
+            Files.delete(hookTargetsFile)
+        }
     }
 
     @Test
@@ -111,4 +111,33 @@ class InvalidHookMocks {
       Object[] arguments,
       int hookId,
       boolean returnValue) {}
+
+  @MethodHook(type = HookType.AFTER, targetClassName = "java.lang.String", targetMethod = "equals")
+  public static void typedHookWithoutDescriptor(
+      String thisObject, Object other, int hookId, boolean returnValue) {}
+
+  @MethodHook(
+      type = HookType.AFTER,
+      targetClassName = "java.lang.String",
+      targetMethod = "equals",
+      targetMethodDescriptor = "(Ljava/lang/Object;)Z")
+  public static void typedHookWithBoxedReturnValue(
+      String thisObject, Object other, int hookId, Boolean returnValue) {}
+
+  @MethodHook(
+      type = HookType.BEFORE,
+      targetClassName = "java.lang.String",
+      targetMethod = "equalsIgnoreCase",
+      targetMethodDescriptor = "(Ljava/lang/String;)Z")
+  public static void typedHookWithIncompatibleArgument(
+      String thisObject, CharSequence other, int hookId) {}
+
+  @MethodHook(
+      type = HookType.REPLACE,
+      targetClassName = "java.lang.String",
+      targetMethod = "equals",
+      targetMethodDescriptor = "(Ljava/lang/Object;)Z")
+  public static boolean typedReplaceHook(String thisObject, Object other, int hookId) {
+    return true;
+  }
 }
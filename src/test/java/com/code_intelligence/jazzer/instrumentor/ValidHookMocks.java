@@ -26,6 +26,14 @@ class ValidHookMocks {
       int hookId,
       Boolean returnValue) {}
 
+  @MethodHook(
+      type = HookType.AFTER,
+      targetClassName = "java.lang.String",
+      targetMethod = "equals",
+      targetMethodDescriptor = "(Ljava/lang/Object;)Z")
+  public static void validTypedAfterHook(
+      String thisObject, Object other, int hookId, boolean returnValue) {}
+
   @MethodHook(
       type = HookType.REPLACE,
       targetClassName = "java.lang.String",
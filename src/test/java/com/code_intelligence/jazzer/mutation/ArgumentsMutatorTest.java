@@ -12,6 +12,7 @@ package com.code_intelligence.jazzer.mutation;
 import static com.code_intelligence.jazzer.mutation.support.TestSupport.mockPseudoRandom;
 import static com.google.common.truth.Truth.assertThat;
 import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import com.code_intelligence.jazzer.mutation.annotation.NotNull;
 import com.code_intelligence.jazzer.mutation.mutator.Mutators;
@@ -296,6 +297,36 @@ class ArgumentsMutatorTest {
     assertThat((List<Boolean>) arguments[0]).isNotEmpty();
   }
 
+  private static final class FuzzTestException extends RuntimeException {}
+
+  // Package-private and non-void to verify that such methods can be invoked.
+  @SuppressWarnings("SameReturnValue")
+  int throwingFuzzTest(boolean b, String s) {
+    if (b) {
+      throw new FuzzTestException();
+    }
+    return 0;
+  }
+
+  @Test
+  void testInvokePropagatesUnwrappedException() throws NoSuchMethodException {
+    Method method =
+        ArgumentsMutatorTest.class.getDeclaredMethod(
+            "throwingFuzzTest", boolean.class, String.class);
+    ArgumentsMutator mutator = ArgumentsMutator.forMethodOrThrow(method);
+
+    try (MockPseudoRandom prng =
+        mockPseudoRandom(
+            // boolean
+            true,
+            // String null
+            true)) {
+      mutator.init(prng);
+    }
+
+    assertThrows(FuzzTestException.class, () -> mutator.invoke(this, true));
+  }
+
   public static class EmptyBeanWithRuntimeError {
     static boolean throwInConstructor = false;
 
@@ -13,6 +13,7 @@ import static com.code_intelligence.jazzer.mutation.support.TestSupport.mockPseu
 import static com.google.common.truth.Truth.assertThat;
 import static java.util.Collections.emptyList;
 
+import com.code_intelligence.jazzer.mutation.annotation.InRange;
 import com.code_intelligence.jazzer.mutation.annotation.NotNull;
 import com.code_intelligence.jazzer.mutation.annotation.WithSize;
 import com.code_intelligence.jazzer.mutation.api.SerializingMutator;
@@ -21,6 +22,11 @@ import com.code_intelligence.jazzer.mutation.mutator.lang.LangMutators;
 import com.code_intelligence.jazzer.mutation.support.TestSupport.MockPseudoRandom;
 import com.code_intelligence.jazzer.mutation.support.TypeHolder;
 import com.code_intelligence.jazzer.mutation.utils.PropertyConstraint;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.lang.reflect.AnnotatedType;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -43,6 +49,18 @@ public class ListMutatorTest {
     return (SerializingMutator<@NotNull List<@NotNull Integer>>) factory.createOrThrow(type);
   }
 
+  private static List<Integer> readIntegers(
+      SerializingMutator<@NotNull List<@NotNull Integer>> mutator, int... values)
+      throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(values.length);
+    for (int value : values) {
+      out.writeInt(value);
+    }
+    return mutator.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+  }
+
   @Test
   void testInit() {
     SerializingMutator<@NotNull List<@NotNull Integer>> mutator = defaultListMutator();
@@ -311,6 +329,89 @@ public class ListMutatorTest {
     assertThat(list).containsExactly(0, 1, 7, 8, 9, 5, 6, 7, 8, 9).inOrder();
   }
 
+  @Test
+  void testReadWritePrimitiveList() throws IOException {
+    AnnotatedType type =
+        new TypeHolder<
+            @NotNull List<@NotNull @InRange(min = -1, max = 1) Short>>() {}.annotatedType();
+    SerializingMutator<@NotNull List<@NotNull Short>> mutator =
+        (SerializingMutator<@NotNull List<@NotNull Short>>) factory.createOrThrow(type);
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(4);
+    out.writeShort(5);
+    out.writeShort(-300);
+    out.writeShort(300);
+    out.writeShort(1);
+    List<Short> list =
+        mutator.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    assertThat(list).isInstanceOf(PrimitiveList.class);
+    assertThat(list).containsExactly((short) -1, (short) 1, (short) 0, (short) 1).inOrder();
+
+    ByteArrayOutputStream written = new ByteArrayOutputStream();
+    mutator.write(list, new DataOutputStream(written));
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    DataOutputStream expectedOut = new DataOutputStream(expected);
+    expectedOut.writeInt(4);
+    expectedOut.writeShort(-1);
+    expectedOut.writeShort(1);
+    expectedOut.writeShort(0);
+    expectedOut.writeShort(1);
+    assertThat(written.toByteArray()).isEqualTo(expected.toByteArray());
+  }
+
+  @Test
+  void testChangeChunkInPrimitiveList() throws IOException {
+    SerializingMutator<@NotNull List<@NotNull Integer>> mutator = defaultListMutator();
+
+    List<Integer> list = readIntegers(mutator, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11);
+    try (MockPseudoRandom prng =
+        mockPseudoRandom(
+            // action
+            2,
+            // Mutate a chunk instead of a single element.
+            8,
+            // number of elements to mutate
+            2,
+            // first index to mutate at
+            5,
+            // mutation: 0 == bitflip
+            0,
+            // shift constant
+            13,
+            // and again
+            0,
+            12)) {
+      list = mutator.mutate(list, prng);
+    }
+    assertThat(list).isInstanceOf(PrimitiveList.class);
+    assertThat(list).containsExactly(1, 2, 3, 4, 5, 8198, 4103, 8, 9, 10, 11).inOrder();
+  }
+
+  @Test
+  void testCrossOverPrimitiveLists() throws IOException {
+    SerializingMutator<@NotNull List<@NotNull Integer>> mutator = defaultListMutator();
+
+    List<Integer> list = readIntegers(mutator, 0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+    List<Integer> otherList = readIntegers(mutator, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19);
+    try (MockPseudoRandom prng =
+        mockPseudoRandom(
+            // overwrite action
+            1,
+            // chunk size
+            3,
+            // fromPos
+            2,
+            // toPos
+            5)) {
+      list = mutator.crossOver(list, otherList, prng);
+    }
+    assertThat(list).isInstanceOf(PrimitiveList.class);
+    assertThat(list).containsExactly(0, 1, 2, 3, 4, 12, 13, 14, 8, 9).inOrder();
+    assertThat(otherList).containsExactly(10, 11, 12, 13, 14, 15, 16, 17, 18, 19).inOrder();
+  }
+
   @Test
   void propagateConstraint() {
     SerializingMutator<@NotNull List<List<Integer>>> mutator =
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2024 Code Intelligence GmbH
+ *
+ * By downloading, you agree to the Code Intelligence Jazzer Terms and Conditions.
+ *
+ * The Code Intelligence Jazzer Terms and Conditions are provided in LICENSE-JAZZER.txt
+ * located in the root directory of the project.
+ */
+
+package com.code_intelligence.jazzer.mutation.mutator.collection;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+@SuppressWarnings("unchecked")
+class PrimitiveListTest {
+  private static <T extends Number> PrimitiveList<T> newList(Class<T> elementClass) {
+    return (PrimitiveList<T>) PrimitiveList.constructorFor(elementClass).get().apply(0);
+  }
+
+  @Test
+  void testConstructorFor() {
+    assertThat(PrimitiveList.constructorFor(Byte.class).isPresent()).isTrue();
+    assertThat(PrimitiveList.constructorFor(Short.class).isPresent()).isTrue();
+    assertThat(PrimitiveList.constructorFor(Integer.class).isPresent()).isTrue();
+    assertThat(PrimitiveList.constructorFor(Long.class).isPresent()).isTrue();
+    assertThat(PrimitiveList.constructorFor(Character.class).isPresent()).isFalse();
+    assertThat(PrimitiveList.constructorFor(int.class).isPresent()).isFalse();
+  }
+
+  @Test
+  void testListOperations() {
+    PrimitiveList<Integer> list = newList(Integer.class);
+    List<Integer> expected = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      list.add(i);
+      expected.add(i);
+    }
+    list.add(3, -1);
+    expected.add(3, -1);
+    list.remove(10);
+    expected.remove(10);
+    list.set(0, Integer.MIN_VALUE);
+    expected.set(0, Integer.MIN_VALUE);
+    list.subList(5, 8).clear();
+    expected.subList(5, 8).clear();
+    list.addAll(2, Arrays.asList(100, 101));
+    expected.addAll(2, Arrays.asList(100, 101));
+
+    assertThat(list).containsExactlyElementsIn(expected).inOrder();
+    assertThat(list.equals(expected)).isTrue();
+    assertThat(list.hashCode()).isEqualTo(expected.hashCode());
+    assertThat(list.getLong(0)).isEqualTo((long) Integer.MIN_VALUE);
+    assertThrows(IndexOutOfBoundsException.class, () -> list.get(list.size()));
+    assertThrows(IndexOutOfBoundsException.class, () -> list.add(list.size() + 1, 0));
+  }
+
+  @Test
+  void testInsert() {
+    PrimitiveList<Long> list = newList(Long.class);
+    list.insertCopies(0, 3, 7);
+    list.insertCopies(1, 2, Long.MAX_VALUE);
+    assertThat(list).containsExactly(7L, Long.MAX_VALUE, Long.MAX_VALUE, 7L, 7L).inOrder();
+
+    // Inserting a range of a list into itself has to copy the range before moving it.
+    list.insertRange(1, list, 0, 3);
+    assertThat(list)
+        .containsExactly(
+            7L, 7L, Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, 7L, 7L)
+        .inOrder();
+
+    PrimitiveList<Long> copy = list.copy();
+    list.addAll(list);
+    assertThat(list).hasSize(16);
+    assertThat(copy).hasSize(8);
+    assertThat(list.subList(8, 16)).containsExactlyElementsIn(copy).inOrder();
+  }
+
+  @Test
+  void testReadWriteElements() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeByte(-2);
+    out.writeShort(-300);
+    out.writeShort(300);
+    out.writeInt(Integer.MAX_VALUE);
+    out.writeLong(Long.MIN_VALUE);
+    out.writeLong(1);
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+
+    PrimitiveList<Byte> byteList = newList(Byte.class);
+    byteList.readElements(in, 1);
+    PrimitiveList<Short> shortList = newList(Short.class);
+    shortList.readElements(in, 2);
+    PrimitiveList<Integer> intList = newList(Integer.class);
+    intList.readElements(in, 1);
+    PrimitiveList<Long> longList = newList(Long.class);
+    longList.readElements(in, 2);
+
+    assertThat(byteList).containsExactly((byte) -2);
+    assertThat(shortList).containsExactly((short) -300, (short) 300).inOrder();
+    assertThat(intList).containsExactly(Integer.MAX_VALUE);
+    assertThat(longList).containsExactly(Long.MIN_VALUE, 1L).inOrder();
+
+    ByteArrayOutputStream written = new ByteArrayOutputStream();
+    DataOutputStream writtenOut = new DataOutputStream(written);
+    byteList.writeElements(writtenOut);
+    shortList.writeElements(writtenOut);
+    intList.writeElements(writtenOut);
+    longList.writeElements(writtenOut);
+    assertThat(written.toByteArray()).isEqualTo(bytes.toByteArray());
+  }
+}
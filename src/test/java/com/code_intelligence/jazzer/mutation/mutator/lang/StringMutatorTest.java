@@ -27,6 +27,9 @@ import com.code_intelligence.jazzer.mutation.support.RandomSupport;
 import com.code_intelligence.jazzer.mutation.support.TestSupport.MockPseudoRandom;
 import com.code_intelligence.jazzer.mutation.support.TypeHolder;
 import com.google.protobuf.ByteString;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.SplittableRandom;
@@ -245,6 +248,39 @@ class StringMutatorTest {
     assertThat(s).isEqualTo("foobarÖÖ");
   }
 
+  @Test
+  void testMutateKeepsOtherReferencesIntact() throws IOException {
+    SerializingMutator<String> mutator =
+        (SerializingMutator<String>)
+            factory.createOrThrow(
+                new TypeHolder<
+                    @NotNull @WithUtf8Length(min = 3, max = 3) String>() {}.annotatedType());
+
+    String s;
+    try (MockPseudoRandom prng = mockPseudoRandom(3, "abc".getBytes())) {
+      s = mutator.init(prng);
+    }
+    assertThat(s).isEqualTo("abc");
+
+    // The string already has the maximum length, so its bytes are mutated in place.
+    String mutated;
+    try (MockPseudoRandom prng = mockPseudoRandom()) {
+      mutated = mutator.mutate(s, prng);
+    }
+    assertThat(mutated).isEqualTo("bdf");
+    String mutatedAgain;
+    try (MockPseudoRandom prng = mockPseudoRandom()) {
+      mutatedAgain = mutator.mutate(s, prng);
+    }
+    assertThat(mutatedAgain).isEqualTo("bdf");
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    mutator.writeExclusive(s, out);
+    mutator.writeExclusive(mutated, out);
+    mutator.write(mutatedAgain, new DataOutputStream(out));
+    assertThat(out.toString("UTF-8")).isEqualTo("abcbdf\0\0\0\3bdf");
+  }
+
   private static boolean isValidUtf8(byte[] data) {
     return ByteString.copyFrom(data).isValidUtf8();
   }
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2024 Code Intelligence GmbH
+ *
+ * By downloading, you agree to the Code Intelligence Jazzer Terms and Conditions.
+ *
+ * The Code Intelligence Jazzer Terms and Conditions are provided in LICENSE-JAZZER.txt
+ * located in the root directory of the project.
+ */
+
+package com.code_intelligence.jazzer.runtime;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.Test;
+
+public class MapKeyIndexTest {
+  private static Object[] bracket(Map<?, ?> map, Object key) {
+    Object[] bounds = MapKeyIndex.findBracketingKeys(map, key);
+    assertNotNull(bounds);
+    return bounds.clone();
+  }
+
+  @Test
+  public void findsBracketingKeys() {
+    Map<String, Integer> map = new HashMap<>();
+    map.put("apple", 1);
+    map.put("cherry", 2);
+    map.put("melon", 3);
+
+    assertArrayEquals(new Object[] {"apple", "cherry"}, bracket(map, "banana"));
+    assertArrayEquals(new Object[] {null, "apple"}, bracket(map, "aardvark"));
+    assertArrayEquals(new Object[] {"melon", null}, bracket(map, "zucchini"));
+  }
+
+  @Test
+  public void updatesAfterModification() {
+    Map<String, Integer> map = new HashMap<>();
+    map.put("apple", 1);
+    map.put("melon", 3);
+    assertArrayEquals(new Object[] {"apple", "melon"}, bracket(map, "banana"));
+
+    map.put("cherry", 2);
+    assertArrayEquals(new Object[] {"apple", "cherry"}, bracket(map, "banana"));
+
+    // Keeps the size the same.
+    map.remove("apple");
+    map.put("avocado", 4);
+    assertArrayEquals(new Object[] {"avocado", "cherry"}, bracket(map, "banana"));
+  }
+
+  @Test
+  public void isIndependentOfIterationOrder() {
+    Map<Integer, Integer> ascending = new LinkedHashMap<>();
+    Map<Integer, Integer> descending = new LinkedHashMap<>();
+    for (int i = 0; i < 1000; i++) {
+      ascending.put(2 * i, i);
+      descending.put(2 * (999 - i), i);
+    }
+
+    assertArrayEquals(new Object[] {1000, 1002}, bracket(ascending, 1001));
+    assertArrayEquals(new Object[] {1000, 1002}, bracket(descending, 1001));
+  }
+
+  @Test
+  public void ignoresIncomparableLookupKey() {
+    Map<String, Integer> map = new HashMap<>();
+    map.put("apple", 1);
+
+    assertArrayEquals(new Object[] {null, null}, bracket(map, 42));
+  }
+
+  @Test
+  public void rejectsUnsortableKeys() {
+    Map<Object, Integer> map = new HashMap<>();
+    map.put("apple", 1);
+    map.put(42, 2);
+
+    assertNull(MapKeyIndex.findBracketingKeys(map, "banana"));
+  }
+
+  @Test
+  public void rejectsLargeMaps() {
+    Map<Integer, Integer> map = new HashMap<>();
+    for (int i = 0; i <= MapKeyIndex.MAX_NUM_KEYS_TO_INDEX; i++) {
+      map.put(i, i);
+    }
+
+    assertNull(MapKeyIndex.findBracketingKeys(map, -1));
+  }
+
+  @Test
+  public void reusesBoundsForMissedKeys() {
+    Map<String, Integer> map = new HashMap<>();
+    map.put("apple", 1);
+    map.put("melon", 3);
+
+    Object[] bounds = MapKeyIndex.findBracketingKeys(map, "banana");
+    assertSame(bounds, MapKeyIndex.findBracketingKeys(map, "zucchini"));
+    assertArrayEquals(new Object[] {"melon", null}, bounds);
+  }
+}
@@ -38,7 +38,7 @@ public class TraceCmpHooksTest {
 
     // Call hook
     for (int i = 0; i < 1_000; i++) {
-      TraceCmpHooks.mapGet(null, map, new Object[] {arg}, 1, null);
+      TraceCmpHooks.mapGet(map, arg, 1, null);
     }
 
     ES.shutdown();
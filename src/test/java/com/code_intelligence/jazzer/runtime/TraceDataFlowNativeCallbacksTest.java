@@ -0,0 +1,50 @@
+/*
+ * Copyright 2024 Code Intelligence GmbH
+ *
+ * By downloading, you agree to the Code Intelligence Jazzer Terms and Conditions.
+ *
+ * The Code Intelligence Jazzer Terms and Conditions are provided in LICENSE-JAZZER.txt
+ * located in the root directory of the project.
+ */
+
+package com.code_intelligence.jazzer.runtime;
+
+import static com.code_intelligence.jazzer.runtime.TraceDataFlowNativeCallbacks.MAX_ENCODED_LENGTH;
+import static org.junit.Assert.assertArrayEquals;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+
+public class TraceDataFlowNativeCallbacksTest {
+  private static final Charset CESU8 = Charset.forName("CESU8");
+
+  // Characters that are encoded on one, two and three bytes as well as surrogates, which may or may
+  // not form a pair.
+  private static final char[] ALPHABET = {
+    'a', 'Z', '\0', '\u007f', '\u00e4', '\u00ff', '\u07ff', '\u0800', '\u20ac', '\uffff',
+    '\ud83d', '\ude00', '\udbff', '\udc00',
+  };
+
+  @Test
+  public void encodeForLibFuzzerMatchesCesu8Prefix() {
+    Random random = new Random(1234);
+    byte[] buffer = new byte[MAX_ENCODED_LENGTH + 2];
+    for (int i = 0; i < 100_000; i++) {
+      char[] chars = new char[random.nextInt(100)];
+      for (int j = 0; j < chars.length; j++) {
+        chars[j] = ALPHABET[random.nextInt(ALPHABET.length)];
+      }
+      String str = new String(chars);
+      byte[] expected = str.getBytes(CESU8);
+      expected = Arrays.copyOf(expected, Math.min(expected.length, MAX_ENCODED_LENGTH));
+
+      int length = TraceDataFlowNativeCallbacks.encodeForLibFuzzer(str, buffer);
+      assertArrayEquals(str, expected, Arrays.copyOf(buffer, length));
+
+      length = TraceDataFlowNativeCallbacks.encodeForLibFuzzer(new StringBuilder(str), buffer);
+      assertArrayEquals(str, expected, Arrays.copyOf(buffer, length));
+    }
+  }
+}